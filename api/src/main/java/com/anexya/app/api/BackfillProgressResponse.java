@@ -0,0 +1,9 @@
+package com.anexya.app.api;
+
+import java.util.List;
+
+import lombok.Builder;
+
+@Builder
+public record BackfillProgressResponse(long offset, long loaded, long rejected, List<String> errors, boolean done) {
+}
@@ -0,0 +1,9 @@
+package com.anexya.app.api;
+
+import java.util.List;
+
+import lombok.Builder;
+
+@Builder
+public record BatchCreateResponse(int saved, int suppressed, int rejected, int failed, List<BatchItemResponse> results) {
+}
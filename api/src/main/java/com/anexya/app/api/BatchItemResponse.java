@@ -0,0 +1,9 @@
+package com.anexya.app.api;
+
+import java.util.UUID;
+
+import lombok.Builder;
+
+@Builder
+public record BatchItemResponse(int index, UUID id, String status, String error) {
+}
@@ -0,0 +1,11 @@
+package com.anexya.app.api;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Builder;
+
+@Builder
+public record CurrentStateBatchRequest(@NotEmpty List<@NotBlank String> epcs) {
+}
@@ -0,0 +1,17 @@
+package com.anexya.app.api;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Builder;
+
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DimensionSummaryResponse(String siteName,
+                                       String location,
+                                       long totalReadCount,
+                                       double averageRssi,
+                                       double peakRssi,
+                                       long epcCount,
+                                       String firstSeen,
+                                       String lastSeen) {
+}
@@ -0,0 +1,13 @@
+package com.anexya.app.api;
+
+import lombok.Builder;
+
+@Builder
+public record DwellSummaryResponse(String siteName,
+                                   String location,
+                                   long visitCount,
+                                   long epcCount,
+                                   double averageDwellSeconds,
+                                   double maxDwellSeconds,
+                                   double totalDwellSeconds) {
+}
@@ -0,0 +1,21 @@
+package com.anexya.app.api;
+
+import java.time.Instant;
+import java.util.List;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Builder;
+
+/**
+ * Body of {@code POST /api/tag-reads/search/batch}; {@code fields} uses the same comma-separated names as the
+ * {@code fields} search parameter and {@code limitPerEpc} defaults to 100.
+ */
+@Builder
+public record EpcBatchSearchRequest(@NotEmpty List<@NotBlank String> epcs,
+                                    String siteName,
+                                    Instant from,
+                                    Instant to,
+                                    String fields,
+                                    Integer limitPerEpc) {
+}
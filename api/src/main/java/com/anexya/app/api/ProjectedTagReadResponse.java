@@ -0,0 +1,18 @@
+package com.anexya.app.api;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Builder;
+
+/**
+ * A search result limited to the requested {@code fields}. Attributes that were not requested are left out instead of
+ * being written as {@code null}. Every column of a stored read is non-null, so a search without {@code fields} writes
+ * the same JSON as {@link TagReadResponse}, which every other endpoint keeps returning.
+ */
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ProjectedTagReadResponse(UUID id, String siteName, String epc, String referenceCode, String location, Double rssi, Instant readAt) {
+}
@@ -0,0 +1,23 @@
+package com.anexya.app.api;
+
+import java.util.UUID;
+
+import com.anexya.app.domain.SummaryJobStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Builder;
+
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SummaryJobResponse(UUID id,
+                                 SummaryJobStatus status,
+                                 String startDate,
+                                 String endDate,
+                                 String siteName,
+                                 String epc,
+                                 String submittedAt,
+                                 String startedAt,
+                                 String finishedAt,
+                                 Long resultCount,
+                                 String error) {
+}
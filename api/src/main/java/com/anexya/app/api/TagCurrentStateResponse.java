@@ -0,0 +1,10 @@
+package com.anexya.app.api;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import lombok.Builder;
+
+@Builder
+public record TagCurrentStateResponse(String epc, String siteName, String location, double rssi, Instant readAt, UUID tagReadId) {
+}
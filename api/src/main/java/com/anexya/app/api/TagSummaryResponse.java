@@ -1,8 +1,15 @@
 package com.anexya.app.api;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import lombok.Builder;
 
+/**
+ * {@code rssiP50}/{@code rssiP90}/{@code rssiP99} are only present with the {@code rollup} strategy; each is within 1%
+ * of the RSSI of an actual read at that rank: at -70 dBm, within 0.7 dB.
+ */
 @Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record TagSummaryResponse(String epc,
                                  long totalReadCount,
                                  double averageRssi,
@@ -10,5 +17,8 @@ public record TagSummaryResponse(String epc,
                                  long locationCount,
                                  String mostDetectedLocation,
                                  String firstSeen,
-                                 String lastSeen) {
+                                 String lastSeen,
+                                 Double rssiP50,
+                                 Double rssiP90,
+                                 Double rssiP99) {
 }
@@ -0,0 +1,16 @@
+package com.anexya.app.api;
+
+import lombok.Builder;
+
+@Builder
+public record TagVisitResponse(String epc,
+                               String siteName,
+                               String location,
+                               String enterAt,
+                               String exitAt,
+                               double dwellSeconds,
+                               long readCount,
+                               double averageRssi,
+                               double peakRssi,
+                               boolean open) {
+}
@@ -0,0 +1,7 @@
+package com.anexya.app.api;
+
+import lombok.Builder;
+
+@Builder
+public record TimeseriesBucketResponse(String bucketStart, long readCount, double averageRssi, double peakRssi, long epcCount) {
+}
@@ -0,0 +1,14 @@
+package com.anexya.app.api.mapper;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import com.anexya.app.api.DimensionSummaryResponse;
+import com.anexya.app.domain.DimensionSummary;
+
+@Mapper(componentModel = "spring")
+public interface DimensionSummaryMapper {
+    @Mapping(target = "firstSeen", expression = "java(summary.firstSeen() != null ? summary.firstSeen().toString() : null)")
+    @Mapping(target = "lastSeen", expression = "java(summary.lastSeen() != null ? summary.lastSeen().toString() : null)")
+    DimensionSummaryResponse toResponse(DimensionSummary summary);
+}
@@ -0,0 +1,17 @@
+package com.anexya.app.api.mapper;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import com.anexya.app.api.SummaryJobResponse;
+import com.anexya.app.domain.SummaryJob;
+
+@Mapper(componentModel = "spring")
+public interface SummaryJobMapper {
+    @Mapping(target = "startDate", expression = "java(job.startDate() != null ? job.startDate().toString() : null)")
+    @Mapping(target = "endDate", expression = "java(job.endDate() != null ? job.endDate().toString() : null)")
+    @Mapping(target = "submittedAt", expression = "java(job.submittedAt() != null ? job.submittedAt().toString() : null)")
+    @Mapping(target = "startedAt", expression = "java(job.startedAt() != null ? job.startedAt().toString() : null)")
+    @Mapping(target = "finishedAt", expression = "java(job.finishedAt() != null ? job.finishedAt().toString() : null)")
+    SummaryJobResponse toResponse(SummaryJob job);
+}
@@ -0,0 +1,11 @@
+package com.anexya.app.api.mapper;
+
+import org.mapstruct.Mapper;
+
+import com.anexya.app.api.TagCurrentStateResponse;
+import com.anexya.app.domain.TagCurrentState;
+
+@Mapper(componentModel = "spring")
+public interface TagCurrentStateMapper {
+    TagCurrentStateResponse toResponse(TagCurrentState state);
+}
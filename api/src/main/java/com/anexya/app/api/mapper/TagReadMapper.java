@@ -2,10 +2,13 @@ package com.anexya.app.api.mapper;
 
 import org.mapstruct.Mapper;
 
+import com.anexya.app.api.ProjectedTagReadResponse;
 import com.anexya.app.api.TagReadResponse;
 import com.anexya.app.domain.TagRead;
 
 @Mapper(componentModel = "spring")
 public interface TagReadMapper {
     TagReadResponse toResponse(TagRead tagRead);
+
+    ProjectedTagReadResponse toProjectedResponse(TagRead tagRead);
 }
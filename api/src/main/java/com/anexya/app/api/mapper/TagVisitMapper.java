@@ -0,0 +1,19 @@
+package com.anexya.app.api.mapper;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import com.anexya.app.api.DwellSummaryResponse;
+import com.anexya.app.api.TagVisitResponse;
+import com.anexya.app.domain.DwellSummary;
+import com.anexya.app.domain.TagVisit;
+
+@Mapper(componentModel = "spring")
+public interface TagVisitMapper {
+    @Mapping(target = "enterAt", expression = "java(visit.enterAt() != null ? visit.enterAt().toString() : null)")
+    @Mapping(target = "exitAt", expression = "java(visit.exitAt() != null ? visit.exitAt().toString() : null)")
+    @Mapping(target = "dwellSeconds", expression = "java(visit.dwell().toNanos() / 1e9)")
+    TagVisitResponse toResponse(TagVisit visit);
+
+    DwellSummaryResponse toResponse(DwellSummary summary);
+}
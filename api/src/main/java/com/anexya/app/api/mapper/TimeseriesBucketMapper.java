@@ -0,0 +1,13 @@
+package com.anexya.app.api.mapper;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import com.anexya.app.api.TimeseriesBucketResponse;
+import com.anexya.app.domain.TimeseriesBucket;
+
+@Mapper(componentModel = "spring")
+public interface TimeseriesBucketMapper {
+    @Mapping(target = "bucketStart", expression = "java(bucket.bucketStart() != null ? bucket.bucketStart().toString() : null)")
+    TimeseriesBucketResponse toResponse(TimeseriesBucket bucket);
+}
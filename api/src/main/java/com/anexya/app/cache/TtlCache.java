@@ -0,0 +1,172 @@
+package com.anexya.app.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Bounded in-process cache whose entries expire a fixed time after they were loaded. When full, the least recently
+ * used entry is evicted. Loaders run outside the lock, so two concurrent misses on the same key may both load; a load
+ * that overlaps a put or invalidation of its key is returned but not cached, since it may have read the replaced value.
+ * Publishes {@code cache.gets} (tagged {@code result=hit|miss}), {@code cache.evictions} and {@code cache.size}, all
+ * tagged with the cache name.
+ */
+public final class TtlCache<K, V> {
+    private static final int GENERATION_STRIPES = 64;
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    // bumped by every put or invalidation of a key in the stripe; guarded by this
+    private final long[] generations = new long[GENERATION_STRIPES];
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    public TtlCache(String name, int maxEntries, Duration ttl, MeterRegistry meterRegistry) {
+        this(name, maxEntries, ttl, meterRegistry, Clock.systemUTC());
+    }
+
+    public TtlCache(String name, int maxEntries, Duration ttl, MeterRegistry meterRegistry, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.hits = Counter.builder("cache.gets")
+                           .tag("cache", name)
+                           .tag("result", "hit")
+                           .register(meterRegistry);
+        this.misses = Counter.builder("cache.gets")
+                             .tag("cache", name)
+                             .tag("result", "miss")
+                             .register(meterRegistry);
+        this.evictions = Counter.builder("cache.evictions")
+                                .tag("cache", name)
+                                .register(meterRegistry);
+        Gauge.builder("cache.size", this, TtlCache::size)
+             .tag("cache", name)
+             .register(meterRegistry);
+    }
+
+    public Optional<V> getIfPresent(K key) {
+        final long now = clock.millis();
+        synchronized (this) {
+            final Entry<V> entry = entries.get(key);
+            if (entry != null && entry.expiresAt() > now) {
+                hits.increment();
+                return Optional.of(entry.value());
+            }
+            if (entry != null) {
+                entries.remove(key);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        final Optional<V> cached = getIfPresent(key);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        final long generation = generation(key);
+        final V loaded = loader.apply(key);
+        if (loaded != null) {
+            putIfUnchanged(key, loaded, generation);
+        }
+        return loaded;
+    }
+
+    public void put(K key, V value) {
+        final long now = clock.millis();
+        synchronized (this) {
+            generations[stripe(key)]++;
+            store(key, value, now);
+        }
+    }
+
+    /**
+     * Returns the token to pass to {@link #putIfUnchanged(Object, Object, long)}; take it before reading the value
+     * from its source.
+     */
+    public synchronized long generation(K key) {
+        return generations[stripe(key)];
+    }
+
+    /**
+     * Caches {@code value} only if {@code key} has not been put or invalidated since {@link #generation(Object)}
+     * returned {@code generation} (keys sharing its stripe count too). Returns whether it was cached.
+     */
+    public boolean putIfUnchanged(K key, V value, long generation) {
+        final long now = clock.millis();
+        synchronized (this) {
+            final int stripe = stripe(key);
+            if (generations[stripe] != generation) {
+                return false;
+            }
+            generations[stripe]++;
+            store(key, value, now);
+            return true;
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        generations[stripe(key)]++;
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations[i]++;
+        }
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void store(K key, V value, long now) {
+        entries.put(key, new Entry<>(value, now + ttlMillis));
+        if (entries.size() > maxEntries) {
+            evictExpired(now);
+        }
+        final Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet()
+                                                               .iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private static int stripe(Object key) {
+        final int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    private void evictExpired(long now) {
+        final Iterator<Entry<V>> values = entries.values()
+                                                 .iterator();
+        while (values.hasNext()) {
+            if (values.next()
+                      .expiresAt() <= now) {
+                values.remove();
+                evictions.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.anexya.app.cloud.local;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.anexya.app.cloud.KeyManagementService;
+
+/**
+ * In-process stand-in for a cloud KMS, for local runs and tests. Encrypts with AES-GCM under a master key taken from
+ * {@code app.kms.local.master-key} (base64, 32 bytes); without one a random key is generated and anything encrypted
+ * is unreadable after a restart. The key id is bound as associated data, as a real KMS would bind it.
+ */
+@Component
+@Profile("local-kms")
+public class LocalKeyManagementService implements KeyManagementService {
+    private static final Logger log = LoggerFactory.getLogger(LocalKeyManagementService.class);
+    private static final int IV_BYTES = 12;
+
+    private final SecureRandom random = new SecureRandom();
+    private final SecretKeySpec masterKey;
+
+    public LocalKeyManagementService(@Value("${app.kms.local.master-key:}") String masterKey) {
+        final byte[] raw;
+        if (masterKey == null || masterKey.isBlank()) {
+            log.warn("app.kms.local.master-key is not set; using an ephemeral master key");
+            raw = new byte[32];
+            random.nextBytes(raw);
+        } else {
+            raw = Base64.getDecoder()
+                        .decode(masterKey);
+        }
+        this.masterKey = new SecretKeySpec(raw, "AES");
+    }
+
+    @Override
+    public byte[] encrypt(byte[] plaintext, String keyId) {
+        final byte[] iv = new byte[IV_BYTES];
+        random.nextBytes(iv);
+        final byte[] ciphertext = crypt(Cipher.ENCRYPT_MODE, iv, keyId, plaintext);
+        return ByteBuffer.allocate(IV_BYTES + ciphertext.length)
+                         .put(iv)
+                         .put(ciphertext)
+                         .array();
+    }
+
+    @Override
+    public byte[] decrypt(byte[] ciphertext, String keyId) {
+        final ByteBuffer in = ByteBuffer.wrap(ciphertext);
+        final byte[] iv = new byte[IV_BYTES];
+        in.get(iv);
+        final byte[] body = new byte[in.remaining()];
+        in.get(body);
+        return crypt(Cipher.DECRYPT_MODE, iv, keyId, body);
+    }
+
+    private byte[] crypt(int mode, byte[] iv, String keyId, byte[] input) {
+        try {
+            final Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(mode, masterKey, new GCMParameterSpec(128, iv));
+            cipher.updateAAD(keyId.getBytes(StandardCharsets.UTF_8));
+            return cipher.doFinal(input);
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException(mode == Cipher.ENCRYPT_MODE ? "Local KMS encrypt failed" : "Local KMS decrypt failed", e);
+        }
+    }
+}
@@ -1,11 +1,72 @@
 package com.anexya.app.config;
 
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
 
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * The application pool is built from {@code spring.datasource.*} as Spring Boot would, and stays the primary
+ * {@code DataSource}. The backfill loader gets a separate small pool, the only one whose connections allow
+ * {@code LOAD DATA LOCAL INFILE}, so no other connection can be asked by the server to send a client file. Summary jobs
+ * get their own small pool as well, with {@code app.summary-jobs.socket-timeout} instead of the application's socket
+ * timeout, so a long report neither takes interactive connections nor dies while MySQL computes its aggregate.
+ */
 @Configuration
 @Profile({"mysql", "MYSQL"})
 public class MysqlDataSourceConfig {
-    // No custom beans needed; Spring Boot auto-configures DataSource based on
-    // application properties for the 'mysql' profile.
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder()
+                         .type(HikariDataSource.class)
+                         .build();
+    }
+
+    @Bean
+    public HikariDataSource bulkLoadDataSource(DataSourceProperties properties, @Value("${app.backfill.loader-pool-size:2}") int poolSize) {
+        final String url = properties.determineUrl();
+        final HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                                                      .type(HikariDataSource.class)
+                                                      .url(url + (url.contains("?") ? "&" : "?") + "allowLoadLocalInfile=true")
+                                                      .build();
+        dataSource.setPoolName("bulk-load");
+        dataSource.setMaximumPoolSize(poolSize);
+        dataSource.setMinimumIdle(0);
+        return dataSource;
+    }
+
+    /**
+     * Two connections per job: one streams the report while the other stores its chunks.
+     */
+    @Bean
+    public HikariDataSource summaryJobDataSource(DataSourceProperties properties,
+                                                 @Value("${app.summary-jobs.parallelism:2}") int parallelism,
+                                                 @Value("${app.summary-jobs.socket-timeout:0s}") Duration socketTimeout) {
+        final HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                                                      .type(HikariDataSource.class)
+                                                      .url(withSocketTimeout(properties.determineUrl(), socketTimeout))
+                                                      .build();
+        dataSource.setPoolName("summary-jobs");
+        dataSource.setMaximumPoolSize(2 * parallelism);
+        dataSource.setMinimumIdle(0);
+        return dataSource;
+    }
+
+    /**
+     * Replaces any {@code socketTimeout} in {@code url}; zero means no timeout.
+     */
+    static String withSocketTimeout(String url, Duration socketTimeout) {
+        final String stripped = url.replaceAll("([?&])socketTimeout=[^&]*&?", "$1")
+                                   .replaceAll("[?&]$", "");
+        return stripped + (stripped.contains("?") ? "&" : "?") + "socketTimeout=" + socketTimeout.toMillis();
+    }
 }
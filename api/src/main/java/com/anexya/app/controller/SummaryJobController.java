@@ -0,0 +1,92 @@
+package com.anexya.app.controller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.anexya.app.api.SummaryJobResponse;
+import com.anexya.app.api.mapper.SummaryJobMapper;
+import com.anexya.app.api.mapper.TagSummaryMapper;
+import com.anexya.app.domain.SummaryJob;
+import com.anexya.app.domain.SummaryJobStatus;
+import com.anexya.app.service.SummaryJobService;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Asynchronous {@code summary/by-epc}: submit a job, poll it, then download its rows as NDJSON once it is done.
+ */
+@RestController
+@RequestMapping("/api/tag-reads/summary")
+@RequiredArgsConstructor
+public class SummaryJobController {
+    private final SummaryJobService summaryJobService;
+    private final SummaryJobMapper summaryJobMapper;
+    private final TagSummaryMapper tagSummaryMapper;
+    private final ObjectMapper objectMapper;
+
+    @PostMapping("/by-epc/jobs")
+    public ResponseEntity<SummaryJobResponse> submit(@RequestParam("startDate") Instant startDate,
+                                                     @RequestParam("endDate") Instant endDate,
+                                                     @RequestParam(value = "siteName", required = false) String siteName,
+                                                     @RequestParam(value = "epc", required = false) String epc) {
+        final SummaryJob job = summaryJobService.submit(startDate, endDate, Optional.ofNullable(siteName), Optional.ofNullable(epc));
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                             .location(URI.create("/api/tag-reads/summary/jobs/" + job.id()))
+                             .body(summaryJobMapper.toResponse(job));
+    }
+
+    @GetMapping("/jobs/{id}")
+    public SummaryJobResponse get(@PathVariable UUID id) {
+        return summaryJobMapper.toResponse(summaryJobService.get(id));
+    }
+
+    @DeleteMapping("/jobs/{id}")
+    public SummaryJobResponse cancel(@PathVariable UUID id) {
+        return summaryJobMapper.toResponse(summaryJobService.cancel(id));
+    }
+
+    @GetMapping("/jobs/{id}/result")
+    public void result(@PathVariable UUID id, HttpServletResponse response) throws IOException {
+        final SummaryJob job = summaryJobService.get(id);
+        if (job.status() != SummaryJobStatus.DONE) {
+            response.setStatus(HttpStatus.CONFLICT.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), summaryJobMapper.toResponse(job));
+            return;
+        }
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        try (JsonGenerator generator = objectMapper.createGenerator(response.getOutputStream(), JsonEncoding.UTF8)) {
+            generator.setRootValueSeparator(null);
+            summaryJobService.streamResult(id, summary -> {
+                try {
+                    generator.writeObject(tagSummaryMapper.toResponse(summary));
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
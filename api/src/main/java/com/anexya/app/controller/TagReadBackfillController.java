@@ -0,0 +1,66 @@
+package com.anexya.app.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.anexya.app.api.BackfillProgressResponse;
+import com.anexya.app.domain.BackfillProgress;
+import com.anexya.app.service.TagReadBackfillService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Bulk CSV backfill. Streams one NDJSON progress line per committed chunk; after a failure, resend the file with
+ * {@code offset} set to the last reported offset.
+ */
+@RestController
+@RequestMapping("/api/tag-reads/backfill")
+@RequiredArgsConstructor
+public class TagReadBackfillController {
+    private final TagReadBackfillService backfillService;
+    private final ObjectMapper objectMapper;
+
+    @PostMapping(consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE}, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void backfill(@RequestParam(value = "offset", defaultValue = "0") long offset, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        final OutputStream out = response.getOutputStream();
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        try {
+            backfillService.load(request.getInputStream(), offset, progress -> write(out, progress));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void write(OutputStream out, BackfillProgress progress) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(toResponse(progress)));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static BackfillProgressResponse toResponse(BackfillProgress progress) {
+        return BackfillProgressResponse.builder()
+                                       .offset(progress.offset())
+                                       .loaded(progress.loaded())
+                                       .rejected(progress.rejected())
+                                       .errors(progress.errors())
+                                       .done(progress.done())
+                                       .build();
+    }
+}
@@ -0,0 +1,167 @@
+package com.anexya.app.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.anexya.app.api.BatchCreateResponse;
+import com.anexya.app.api.BatchItemResponse;
+import com.anexya.app.api.CreateTagReadRequest;
+import com.anexya.app.api.mapper.TagReadRequestMapper;
+import com.anexya.app.domain.TagReadCreate;
+import com.anexya.app.domain.TagReadWriteResult;
+import com.anexya.app.service.TagReadService;
+import com.anexya.app.util.BoundedLineReader;
+import com.anexya.app.web.InvalidRequestException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+
+@Component
+@RequiredArgsConstructor
+public class TagReadBatchIngestor {
+    private final TagReadService tagReadService;
+    private final TagReadRequestMapper tagReadRequestMapper;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.ingest.max-batch-items:5000}")
+    private int maxBatchItems;
+
+    @Value("${app.ingest.stream-chunk-size:500}")
+    private int streamChunkSize;
+
+    @Value("${app.ingest.max-line-length:16384}")
+    private int maxLineLength;
+
+    private record Item(int index, CreateTagReadRequest request, String error) {
+    }
+
+    public BatchCreateResponse ingest(List<CreateTagReadRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new InvalidRequestException("Batch must contain at least one item");
+        }
+        if (requests.size() > maxBatchItems) {
+            throw new InvalidRequestException("Batch exceeds the maximum of " + maxBatchItems + " items");
+        }
+        return toResponse(write(IntStream.range(0, requests.size())
+                                         .mapToObj(i -> new Item(i, requests.get(i), null))
+                                         .toList()));
+    }
+
+    public void ingestNdjson(InputStream body, OutputStream out) throws IOException {
+        final BoundedLineReader reader = new BoundedLineReader(new InputStreamReader(body, StandardCharsets.UTF_8), maxLineLength);
+        final List<Item> chunk = new ArrayList<>(streamChunkSize);
+        int lineIndex = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            final int index = lineIndex++;
+            if (line.isBlank()) {
+                continue;
+            }
+            chunk.add(reader.truncated() ? new Item(index, null, "line exceeds " + maxLineLength + " characters") : parse(index, line));
+            if (chunk.size() >= streamChunkSize) {
+                flush(chunk, out);
+            }
+        }
+        flush(chunk, out);
+    }
+
+    private Item parse(int index, String line) {
+        try {
+            return new Item(index, objectMapper.readValue(line, CreateTagReadRequest.class), null);
+        } catch (JsonProcessingException e) {
+            return new Item(index, null, "malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private void flush(List<Item> chunk, OutputStream out) throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        for (TagReadWriteResult result : write(chunk)) {
+            out.write(objectMapper.writeValueAsBytes(toItemResponse(result)));
+            out.write('\n');
+        }
+        out.flush();
+        chunk.clear();
+    }
+
+    private List<TagReadWriteResult> write(List<Item> items) {
+        final List<TagReadWriteResult> results = new ArrayList<>(items.size());
+        final List<TagReadCreate> valid = new ArrayList<>(items.size());
+        final List<Integer> validIndexes = new ArrayList<>(items.size());
+        for (Item item : items) {
+            final String error = item.error() != null ? item.error() : validate(item.request());
+            if (error != null) {
+                results.add(TagReadWriteResult.rejected(item.index(), error));
+            } else {
+                valid.add(tagReadRequestMapper.toCreate(item.request()));
+                validIndexes.add(item.index());
+            }
+        }
+        final List<TagReadWriteResult> written = tagReadService.createAll(valid);
+        for (int i = 0; i < written.size(); i++) {
+            results.add(written.get(i)
+                               .toBuilder()
+                               .index(validIndexes.get(i))
+                               .build());
+        }
+        results.sort(Comparator.comparingInt(TagReadWriteResult::index));
+        return results;
+    }
+
+    String validate(CreateTagReadRequest request) {
+        if (request == null) {
+            return "item is null";
+        }
+        final var violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                         .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                         .sorted()
+                         .collect(Collectors.joining("; "));
+    }
+
+    private BatchItemResponse toItemResponse(TagReadWriteResult result) {
+        return BatchItemResponse.builder()
+                                .index(result.index())
+                                .id(result.id())
+                                .status(result.status()
+                                              .name())
+                                .error(result.error())
+                                .build();
+    }
+
+    private BatchCreateResponse toResponse(List<TagReadWriteResult> results) {
+        return BatchCreateResponse.builder()
+                                  .saved(count(results, TagReadWriteResult.Status.SAVED))
+                                  .suppressed(count(results, TagReadWriteResult.Status.SUPPRESSED))
+                                  .rejected(count(results, TagReadWriteResult.Status.REJECTED))
+                                  .failed(count(results, TagReadWriteResult.Status.FAILED))
+                                  .results(results.stream()
+                                                  .map(this::toItemResponse)
+                                                  .toList())
+                                  .build();
+    }
+
+    private static int count(List<TagReadWriteResult> results, TagReadWriteResult.Status status) {
+        return (int) results.stream()
+                            .filter(r -> r.status() == status)
+                            .count();
+    }
+}
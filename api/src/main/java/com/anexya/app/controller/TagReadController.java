@@ -1,11 +1,18 @@
 package com.anexya.app.controller;
 
+import java.io.IOException;
 import java.time.Instant;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -14,20 +21,40 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.anexya.app.api.BatchCreateResponse;
 import com.anexya.app.api.CreateTagReadRequest;
+import com.anexya.app.api.CurrentStateBatchRequest;
+import com.anexya.app.api.DimensionSummaryResponse;
+import com.anexya.app.api.EpcBatchSearchRequest;
+import com.anexya.app.api.ProjectedTagReadResponse;
+import com.anexya.app.api.TagCurrentStateResponse;
 import com.anexya.app.api.TagReadResponse;
 import com.anexya.app.api.TagSummaryResponse;
+import com.anexya.app.api.TimeseriesBucketResponse;
 import com.anexya.app.api.UpdateTagReadRequest;
+import com.anexya.app.api.mapper.DimensionSummaryMapper;
+import com.anexya.app.api.mapper.TagCurrentStateMapper;
 import com.anexya.app.api.mapper.TagReadMapper;
 import com.anexya.app.api.mapper.TagReadRequestMapper;
 import com.anexya.app.api.mapper.TagSummaryMapper;
+import com.anexya.app.api.mapper.TimeseriesBucketMapper;
+import com.anexya.app.domain.BucketWidth;
+import com.anexya.app.domain.SummaryDimension;
+import com.anexya.app.domain.TagReadField;
+import com.anexya.app.domain.TagReadFilter;
+import com.anexya.app.domain.TagReadPage;
 import com.anexya.app.service.AggregationStrategy;
 import com.anexya.app.service.TagReadService;
+import com.anexya.app.service.TimeseriesService;
+import com.anexya.app.web.InvalidRequestException;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
@@ -36,11 +63,20 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 @Validated
 public class TagReadController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final int DEFAULT_LIMIT_PER_EPC = 100;
+
     private final TagReadService tagReadService;
     private final AggregationStrategy aggregationStrategy;
     private final TagReadMapper tagReadMapper;
     private final TagSummaryMapper tagSummaryMapper;
     private final TagReadRequestMapper tagReadRequestMapper;
+    private final TagReadBatchIngestor batchIngestor;
+    private final TagReadSearchStreamer searchStreamer;
+    private final TagCurrentStateMapper tagCurrentStateMapper;
+    private final TimeseriesService timeseriesService;
+    private final TimeseriesBucketMapper timeseriesBucketMapper;
+    private final DimensionSummaryMapper dimensionSummaryMapper;
 
     @GetMapping("/{id}")
     public TagReadResponse get(@PathVariable UUID id) {
@@ -48,15 +84,80 @@ public class TagReadController {
     }
 
     @GetMapping("/search")
-    public List<TagReadResponse> search(@RequestParam(value = "epc", required = false) String epc,
-                                        @RequestParam(value = "location", required = false) String location,
-                                        @RequestParam(value = "siteName", required = false) String siteName) {
-        return tagReadService.findByFilters(Optional.ofNullable(epc), Optional.ofNullable(location), Optional.ofNullable(siteName))
+    public ResponseEntity<List<ProjectedTagReadResponse>> search(@RequestParam(value = "epc", required = false) String epc,
+                                                                 @RequestParam(value = "location", required = false) String location,
+                                                                 @RequestParam(value = "siteName", required = false) String siteName,
+                                                                 @RequestParam(value = "from", required = false) Instant from,
+                                                                 @RequestParam(value = "to", required = false) Instant to,
+                                                                 @RequestParam(value = "fields", required = false) String fields,
+                                                                 @RequestParam(value = "cursor", required = false) String cursor,
+                                                                 @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        final TagReadFilter filter = filter(epc, location, siteName, from, to, fields);
+        final TagReadPage page = tagReadService.search(filter, TagReadCursorCodec.decode(cursor), limit);
+        final ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        page.next()
+            .ifPresent(next -> response.header(NEXT_CURSOR_HEADER, TagReadCursorCodec.encode(next)));
+        return response.body(page.items()
+                                 .stream()
+                                 .map(tagReadMapper::toProjectedResponse)
+                                 .toList());
+    }
+
+    @GetMapping("/search/stream")
+    public void searchStream(@RequestParam(value = "epc", required = false) String epc,
+                             @RequestParam(value = "location", required = false) String location,
+                             @RequestParam(value = "siteName", required = false) String siteName,
+                             @RequestParam(value = "from", required = false) Instant from,
+                             @RequestParam(value = "to", required = false) Instant to,
+                             @RequestParam(value = "fields", required = false) String fields,
+                             @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                             HttpServletResponse response)
+            throws IOException {
+        final TagReadFilter filter = filter(epc, location, siteName, from, to, fields);
+        response.setStatus(HttpStatus.OK.value());
+        if (accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE)) {
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            searchStreamer.writeNdjson(filter, response.getOutputStream());
+        } else {
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            searchStreamer.writeJsonArray(filter, response.getOutputStream());
+        }
+    }
+
+    @PostMapping("/search/batch")
+    public Map<String, List<ProjectedTagReadResponse>> searchBatch(@Valid @RequestBody EpcBatchSearchRequest request) {
+        final TagReadFilter filter = filter(null, null, request.siteName(), request.from(), request.to(), request.fields());
+        final int limitPerEpc = request.limitPerEpc() == null ? DEFAULT_LIMIT_PER_EPC : request.limitPerEpc();
+        final Map<String, List<ProjectedTagReadResponse>> response = new LinkedHashMap<>();
+        tagReadService.searchByEpcs(request.epcs(), filter, limitPerEpc)
+                      .forEach((epc, reads) -> response.put(epc,
+                                                            reads.stream()
+                                                                 .map(tagReadMapper::toProjectedResponse)
+                                                                 .toList()));
+        return response;
+    }
+
+    @GetMapping("/by-reference/{code}")
+    public List<TagReadResponse> findByReferenceCode(@PathVariable String code) {
+        return tagReadService.findByReferenceCode(code)
                              .stream()
                              .map(tagReadMapper::toResponse)
                              .toList();
     }
 
+    @GetMapping("/current/{epc}")
+    public TagCurrentStateResponse current(@PathVariable String epc) {
+        return tagCurrentStateMapper.toResponse(tagReadService.current(epc));
+    }
+
+    @PostMapping("/current")
+    public List<TagCurrentStateResponse> currentBatch(@Valid @RequestBody CurrentStateBatchRequest request) {
+        return tagReadService.current(request.epcs())
+                             .stream()
+                             .map(tagCurrentStateMapper::toResponse)
+                             .toList();
+    }
+
     @PostMapping
     public ResponseEntity<TagReadResponse> create(@Valid @RequestBody CreateTagReadRequest request) {
         final var created = tagReadService.create(tagReadRequestMapper.toCreate(request));
@@ -64,6 +165,25 @@ public class TagReadController {
                              .body(tagReadMapper.toResponse(created));
     }
 
+    @PostMapping("/async")
+    public ResponseEntity<TagReadResponse> createAsync(@Valid @RequestBody CreateTagReadRequest request) {
+        final var accepted = tagReadService.enqueue(tagReadRequestMapper.toCreate(request));
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                             .body(tagReadMapper.toResponse(accepted));
+    }
+
+    @PostMapping("/batch")
+    public BatchCreateResponse createBatch(@RequestBody List<CreateTagReadRequest> requests) {
+        return batchIngestor.ingest(requests);
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void createBatchStream(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        batchIngestor.ingestNdjson(request.getInputStream(), response.getOutputStream());
+    }
+
     @PutMapping("/{id}")
     public TagReadResponse update(@PathVariable UUID id, @Valid @RequestBody UpdateTagReadRequest request) {
         final var updated = tagReadService.update(id, tagReadRequestMapper.toUpdate(request));
@@ -81,10 +201,86 @@ public class TagReadController {
                                   .toList();
     }
 
+    @GetMapping("/summary/by-site")
+    public List<DimensionSummaryResponse> summarizeBySite(@RequestParam("startDate") Instant startDate,
+                                                          @RequestParam("endDate") Instant endDate,
+                                                          @RequestParam(value = "siteName", required = false) String siteName,
+                                                          @RequestParam(value = "epc", required = false) String epc) {
+        return summarizeBy(SummaryDimension.SITE, startDate, endDate, siteName, epc);
+    }
+
+    @GetMapping("/summary/by-location")
+    public List<DimensionSummaryResponse> summarizeByLocation(@RequestParam("startDate") Instant startDate,
+                                                              @RequestParam("endDate") Instant endDate,
+                                                              @RequestParam(value = "siteName", required = false) String siteName,
+                                                              @RequestParam(value = "epc", required = false) String epc) {
+        return summarizeBy(SummaryDimension.LOCATION, startDate, endDate, siteName, epc);
+    }
+
+    @GetMapping("/summary/by-site-location")
+    public List<DimensionSummaryResponse> summarizeBySiteLocation(@RequestParam("startDate") Instant startDate,
+                                                                  @RequestParam("endDate") Instant endDate,
+                                                                  @RequestParam(value = "siteName", required = false) String siteName,
+                                                                  @RequestParam(value = "epc", required = false) String epc) {
+        return summarizeBy(SummaryDimension.SITE_LOCATION, startDate, endDate, siteName, epc);
+    }
+
+    @GetMapping("/summary/timeseries")
+    public List<TimeseriesBucketResponse> timeseries(@RequestParam("startDate") Instant startDate,
+                                                     @RequestParam("endDate") Instant endDate,
+                                                     @RequestParam(value = "bucket", defaultValue = "5m") String bucket,
+                                                     @RequestParam(value = "siteName", required = false) String siteName,
+                                                     @RequestParam(value = "location", required = false) String location,
+                                                     @RequestParam(value = "epc", required = false) String epc) {
+        final BucketWidth width = BucketWidth.fromLabel(bucket)
+                                             .orElseThrow(() -> new InvalidRequestException("bucket must be one of 1m, 5m, 1h, 1d"));
+        return timeseriesService.readRates(startDate, endDate, width, Optional.ofNullable(siteName), Optional.ofNullable(location), Optional.ofNullable(epc))
+                                .stream()
+                                .map(timeseriesBucketMapper::toResponse)
+                                .toList();
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable UUID id) {
         tagReadService.delete(id);
         return ResponseEntity.noContent()
                              .build();
     }
+
+    private List<DimensionSummaryResponse> summarizeBy(SummaryDimension dimension, Instant startDate, Instant endDate, String siteName, String epc) {
+        return aggregationStrategy.summarizeBy(dimension, startDate, endDate, Optional.ofNullable(siteName), Optional.ofNullable(epc))
+                                  .stream()
+                                  .map(dimensionSummaryMapper::toResponse)
+                                  .toList();
+    }
+
+    /**
+     * Validates the range here rather than only in the service, so the streaming endpoint can still answer 400 before
+     * it commits the response.
+     */
+    private static TagReadFilter filter(String epc, String location, String siteName, Instant from, Instant to, String fields) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new InvalidRequestException("from must not be after to");
+        }
+        return TagReadFilter.builder()
+                            .epc(epc)
+                            .location(location)
+                            .siteName(siteName)
+                            .from(from)
+                            .to(to)
+                            .fields(parseFields(fields))
+                            .build();
+    }
+
+    private static Set<TagReadField> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        final Set<TagReadField> parsed = EnumSet.noneOf(TagReadField.class);
+        for (String name : fields.split(",")) {
+            parsed.add(TagReadField.fromFieldName(name.trim())
+                                   .orElseThrow(() -> new InvalidRequestException("Unknown field '" + name.trim() + "'")));
+        }
+        return parsed;
+    }
 }
@@ -0,0 +1,52 @@
+package com.anexya.app.controller;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+
+import com.anexya.app.domain.TagReadCursor;
+import com.anexya.app.web.InvalidRequestException;
+
+/**
+ * Encodes search cursors as opaque URL-safe tokens: read_at in epoch microseconds followed by the row id.
+ */
+final class TagReadCursorCodec {
+    private static final int TOKEN_BYTES = Long.BYTES * 3;
+
+    private TagReadCursorCodec() {
+    }
+
+    static String encode(TagReadCursor cursor) {
+        final ByteBuffer buffer = ByteBuffer.allocate(TOKEN_BYTES);
+        buffer.putLong(ChronoUnit.MICROS.between(Instant.EPOCH, cursor.readAt()));
+        buffer.putLong(cursor.id()
+                             .getMostSignificantBits());
+        buffer.putLong(cursor.id()
+                             .getLeastSignificantBits());
+        return Base64.getUrlEncoder()
+                     .withoutPadding()
+                     .encodeToString(buffer.array());
+    }
+
+    static Optional<TagReadCursor> decode(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        final byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder()
+                          .decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Malformed cursor");
+        }
+        if (bytes.length != TOKEN_BYTES) {
+            throw new InvalidRequestException("Malformed cursor");
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        final Instant readAt = Instant.EPOCH.plus(buffer.getLong(), ChronoUnit.MICROS);
+        return Optional.of(new TagReadCursor(readAt, new UUID(buffer.getLong(), buffer.getLong())));
+    }
+}
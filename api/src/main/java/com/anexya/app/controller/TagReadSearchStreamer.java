@@ -0,0 +1,74 @@
+package com.anexya.app.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import org.springframework.stereotype.Component;
+
+import com.anexya.app.api.mapper.TagReadMapper;
+import com.anexya.app.domain.TagReadFilter;
+import com.anexya.app.service.TagReadService;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Writes every matching read straight from the database cursor to the response, one row at a time. The first row is
+ * flushed immediately; later rows go out as the servlet buffer fills.
+ * <p>
+ * The generator is only closed after the last row. When the stream fails, nothing more is written and the output is
+ * left open, so the exception reaches the container with the body unfinished and the connection is dropped; closing
+ * it would end the array (or the last line) cleanly and a client could not tell a failed stream from a complete one.
+ */
+@Component
+@RequiredArgsConstructor
+public class TagReadSearchStreamer {
+    private final TagReadService tagReadService;
+    private final TagReadMapper tagReadMapper;
+    private final ObjectMapper objectMapper;
+
+    public void writeJsonArray(TagReadFilter filter, OutputStream out) throws IOException {
+        final JsonGenerator generator = generator(out);
+        generator.writeStartArray();
+        generator.flush();
+        stream(filter, generator, false);
+        generator.writeEndArray();
+        generator.close();
+    }
+
+    public void writeNdjson(TagReadFilter filter, OutputStream out) throws IOException {
+        final JsonGenerator generator = generator(out);
+        generator.setRootValueSeparator(null);
+        stream(filter, generator, true);
+        generator.close();
+    }
+
+    private JsonGenerator generator(OutputStream out) throws IOException {
+        return objectMapper.createGenerator(out, JsonEncoding.UTF8)
+                           .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+    }
+
+    private void stream(TagReadFilter filter, JsonGenerator generator, boolean newlineDelimited) throws IOException {
+        final long[] written = {0};
+        try {
+            tagReadService.stream(filter, read -> {
+                try {
+                    generator.writeObject(tagReadMapper.toProjectedResponse(read));
+                    if (newlineDelimited) {
+                        generator.writeRaw('\n');
+                    }
+                    if (written[0]++ == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
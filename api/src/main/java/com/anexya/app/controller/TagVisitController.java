@@ -0,0 +1,51 @@
+package com.anexya.app.controller;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.anexya.app.api.DwellSummaryResponse;
+import com.anexya.app.api.TagVisitResponse;
+import com.anexya.app.api.mapper.TagVisitMapper;
+import com.anexya.app.service.VisitService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Dwell times and visit history, served from the visits sessionized on ingest.
+ */
+@RestController
+@RequestMapping("/api/tag-reads")
+@RequiredArgsConstructor
+public class TagVisitController {
+    private final VisitService visitService;
+    private final TagVisitMapper tagVisitMapper;
+
+    @GetMapping("/summary/dwell")
+    public List<DwellSummaryResponse> dwell(@RequestParam("startDate") Instant startDate,
+                                            @RequestParam("endDate") Instant endDate,
+                                            @RequestParam(value = "siteName", required = false) String siteName,
+                                            @RequestParam(value = "location", required = false) String location) {
+        return visitService.dwellTimes(startDate, endDate, Optional.ofNullable(siteName), Optional.ofNullable(location))
+                           .stream()
+                           .map(tagVisitMapper::toResponse)
+                           .toList();
+    }
+
+    @GetMapping("/visits/{epc}")
+    public List<TagVisitResponse> visits(@PathVariable String epc,
+                                         @RequestParam(value = "from", required = false) Instant from,
+                                         @RequestParam(value = "to", required = false) Instant to,
+                                         @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        return visitService.visits(epc, Optional.ofNullable(from), Optional.ofNullable(to), limit)
+                           .stream()
+                           .map(tagVisitMapper::toResponse)
+                           .toList();
+    }
+}
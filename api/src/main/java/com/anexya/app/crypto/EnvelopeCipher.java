@@ -0,0 +1,143 @@
+package com.anexya.app.crypto;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.anexya.app.cache.TtlCache;
+import com.anexya.app.cloud.KeyManagementService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * AES-256-GCM envelope encryption. KMS only wraps and unwraps data keys: one data key encrypts every value for
+ * {@code data-key-ttl}, and unwrapped keys are cached by their wrapped form, so steady-state reads and writes make no
+ * KMS calls.
+ * <p>
+ * Stored layout, base64-encoded after the {@value #PREFIX} marker: version byte, key id (u16 length + UTF-8),
+ * wrapped data key (u16 length + bytes), 12-byte IV, then ciphertext with its GCM tag. Everything before the IV is
+ * authenticated as associated data.
+ */
+@Component
+public class EnvelopeCipher {
+    static final String PREFIX = "env:";
+    private static final byte VERSION = 1;
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+    private static final int DATA_KEY_BYTES = 32;
+
+    private final SecureRandom random = new SecureRandom();
+    private final Clock clock;
+    private final long dataKeyTtlMillis;
+    private final TtlCache<ByteBuffer, SecretKeySpec> unwrappedKeys;
+    private volatile DataKey current;
+
+    private record DataKey(String keyId, byte[] wrapped, SecretKeySpec key, long expiresAt) {
+    }
+
+    @Autowired
+    public EnvelopeCipher(MeterRegistry meterRegistry,
+                          @Value("${app.crypto.data-key-ttl:5m}") Duration dataKeyTtl,
+                          @Value("${app.crypto.data-key-cache-size:1024}") int cacheSize) {
+        this(meterRegistry, dataKeyTtl, cacheSize, Clock.systemUTC());
+    }
+
+    public EnvelopeCipher(MeterRegistry meterRegistry, Duration dataKeyTtl, int cacheSize, Clock clock) {
+        this.clock = clock;
+        this.dataKeyTtlMillis = dataKeyTtl.toMillis();
+        // unwrapped keys outlive their encryption window so rows written near its end still decrypt from cache
+        this.unwrappedKeys = new TtlCache<>("data-keys", cacheSize, dataKeyTtl.multipliedBy(2), meterRegistry, clock);
+    }
+
+    public static boolean isEnvelope(String stored) {
+        return stored.startsWith(PREFIX);
+    }
+
+    public String encrypt(String plaintext, String keyId, KeyManagementService kms) {
+        final DataKey dataKey = dataKey(keyId, kms);
+        final byte[] keyIdBytes = keyId.getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer header = ByteBuffer.allocate(1 + 2 + keyIdBytes.length + 2 + dataKey.wrapped().length);
+        header.put(VERSION)
+              .putShort((short) keyIdBytes.length)
+              .put(keyIdBytes)
+              .putShort((short) dataKey.wrapped().length)
+              .put(dataKey.wrapped());
+        final byte[] iv = new byte[IV_BYTES];
+        random.nextBytes(iv);
+        final byte[] ciphertext = crypt(Cipher.ENCRYPT_MODE, dataKey.key(), iv, header.array(), plaintext.getBytes(StandardCharsets.UTF_8));
+        final ByteBuffer out = ByteBuffer.allocate(header.capacity() + IV_BYTES + ciphertext.length);
+        out.put(header.array())
+           .put(iv)
+           .put(ciphertext);
+        return PREFIX + Base64.getEncoder()
+                              .encodeToString(out.array());
+    }
+
+    public String decrypt(String stored, KeyManagementService kms) {
+        final ByteBuffer in = ByteBuffer.wrap(Base64.getDecoder()
+                                                    .decode(stored.substring(PREFIX.length())));
+        final byte version = in.get();
+        if (version != VERSION) {
+            throw new IllegalStateException("Unsupported envelope version " + version);
+        }
+        final byte[] keyIdBytes = new byte[in.getShort() & 0xffff];
+        in.get(keyIdBytes);
+        final byte[] wrapped = new byte[in.getShort() & 0xffff];
+        in.get(wrapped);
+        final byte[] aad = new byte[in.position()];
+        in.get(0, aad);
+        final byte[] iv = new byte[IV_BYTES];
+        in.get(iv);
+        final byte[] ciphertext = new byte[in.remaining()];
+        in.get(ciphertext);
+
+        final String keyId = new String(keyIdBytes, StandardCharsets.UTF_8);
+        final SecretKeySpec key = unwrappedKeys.get(ByteBuffer.wrap(wrapped), w -> new SecretKeySpec(kms.decrypt(wrapped, keyId), "AES"));
+        return new String(crypt(Cipher.DECRYPT_MODE, key, iv, aad, ciphertext), StandardCharsets.UTF_8);
+    }
+
+    private DataKey dataKey(String keyId, KeyManagementService kms) {
+        final long now = clock.millis();
+        final DataKey key = current;
+        if (key != null && key.expiresAt() > now && key.keyId()
+                                                      .equals(keyId)) {
+            return key;
+        }
+        synchronized (this) {
+            if (current != null && current.expiresAt() > now && current.keyId()
+                                                                       .equals(keyId)) {
+                return current;
+            }
+            final byte[] raw = new byte[DATA_KEY_BYTES];
+            random.nextBytes(raw);
+            final SecretKeySpec spec = new SecretKeySpec(raw, "AES");
+            final byte[] wrapped = kms.encrypt(raw, keyId);
+            unwrappedKeys.put(ByteBuffer.wrap(wrapped), spec);
+            current = new DataKey(keyId, wrapped, spec, now + dataKeyTtlMillis);
+            return current;
+        }
+    }
+
+    private static byte[] crypt(int mode, SecretKeySpec key, byte[] iv, byte[] aad, byte[] input) {
+        try {
+            final Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(mode, key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(aad);
+            return cipher.doFinal(input);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES-GCM " + (mode == Cipher.ENCRYPT_MODE ? "encrypt" : "decrypt") + " failed", e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.anexya.app.crypto;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.Optional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deterministic keyed HMAC-SHA256 of reference codes, stored next to the ciphertext so rows can be found by code
+ * without decrypting. The key ({@code app.crypto.blind-index.key}, base64) must stay secret and stable: changing it
+ * orphans every stored hash until they are backfilled again.
+ */
+@Component
+public class ReferenceCodeBlindIndex {
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+
+    public ReferenceCodeBlindIndex(@Value("${app.crypto.blind-index.key:}") String key) {
+        this.key = key == null || key.isBlank() ? null
+                : new SecretKeySpec(Base64.getDecoder()
+                                          .decode(key),
+                                    ALGORITHM);
+    }
+
+    public boolean isEnabled() {
+        return key != null;
+    }
+
+    /**
+     * Returns the blind index of a plaintext code, or empty when no key is configured.
+     */
+    public Optional<byte[]> hash(String referenceCode) {
+        if (key == null || referenceCode == null) {
+            return Optional.empty();
+        }
+        try {
+            final Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return Optional.of(mac.doFinal(referenceCode.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC failed", e);
+        }
+    }
+}
@@ -14,11 +14,19 @@ import lombok.RequiredArgsConstructor;
 @Component
 @RequiredArgsConstructor
 public class ReferenceCodeCrypto {
+    public enum Mode {
+        KMS, ENVELOPE
+    }
+
     private final ObjectProvider<CloudServiceFactory> cloudFactory;
+    private final EnvelopeCipher envelopeCipher;
 
     @Value("${app.kms.key-id:}")
     private String keyId;
 
+    @Value("${app.crypto.mode:KMS}")
+    private Mode mode;
+
     public String encrypt(String plaintext) {
         if (plaintext == null) {
             return null;
@@ -26,6 +34,9 @@ public class ReferenceCodeCrypto {
         if (keyId == null || keyId.isBlank()) {
             return plaintext; // no key configured; store as-is
         }
+        if (mode == Mode.ENVELOPE) {
+            return envelopeCipher.encrypt(plaintext, keyId, getKmsOrThrow());
+        }
         final byte[] ciphertext = getKmsOrThrow().encrypt(plaintext.getBytes(java.nio.charset.StandardCharsets.UTF_8), keyId);
         return Base64.getEncoder()
                      .encodeToString(ciphertext);
@@ -38,6 +49,10 @@ public class ReferenceCodeCrypto {
         if (keyId == null || keyId.isBlank()) {
             return ciphertextB64; // stored in plaintext when no key configured
         }
+        // the stored format, not the current mode, decides: rows written in KMS mode stay readable after switching
+        if (EnvelopeCipher.isEnvelope(ciphertextB64)) {
+            return envelopeCipher.decrypt(ciphertextB64, getKmsOrThrow());
+        }
         final byte[] ciphertext = Base64.getDecoder()
                                         .decode(ciphertextB64);
         final byte[] plaintext = getKmsOrThrow().decrypt(ciphertext, keyId);
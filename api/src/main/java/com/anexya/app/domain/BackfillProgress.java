@@ -0,0 +1,13 @@
+package com.anexya.app.domain;
+
+import java.util.List;
+
+import lombok.Builder;
+
+/**
+ * Progress of a CSV backfill after a committed chunk. {@code offset} counts data rows consumed so far (loaded plus
+ * rejected, header excluded) and is the value to resume from.
+ */
+@Builder
+public record BackfillProgress(long offset, long loaded, long rejected, List<String> errors, boolean done) {
+}
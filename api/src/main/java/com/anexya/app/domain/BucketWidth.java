@@ -0,0 +1,46 @@
+package com.anexya.app.domain;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Width of a time-series bucket. Buckets are aligned to the epoch, so every bucket starts at a whole UTC minute, five
+ * minutes, hour or day.
+ */
+public enum BucketWidth {
+    ONE_MINUTE("1m", Duration.ofMinutes(1)),
+    FIVE_MINUTES("5m", Duration.ofMinutes(5)),
+    ONE_HOUR("1h", Duration.ofHours(1)),
+    ONE_DAY("1d", Duration.ofDays(1));
+
+    private final String label;
+    private final Duration duration;
+
+    BucketWidth(String label, Duration duration) {
+        this.label = label;
+        this.duration = duration;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public Duration duration() {
+        return duration;
+    }
+
+    /**
+     * Start of the bucket containing {@code instant}.
+     */
+    public Instant floor(Instant instant) {
+        return Instant.ofEpochSecond(Math.floorDiv(instant.getEpochSecond(), duration.toSeconds()) * duration.toSeconds());
+    }
+
+    public static Optional<BucketWidth> fromLabel(String label) {
+        return Arrays.stream(values())
+                     .filter(width -> width.label.equals(label))
+                     .findFirst();
+    }
+}
@@ -0,0 +1,20 @@
+package com.anexya.app.domain;
+
+import java.time.Instant;
+
+import lombok.Builder;
+
+/**
+ * Reads of one site, location or (site, location) over a range; the dimension not grouped by is {@code null}.
+ * {@code epcCount} is the number of distinct EPCs read.
+ */
+@Builder
+public record DimensionSummary(String siteName,
+                               String location,
+                               long totalReadCount,
+                               double averageRssi,
+                               double peakRssi,
+                               long epcCount,
+                               Instant firstSeen,
+                               Instant lastSeen) {
+}
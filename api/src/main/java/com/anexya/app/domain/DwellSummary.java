@@ -0,0 +1,17 @@
+package com.anexya.app.domain;
+
+import lombok.Builder;
+
+/**
+ * Dwell times of the visits to one (site, location) that entered within a range. A visit's dwell runs from its first
+ * to its last read, so single-read visits count as zero.
+ */
+@Builder
+public record DwellSummary(String siteName,
+                           String location,
+                           long visitCount,
+                           long epcCount,
+                           double averageDwellSeconds,
+                           double maxDwellSeconds,
+                           double totalDwellSeconds) {
+}
@@ -0,0 +1,27 @@
+package com.anexya.app.domain;
+
+/**
+ * What a {@link DimensionSummary} groups reads by. Location names are global, so {@code LOCATION} adds up a location
+ * name across sites; {@code SITE_LOCATION} keeps them apart.
+ */
+public enum SummaryDimension {
+    SITE(true, false),
+    LOCATION(false, true),
+    SITE_LOCATION(true, true);
+
+    private final boolean bySite;
+    private final boolean byLocation;
+
+    SummaryDimension(boolean bySite, boolean byLocation) {
+        this.bySite = bySite;
+        this.byLocation = byLocation;
+    }
+
+    public boolean bySite() {
+        return bySite;
+    }
+
+    public boolean byLocation() {
+        return byLocation;
+    }
+}
@@ -0,0 +1,24 @@
+package com.anexya.app.domain;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import lombok.Builder;
+
+/**
+ * An asynchronous {@code summary/by-epc} request. {@code resultCount} is set once the job is {@code DONE};
+ * {@code error} explains a {@code FAILED} job.
+ */
+@Builder(toBuilder = true)
+public record SummaryJob(UUID id,
+                         SummaryJobStatus status,
+                         Instant startDate,
+                         Instant endDate,
+                         String siteName,
+                         String epc,
+                         Instant submittedAt,
+                         Instant startedAt,
+                         Instant finishedAt,
+                         Long resultCount,
+                         String error) {
+}
@@ -0,0 +1,9 @@
+package com.anexya.app.domain;
+
+public enum SummaryJobStatus {
+    QUEUED, RUNNING, DONE, FAILED, CANCELLED;
+
+    public boolean isActive() {
+        return this == QUEUED || this == RUNNING;
+    }
+}
@@ -0,0 +1,13 @@
+package com.anexya.app.domain;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import lombok.Builder;
+
+/**
+ * Latest known read of an EPC; {@code tagReadId} is the read it was taken from.
+ */
+@Builder
+public record TagCurrentState(String epc, String siteName, String location, double rssi, Instant readAt, UUID tagReadId) {
+}
@@ -0,0 +1,10 @@
+package com.anexya.app.domain;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Keyset position in the {@code (read_at desc, id desc)} search order: the last row of the previous page.
+ */
+public record TagReadCursor(Instant readAt, UUID id) {
+}
@@ -0,0 +1,27 @@
+package com.anexya.app.domain;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Tag read attributes that can be projected in searches, named as they appear in API responses.
+ */
+public enum TagReadField {
+    ID("id"), SITE_NAME("siteName"), EPC("epc"), REFERENCE_CODE("referenceCode"), LOCATION("location"), RSSI("rssi"), READ_AT("readAt");
+
+    private final String fieldName;
+
+    TagReadField(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    public String fieldName() {
+        return fieldName;
+    }
+
+    public static Optional<TagReadField> fromFieldName(String name) {
+        return Arrays.stream(values())
+                     .filter(f -> f.fieldName.equals(name))
+                     .findFirst();
+    }
+}
@@ -0,0 +1,19 @@
+package com.anexya.app.domain;
+
+import java.time.Instant;
+import java.util.Set;
+
+import lombok.Builder;
+
+/**
+ * Search criteria for tag reads; {@code null} fields are not filtered on. {@code from} and {@code to} are inclusive
+ * bounds on {@code read_at}. {@code fields} projects the result: attributes outside it are left {@code null} and are
+ * neither selected nor decrypted; {@code null} selects everything. {@code id} and {@code readAt} are always loaded
+ * because they define the result order.
+ */
+@Builder
+public record TagReadFilter(String epc, String location, String siteName, Instant from, Instant to, Set<TagReadField> fields) {
+    public boolean includes(TagReadField field) {
+        return fields == null || fields.contains(field) || field == TagReadField.ID || field == TagReadField.READ_AT;
+    }
+}
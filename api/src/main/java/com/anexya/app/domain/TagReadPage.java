@@ -0,0 +1,10 @@
+package com.anexya.app.domain;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * One page of search results; {@code next} is empty on the last page.
+ */
+public record TagReadPage(List<TagRead> items, Optional<TagReadCursor> next) {
+}
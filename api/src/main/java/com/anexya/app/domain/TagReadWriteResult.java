@@ -0,0 +1,32 @@
+package com.anexya.app.domain;
+
+import java.util.UUID;
+
+import lombok.Builder;
+
+@Builder(toBuilder = true)
+public record TagReadWriteResult(int index, UUID id, Status status, String error) {
+    public enum Status {
+        SAVED, SUPPRESSED, REJECTED, FAILED
+    }
+
+    public static TagReadWriteResult saved(int index, UUID id) {
+        return new TagReadWriteResult(index, id, Status.SAVED, null);
+    }
+
+    public static TagReadWriteResult suppressed(int index, UUID keptId) {
+        return new TagReadWriteResult(index, keptId, Status.SUPPRESSED, null);
+    }
+
+    public static TagReadWriteResult rejected(int index, String error) {
+        return new TagReadWriteResult(index, null, Status.REJECTED, error);
+    }
+
+    public static TagReadWriteResult failed(int index, UUID id, String error) {
+        return new TagReadWriteResult(index, id, Status.FAILED, error);
+    }
+
+    public boolean isSaved() {
+        return status == Status.SAVED;
+    }
+}
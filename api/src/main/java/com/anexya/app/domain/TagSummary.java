@@ -4,7 +4,10 @@ import java.time.Instant;
 
 import lombok.Builder;
 
-@Builder
+/**
+ * RSSI quantiles are null unless the strategy keeps RSSI sketches (see {@link com.anexya.app.sketch.QuantileSketch}).
+ */
+@Builder(toBuilder = true)
 public record TagSummary(String epc,
                          long totalReadCount,
                          double averageRssi,
@@ -12,5 +15,8 @@ public record TagSummary(String epc,
                          long locationCount,
                          String mostDetectedLocation,
                          Instant firstSeen,
-                         Instant lastSeen) {
+                         Instant lastSeen,
+                         Double rssiP50,
+                         Double rssiP90,
+                         Double rssiP99) {
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.anexya.app.domain;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import lombok.Builder;
+
+/**
+ * Consecutive reads of one EPC at one location with no gap longer than the idle gap. A visit is {@code open} while it
+ * is the EPC's latest and its last read is within the idle gap of now; its {@code exitAt} can still move.
+ */
+@Builder
+public record TagVisit(String epc,
+                       String siteName,
+                       String location,
+                       Instant enterAt,
+                       Instant exitAt,
+                       long readCount,
+                       double averageRssi,
+                       double peakRssi,
+                       boolean open) {
+
+    public Duration dwell() {
+        return Duration.between(enterAt, exitAt);
+    }
+}
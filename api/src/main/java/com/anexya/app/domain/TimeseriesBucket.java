@@ -0,0 +1,12 @@
+package com.anexya.app.domain;
+
+import java.time.Instant;
+
+import lombok.Builder;
+
+/**
+ * Reads in one time-series bucket: {@code epcCount} is the number of distinct EPCs read in it.
+ */
+@Builder
+public record TimeseriesBucket(Instant bucketStart, long readCount, double averageRssi, double peakRssi, long epcCount) {
+}
@@ -0,0 +1,15 @@
+package com.anexya.app.repository;
+
+public enum Dimension {
+    SITE("dim_site"), LOCATION("dim_location"), EPC("dim_epc");
+
+    private final String table;
+
+    Dimension(String table) {
+        this.table = table;
+    }
+
+    public String table() {
+        return table;
+    }
+}
@@ -0,0 +1,27 @@
+package com.anexya.app.repository;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bidirectional mapping between site/location/EPC values and the integer surrogate keys stored in {@code tag_reads}.
+ */
+public interface DimensionDictionary {
+    /**
+     * Returns the id for a value, creating the dimension row on first use.
+     */
+    int idFor(Dimension dimension, String value);
+
+    /**
+     * Returns the id for a value without creating it; empty when the value has never been written.
+     */
+    Optional<Integer> findId(Dimension dimension, String value);
+
+    /**
+     * Returns the ids of those {@code values} that have been written, keyed by value; values never written are absent.
+     */
+    Map<String, Integer> findIds(Dimension dimension, Collection<String> values);
+
+    String valueOf(Dimension dimension, int id);
+}
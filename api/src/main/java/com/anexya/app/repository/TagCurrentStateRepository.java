@@ -0,0 +1,19 @@
+package com.anexya.app.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import com.anexya.app.domain.TagCurrentState;
+
+/**
+ * Read side of the per-EPC latest read, maintained by {@link TagReadRepository} writes.
+ */
+public interface TagCurrentStateRepository {
+    Optional<TagCurrentState> findByEpc(String epc);
+
+    /**
+     * Returns the state of every known EPC among {@code epcs}, in no particular order; unknown EPCs are left out.
+     */
+    List<TagCurrentState> findByEpcs(Collection<String> epcs);
+}
@@ -1,17 +1,66 @@
 package com.anexya.app.repository;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import com.anexya.app.domain.TagRead;
+import com.anexya.app.domain.TagReadCursor;
+import com.anexya.app.domain.TagReadFilter;
+import com.anexya.app.domain.TagReadPage;
+import com.anexya.app.domain.TagReadWriteResult;
 
 public interface TagReadRepository {
     Optional<TagRead> findById(UUID id);
 
+    /**
+     * Inserts {@code tx}, or overwrites the stored read with the same id whatever its RSSI.
+     */
     TagRead save(TagRead tx);
 
+    /**
+     * Inserts each read; like {@link #replaceIfStronger(TagRead)}, a read whose id is already stored only overwrites it
+     * when its RSSI is stronger.
+     */
+    List<TagReadWriteResult> saveAll(List<TagRead> reads);
+
+    /**
+     * Writes {@code read} unless the row with the same id already holds an equal or stronger RSSI; a missing row is
+     * inserted. A replacement and the write that opened its row can therefore land in any order without regressing
+     * the row. Returns whether the row now holds {@code read}.
+     */
+    boolean replaceIfStronger(TagRead read);
+
+    /**
+     * Appends reads through the database's native bulk path; unlike {@link #saveAll(List)} there is no upsert and no
+     * per-row result. Returns the number of rows loaded.
+     */
+    int loadAll(List<TagRead> reads);
+
     void deleteById(UUID id);
 
-    List<TagRead> findByFilters(Optional<String> epc, Optional<String> location, Optional<String> siteName);
+    /**
+     * Returns up to {@code limit} reads ordered by {@code read_at desc, id desc}, starting strictly after {@code after}.
+     */
+    TagReadPage findPage(TagReadFilter filter, Optional<TagReadCursor> after, int limit);
+
+    /**
+     * Returns up to {@code limitPerEpc} reads of each EPC, newest first, keyed by EPC in the order given; EPCs without
+     * matching reads map to an empty list. {@code filter.epc()} and {@code filter.location()} are ignored.
+     */
+    Map<String, List<TagRead>> findByEpcs(List<String> epcs, TagReadFilter filter, int limitPerEpc);
+
+    /**
+     * Returns up to {@code limit} reads with exactly this reference code, newest first, through the blind index. Rows
+     * without a blind index entry are not found.
+     */
+    List<TagRead> findByReferenceCode(String referenceCode, int limit);
+
+    /**
+     * Passes every matching read to {@code consumer} in {@code read_at desc, id desc} order as rows arrive from the
+     * database, without materializing the result.
+     */
+    void streamAll(TagReadFilter filter, Consumer<TagRead> consumer);
 }
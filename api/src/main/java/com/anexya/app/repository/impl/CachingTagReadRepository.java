@@ -0,0 +1,173 @@
+package com.anexya.app.repository.impl;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import com.anexya.app.cache.TtlCache;
+import com.anexya.app.domain.TagRead;
+import com.anexya.app.domain.TagReadCursor;
+import com.anexya.app.domain.TagReadFilter;
+import com.anexya.app.domain.TagReadPage;
+import com.anexya.app.domain.TagReadWriteResult;
+import com.anexya.app.repository.TagReadRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Read-through cache of decrypted reads in front of {@link JdbcTagReadRepository#findById(UUID)}. Writes through this
+ * repository refresh or drop the cached entry; writes made by other instances are only seen after the TTL unless the
+ * {@link TagReadInvalidationLog} is enabled. Searches always go to the database.
+ * <p>
+ * Every cache fill is conditional on the key's {@link TtlCache#generation(Object) generation} taken before the
+ * database call, so a load or write that overlaps another write to the same key is dropped rather than cached stale.
+ */
+@Primary
+@Repository
+@Profile("mysql")
+public class CachingTagReadRepository implements TagReadRepository {
+    static final String CACHE_NAME = "tag-reads";
+
+    private final JdbcTagReadRepository delegate;
+    private final TagReadInvalidationLog invalidationLog;
+    private final TtlCache<UUID, TagRead> cache;
+
+    CachingTagReadRepository(JdbcTagReadRepository delegate,
+                             TagReadInvalidationLog invalidationLog,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.cache.tag-reads.enabled:true}") boolean enabled,
+                             @Value("${app.cache.tag-reads.max-entries:10000}") int maxEntries,
+                             @Value("${app.cache.tag-reads.ttl:30s}") Duration ttl) {
+        this.delegate = delegate;
+        this.invalidationLog = invalidationLog;
+        this.cache = enabled ? new TtlCache<>(CACHE_NAME, maxEntries, ttl, meterRegistry) : null;
+    }
+
+    @PostConstruct
+    void subscribe() {
+        if (cache != null) {
+            invalidationLog.start(cache::invalidate);
+        }
+    }
+
+    @Override
+    public Optional<TagRead> findById(UUID id) {
+        if (cache == null) {
+            return delegate.findById(id);
+        }
+        final Optional<TagRead> cached = cache.getIfPresent(id);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        final long generation = cache.generation(id);
+        final Optional<TagRead> loaded = delegate.findById(id);
+        loaded.ifPresent(read -> cache.putIfUnchanged(id, read, generation));
+        return loaded;
+    }
+
+    @Override
+    public TagRead save(TagRead tx) {
+        final long generation = cache == null ? 0 : cache.generation(tx.id());
+        try {
+            final TagRead saved = delegate.save(tx);
+            refresh(saved, generation);
+            return saved;
+        } catch (RuntimeException e) {
+            invalidate(tx.id());
+            throw e;
+        } finally {
+            invalidationLog.publish(List.of(tx.id()));
+        }
+    }
+
+    @Override
+    public List<TagReadWriteResult> saveAll(List<TagRead> reads) {
+        final List<UUID> ids = reads.stream()
+                                    .map(TagRead::id)
+                                    .toList();
+        try {
+            return delegate.saveAll(reads);
+        } finally {
+            ids.forEach(this::invalidate);
+            invalidationLog.publish(ids);
+        }
+    }
+
+    @Override
+    public boolean replaceIfStronger(TagRead read) {
+        final long generation = cache == null ? 0 : cache.generation(read.id());
+        try {
+            final boolean replaced = delegate.replaceIfStronger(read);
+            if (replaced) {
+                refresh(read, generation);
+            }
+            return replaced;
+        } catch (RuntimeException e) {
+            invalidate(read.id());
+            throw e;
+        } finally {
+            invalidationLog.publish(List.of(read.id()));
+        }
+    }
+
+    @Override
+    public int loadAll(List<TagRead> reads) {
+        // plain inserts of new ids: nothing cached can be stale
+        return delegate.loadAll(reads);
+    }
+
+    @Override
+    public void deleteById(UUID id) {
+        try {
+            delegate.deleteById(id);
+        } finally {
+            invalidate(id);
+            invalidationLog.publish(List.of(id));
+        }
+    }
+
+    @Override
+    public TagReadPage findPage(TagReadFilter filter, Optional<TagReadCursor> after, int limit) {
+        return delegate.findPage(filter, after, limit);
+    }
+
+    @Override
+    public Map<String, List<TagRead>> findByEpcs(List<String> epcs, TagReadFilter filter, int limitPerEpc) {
+        return delegate.findByEpcs(epcs, filter, limitPerEpc);
+    }
+
+    @Override
+    public List<TagRead> findByReferenceCode(String referenceCode, int limit) {
+        return delegate.findByReferenceCode(referenceCode, limit);
+    }
+
+    @Override
+    public void streamAll(TagReadFilter filter, Consumer<TagRead> consumer) {
+        delegate.streamAll(filter, consumer);
+    }
+
+    /**
+     * Caches a just-written read, or drops the entry when another write to the key overlapped this one and the order
+     * in which they committed is unknown.
+     */
+    private void refresh(TagRead written, long generation) {
+        if (cache != null && !cache.putIfUnchanged(written.id(), written, generation)) {
+            cache.invalidate(written.id());
+        }
+    }
+
+    private void invalidate(UUID id) {
+        if (cache != null) {
+            cache.invalidate(id);
+        }
+    }
+}
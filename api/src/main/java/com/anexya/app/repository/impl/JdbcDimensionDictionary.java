@@ -0,0 +1,172 @@
+package com.anexya.app.repository.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.anexya.app.repository.Dimension;
+import com.anexya.app.repository.DimensionDictionary;
+
+/**
+ * Dictionary backed by the {@code dim_*} tables with an in-process intern cache in both directions. Each dimension
+ * caches about {@code app.dictionary.max-cached-entries} values and evicts the least recently used ones beyond that, so
+ * the hot set stays cached however many distinct values the tables hold.
+ */
+@Repository
+@Profile("mysql")
+public class JdbcDimensionDictionary implements DimensionDictionary {
+    private static final int STRIPES = 16;
+    private static final int LOOKUP_CHUNK = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Dimension, LruMap<String, Integer>> ids = new EnumMap<>(Dimension.class);
+    private final Map<Dimension, LruMap<Integer, String>> values = new EnumMap<>(Dimension.class);
+
+    public JdbcDimensionDictionary(JdbcTemplate jdbcTemplate, @Value("${app.dictionary.max-cached-entries:500000}") int maxCachedEntries) {
+        this.jdbcTemplate = jdbcTemplate;
+        for (Dimension dimension : Dimension.values()) {
+            ids.put(dimension, new LruMap<>(maxCachedEntries));
+            values.put(dimension, new LruMap<>(maxCachedEntries));
+        }
+    }
+
+    @Override
+    public int idFor(Dimension dimension, String value) {
+        final Integer cached = ids.get(dimension)
+                                  .get(value);
+        if (cached != null) {
+            return cached;
+        }
+        // select first so existing values do not burn auto-increment ids through insert ignore
+        return findId(dimension, value).orElseGet(() -> {
+            jdbcTemplate.update("insert ignore into " + dimension.table() + " (value) values (?)", value);
+            return findId(dimension, value).orElseThrow(() -> new IllegalStateException("Failed to intern " + dimension + " value " + value));
+        });
+    }
+
+    @Override
+    public Optional<Integer> findId(Dimension dimension, String value) {
+        final Integer cached = ids.get(dimension)
+                                  .get(value);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        final List<Integer> found = jdbcTemplate.queryForList("select id from " + dimension.table() + " where value = ?", Integer.class, value);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        remember(dimension, value, found.get(0));
+        return Optional.of(found.get(0));
+    }
+
+    @Override
+    public Map<String, Integer> findIds(Dimension dimension, Collection<String> values) {
+        final Map<String, Integer> found = new HashMap<>();
+        final List<String> missing = new ArrayList<>();
+        for (String value : new LinkedHashSet<>(values)) {
+            final Integer cached = ids.get(dimension)
+                                      .get(value);
+            if (cached != null) {
+                found.put(value, cached);
+            } else {
+                missing.add(value);
+            }
+        }
+        // one round trip per chunk of uncached values rather than one per value
+        for (int from = 0; from < missing.size(); from += LOOKUP_CHUNK) {
+            final List<String> chunk = missing.subList(from, Math.min(from + LOOKUP_CHUNK, missing.size()));
+            final String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.query("select id, value from " + dimension.table() + " where value in (" + placeholders + ")", rs -> {
+                final int id = rs.getInt("id");
+                final String value = rs.getString("value");
+                remember(dimension, value, id);
+                found.put(value, id);
+            }, chunk.toArray());
+        }
+        return found;
+    }
+
+    @Override
+    public String valueOf(Dimension dimension, int id) {
+        final String cached = values.get(dimension)
+                                    .get(id);
+        if (cached != null) {
+            return cached;
+        }
+        final List<String> found = jdbcTemplate.queryForList("select value from " + dimension.table() + " where id = ?", String.class, id);
+        if (found.isEmpty()) {
+            throw new IllegalStateException("Unknown " + dimension + " id " + id);
+        }
+        remember(dimension, found.get(0), id);
+        return found.get(0);
+    }
+
+    private void remember(Dimension dimension, String value, int id) {
+        ids.get(dimension)
+           .put(value, id);
+        values.get(dimension)
+              .put(id, value);
+    }
+
+    /**
+     * Access-ordered map split into stripes that each evict their least recently used entry when full, so row mapping
+     * on many threads contends on one stripe rather than on a single lock.
+     */
+    private static final class LruMap<K, V> {
+        private final Stripe<K, V>[] stripes;
+
+        @SuppressWarnings("unchecked")
+        LruMap(int maxEntries) {
+            final int perStripe = Math.max(1, maxEntries / STRIPES);
+            this.stripes = new Stripe[STRIPES];
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new Stripe<>(perStripe);
+            }
+        }
+
+        V get(K key) {
+            final Stripe<K, V> stripe = stripeOf(key);
+            synchronized (stripe) {
+                return stripe.get(key);
+            }
+        }
+
+        void put(K key, V value) {
+            final Stripe<K, V> stripe = stripeOf(key);
+            synchronized (stripe) {
+                stripe.put(key, value);
+            }
+        }
+
+        private Stripe<K, V> stripeOf(K key) {
+            final int hash = key.hashCode();
+            return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+        }
+    }
+
+    private static final class Stripe<K, V> extends LinkedHashMap<K, V> {
+        private final int maxEntries;
+
+        Stripe(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxEntries;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.anexya.app.repository.impl;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import com.anexya.app.domain.TagCurrentState;
+import com.anexya.app.domain.TagRead;
+import com.anexya.app.repository.Dimension;
+import com.anexya.app.repository.DimensionDictionary;
+import com.anexya.app.repository.TagCurrentStateRepository;
+
+import lombok.RequiredArgsConstructor;
+
+@Repository
+@Profile("mysql")
+@RequiredArgsConstructor
+public class JdbcTagCurrentStateRepository implements TagCurrentStateRepository {
+    private static final String SELECT_SQL = "select epc_id, site_id, location_id, rssi, read_at, tag_read_id from tag_current_state";
+    // an EPC the seed has not reached yet is answered from its newest read, through idx (epc_id, read_at)
+    private static final String HISTORY_SQL = "(select epc_id, site_id, location_id, rssi, read_at, id as tag_read_id from tag_reads "
+            + "where epc_id = ? order by read_at desc, id desc limit 1)";
+
+    // Only a newer read (ties broken by id, like the search order) replaces the row. MySQL applies the assignments
+    // left to right, so tag_read_id and read_at come last: every condition before them still sees the old values.
+    private static final String ADVANCE_SQL = "insert into tag_current_state (epc_id, site_id, location_id, rssi, read_at, tag_read_id) values (?, ?, ?, ?, ?, ?) "
+            + "on duplicate key update "
+            + "site_id = if(values(read_at) > read_at or (values(read_at) = read_at and values(tag_read_id) >= tag_read_id), values(site_id), site_id), "
+            + "location_id = if(values(read_at) > read_at or (values(read_at) = read_at and values(tag_read_id) >= tag_read_id), values(location_id), location_id), "
+            + "rssi = if(values(read_at) > read_at or (values(read_at) = read_at and values(tag_read_id) >= tag_read_id), values(rssi), rssi), "
+            + "tag_read_id = if(values(read_at) > read_at or (values(read_at) = read_at and values(tag_read_id) >= tag_read_id), values(tag_read_id), tag_read_id), "
+            + "read_at = if(values(read_at) > read_at or (values(read_at) = read_at and values(tag_read_id) >= tag_read_id), values(read_at), read_at)";
+
+    // Rewrites the row from the EPC's newest read in one statement, so readers never see it missing. It applies while
+    // the row still points at the repaired read (the fallback may be older) or when the history row is newer, so a
+    // concurrent advance is never undone. tag_read_id is assigned before read_at so its condition sees the old values;
+    // read_at then follows whichever read tag_read_id ended up on.
+    private static final String REPAIR_SQL = "insert into tag_current_state (epc_id, site_id, location_id, rssi, read_at, tag_read_id) "
+            + "select epc_id, site_id, location_id, rssi, read_at, id from tag_reads where epc_id = ? order by read_at desc, id desc limit 1 "
+            + "on duplicate key update "
+            + "site_id = if(tag_read_id = ? or (values(read_at), values(tag_read_id)) > (read_at, tag_read_id), values(site_id), site_id), "
+            + "location_id = if(tag_read_id = ? or (values(read_at), values(tag_read_id)) > (read_at, tag_read_id), values(location_id), location_id), "
+            + "rssi = if(tag_read_id = ? or (values(read_at), values(tag_read_id)) > (read_at, tag_read_id), values(rssi), rssi), "
+            + "tag_read_id = if(tag_read_id = ? or (values(read_at), values(tag_read_id)) > (read_at, tag_read_id), values(tag_read_id), tag_read_id), "
+            + "read_at = if(tag_read_id = values(tag_read_id), values(read_at), read_at)";
+
+    // Seeds the row from the EPC's newest read; like an advance, it never replaces a newer read written meanwhile.
+    private static final String SEED_SQL = "insert into tag_current_state (epc_id, site_id, location_id, rssi, read_at, tag_read_id) "
+            + "select epc_id, site_id, location_id, rssi, read_at, id from tag_reads where epc_id = ? order by read_at desc, id desc limit 1 "
+            + "on duplicate key update "
+            + "site_id = if((values(read_at), values(tag_read_id)) > (read_at, tag_read_id), values(site_id), site_id), "
+            + "location_id = if((values(read_at), values(tag_read_id)) > (read_at, tag_read_id), values(location_id), location_id), "
+            + "rssi = if((values(read_at), values(tag_read_id)) > (read_at, tag_read_id), values(rssi), rssi), "
+            + "tag_read_id = if((values(read_at), values(tag_read_id)) > (read_at, tag_read_id), values(tag_read_id), tag_read_id), "
+            + "read_at = if(tag_read_id = values(tag_read_id), values(read_at), read_at)";
+
+    // an EPC whose last read was deleted has no row to fall back to
+    private static final String PRUNE_SQL = "delete from tag_current_state where epc_id = ? and tag_read_id = ? "
+            + "and not exists (select 1 from tag_reads where epc_id = ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DimensionDictionary dictionary;
+
+    private final RowMapper<TagCurrentState> mapper = new RowMapper<TagCurrentState>() {
+        @Override
+        public TagCurrentState mapRow(ResultSet rs, int rowNum) throws SQLException {
+            return TagCurrentState.builder()
+                                  .epc(dictionary.valueOf(Dimension.EPC, rs.getInt("epc_id")))
+                                  .siteName(dictionary.valueOf(Dimension.SITE, rs.getInt("site_id")))
+                                  .location(dictionary.valueOf(Dimension.LOCATION, rs.getInt("location_id")))
+                                  .rssi(rs.getDouble("rssi"))
+                                  .readAt(rs.getTimestamp("read_at")
+                                            .toInstant())
+                                  .tagReadId(UuidBytes.fromBytes(rs.getBytes("tag_read_id")))
+                                  .build();
+        }
+    };
+
+    /**
+     * EPCs without a row are looked up in {@code tag_reads}, so answers stay complete while
+     * {@link TagCurrentStateSeeder} is still seeding.
+     */
+    @Override
+    public Optional<TagCurrentState> findByEpc(String epc) {
+        return dictionary.findId(Dimension.EPC, epc)
+                         .flatMap(epcId -> find(List.of(epcId)).stream()
+                                                               .findFirst());
+    }
+
+    @Override
+    public List<TagCurrentState> findByEpcs(Collection<String> epcs) {
+        return find(dictionary.findIds(Dimension.EPC, epcs)
+                              .values());
+    }
+
+    private List<TagCurrentState> find(Collection<Integer> epcIds) {
+        if (epcIds.isEmpty()) {
+            return List.of();
+        }
+        final String placeholders = String.join(", ", Collections.nCopies(epcIds.size(), "?"));
+        final List<TagCurrentState> states = new ArrayList<>(jdbcTemplate.query(SELECT_SQL + " where epc_id in (" + placeholders + ")",
+                                                                                 mapper,
+                                                                                 epcIds.toArray()));
+        final Set<String> found = new HashSet<>();
+        states.forEach(state -> found.add(state.epc()));
+        final Object[] missing = epcIds.stream()
+                                       .filter(epcId -> !found.contains(dictionary.valueOf(Dimension.EPC, epcId)))
+                                       .toArray();
+        if (missing.length > 0) {
+            states.addAll(jdbcTemplate.query(String.join(" union all ", Collections.nCopies(missing.length, HISTORY_SQL)), mapper, missing));
+        }
+        return states;
+    }
+
+    /**
+     * Moves each EPC's state forward to the newest of {@code reads} if it is newer than what is stored. Only the
+     * latest read per EPC in the batch is sent, picked with the same (read_at, id) order as the update.
+     */
+    void advance(List<TagRead> reads) {
+        final Map<String, TagRead> latest = new LinkedHashMap<>();
+        for (TagRead read : reads) {
+            latest.merge(read.epc(), read, (kept, candidate) -> isNewer(candidate, kept) ? candidate : kept);
+        }
+        // in epc_id order, so writers advancing overlapping EPCs in one transaction lock the rows in the same order
+        final List<TagRead> ordered = latest.values()
+                                            .stream()
+                                            .sorted(Comparator.comparingInt(read -> dictionary.idFor(Dimension.EPC, read.epc())))
+                                            .toList();
+        jdbcTemplate.batchUpdate(ADVANCE_SQL, ordered, ordered.size(), (ps, read) -> {
+            ps.setInt(1, dictionary.idFor(Dimension.EPC, read.epc()));
+            ps.setInt(2, dictionary.idFor(Dimension.SITE, read.siteName()));
+            ps.setInt(3, dictionary.idFor(Dimension.LOCATION, read.location()));
+            ps.setDouble(4, read.rssi());
+            ps.setTimestamp(5, Timestamp.from(read.readAt()));
+            ps.setBytes(6, UuidBytes.toBytes(read.id()));
+        });
+    }
+
+    /**
+     * Rebuilds from history every EPC whose state was taken from {@code tagReadId}, after that read was rewritten or
+     * deleted. This is the only path that scans an EPC's history, and only when its current read itself changed;
+     * callers skip it for reads that did not exist before the write.
+     */
+    void repair(UUID tagReadId) {
+        final byte[] id = UuidBytes.toBytes(tagReadId);
+        final List<Integer> affected = jdbcTemplate.queryForList("select epc_id from tag_current_state where tag_read_id = ?", Integer.class, (Object) id);
+        for (Integer epcId : affected) {
+            jdbcTemplate.update(REPAIR_SQL, epcId, id, id, id, id);
+            jdbcTemplate.update(PRUNE_SQL, epcId, id, epcId);
+        }
+    }
+
+    /**
+     * Sets the state of one EPC from its history, unless a newer read got there first. Used by
+     * {@link TagCurrentStateSeeder} for reads that predate {@code tag_current_state}.
+     */
+    void seed(int epcId) {
+        jdbcTemplate.update(SEED_SQL, epcId);
+    }
+
+    private static boolean isNewer(TagRead candidate, TagRead kept) {
+        final int byTime = candidate.readAt()
+                                    .compareTo(kept.readAt());
+        return byTime != 0 ? byTime > 0 : UuidBytes.compare(candidate.id(), kept.id()) >= 0;
+    }
+}
@@ -1,19 +1,44 @@
 package com.anexya.app.repository.impl;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.anexya.app.crypto.ReferenceCodeBlindIndex;
 import com.anexya.app.crypto.ReferenceCodeCrypto;
 import com.anexya.app.domain.TagRead;
+import com.anexya.app.domain.TagReadCursor;
+import com.anexya.app.domain.TagReadField;
+import com.anexya.app.domain.TagReadFilter;
+import com.anexya.app.domain.TagReadPage;
+import com.anexya.app.domain.TagReadWriteResult;
+import com.anexya.app.repository.Dimension;
+import com.anexya.app.repository.DimensionDictionary;
 import com.anexya.app.repository.TagReadRepository;
 
 import lombok.RequiredArgsConstructor;
@@ -22,18 +47,53 @@ import lombok.RequiredArgsConstructor;
 @Profile("mysql")
 @RequiredArgsConstructor
 public class JdbcTagReadRepository implements TagReadRepository {
+    private static final String SELECT_SQL = "select id, site_id, epc_id, reference_code, location_id, rssi, read_at from tag_reads";
+    private static final String UPSERT_SQL = "insert into tag_reads (id, site_id, epc_id, reference_code, reference_hash, location_id, rssi, read_at) values (?, ?, ?, ?, ?, ?, ?, ?) "
+            + "on duplicate key update site_id = values(site_id), epc_id = values(epc_id), reference_code = values(reference_code), reference_hash = values(reference_hash), "
+            + "location_id = values(location_id), rssi = values(rssi), read_at = values(read_at)";
+    // Only a stronger read overwrites a stored row, so a replacement and the write that opened its row can land in either
+    // order. MySQL applies the assignments left to right, so rssi comes last: every condition before it still sees the
+    // stored value.
+    private static final String UPSERT_IF_STRONGER_SQL = "insert into tag_reads (id, site_id, epc_id, reference_code, reference_hash, location_id, rssi, read_at) values (?, ?, ?, ?, ?, ?, ?, ?) "
+            + "on duplicate key update site_id = if(values(rssi) > rssi, values(site_id), site_id), epc_id = if(values(rssi) > rssi, values(epc_id), epc_id), "
+            + "reference_code = if(values(rssi) > rssi, values(reference_code), reference_code), reference_hash = if(values(rssi) > rssi, values(reference_hash), reference_hash), "
+            + "location_id = if(values(rssi) > rssi, values(location_id), location_id), read_at = if(values(rssi) > rssi, values(read_at), read_at), "
+            + "rssi = greatest(rssi, values(rssi))";
+
+    // the file name is ignored: Connector/J reads the rows from the stream set on the statement
+    private static final String LOAD_SQL = "load data local infile 'tag_reads.tsv' into table tag_reads character set utf8mb4 "
+            + "fields terminated by '\\t' escaped by '\\\\' lines terminated by '\\n' (@id, site_id, epc_id, reference_code, @reference_hash, location_id, rssi, read_at) "
+            + "set id = unhex(@id), reference_hash = unhex(@reference_hash)";
+    private static final DateTimeFormatter LOAD_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS")
+                                                                             .withZone(ZoneOffset.UTC);
+
     private final JdbcTemplate jdbcTemplate;
     private final ReferenceCodeCrypto referenceCodeCrypto;
+    private final DimensionDictionary dictionary;
+    private final PartitionPruningProbe partitionProbe;
+    private final ReferenceCodeDecryptor decryptor;
+    private final ReferenceCodeBlindIndex blindIndex;
+    private final JdbcTagCurrentStateRepository currentState;
+    private final ParallelQueryRunner queryRunner;
+    private final RollupMaintainer rollups;
+    private final TagReadBulkLoader bulkLoader;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.ingest.jdbc-batch-size:500}")
+    private int jdbcBatchSize;
+
+    @Value("${app.search.batch.chunk-size:200}")
+    private int epcChunkSize;
 
     private final RowMapper<TagRead> mapper = new RowMapper<TagRead>() {
         @Override
         public TagRead mapRow(ResultSet rs, int rowNum) throws SQLException {
             return TagRead.builder()
-                          .id(UUID.fromString(rs.getString("id")))
-                          .siteName(rs.getString("site_name"))
-                          .epc(rs.getString("epc"))
+                          .id(UuidBytes.fromBytes(rs.getBytes("id")))
+                          .siteName(dictionary.valueOf(Dimension.SITE, rs.getInt("site_id")))
+                          .epc(dictionary.valueOf(Dimension.EPC, rs.getInt("epc_id")))
                           .referenceCode(referenceCodeCrypto.decrypt(rs.getString("reference_code")))
-                          .location(rs.getString("location"))
+                          .location(dictionary.valueOf(Dimension.LOCATION, rs.getInt("location_id")))
                           .rssi(rs.getDouble("rssi"))
                           .readAt(rs.getTimestamp("read_at")
                                     .toInstant())
@@ -44,57 +104,439 @@ public class JdbcTagReadRepository implements TagReadRepository {
     @Override
     @SuppressWarnings("null")
     public Optional<TagRead> findById(UUID id) {
-        final List<TagRead> results = jdbcTemplate.query("select id, site_name, epc, reference_code, location, rssi, read_at from tag_reads where id = ?", mapper, id.toString());
+        final List<TagRead> results = jdbcTemplate.query(SELECT_SQL + " where id = ?", mapper, (Object) UuidBytes.toBytes(id));
         return results.stream()
                       .findFirst();
     }
 
+    /**
+     * Each write runs with its current-state update and rollup marks in one transaction, so a crash cannot leave the
+     * row written but the derived tables stale. Reference codes are encrypted and dimension values interned before
+     * the transaction opens: neither a KMS call nor a dictionary insert runs while it holds row locks.
+     */
     @Override
     public TagRead save(TagRead tx) {
-        final int updated = jdbcTemplate.update("insert into tag_reads (id, site_name, epc, reference_code, location, rssi, read_at) values (?, ?, ?, ?, ?, ?, ?) " + "on duplicate key update site_name = values(site_name), epc = values(epc), reference_code = values(reference_code), location = values(location), rssi = values(rssi), read_at = values(read_at)",
-                                                ps -> {
-                                                    ps.setString(1,
-                                                                 tx.id()
-                                                                   .toString());
-                                                    ps.setString(2, tx.siteName());
-                                                    ps.setString(3, tx.epc());
-                                                    ps.setString(4, referenceCodeCrypto.encrypt(tx.referenceCode()));
-                                                    ps.setString(5, tx.location());
-                                                    ps.setDouble(6, tx.rssi());
-                                                    ps.setTimestamp(7, java.sql.Timestamp.from(tx.readAt()));
-                                                });
+        final StoredRow row = toRow(tx);
+        transactionTemplate.executeWithoutResult(status -> {
+            final List<Instant> touched = new ArrayList<>(rollups.storedReadAt(tx.id()));
+            upsert(UPSERT_SQL, row);
+            if (!touched.isEmpty()) {
+                // only a read that already existed can be some EPC's current read
+                currentState.repair(tx.id());
+            }
+            currentState.advance(List.of(tx));
+            touched.add(tx.readAt());
+            rollups.markDirty(touched);
+        });
+        return tx;
+    }
+
+    @Override
+    public boolean replaceIfStronger(TagRead read) {
+        final StoredRow row = toRow(read);
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            final List<Instant> touched = new ArrayList<>(rollups.storedReadAt(read.id()));
+            final int updated = jdbcTemplate.update(UPSERT_IF_STRONGER_SQL, ps -> bindUpsert(ps, row));
+            // found-rows counting reports a rewritten row as 2, but an insert and an untouched row both as 1
+            if (updated != 2 && !holdsRssi(read)) {
+                return false;
+            }
+            if (!touched.isEmpty()) {
+                currentState.repair(read.id());
+            }
+            currentState.advance(List.of(read));
+            touched.add(read.readAt());
+            rollups.markDirty(touched);
+            return true;
+        }));
+    }
+
+    private boolean holdsRssi(TagRead read) {
+        // a locking read sees the latest row, which the upsert has already locked, rather than the transaction's snapshot
+        final List<Double> stored = jdbcTemplate.queryForList("select rssi from tag_reads where id = ? for update", Double.class, (Object) UuidBytes.toBytes(read.id()));
+        return !stored.isEmpty() && stored.get(0)
+                                          .equals(read.rssi());
+    }
+
+    private void upsert(String sql, StoredRow row) {
+        final int updated = jdbcTemplate.update(sql, ps -> bindUpsert(ps, row));
         if (updated == 0) {
-            throw new IllegalStateException("Failed to save tag read " + tx.id());
+            throw new IllegalStateException("Failed to save tag read " + row.read()
+                                                                          .id());
         }
-        return tx;
+    }
+
+    /**
+     * Writes each chunk of {@code jdbc-batch-size} reads in its own transaction, together with the current-state update
+     * and rollup marks of the reads in it that were saved.
+     */
+    @Override
+    public List<TagReadWriteResult> saveAll(List<TagRead> reads) {
+        final List<StoredRow> rows = reads.stream()
+                                          .map(this::toRow)
+                                          .toList();
+        final List<TagReadWriteResult> results = new ArrayList<>(reads.size());
+        for (int from = 0; from < rows.size(); from += jdbcBatchSize) {
+            final List<StoredRow> chunk = rows.subList(from, Math.min(from + jdbcBatchSize, rows.size()));
+            final int offset = from;
+            results.addAll(transactionTemplate.execute(status -> saveChunk(chunk, offset)));
+        }
+        return results;
+    }
+
+    private List<TagReadWriteResult> saveChunk(List<StoredRow> chunk, int offset) {
+        // rows a retry rewrites leave their old hours behind, which must be refreshed like save() does
+        final Map<UUID, Instant> stored = rollups.storedReadAts(chunk.stream()
+                                                                     .map(row -> row.read()
+                                                                                    .id())
+                                                                     .toList());
+        final List<TagReadWriteResult> results = writeChunk(chunk, offset);
+        final List<TagRead> saved = IntStream.range(0, chunk.size())
+                                             .filter(i -> results.get(i)
+                                                                 .isSaved())
+                                             .mapToObj(i -> chunk.get(i)
+                                                                 .read())
+                                             .toList();
+        if (!saved.isEmpty()) {
+            final List<Instant> touched = new ArrayList<>();
+            for (TagRead read : saved) {
+                final Instant previous = stored.get(read.id());
+                if (previous != null) {
+                    touched.add(previous);
+                    currentState.repair(read.id());
+                }
+                touched.add(read.readAt());
+            }
+            currentState.advance(saved);
+            rollups.markDirty(touched);
+        }
+        return results;
+    }
+
+    private List<TagReadWriteResult> writeChunk(List<StoredRow> chunk, int offset) {
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_IF_STRONGER_SQL, chunk, chunk.size(), this::bindUpsert);
+            return IntStream.range(0, chunk.size())
+                            .mapToObj(i -> TagReadWriteResult.saved(offset + i,
+                                                                    chunk.get(i)
+                                                                         .read()
+                                                                         .id()))
+                            .toList();
+        } catch (RuntimeException batchError) {
+            // With rewritten batches one bad row fails the whole multi-row insert, so
+            // fall back to row-by-row writes to report which items actually failed.
+            final List<TagReadWriteResult> results = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                final StoredRow row = chunk.get(i);
+                try {
+                    upsert(UPSERT_IF_STRONGER_SQL, row);
+                    results.add(TagReadWriteResult.saved(offset + i,
+                                                         row.read()
+                                                            .id()));
+                } catch (RuntimeException rowError) {
+                    results.add(TagReadWriteResult.failed(offset + i,
+                                                          row.read()
+                                                             .id(),
+                                                          String.valueOf(rowError.getMessage())));
+                }
+            }
+            return results;
+        }
+    }
+
+    @Override
+    public int loadAll(List<TagRead> reads) {
+        if (reads.isEmpty()) {
+            return 0;
+        }
+        final int loaded = bulkLoader.load(LOAD_SQL, toLoadRows(reads));
+        currentState.advance(reads);
+        rollups.markDirty(reads.stream()
+                               .map(TagRead::readAt)
+                               .toList());
+        return loaded;
+    }
+
+    private byte[] toLoadRows(List<TagRead> reads) {
+        final StringBuilder rows = new StringBuilder(reads.size() * 128);
+        for (TagRead read : reads) {
+            rows.append(HexFormat.of()
+                                 .formatHex(UuidBytes.toBytes(read.id())))
+                .append('\t')
+                .append(dictionary.idFor(Dimension.SITE, read.siteName()))
+                .append('\t')
+                .append(dictionary.idFor(Dimension.EPC, read.epc()))
+                .append('\t');
+            appendEscaped(rows, referenceCodeCrypto.encrypt(read.referenceCode()));
+            rows.append('\t')
+                .append(blindIndex.hash(read.referenceCode())
+                                  .map(HexFormat.of()::formatHex)
+                                  .orElse("\\N"))
+                .append('\t')
+                .append(dictionary.idFor(Dimension.LOCATION, read.location()))
+                .append('\t')
+                .append(read.rssi())
+                .append('\t')
+                .append(LOAD_TIMESTAMP.format(read.readAt()))
+                .append('\n');
+        }
+        return rows.toString()
+                   .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendEscaped(StringBuilder rows, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> rows.append("\\\\");
+                case '\t' -> rows.append("\\t");
+                case '\n' -> rows.append("\\n");
+                case '\r' -> rows.append("\\r");
+                case '\0' -> rows.append("\\0");
+                default -> rows.append(c);
+            }
+        }
+    }
+
+    private StoredRow toRow(TagRead read) {
+        return new StoredRow(read,
+                             dictionary.idFor(Dimension.SITE, read.siteName()),
+                             dictionary.idFor(Dimension.EPC, read.epc()),
+                             referenceCodeCrypto.encrypt(read.referenceCode()),
+                             blindIndex.hash(read.referenceCode())
+                                       .orElse(null),
+                             dictionary.idFor(Dimension.LOCATION, read.location()));
+    }
+
+    private void bindUpsert(PreparedStatement ps, StoredRow row) throws SQLException {
+        ps.setBytes(1, UuidBytes.toBytes(row.read()
+                                            .id()));
+        ps.setInt(2, row.siteId());
+        ps.setInt(3, row.epcId());
+        ps.setString(4, row.referenceCode());
+        ps.setBytes(5, row.referenceHash());
+        ps.setInt(6, row.locationId());
+        ps.setDouble(7, row.read()
+                           .rssi());
+        ps.setTimestamp(8, Timestamp.from(row.read()
+                                             .readAt()));
     }
 
     @Override
     public void deleteById(UUID id) {
-        jdbcTemplate.update("delete from tag_reads where id = ?", id.toString());
+        transactionTemplate.executeWithoutResult(status -> {
+            final List<Instant> touched = rollups.storedReadAt(id);
+            if (touched.isEmpty()) {
+                return;
+            }
+            jdbcTemplate.update("delete from tag_reads where id = ?", (Object) UuidBytes.toBytes(id));
+            currentState.repair(id);
+            rollups.markDirty(touched);
+        });
     }
 
     @Override
     @SuppressWarnings("null")
-    public List<TagRead> findByFilters(Optional<String> epc, Optional<String> location, Optional<String> siteName) {
-        final StringBuilder sql = new StringBuilder("select id, site_name, epc, reference_code, location, rssi, read_at from tag_reads where 1=1");
+    public TagReadPage findPage(TagReadFilter filter, Optional<TagReadCursor> after, int limit) {
+        final StringBuilder sql = new StringBuilder(selectSql(filter) + " where 1=1");
         final List<Object> params = new ArrayList<>();
-
-        epc.ifPresent(val -> {
-            sql.append(" and epc = ?");
-            params.add(val);
-        });
-        location.ifPresent(val -> {
-            sql.append(" and location = ?");
-            params.add(val);
+        if (!appendFilters(sql, params, filter)) {
+            return new TagReadPage(List.of(), Optional.empty());
+        }
+        // keyset predicate written so the leading read_at bound is a plain range on the (dimension, read_at) indexes
+        after.ifPresent(cursor -> {
+            final Timestamp readAt = Timestamp.from(cursor.readAt());
+            sql.append(" and read_at <= ? and (read_at < ? or id < ?)");
+            params.add(readAt);
+            params.add(readAt);
+            params.add(UuidBytes.toBytes(cursor.id()));
         });
-        siteName.ifPresent(val -> {
-            sql.append(" and site_name = ?");
+
+        // fetch one extra row to learn whether another page exists
+        sql.append(" order by read_at desc, id desc limit ?");
+        params.add(limit + 1);
+
+        partitionProbe.record("page", sql.toString(), params);
+        // reference codes are decrypted after the fetch so a large page can decrypt concurrently
+        final List<TagRead> rows = jdbcTemplate.query(sql.toString(), projectedMapper(filter, false), params.toArray());
+        final List<TagRead> items = rows.size() <= limit ? rows : rows.subList(0, limit);
+        final List<TagRead> page = filter.includes(TagReadField.REFERENCE_CODE) ? decryptor.decryptAll(items) : List.copyOf(items);
+        if (rows.size() <= limit) {
+            return new TagReadPage(page, Optional.empty());
+        }
+        final TagRead last = page.get(limit - 1);
+        return new TagReadPage(page, Optional.of(new TagReadCursor(last.readAt(), last.id())));
+    }
+
+    @Override
+    public Map<String, List<TagRead>> findByEpcs(List<String> epcs, TagReadFilter filter, int limitPerEpc) {
+        final Map<String, List<TagRead>> byEpc = new LinkedHashMap<>();
+        for (String epc : epcs) {
+            byEpc.putIfAbsent(epc, new ArrayList<>());
+        }
+        final List<Integer> epcIds = new ArrayList<>(dictionary.findIds(Dimension.EPC, byEpc.keySet())
+                                                               .values());
+        // the epc column is needed to group rows even when the caller projected it away
+        final TagReadFilter grouped = TagReadFilter.builder()
+                                                   .siteName(filter.siteName())
+                                                   .from(filter.from())
+                                                   .to(filter.to())
+                                                   .fields(filter.fields() == null ? null : withEpc(filter.fields()))
+                                                   .build();
+        final List<List<Integer>> chunks = new ArrayList<>();
+        for (int from = 0; from < epcIds.size(); from += epcChunkSize) {
+            chunks.add(epcIds.subList(from, Math.min(from + epcChunkSize, epcIds.size())));
+        }
+        final List<List<TagRead>> results = queryRunner.map(chunks, chunk -> findEpcChunk(chunk, grouped, limitPerEpc));
+        for (List<TagRead> rows : results) {
+            for (TagRead read : rows) {
+                byEpc.get(read.epc())
+                     .add(filter.includes(TagReadField.EPC) ? read
+                             : read.toBuilder()
+                                   .epc(null)
+                                   .build());
+            }
+        }
+        return byEpc;
+    }
+
+    private List<TagRead> findEpcChunk(List<Integer> epcIds, TagReadFilter filter, int limitPerEpc) {
+        final String columns = selectColumns(filter);
+        final StringBuilder sql = new StringBuilder("select ").append(columns)
+                                                              .append(" from (select ")
+                                                              .append(columns)
+                                                              .append(", row_number() over (partition by epc_id order by read_at desc, id desc) as rn from tag_reads where epc_id in (")
+                                                              .append(String.join(", ", Collections.nCopies(epcIds.size(), "?")))
+                                                              .append(")");
+        final List<Object> params = new ArrayList<>(epcIds);
+        if (!appendFilters(sql, params, filter)) {
+            return List.of();
+        }
+        sql.append(") ranked where rn <= ? order by epc_id, read_at desc, id desc");
+        params.add(limitPerEpc);
+        partitionProbe.record("batch", sql.toString(), params);
+        final List<TagRead> rows = jdbcTemplate.query(sql.toString(), projectedMapper(filter, false), params.toArray());
+        return filter.includes(TagReadField.REFERENCE_CODE) ? decryptor.decryptAll(rows) : rows;
+    }
+
+    private static Set<TagReadField> withEpc(Set<TagReadField> fields) {
+        final Set<TagReadField> widened = EnumSet.copyOf(fields);
+        widened.add(TagReadField.EPC);
+        return widened;
+    }
+
+    @Override
+    public List<TagRead> findByReferenceCode(String referenceCode, int limit) {
+        final Optional<byte[]> hash = blindIndex.hash(referenceCode);
+        if (hash.isEmpty()) {
+            return List.of();
+        }
+        // the hash narrows to an index range; comparing the decrypted code guards against HMAC collisions
+        return jdbcTemplate.query(SELECT_SQL + " where reference_hash = ? order by read_at desc, id desc limit ?", mapper, hash.get(), limit)
+                           .stream()
+                           .filter(read -> referenceCode.equals(read.referenceCode()))
+                           .toList();
+    }
+
+    @Override
+    public void streamAll(TagReadFilter filter, Consumer<TagRead> consumer) {
+        final StringBuilder sql = new StringBuilder(selectSql(filter) + " where 1=1");
+        final List<Object> params = new ArrayList<>();
+        if (!appendFilters(sql, params, filter)) {
+            return;
+        }
+        sql.append(" order by read_at desc, id desc");
+        partitionProbe.record("stream", sql.toString(), params);
+
+        final RowMapper<TagRead> rowMapper = projectedMapper(filter, true);
+        jdbcTemplate.query(StreamingStatement.of(sql.toString(), params.toArray()), (RowCallbackHandler) rs -> consumer.accept(rowMapper.mapRow(rs, 0)));
+    }
+
+    private static String selectSql(TagReadFilter filter) {
+        return "select " + selectColumns(filter) + " from tag_reads";
+    }
+
+    private static String selectColumns(TagReadFilter filter) {
+        final StringBuilder sql = new StringBuilder("id");
+        if (filter.includes(TagReadField.SITE_NAME)) {
+            sql.append(", site_id");
+        }
+        if (filter.includes(TagReadField.EPC)) {
+            sql.append(", epc_id");
+        }
+        if (filter.includes(TagReadField.REFERENCE_CODE)) {
+            sql.append(", reference_code");
+        }
+        if (filter.includes(TagReadField.LOCATION)) {
+            sql.append(", location_id");
+        }
+        if (filter.includes(TagReadField.RSSI)) {
+            sql.append(", rssi");
+        }
+        return sql.append(", read_at")
+                  .toString();
+    }
+
+    private RowMapper<TagRead> projectedMapper(TagReadFilter filter, boolean decrypt) {
+        return (rs, rowNum) -> {
+            final TagRead.TagReadBuilder read = TagRead.builder()
+                                                       .id(UuidBytes.fromBytes(rs.getBytes("id")))
+                                                       .readAt(rs.getTimestamp("read_at")
+                                                                 .toInstant());
+            if (filter.includes(TagReadField.SITE_NAME)) {
+                read.siteName(dictionary.valueOf(Dimension.SITE, rs.getInt("site_id")));
+            }
+            if (filter.includes(TagReadField.EPC)) {
+                read.epc(dictionary.valueOf(Dimension.EPC, rs.getInt("epc_id")));
+            }
+            if (filter.includes(TagReadField.REFERENCE_CODE)) {
+                final String stored = rs.getString("reference_code");
+                read.referenceCode(decrypt ? referenceCodeCrypto.decrypt(stored) : stored);
+            }
+            if (filter.includes(TagReadField.LOCATION)) {
+                read.location(dictionary.valueOf(Dimension.LOCATION, rs.getInt("location_id")));
+            }
+            if (filter.includes(TagReadField.RSSI)) {
+                read.rssi(rs.getDouble("rssi"));
+            }
+            return read.build();
+        };
+    }
+
+    // a value that was never interned cannot match any row
+    private boolean appendFilters(StringBuilder sql, List<Object> params, TagReadFilter filter) {
+        if (!appendDimensionFilter(sql, params, "epc_id", Dimension.EPC, Optional.ofNullable(filter.epc()))
+                || !appendDimensionFilter(sql, params, "location_id", Dimension.LOCATION, Optional.ofNullable(filter.location()))
+                || !appendDimensionFilter(sql, params, "site_id", Dimension.SITE, Optional.ofNullable(filter.siteName()))) {
+            return false;
+        }
+        // bare read_at bounds let MySQL prune partitions and range-scan the (dimension, read_at) indexes
+        if (filter.from() != null) {
+            sql.append(" and read_at >= ?");
+            params.add(Timestamp.from(filter.from()));
+        }
+        if (filter.to() != null) {
+            sql.append(" and read_at <= ?");
+            params.add(Timestamp.from(filter.to()));
+        }
+        return true;
+    }
+
+    private boolean appendDimensionFilter(StringBuilder sql, List<Object> params, String column, Dimension dimension, Optional<String> value) {
+        if (value.isEmpty()) {
+            return true;
+        }
+        final Optional<Integer> id = dictionary.findId(dimension, value.get());
+        id.ifPresent(val -> {
+            sql.append(" and ").append(column).append(" = ?");
             params.add(val);
         });
+        return id.isPresent();
+    }
 
-        sql.append(" order by read_at desc");
-
-        return jdbcTemplate.query(sql.toString(), mapper, params.toArray());
+    /**
+     * A read with its columns resolved: dimension ids interned and the reference code encrypted and hashed.
+     */
+    private record StoredRow(TagRead read, int siteId, int epcId, String referenceCode, byte[] referenceHash, int locationId) {
     }
 }
@@ -0,0 +1,74 @@
+package com.anexya.app.repository.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs independent queries on the virtual-thread executor and returns their results in input order. A semaphore
+ * shared by all requests caps how many run at once, so one large request cannot take the whole connection pool.
+ */
+@Component
+@Profile("mysql")
+public class ParallelQueryRunner {
+    private final ExecutorService executor;
+    private final Semaphore permits;
+
+    public ParallelQueryRunner(@Qualifier("applicationVirtualThreadExecutor") ExecutorService executor,
+                               @Value("${app.search.query-parallelism:4}") int parallelism) {
+        this.executor = executor;
+        this.permits = new Semaphore(parallelism);
+    }
+
+    public <T, R> List<R> map(List<T> inputs, Function<T, R> query) {
+        if (inputs.size() <= 1) {
+            return inputs.stream()
+                         .map(query)
+                         .toList();
+        }
+        final List<Future<R>> futures = new ArrayList<>(inputs.size());
+        for (T input : inputs) {
+            futures.add(executor.submit(() -> {
+                permits.acquire();
+                try {
+                    return query.apply(input);
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+        final List<R> results = new ArrayList<>(inputs.size());
+        try {
+            for (Future<R> future : futures) {
+                results.add(join(future));
+            }
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return results;
+    }
+
+    private static <R> R join(Future<R> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a query", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Query failed", e.getCause());
+        }
+    }
+}
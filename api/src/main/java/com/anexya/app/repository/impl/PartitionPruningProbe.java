@@ -0,0 +1,49 @@
+package com.anexya.app.repository.impl;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Debug aid for verifying partition pruning: with this logger at DEBUG, each search is EXPLAINed first and the number
+ * of {@code tag_reads} partitions it touches is logged and recorded in {@code tag_reads.search.partitions}.
+ */
+@Component
+@Profile("mysql")
+@RequiredArgsConstructor
+class PartitionPruningProbe {
+    private static final Logger log = LoggerFactory.getLogger(PartitionPruningProbe.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    void record(String query, String sql, List<Object> params) {
+        if (!log.isDebugEnabled()) {
+            return;
+        }
+        final List<String> partitions = jdbcTemplate.query("explain " + sql,
+                                                           (rs, rowNum) -> "tag_reads".equals(rs.getString("table")) ? rs.getString("partitions") : null,
+                                                           params.toArray())
+                                                    .stream()
+                                                    .filter(p -> p != null && !p.isEmpty())
+                                                    .toList();
+        if (partitions.isEmpty()) {
+            return; // table is not partitioned
+        }
+        final int touched = partitions.get(0)
+                                      .split(",").length;
+        DistributionSummary.builder("tag_reads.search.partitions")
+                           .tag("query", query)
+                           .register(meterRegistry)
+                           .record(touched);
+        log.debug("{} search touches {} partition(s): {}", query, touched, partitions.get(0));
+    }
+}
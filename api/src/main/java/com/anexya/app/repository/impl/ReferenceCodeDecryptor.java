@@ -0,0 +1,91 @@
+package com.anexya.app.repository.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.anexya.app.crypto.ReferenceCodeCrypto;
+import com.anexya.app.domain.TagRead;
+
+/**
+ * Decrypts the reference codes of a materialized result set. Large results are split into slices that run on the
+ * virtual-thread executor; a semaphore shared by all requests caps how many slices decrypt at once.
+ */
+@Component
+@Profile("mysql")
+class ReferenceCodeDecryptor {
+    private final ReferenceCodeCrypto referenceCodeCrypto;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int parallelism;
+    private final int minRowsPerTask;
+
+    ReferenceCodeDecryptor(ReferenceCodeCrypto referenceCodeCrypto,
+                           @Qualifier("applicationVirtualThreadExecutor") ExecutorService executor,
+                           @Value("${app.crypto.decrypt.parallelism:8}") int parallelism,
+                           @Value("${app.crypto.decrypt.min-rows-per-task:64}") int minRowsPerTask) {
+        this.referenceCodeCrypto = referenceCodeCrypto;
+        this.executor = executor;
+        this.permits = new Semaphore(parallelism);
+        this.parallelism = parallelism;
+        this.minRowsPerTask = minRowsPerTask;
+    }
+
+    List<TagRead> decryptAll(List<TagRead> reads) {
+        final int slices = Math.min(parallelism, (reads.size() + minRowsPerTask - 1) / minRowsPerTask);
+        if (slices <= 1) {
+            return decrypt(reads);
+        }
+        final int sliceSize = (reads.size() + slices - 1) / slices;
+        final List<Future<List<TagRead>>> futures = new ArrayList<>(slices);
+        for (int from = 0; from < reads.size(); from += sliceSize) {
+            final List<TagRead> slice = reads.subList(from, Math.min(from + sliceSize, reads.size()));
+            futures.add(executor.submit(() -> {
+                permits.acquire();
+                try {
+                    return decrypt(slice);
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+        final List<TagRead> decrypted = new ArrayList<>(reads.size());
+        for (Future<List<TagRead>> future : futures) {
+            decrypted.addAll(join(future));
+        }
+        return decrypted;
+    }
+
+    private List<TagRead> decrypt(List<TagRead> reads) {
+        final List<TagRead> decrypted = new ArrayList<>(reads.size());
+        for (TagRead read : reads) {
+            decrypted.add(read.toBuilder()
+                              .referenceCode(referenceCodeCrypto.decrypt(read.referenceCode()))
+                              .build());
+        }
+        return decrypted;
+    }
+
+    private static List<TagRead> join(Future<List<TagRead>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+            throw new IllegalStateException("Interrupted while decrypting reference codes", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Reference code decryption failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.anexya.app.repository.impl;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.anexya.app.crypto.ReferenceCodeBlindIndex;
+import com.anexya.app.crypto.ReferenceCodeCrypto;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Fills {@code reference_hash} for rows written before the blind index key was configured. Runs once after startup
+ * when {@code app.crypto.blind-index.backfill-on-startup} is set, on the virtual-thread executor so startup is not held
+ * up; walks the null-hash rows in primary key order so every batch is an index range scan. Progress is logged every
+ * {@value #PROGRESS_INTERVAL_ROWS} rows and counted in {@code tag_reads.reference_hash.backfilled}; shutdown stops it
+ * between batches and the next run resumes from the rows still without a hash.
+ */
+@Component
+@Profile("mysql")
+class ReferenceHashBackfill {
+    private static final Logger log = LoggerFactory.getLogger(ReferenceHashBackfill.class);
+    private static final String SELECT_SQL = "select id, reference_code from tag_reads where reference_hash is null and id > ? order by id limit ?";
+    private static final String UPDATE_SQL = "update tag_reads set reference_hash = ? where id = ? and reference_hash is null";
+    private static final long PROGRESS_INTERVAL_ROWS = 100_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReferenceCodeCrypto referenceCodeCrypto;
+    private final ReferenceCodeBlindIndex blindIndex;
+    private final ExecutorService executor;
+    private final Counter backfilled;
+    private final boolean enabled;
+    private final int batchSize;
+
+    private volatile boolean stopping;
+
+    ReferenceHashBackfill(JdbcTemplate jdbcTemplate,
+                          ReferenceCodeCrypto referenceCodeCrypto,
+                          ReferenceCodeBlindIndex blindIndex,
+                          @Qualifier("applicationVirtualThreadExecutor") ExecutorService executor,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.crypto.blind-index.backfill-on-startup:false}") boolean enabled,
+                          @Value("${app.crypto.blind-index.backfill-batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.referenceCodeCrypto = referenceCodeCrypto;
+        this.blindIndex = blindIndex;
+        this.executor = executor;
+        this.backfilled = meterRegistry.counter("tag_reads.reference_hash.backfilled");
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        if (!enabled || !blindIndex.isEnabled()) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                backfill();
+            } catch (RuntimeException e) {
+                log.error("reference_hash backfill failed; rows without a hash are retried on the next start", e);
+            }
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        stopping = true;
+    }
+
+    void backfill() {
+        log.info("Backfilling reference_hash in batches of {}", batchSize);
+        byte[] after = new byte[16];
+        long updated = 0;
+        while (!stopping) {
+            final List<Row> rows = jdbcTemplate.query(SELECT_SQL,
+                                                      (rs, rowNum) -> new Row(rs.getBytes("id"), rs.getString("reference_code")),
+                                                      after,
+                                                      batchSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+            jdbcTemplate.batchUpdate(UPDATE_SQL,
+                                     rows.stream()
+                                         .map(row -> new Object[] { blindIndex.hash(referenceCodeCrypto.decrypt(row.referenceCode()))
+                                                                              .orElse(null),
+                                                                    row.id() })
+                                         .toList());
+            backfilled.increment(rows.size());
+            if ((updated + rows.size()) / PROGRESS_INTERVAL_ROWS > updated / PROGRESS_INTERVAL_ROWS) {
+                log.info("Backfilled reference_hash for {} rows so far", updated + rows.size());
+            }
+            updated += rows.size();
+            after = rows.get(rows.size() - 1)
+                        .id();
+        }
+        if (stopping) {
+            log.info("reference_hash backfill stopped by shutdown after {} rows; it resumes on the next start", updated);
+        } else {
+            log.info("Backfilled reference_hash for {} rows", updated);
+        }
+    }
+
+    private record Row(byte[] id, String referenceCode) {
+    }
+}
@@ -0,0 +1,356 @@
+package com.anexya.app.repository.impl;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import com.anexya.app.sketch.QuantileSketch;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps {@code tag_read_rollup_hourly} / {@code _daily} in step with {@code tag_reads} while
+ * {@code app.aggregation.rollup.enabled} (by default, when {@code app.aggregation.strategy} is {@code rollup}). Writes
+ * queue the UTC hours they touched in {@code tag_read_rollup_dirty} in the write's own transaction, so a refresh that
+ * misses the row always finds its hour queued again; a background loop recomputes queued hours from raw rows and then
+ * their days from the hours, one day per transaction, and only then dequeues the hours. The same loop backfills reads
+ * written before the rollups existed, newest day first, lowering {@code tag_read_rollup_backfill.covered_from} as it
+ * goes. The loop takes a MySQL named lock so only one instance refreshes at a time. Each row also carries an RSSI
+ * {@link QuantileSketch}: an hour's is built from its raw readings, a day's by merging its hours'.
+ */
+@Component
+@Profile("mysql")
+public class RollupMaintainer {
+    private static final Logger log = LoggerFactory.getLogger(RollupMaintainer.class);
+    private static final String LOCK_NAME = "tag_read_rollup_refresh";
+    private static final int HOURS_PER_DAY = 24;
+
+    private static final String MARK_SQL = "insert into tag_read_rollup_dirty (bucket_start) values (?) on duplicate key update generation = generation + 1";
+    private static final String CLAIM_SQL = "select bucket_start, generation from tag_read_rollup_dirty order by bucket_start limit ?";
+    private static final String CLEAR_SQL = "delete from tag_read_rollup_dirty where bucket_start = ? and generation = ?";
+    private static final String INSERT_HOUR_SQL = "insert into tag_read_rollup_hourly "
+            + "(bucket_start, epc_id, site_id, location_id, read_count, rssi_sum, rssi_max, first_seen, last_seen) "
+            + "select ?, epc_id, site_id, location_id, count(*), sum(rssi), max(rssi), min(read_at), max(read_at) "
+            + "from tag_reads where read_at >= ? and read_at < ? group by epc_id, site_id, location_id";
+    private static final String INSERT_DAY_SQL = "insert into tag_read_rollup_daily "
+            + "(bucket_start, epc_id, site_id, location_id, read_count, rssi_sum, rssi_max, first_seen, last_seen) "
+            + "select ?, epc_id, site_id, location_id, sum(read_count), sum(rssi_sum), max(rssi_max), min(first_seen), max(last_seen) "
+            + "from tag_read_rollup_hourly where bucket_start >= ? and bucket_start < ? group by epc_id, site_id, location_id";
+    private static final String HOUR_RSSI_SQL = "select epc_id, site_id, location_id, rssi, count(*) as cnt from tag_reads "
+            + "where read_at >= ? and read_at < ? group by epc_id, site_id, location_id, rssi";
+    private static final String DAY_SKETCHES_SQL = "select epc_id, site_id, location_id, rssi_sketch from tag_read_rollup_hourly "
+            + "where bucket_start >= ? and bucket_start < ?";
+    private static final String SET_SKETCH_SQL = " set rssi_sketch = ? where bucket_start = ? and epc_id = ? and site_id = ? and location_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean maintained;
+    private final boolean enabled;
+    private final Duration refreshInterval;
+    private final int batchSize;
+    private final Counter refreshed;
+    private final Counter backfilled;
+
+    private volatile boolean running;
+    private Thread refresher;
+
+    public RollupMaintainer(JdbcTemplate jdbcTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.aggregation.rollup.enabled:#{'${app.aggregation.strategy:jdbc}' == 'rollup'}}") boolean maintained,
+                            @Value("${app.aggregation.rollup.refresh-enabled:true}") boolean enabled,
+                            @Value("${app.aggregation.rollup.refresh-interval:30s}") Duration refreshInterval,
+                            @Value("${app.aggregation.rollup.refresh-batch-size:200}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maintained = maintained;
+        this.enabled = enabled;
+        this.refreshInterval = refreshInterval;
+        this.batchSize = batchSize;
+        this.refreshed = meterRegistry.counter("tag_reads.rollup.refreshed_hours");
+        this.backfilled = meterRegistry.counter("tag_reads.rollup.backfilled_days");
+    }
+
+    /**
+     * Without a rollup consumer writes queue nothing, so the rollups go stale. Clearing {@code covered_from} makes
+     * readers read every hour raw until then, and makes the backfill rebuild everything once rollups are enabled again.
+     */
+    @PostConstruct
+    void start() {
+        if (!maintained) {
+            jdbcTemplate.update("insert into tag_read_rollup_backfill (id, covered_from) values (1, null) on duplicate key update covered_from = null");
+            return;
+        }
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        refresher = Thread.ofVirtual()
+                          .name("tag-read-rollup-refresher")
+                          .start(this::refreshLoop);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (refresher != null) {
+            refresher.interrupt();
+        }
+    }
+
+    void markDirty(Collection<Instant> readAts) {
+        if (!maintained) {
+            return;
+        }
+        final TreeSet<Instant> hours = new TreeSet<>();
+        readAts.forEach(readAt -> hours.add(readAt.truncatedTo(ChronoUnit.HOURS)));
+        if (hours.isEmpty()) {
+            return;
+        }
+        // sorted so concurrent writers lock the dirty rows in the same order
+        jdbcTemplate.batchUpdate(MARK_SQL,
+                                 hours.stream()
+                                      .map(hour -> new Object[] { Timestamp.from(hour) })
+                                      .toList());
+    }
+
+    /**
+     * Returns the stored read time of a read that is about to be rewritten or deleted, so its old hour can be marked
+     * once the write has committed.
+     */
+    List<Instant> storedReadAt(UUID id) {
+        return jdbcTemplate.query("select read_at from tag_reads where id = ?",
+                                  (rs, rowNum) -> rs.getTimestamp("read_at")
+                                                    .toInstant(),
+                                  (Object) UuidBytes.toBytes(id));
+    }
+
+    /**
+     * Batch form of {@link #storedReadAt(UUID)}: the stored read times of those {@code ids} that already exist.
+     */
+    Map<UUID, Instant> storedReadAts(List<UUID> ids) {
+        final Map<UUID, Instant> stored = new HashMap<>();
+        if (ids.isEmpty()) {
+            return stored;
+        }
+        jdbcTemplate.query("select id, read_at from tag_reads where id in (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")",
+                           (RowCallbackHandler) rs -> stored.put(UuidBytes.fromBytes(rs.getBytes("id")),
+                                                                 rs.getTimestamp("read_at")
+                                                                   .toInstant()),
+                           ids.stream()
+                              .map(UuidBytes::toBytes)
+                              .toArray());
+        return stored;
+    }
+
+    /**
+     * Recomputes up to {@code refresh-batch-size} queued hours and their days, then spends what is left of the batch
+     * on the backfill. Returns the number of hours refreshed, or 0 when another instance holds the refresh lock.
+     */
+    public int refresh() {
+        final Integer count = jdbcTemplate.execute((ConnectionCallback<Integer>) con -> {
+            final JdbcTemplate session = new JdbcTemplate(new SingleConnectionDataSource(con, true));
+            final Integer locked = session.queryForObject("select get_lock(?, 0)", Integer.class, LOCK_NAME);
+            if (locked == null || locked != 1) {
+                return 0;
+            }
+            try {
+                final int claimed = refreshClaimed(con, session);
+                return claimed < batchSize ? claimed + backfill(con, session, batchSize - claimed) : claimed;
+            } finally {
+                session.queryForObject("select release_lock(?)", Integer.class, LOCK_NAME);
+            }
+        });
+        return count == null ? 0 : count;
+    }
+
+    private int refreshClaimed(Connection con, JdbcTemplate session) throws SQLException {
+        final List<Dirty> claimed = session.query(CLAIM_SQL,
+                                                  (rs, rowNum) -> new Dirty(rs.getTimestamp("bucket_start")
+                                                                              .toInstant(),
+                                                                            rs.getLong("generation")),
+                                                  batchSize);
+        final Map<Instant, List<Dirty>> byDay = new TreeMap<>();
+        for (Dirty dirty : claimed) {
+            byDay.computeIfAbsent(dirty.hour()
+                                       .truncatedTo(ChronoUnit.DAYS),
+                                  day -> new ArrayList<>())
+                 .add(dirty);
+        }
+        for (Map.Entry<Instant, List<Dirty>> day : byDay.entrySet()) {
+            // the hours are dequeued with their day, so summaries keep reading them raw until the daily row is current
+            inTransaction(con, () -> {
+                day.getValue()
+                   .forEach(dirty -> rebuildHour(session, dirty.hour()));
+                rebuildDay(session, day.getKey());
+                // a writer that marked an hour again while this ran keeps it queued
+                day.getValue()
+                   .forEach(dirty -> session.update(CLEAR_SQL, Timestamp.from(dirty.hour()), dirty.generation()));
+            });
+        }
+        refreshed.increment(claimed.size());
+        return claimed.size();
+    }
+
+    /**
+     * Rolls up to {@code maxHours} worth of whole days of reads written before the rollups existed, newest first.
+     * Each day is rebuilt and {@code covered_from} lowered to its start in one transaction; days without reads are
+     * skipped. Writes that land below {@code covered_from} meanwhile queue their hours as usual. The row is deleted
+     * once no read older than {@code covered_from} is left. Returns the number of hours rebuilt.
+     */
+    private int backfill(Connection con, JdbcTemplate session, int maxHours) throws SQLException {
+        final List<Timestamp> state = session.query("select covered_from from tag_read_rollup_backfill where id = 1",
+                                                    (rs, rowNum) -> rs.getTimestamp("covered_from"));
+        if (state.isEmpty()) {
+            return 0;
+        }
+        Instant coveredFrom = state.get(0) == null ? null : state.get(0)
+                                                                 .toInstant();
+        int hours = 0;
+        while (hours < maxHours) {
+            final Timestamp older = coveredFrom == null ? session.queryForObject("select max(read_at) from tag_reads", Timestamp.class)
+                    : session.queryForObject("select max(read_at) from tag_reads where read_at < ?", Timestamp.class, Timestamp.from(coveredFrom));
+            if (older == null) {
+                session.update("delete from tag_read_rollup_backfill where id = 1");
+                break;
+            }
+            final Instant day = older.toInstant()
+                                     .truncatedTo(ChronoUnit.DAYS);
+            inTransaction(con, () -> {
+                for (int hour = 0; hour < HOURS_PER_DAY; hour++) {
+                    rebuildHour(session, day.plus(hour, ChronoUnit.HOURS));
+                }
+                rebuildDay(session, day);
+                session.update("update tag_read_rollup_backfill set covered_from = ? where id = 1", Timestamp.from(day));
+            });
+            coveredFrom = day;
+            hours += HOURS_PER_DAY;
+            backfilled.increment();
+        }
+        return hours;
+    }
+
+    private static void rebuildHour(JdbcTemplate session, Instant hour) {
+        session.update("delete from tag_read_rollup_hourly where bucket_start = ?", Timestamp.from(hour));
+        session.update(INSERT_HOUR_SQL, Timestamp.from(hour), Timestamp.from(hour), Timestamp.from(hour.plus(1, ChronoUnit.HOURS)));
+        storeSketches(session, "tag_read_rollup_hourly", hour, hourSketches(session, hour));
+    }
+
+    private static void rebuildDay(JdbcTemplate session, Instant day) {
+        session.update("delete from tag_read_rollup_daily where bucket_start = ?", Timestamp.from(day));
+        session.update(INSERT_DAY_SQL, Timestamp.from(day), Timestamp.from(day), Timestamp.from(day.plus(1, ChronoUnit.DAYS)));
+        storeSketches(session, "tag_read_rollup_daily", day, daySketches(session, day));
+    }
+
+    private static Map<Cell, QuantileSketch> hourSketches(JdbcTemplate session, Instant hour) {
+        final Map<Cell, QuantileSketch> sketches = new HashMap<>();
+        session.query(HOUR_RSSI_SQL,
+                      (RowCallbackHandler) rs -> sketches.computeIfAbsent(new Cell(rs.getInt("epc_id"), rs.getInt("site_id"), rs.getInt("location_id")),
+                                                                          cell -> new QuantileSketch())
+                                                         .add(rs.getDouble("rssi"), rs.getLong("cnt")),
+                      Timestamp.from(hour),
+                      Timestamp.from(hour.plus(1, ChronoUnit.HOURS)));
+        return sketches;
+    }
+
+    private static Map<Cell, QuantileSketch> daySketches(JdbcTemplate session, Instant day) {
+        final Map<Cell, QuantileSketch> sketches = new HashMap<>();
+        // a day with an hour still lacking its sketch gets none either; summaries then omit quantiles for it
+        final Set<Cell> incomplete = new HashSet<>();
+        session.query(DAY_SKETCHES_SQL, (RowCallbackHandler) rs -> {
+            final Cell cell = new Cell(rs.getInt("epc_id"), rs.getInt("site_id"), rs.getInt("location_id"));
+            final byte[] sketch = rs.getBytes("rssi_sketch");
+            if (sketch == null) {
+                incomplete.add(cell);
+            } else {
+                sketches.computeIfAbsent(cell, key -> new QuantileSketch())
+                        .merge(QuantileSketch.fromBytes(sketch));
+            }
+        }, Timestamp.from(day), Timestamp.from(day.plus(1, ChronoUnit.DAYS)));
+        incomplete.forEach(sketches::remove);
+        return sketches;
+    }
+
+    private static void storeSketches(JdbcTemplate session, String table, Instant bucket, Map<Cell, QuantileSketch> sketches) {
+        session.batchUpdate("update " + table + SET_SKETCH_SQL,
+                            sketches.entrySet()
+                                    .stream()
+                                    .map(entry -> new Object[] { entry.getValue()
+                                                                      .toBytes(),
+                                                                 Timestamp.from(bucket),
+                                                                 entry.getKey()
+                                                                      .epcId(),
+                                                                 entry.getKey()
+                                                                      .siteId(),
+                                                                 entry.getKey()
+                                                                      .locationId() })
+                                    .toList());
+    }
+
+    private static void inTransaction(Connection con, Runnable work) throws SQLException {
+        con.setAutoCommit(false);
+        try {
+            work.run();
+            con.commit();
+        } catch (RuntimeException e) {
+            con.rollback();
+            throw e;
+        } finally {
+            con.setAutoCommit(true);
+        }
+    }
+
+    private void refreshLoop() {
+        while (running) {
+            try {
+                // drain a backlog in consecutive passes, then wait for new writes
+                if (refresh() < batchSize) {
+                    Thread.sleep(refreshInterval);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread()
+                      .interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Refreshing tag read rollups failed", e);
+                try {
+                    Thread.sleep(refreshInterval);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread()
+                          .interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private record Dirty(Instant hour, long generation) {
+    }
+
+    private record Cell(int epcId, int siteId, int locationId) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.anexya.app.repository.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+
+/**
+ * Prepares forward-only queries that Connector/J streams one row at a time instead of buffering the whole result set.
+ * The connection cannot run other statements until the rows are consumed.
+ */
+public final class StreamingStatement {
+    private StreamingStatement() {
+    }
+
+    public static PreparedStatementCreator of(String sql, Object... params) {
+        return con -> {
+            final PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            new ArgumentPreparedStatementSetter(params).setValues(ps);
+            return ps;
+        };
+    }
+}
@@ -0,0 +1,112 @@
+package com.anexya.app.repository.impl;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Fills {@code tag_current_state} for reads written before it existed. The migration only creates the table; after
+ * startup this walks {@code dim_epc} in id order on the virtual-thread executor and seeds each EPC from its newest read
+ * with one statement, so it holds one row lock at a time and never undoes a newer read from ingest. Progress is kept in
+ * {@code tag_current_state_seed}, so shutdown stops it between pages and the next start resumes it; a MySQL named lock
+ * keeps it to one instance. Until an EPC is seeded, {@link JdbcTagCurrentStateRepository} answers it from
+ * {@code tag_reads}.
+ */
+@Component
+@Profile("mysql")
+class TagCurrentStateSeeder {
+    private static final Logger log = LoggerFactory.getLogger(TagCurrentStateSeeder.class);
+    private static final int EPCS_PER_PAGE = 500;
+    private static final String LOCK_NAME = "tag_current_state_seed";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTagCurrentStateRepository currentState;
+    private final ExecutorService executor;
+    private final Counter seeded;
+
+    private volatile boolean stopping;
+
+    TagCurrentStateSeeder(JdbcTemplate jdbcTemplate,
+                          JdbcTagCurrentStateRepository currentState,
+                          @Qualifier("applicationVirtualThreadExecutor") ExecutorService executor,
+                          MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.currentState = currentState;
+        this.executor = executor;
+        this.seeded = meterRegistry.counter("tag_reads.current_state.seeded_epcs");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void seedOnStartup() {
+        executor.execute(() -> {
+            try {
+                seed();
+            } catch (RuntimeException e) {
+                log.warn("Seeding tag current state failed; the next start resumes it", e);
+            }
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        stopping = true;
+    }
+
+    /**
+     * Continues the seed recorded in {@code tag_current_state_seed}, if any, and clears it when every EPC is done.
+     * Does nothing while another instance holds the seed lock. Returns the number of EPCs seeded.
+     */
+    long seed() {
+        final Long count = jdbcTemplate.execute((ConnectionCallback<Long>) con -> {
+            final JdbcTemplate session = new JdbcTemplate(new SingleConnectionDataSource(con, true));
+            final Integer locked = session.queryForObject("select get_lock(?, 0)", Integer.class, LOCK_NAME);
+            if (locked == null || locked != 1) {
+                return 0L;
+            }
+            try {
+                final List<Integer> state = session.queryForList("select after_epc_id from tag_current_state_seed where id = 1", Integer.class);
+                if (state.isEmpty()) {
+                    return 0L;
+                }
+                log.info("Seeding tag current state of EPCs after id {}", state.get(0));
+                int after = state.get(0);
+                long epcs = 0;
+                while (!stopping) {
+                    final List<Integer> epcIds = session.queryForList("select id from dim_epc where id > ? order by id limit ?",
+                                                                      Integer.class,
+                                                                      after,
+                                                                      EPCS_PER_PAGE);
+                    if (epcIds.isEmpty()) {
+                        session.update("delete from tag_current_state_seed where id = 1");
+                        log.info("Seeded tag current state of {} EPCs", epcs);
+                        return epcs;
+                    }
+                    epcIds.forEach(currentState::seed);
+                    seeded.increment(epcIds.size());
+                    epcs += epcIds.size();
+                    after = epcIds.get(epcIds.size() - 1);
+                    session.update("update tag_current_state_seed set after_epc_id = ? where id = 1", after);
+                }
+                log.info("Tag current state seed stopped by shutdown after {} EPCs; it resumes on the next start", epcs);
+                return epcs;
+            } finally {
+                session.queryForObject("select release_lock(?)", Integer.class, LOCK_NAME);
+            }
+        });
+        return count == null ? 0 : count;
+    }
+}
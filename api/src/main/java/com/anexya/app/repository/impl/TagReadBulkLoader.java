@@ -0,0 +1,42 @@
+package com.anexya.app.repository.impl;
+
+import java.io.ByteArrayInputStream;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.mysql.cj.jdbc.JdbcStatement;
+
+/**
+ * Runs {@code LOAD DATA LOCAL INFILE} statements on the {@code bulkLoadDataSource} pool, the only connections that
+ * allow it. Rows are streamed from memory, never from a file.
+ */
+@Component
+@Profile("mysql")
+public class TagReadBulkLoader {
+    private final JdbcTemplate jdbcTemplate;
+
+    public TagReadBulkLoader(@Qualifier("bulkLoadDataSource") DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Executes {@code loadSql} with {@code rows} as the local file contents and returns the number of rows loaded.
+     */
+    int load(String loadSql, byte[] rows) {
+        final Integer loaded = jdbcTemplate.execute((ConnectionCallback<Integer>) con -> {
+            try (Statement statement = con.createStatement()) {
+                statement.unwrap(JdbcStatement.class)
+                         .setLocalInfileInputStream(new ByteArrayInputStream(rows));
+                return statement.executeUpdate(loadSql);
+            }
+        });
+        return loaded == null ? 0 : loaded;
+    }
+}
@@ -0,0 +1,141 @@
+package com.anexya.app.repository.impl;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Shares tag read cache invalidations between instances through the {@code tag_read_invalidations} table. Writers
+ * append the ids they changed; a poller on every instance reads rows from other instances newer than the last one it
+ * saw and hands the ids to the listener. Disabled unless {@code app.cache.tag-reads.invalidation.enabled} is set, in
+ * which case stale reads are bounded by the poll interval instead of the cache TTL. A row whose insert commits after a
+ * higher {@code seq} was already polled is skipped; the TTL still applies to it.
+ */
+@Component
+@Profile("mysql")
+class TagReadInvalidationLog {
+    private static final Logger log = LoggerFactory.getLogger(TagReadInvalidationLog.class);
+    private static final String INSERT_SQL = "insert into tag_read_invalidations (tag_read_id, origin) values (?, ?)";
+    private static final String POLL_SQL = "select seq, tag_read_id from tag_read_invalidations where seq > ? and origin <> ? order by seq limit ?";
+    private static final String PRUNE_SQL = "delete from tag_read_invalidations where created_at < ? limit ?";
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final Duration pollInterval;
+    private final Duration retention;
+    private final String origin = UUID.randomUUID()
+                                      .toString();
+    private final Counter received;
+
+    private volatile boolean running;
+    private Thread poller;
+    private long lastSeq;
+
+    TagReadInvalidationLog(JdbcTemplate jdbcTemplate,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.cache.tag-reads.invalidation.enabled:false}") boolean enabled,
+                           @Value("${app.cache.tag-reads.invalidation.poll-interval:1s}") Duration pollInterval,
+                           @Value("${app.cache.tag-reads.invalidation.retention:10m}") Duration retention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.pollInterval = pollInterval;
+        this.retention = retention;
+        this.received = meterRegistry.counter("cache.invalidations.received", "cache", CachingTagReadRepository.CACHE_NAME);
+    }
+
+    /**
+     * Records the ids for other instances. Failures are logged, not thrown: the write itself has already succeeded and
+     * the other instances' TTL still bounds how long they serve the old value.
+     */
+    void publish(Collection<UUID> ids) {
+        if (!enabled || ids.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL,
+                                     ids.stream()
+                                        .map(id -> new Object[] { UuidBytes.toBytes(id), origin })
+                                        .toList());
+        } catch (RuntimeException e) {
+            log.warn("Publishing {} tag read invalidations failed", ids.size(), e);
+        }
+    }
+
+    /**
+     * Starts polling from the current end of the log; changes made before this call are not replayed.
+     */
+    void start(Consumer<UUID> listener) {
+        if (!enabled) {
+            return;
+        }
+        lastSeq = jdbcTemplate.queryForObject("select coalesce(max(seq), 0) from tag_read_invalidations", Long.class);
+        running = true;
+        poller = Thread.ofVirtual()
+                       .name("tag-read-invalidation-poller")
+                       .start(() -> pollLoop(listener));
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (poller != null) {
+            poller.interrupt();
+        }
+    }
+
+    private void pollOnce(Consumer<UUID> listener) {
+        while (true) {
+            final List<Change> changes = jdbcTemplate.query(POLL_SQL,
+                                                            (rs, rowNum) -> new Change(rs.getLong("seq"), UuidBytes.fromBytes(rs.getBytes("tag_read_id"))),
+                                                            lastSeq,
+                                                            origin,
+                                                            BATCH_SIZE);
+            changes.forEach(change -> listener.accept(change.id()));
+            received.increment(changes.size());
+            if (!changes.isEmpty()) {
+                lastSeq = changes.get(changes.size() - 1)
+                                 .seq();
+            }
+            if (changes.size() < BATCH_SIZE) {
+                break;
+            }
+        }
+        jdbcTemplate.update(PRUNE_SQL, Timestamp.from(Instant.now()
+                                                             .minus(retention)),
+                            BATCH_SIZE);
+    }
+
+    private void pollLoop(Consumer<UUID> listener) {
+        while (running) {
+            try {
+                Thread.sleep(pollInterval);
+                pollOnce(listener);
+            } catch (InterruptedException e) {
+                Thread.currentThread()
+                      .interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Polling tag read invalidations failed", e);
+            }
+        }
+    }
+
+    private record Change(long seq, UUID id) {
+    }
+}
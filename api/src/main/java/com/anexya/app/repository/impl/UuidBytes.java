@@ -0,0 +1,32 @@
+package com.anexya.app.repository.impl;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+final class UuidBytes {
+    private UuidBytes() {
+    }
+
+    static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                         .putLong(uuid.getMostSignificantBits())
+                         .putLong(uuid.getLeastSignificantBits())
+                         .array();
+    }
+
+    /**
+     * Orders ids the way MySQL orders their {@code binary(16)} form: unsigned, most significant byte first.
+     */
+    static int compare(UUID a, UUID b) {
+        final int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    static UUID fromBytes(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
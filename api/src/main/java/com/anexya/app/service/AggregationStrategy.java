@@ -3,9 +3,33 @@ package com.anexya.app.service;
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.anexya.app.domain.DimensionSummary;
+import com.anexya.app.domain.SummaryDimension;
 import com.anexya.app.domain.TagSummary;
 
 public interface AggregationStrategy {
     List<TagSummary> summarizeByTag(Instant startDate, Instant endDate, Optional<String> siteName, Optional<String> epc);
+
+    /**
+     * Passes the rows of {@link #summarizeByTag} to {@code consumer} one at a time. Strategies that map rows straight
+     * off a result set override this to stream the query on {@code jdbcTemplate}, so the caller never holds the whole
+     * result and can keep long reports off the application pool; the others build their list as usual.
+     */
+    default void streamByTag(JdbcTemplate jdbcTemplate,
+                             Instant startDate,
+                             Instant endDate,
+                             Optional<String> siteName,
+                             Optional<String> epc,
+                             Consumer<TagSummary> consumer) {
+        summarizeByTag(startDate, endDate, siteName, epc).forEach(consumer);
+    }
+
+    /**
+     * Reads in {@code [startDate, endDate]} grouped by {@code dimension}, busiest first.
+     */
+    List<DimensionSummary> summarizeBy(SummaryDimension dimension, Instant startDate, Instant endDate, Optional<String> siteName, Optional<String> epc);
 }
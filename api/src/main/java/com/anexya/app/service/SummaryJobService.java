@@ -0,0 +1,28 @@
+package com.anexya.app.service;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import com.anexya.app.domain.SummaryJob;
+import com.anexya.app.domain.TagSummary;
+
+public interface SummaryJobService {
+    /**
+     * Queues a {@code summary/by-epc} job, or returns the queued or running job with the same parameters.
+     */
+    SummaryJob submit(Instant startDate, Instant endDate, Optional<String> siteName, Optional<String> epc);
+
+    SummaryJob get(UUID id);
+
+    /**
+     * Cancels a queued or running job; finished jobs are returned unchanged.
+     */
+    SummaryJob cancel(UUID id);
+
+    /**
+     * Decodes the rows of a {@code DONE} job one at a time, in the order the strategy returned them.
+     */
+    void streamResult(UUID id, Consumer<TagSummary> consumer);
+}
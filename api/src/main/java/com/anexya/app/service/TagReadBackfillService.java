@@ -0,0 +1,15 @@
+package com.anexya.app.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+import com.anexya.app.domain.BackfillProgress;
+
+public interface TagReadBackfillService {
+    /**
+     * Bulk-loads tag reads from a CSV stream with a header row, skipping the first {@code offset} data rows. Progress
+     * is reported after every committed chunk; the last report has {@code done} set.
+     */
+    BackfillProgress load(InputStream csv, long offset, Consumer<BackfillProgress> progress) throws IOException;
+}
@@ -1,21 +1,42 @@
 package com.anexya.app.service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
+import com.anexya.app.domain.TagCurrentState;
 import com.anexya.app.domain.TagRead;
 import com.anexya.app.domain.TagReadCreate;
+import com.anexya.app.domain.TagReadCursor;
+import com.anexya.app.domain.TagReadFilter;
+import com.anexya.app.domain.TagReadPage;
 import com.anexya.app.domain.TagReadUpdate;
+import com.anexya.app.domain.TagReadWriteResult;
 
 public interface TagReadService {
     TagRead get(UUID id);
 
     TagRead create(TagReadCreate create);
 
+    TagRead enqueue(TagReadCreate create);
+
+    List<TagReadWriteResult> createAll(List<TagReadCreate> creates);
+
     TagRead update(UUID id, TagReadUpdate update);
 
     void delete(UUID id);
 
-    List<TagRead> findByFilters(Optional<String> epc, Optional<String> location, Optional<String> siteName);
+    TagReadPage search(TagReadFilter filter, Optional<TagReadCursor> after, int limit);
+
+    void stream(TagReadFilter filter, Consumer<TagRead> consumer);
+
+    Map<String, List<TagRead>> searchByEpcs(List<String> epcs, TagReadFilter filter, int limitPerEpc);
+
+    List<TagRead> findByReferenceCode(String referenceCode);
+
+    TagCurrentState current(String epc);
+
+    List<TagCurrentState> current(List<String> epcs);
 }
@@ -0,0 +1,21 @@
+package com.anexya.app.service;
+
+import java.util.List;
+
+import com.anexya.app.domain.TagRead;
+
+/**
+ * Published after tag reads were committed. {@code inserted} are reads that did not exist before; {@code replaced}
+ * are reads whose stored version changed or disappeared (both the old and the new version of an update), so listeners
+ * that cannot apply the change incrementally know which EPCs to reload.
+ */
+public record TagReadsChangedEvent(List<TagRead> inserted, List<TagRead> replaced) {
+
+    public static TagReadsChangedEvent inserted(List<TagRead> reads) {
+        return new TagReadsChangedEvent(List.copyOf(reads), List.of());
+    }
+
+    public static TagReadsChangedEvent replaced(List<TagRead> reads) {
+        return new TagReadsChangedEvent(List.of(), List.copyOf(reads));
+    }
+}
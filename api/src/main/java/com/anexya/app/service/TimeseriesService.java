@@ -0,0 +1,21 @@
+package com.anexya.app.service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import com.anexya.app.domain.BucketWidth;
+import com.anexya.app.domain.TimeseriesBucket;
+
+public interface TimeseriesService {
+    /**
+     * Read counts and RSSI statistics per bucket for every bucket overlapping {@code [startDate, endDate]}, in bucket
+     * order. Buckets without reads are omitted.
+     */
+    List<TimeseriesBucket> readRates(Instant startDate,
+                                     Instant endDate,
+                                     BucketWidth width,
+                                     Optional<String> siteName,
+                                     Optional<String> location,
+                                     Optional<String> epc);
+}
@@ -0,0 +1,21 @@
+package com.anexya.app.service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import com.anexya.app.domain.DwellSummary;
+import com.anexya.app.domain.TagVisit;
+
+public interface VisitService {
+    /**
+     * Dwell times per (site, location) of the visits that entered within {@code [startDate, endDate]}, most visited
+     * first.
+     */
+    List<DwellSummary> dwellTimes(Instant startDate, Instant endDate, Optional<String> siteName, Optional<String> location);
+
+    /**
+     * Visits of an EPC overlapping {@code [from, to]} (either bound optional), newest first.
+     */
+    List<TagVisit> visits(String epc, Optional<Instant> from, Optional<Instant> to, int limit);
+}
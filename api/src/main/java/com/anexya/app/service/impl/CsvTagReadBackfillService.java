@@ -0,0 +1,263 @@
+package com.anexya.app.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import com.anexya.app.cloud.CloudServiceFactory;
+import com.anexya.app.crypto.ReferenceCodeCrypto;
+import com.anexya.app.domain.BackfillProgress;
+import com.anexya.app.domain.TagRead;
+import com.anexya.app.repository.TagReadRepository;
+import com.anexya.app.service.TagReadBackfillService;
+import com.anexya.app.service.TagReadsChangedEvent;
+import com.anexya.app.util.BoundedLineReader;
+import com.anexya.app.util.TimeOrderedUuid;
+import com.anexya.app.web.InvalidRequestException;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Streams a CSV export into {@link TagReadRepository#loadAll(List)} in chunks of {@code app.backfill.chunk-size} rows.
+ * Backfilled reads bypass duplicate suppression and the write-behind queue.
+ * <p>
+ * A file with the {@link #DEAD_LETTER_COLUMNS} header is a write-behind dead-letter file: its reads keep their ids,
+ * their reference codes are decrypted, and replacements are applied with
+ * {@link TagReadRepository#replaceIfStronger(TagRead)}, so replaying it twice, or after some of its reads were
+ * written, stores nothing twice.
+ */
+@Service
+@RequiredArgsConstructor
+public class CsvTagReadBackfillService implements TagReadBackfillService {
+    static final List<String> COLUMNS = List.of("siteName", "epc", "referenceCode", "location", "rssi", "readAt");
+    static final List<String> DEAD_LETTER_COLUMNS = List.of("id", "replacesExisting", "siteName", "epc", "encryptedReferenceCode", "location", "rssi", "readAt");
+    private static final int MAX_ERRORS_PER_CHUNK = 20;
+
+    private final TagReadRepository repository;
+    private final ReferenceCodeCrypto referenceCodeCrypto;
+    private final ObjectProvider<CloudServiceFactory> cloudFactory;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.backfill.chunk-size:10000}")
+    private int chunkSize;
+
+    @Value("${app.backfill.max-line-length:16384}")
+    private int maxLineLength;
+
+    @Override
+    public BackfillProgress load(InputStream csv, long offset, Consumer<BackfillProgress> progress) throws IOException {
+        if (offset < 0) {
+            throw new InvalidRequestException("offset must not be negative");
+        }
+        final BoundedLineReader reader = new BoundedLineReader(new InputStreamReader(csv, StandardCharsets.UTF_8), maxLineLength);
+        final String header = reader.readLine();
+        if (reader.truncated()) {
+            throw new InvalidRequestException("CSV header exceeds " + maxLineLength + " characters");
+        }
+        final Header columns = parseHeader(header);
+        final Run run = new Run();
+        String line;
+        while (run.offset < offset && reader.readLine() != null) {
+            run.offset++;
+        }
+        while ((line = reader.readLine()) != null) {
+            final long lineNumber = run.offset + 2; // 1-based, after the header
+            run.pendingRows++;
+            if (reader.truncated()) {
+                reject(run, lineNumber, "line exceeds " + maxLineLength + " characters");
+            } else if (!line.isBlank()) {
+                try {
+                    final List<String> fields = parseLine(line);
+                    final TagRead read = toTagRead(fields, columns);
+                    if (columns.replacesExisting(fields)) {
+                        run.replacements.add(read);
+                    } else {
+                        run.chunk.add(read);
+                    }
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    reject(run, lineNumber, e.getMessage());
+                }
+            }
+            run.offset++;
+            if (run.pendingRows >= chunkSize) {
+                flush(run, progress);
+            }
+        }
+        flush(run, progress);
+        final BackfillProgress done = run.snapshot(true);
+        progress.accept(done);
+
+        final CloudServiceFactory cloud = cloudFactory.getIfAvailable();
+        if (cloud != null) {
+            cloud.logger()
+                 .ifPresent(logger -> logger.log("tag_reads_backfill_completed",
+                                                 Map.of("startOffset", offset, "offset", done.offset(), "loaded", done.loaded(), "rejected", done.rejected())));
+            cloud.metrics()
+                 .ifPresent(metrics -> metrics.increment("tag_reads.backfilled", done.loaded(), Map.of()));
+        }
+        return done;
+    }
+
+    private static void reject(Run run, long lineNumber, String error) {
+        run.rejected++;
+        if (run.errors.size() < MAX_ERRORS_PER_CHUNK) {
+            run.errors.add("line " + lineNumber + ": " + error);
+        }
+    }
+
+    private void flush(Run run, Consumer<BackfillProgress> progress) {
+        if (run.pendingRows == 0) {
+            return;
+        }
+        final List<TagRead> changed = new ArrayList<>(run.chunk);
+        if (!run.chunk.isEmpty()) {
+            run.loaded += repository.loadAll(List.copyOf(run.chunk));
+            run.chunk.clear();
+        }
+        // after the loads, which insert the rows these replace unless they were written before the dead-letter
+        for (TagRead read : run.replacements) {
+            if (repository.replaceIfStronger(read)) {
+                run.loaded++;
+                changed.add(read);
+            }
+        }
+        run.replacements.clear();
+        if (!changed.isEmpty()) {
+            // the load skips ids that already exist, so listeners are told to reload rather than add
+            eventPublisher.publishEvent(TagReadsChangedEvent.replaced(changed));
+        }
+        run.pendingRows = 0;
+        progress.accept(run.snapshot(false));
+        run.errors.clear();
+    }
+
+    static Header parseHeader(String header) {
+        if (header == null) {
+            throw new InvalidRequestException("CSV is empty; expected a header row with " + String.join(",", COLUMNS));
+        }
+        final List<String> names;
+        try {
+            names = parseLine(header);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("CSV header is malformed: " + e.getMessage());
+        }
+        final boolean deadLetter = names.contains("id");
+        final List<String> columns = deadLetter ? DEAD_LETTER_COLUMNS : COLUMNS;
+        final int[] positions = new int[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            positions[i] = names.indexOf(columns.get(i));
+            if (positions[i] < 0) {
+                throw new InvalidRequestException("CSV header is missing column " + columns.get(i));
+            }
+        }
+        return new Header(positions, deadLetter);
+    }
+
+    TagRead toTagRead(List<String> fields, Header header) {
+        final int[] positions = header.positions();
+        // dead-letter files lead with id and replacesExisting, then the backfill columns in the same order
+        final int first = header.deadLetter() ? 2 : 0;
+        final String siteName = required(fields, positions[first], "siteName");
+        final String epc = required(fields, positions[first + 1], "epc");
+        final String referenceCode = header.deadLetter() ? referenceCodeCrypto.decrypt(required(fields, positions[first + 2], "encryptedReferenceCode"))
+                : required(fields, positions[first + 2], "referenceCode");
+        final String location = required(fields, positions[first + 3], "location");
+        final String rssi = required(fields, positions[first + 4], "rssi");
+        final String readAt = required(fields, positions[first + 5], "readAt");
+        return TagRead.builder()
+                      .id(header.deadLetter() ? UUID.fromString(required(fields, positions[0], "id")) : TimeOrderedUuid.next())
+                      .siteName(siteName)
+                      .epc(epc)
+                      .referenceCode(referenceCode)
+                      .location(location)
+                      .rssi(Double.parseDouble(rssi))
+                      .readAt(Instant.parse(readAt))
+                      .build();
+    }
+
+    private static String required(List<String> fields, int position, String name) {
+        final String value = position < fields.size() ? fields.get(position)
+                                                            .trim()
+                : "";
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException(name + " must not be blank");
+        }
+        return value;
+    }
+
+    /**
+     * Splits one RFC 4180 record. Quoted fields may contain commas and doubled quotes but not line breaks.
+     */
+    static List<String> parseLine(String line) {
+        final List<String> fields = new ArrayList<>();
+        final StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Column positions in {@link #COLUMNS} order, or {@link #DEAD_LETTER_COLUMNS} order for a dead-letter file.
+     */
+    record Header(int[] positions, boolean deadLetter) {
+        boolean replacesExisting(List<String> fields) {
+            return deadLetter && Boolean.parseBoolean(required(fields, positions[1], "replacesExisting"));
+        }
+    }
+
+    private static final class Run {
+        private final List<TagRead> chunk = new ArrayList<>();
+        private final List<TagRead> replacements = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+        private long offset;
+        private long loaded;
+        private long rejected;
+        private int pendingRows;
+
+        BackfillProgress snapshot(boolean done) {
+            return BackfillProgress.builder()
+                                   .offset(offset)
+                                   .loaded(loaded)
+                                   .rejected(rejected)
+                                   .errors(List.copyOf(errors))
+                                   .done(done)
+                                   .build();
+        }
+    }
+}
@@ -1,20 +1,35 @@
 package com.anexya.app.service.impl;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import com.anexya.app.cloud.CloudServiceFactory;
+import com.anexya.app.crypto.ReferenceCodeBlindIndex;
+import com.anexya.app.domain.TagCurrentState;
 import com.anexya.app.domain.TagRead;
 import com.anexya.app.domain.TagReadCreate;
+import com.anexya.app.domain.TagReadCursor;
+import com.anexya.app.domain.TagReadFilter;
+import com.anexya.app.domain.TagReadPage;
 import com.anexya.app.domain.TagReadUpdate;
+import com.anexya.app.domain.TagReadWriteResult;
+import com.anexya.app.repository.TagCurrentStateRepository;
 import com.anexya.app.repository.TagReadRepository;
 import com.anexya.app.service.TagReadService;
+import com.anexya.app.service.TagReadsChangedEvent;
+import com.anexya.app.util.TimeOrderedUuid;
+import com.anexya.app.web.InvalidRequestException;
 import com.anexya.app.web.TagReadNotFoundException;
 
 import lombok.RequiredArgsConstructor;
@@ -24,6 +39,17 @@ import lombok.RequiredArgsConstructor;
 public class DefaultTagReadService implements TagReadService {
     private final TagReadRepository repository;
     private final ObjectProvider<CloudServiceFactory> cloudFactory;
+    private final WriteBehindIngestQueue writeBehindQueue;
+    private final TagReadDeduplicator deduplicator;
+    private final ReferenceCodeBlindIndex blindIndex;
+    private final TagCurrentStateRepository currentStateRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.search.max-page-size:1000}")
+    private int maxPageSize;
+
+    @Value("${app.search.batch.max-epcs:2000}")
+    private int maxBatchEpcs;
 
     @Override
     public TagRead get(UUID id) {
@@ -33,16 +59,28 @@ public class DefaultTagReadService implements TagReadService {
 
     @Override
     public TagRead create(TagReadCreate create) {
-        final TagRead tx = TagRead.builder()
-                                  .id(UUID.randomUUID())
-                                  .siteName(create.siteName())
-                                  .epc(create.epc())
-                                  .referenceCode(create.referenceCode())
-                                  .location(create.location())
-                                  .rssi(create.rssi())
-                                  .readAt(create.readAt() != null ? create.readAt() : Instant.now())
-                                  .build();
-        final TagRead saved = repository.save(tx);
+        final TagReadDeduplicator.Admission admission = deduplicator.admit(newTagRead(create));
+        if (admission.suppressed()) {
+            return admission.read();
+        }
+        final TagRead tx = admission.read();
+        final TagRead saved;
+        try {
+            if (!admission.replacesExisting() && !deduplicator.mayReplace()) {
+                saved = repository.save(tx);
+            } else if (repository.replaceIfStronger(tx)) {
+                saved = tx;
+            } else {
+                // a stronger read holds the row, possibly a replacement that landed before this read opened it; the
+                // window already reflects a read at least this strong, so there is nothing to roll back
+                return repository.findById(tx.id())
+                                 .orElseThrow(() -> new TagReadNotFoundException(tx.id()));
+            }
+        } catch (RuntimeException e) {
+            deduplicator.rollback(admission);
+            throw e;
+        }
+        eventPublisher.publishEvent(admission.replacesExisting() ? TagReadsChangedEvent.replaced(List.of(tx)) : TagReadsChangedEvent.inserted(List.of(tx)));
         final CloudServiceFactory cloud = cloudFactory.getIfAvailable();
         if (cloud != null) {
             cloud.logger()
@@ -54,6 +92,116 @@ public class DefaultTagReadService implements TagReadService {
         return saved;
     }
 
+    @Override
+    public TagRead enqueue(TagReadCreate create) {
+        if (!writeBehindQueue.isEnabled()) {
+            return create(create);
+        }
+        final TagReadDeduplicator.Admission admission = deduplicator.admit(newTagRead(create));
+        if (admission.suppressed()) {
+            return admission.read();
+        }
+        final TagRead tx = admission.read();
+        try {
+            writeBehindQueue.submit(tx, admission.replacesExisting());
+        } catch (RuntimeException e) {
+            deduplicator.rollback(admission);
+            throw e;
+        }
+        final CloudServiceFactory cloud = cloudFactory.getIfAvailable();
+        if (cloud != null) {
+            cloud.metrics()
+                 .ifPresent(metrics -> metrics.increment("tag_reads.enqueued", 1.0, Map.of("site", create.siteName(), "epc", create.epc())));
+        }
+        return tx;
+    }
+
+    @Override
+    public List<TagReadWriteResult> createAll(List<TagReadCreate> creates) {
+        if (creates.isEmpty()) {
+            return List.of();
+        }
+        final TagReadWriteResult[] results = new TagReadWriteResult[creates.size()];
+        final List<TagReadDeduplicator.Admission> toInsert = new ArrayList<>(creates.size());
+        final List<Integer> insertIndexes = new ArrayList<>(creates.size());
+        final List<TagReadDeduplicator.Admission> toReplace = new ArrayList<>();
+        final List<Integer> replaceIndexes = new ArrayList<>();
+        for (int i = 0; i < creates.size(); i++) {
+            final TagReadDeduplicator.Admission admission = deduplicator.admit(newTagRead(creates.get(i)));
+            if (admission.suppressed()) {
+                results[i] = TagReadWriteResult.suppressed(i,
+                                                           admission.read()
+                                                                    .id());
+            } else if (admission.replacesExisting()) {
+                toReplace.add(admission);
+                replaceIndexes.add(i);
+            } else {
+                toInsert.add(admission);
+                insertIndexes.add(i);
+            }
+        }
+        final List<TagReadWriteResult> written = toInsert.isEmpty() ? List.of()
+                : repository.saveAll(toInsert.stream()
+                                             .map(TagReadDeduplicator.Admission::read)
+                                             .toList());
+        final List<TagRead> inserted = new ArrayList<>(written.size());
+        final List<TagRead> replaced = new ArrayList<>();
+        for (int i = 0; i < written.size(); i++) {
+            final TagReadWriteResult result = written.get(i);
+            if (!result.isSaved()) {
+                deduplicator.rollback(toInsert.get(i));
+            } else {
+                inserted.add(toInsert.get(i)
+                                     .read());
+            }
+            results[insertIndexes.get(i)] = result.toBuilder()
+                                                  .index(insertIndexes.get(i))
+                                                  .build();
+        }
+        // after the inserts, so a replacement of a row opened earlier in this batch finds it
+        for (int i = 0; i < toReplace.size(); i++) {
+            final TagReadDeduplicator.Admission admission = toReplace.get(i);
+            final int index = replaceIndexes.get(i);
+            final UUID id = admission.read()
+                                     .id();
+            try {
+                if (repository.replaceIfStronger(admission.read())) {
+                    replaced.add(admission.read());
+                    results[index] = TagReadWriteResult.saved(index, id);
+                } else {
+                    results[index] = TagReadWriteResult.suppressed(index, id);
+                }
+            } catch (RuntimeException e) {
+                deduplicator.rollback(admission);
+                results[index] = TagReadWriteResult.failed(index, id, String.valueOf(e.getMessage()));
+            }
+        }
+        if (!inserted.isEmpty() || !replaced.isEmpty()) {
+            eventPublisher.publishEvent(new TagReadsChangedEvent(inserted, replaced));
+        }
+        final long saved = inserted.size() + replaced.size();
+        final CloudServiceFactory cloud = cloudFactory.getIfAvailable();
+        if (cloud != null) {
+            cloud.logger()
+                 .ifPresent(logger -> logger.log("tag_reads_batch_created", Map.of("items", String.valueOf(creates.size()), "saved", String.valueOf(saved))));
+            cloud.metrics()
+                 .ifPresent(metrics -> metrics.increment("tag_reads.created", saved, Map.of("mode", "batch")));
+        }
+        return Arrays.asList(results);
+    }
+
+    private TagRead newTagRead(TagReadCreate create) {
+        return TagRead.builder()
+                      .id(TimeOrderedUuid.next())
+                      .siteName(create.siteName())
+                      .epc(create.epc())
+                      .referenceCode(create.referenceCode())
+                      .location(create.location())
+                      .rssi(create.rssi())
+                      .readAt(create.readAt() != null ? create.readAt() : Instant.now())
+                      .build();
+    }
+
     @Override
     public TagRead update(UUID id, TagReadUpdate update) {
         final TagRead existing = get(id);
@@ -66,6 +214,7 @@ public class DefaultTagReadService implements TagReadService {
                                         .readAt(update.readAt() != null ? update.readAt() : existing.readAt())
                                         .build();
         final TagRead saved = repository.save(updated);
+        eventPublisher.publishEvent(TagReadsChangedEvent.replaced(List.of(existing, updated)));
         final CloudServiceFactory cloud = cloudFactory.getIfAvailable();
         if (cloud != null) {
             cloud.logger()
@@ -79,8 +228,9 @@ public class DefaultTagReadService implements TagReadService {
 
     @Override
     public void delete(UUID id) {
-        get(id); // ensures 404 if not found
+        final TagRead existing = get(id); // ensures 404 if not found
         repository.deleteById(id);
+        eventPublisher.publishEvent(TagReadsChangedEvent.replaced(List.of(existing)));
         final CloudServiceFactory cloud = cloudFactory.getIfAvailable();
         if (cloud != null) {
             cloud.logger()
@@ -91,7 +241,64 @@ public class DefaultTagReadService implements TagReadService {
     }
 
     @Override
-    public List<TagRead> findByFilters(Optional<String> epc, Optional<String> location, Optional<String> siteName) {
-        return repository.findByFilters(epc, location, siteName);
+    public TagReadPage search(TagReadFilter filter, Optional<TagReadCursor> after, int limit) {
+        if (limit < 1 || limit > maxPageSize) {
+            throw new InvalidRequestException("limit must be between 1 and " + maxPageSize);
+        }
+        validateRange(filter);
+        return repository.findPage(filter, after, limit);
+    }
+
+    @Override
+    public void stream(TagReadFilter filter, Consumer<TagRead> consumer) {
+        validateRange(filter);
+        repository.streamAll(filter, consumer);
+    }
+
+    @Override
+    public Map<String, List<TagRead>> searchByEpcs(List<String> epcs, TagReadFilter filter, int limitPerEpc) {
+        final List<String> distinct = epcs.stream()
+                                          .distinct()
+                                          .toList();
+        if (distinct.isEmpty() || distinct.size() > maxBatchEpcs) {
+            throw new InvalidRequestException("epcs must contain between 1 and " + maxBatchEpcs + " entries");
+        }
+        if (limitPerEpc < 1 || limitPerEpc > maxPageSize) {
+            throw new InvalidRequestException("limitPerEpc must be between 1 and " + maxPageSize);
+        }
+        validateRange(filter);
+        return repository.findByEpcs(distinct, filter, limitPerEpc);
+    }
+
+    @Override
+    public List<TagRead> findByReferenceCode(String referenceCode) {
+        if (!blindIndex.isEnabled()) {
+            throw new InvalidRequestException("lookup by reference code requires app.crypto.blind-index.key");
+        }
+        if (referenceCode == null || referenceCode.isBlank()) {
+            throw new InvalidRequestException("referenceCode must not be blank");
+        }
+        return repository.findByReferenceCode(referenceCode, maxPageSize);
+    }
+
+    @Override
+    public TagCurrentState current(String epc) {
+        return currentStateRepository.findByEpc(epc)
+                                     .orElseThrow(() -> new TagReadNotFoundException(epc));
+    }
+
+    @Override
+    public List<TagCurrentState> current(List<String> epcs) {
+        if (epcs.isEmpty() || epcs.size() > maxPageSize) {
+            throw new InvalidRequestException("epcs must contain between 1 and " + maxPageSize + " entries");
+        }
+        return currentStateRepository.findByEpcs(epcs);
+    }
+
+    private static void validateRange(TagReadFilter filter) {
+        if (filter.from() != null && filter.to() != null && filter.from()
+                                                                 .isAfter(filter.to())) {
+            throw new InvalidRequestException("from must not be after to");
+        }
     }
 }
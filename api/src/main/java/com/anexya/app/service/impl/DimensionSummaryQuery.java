@@ -0,0 +1,116 @@
+package com.anexya.app.service.impl;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.anexya.app.domain.DimensionSummary;
+import com.anexya.app.domain.SummaryDimension;
+import com.anexya.app.repository.Dimension;
+import com.anexya.app.repository.DimensionDictionary;
+import com.anexya.app.service.impl.RollupAggregationStrategy.Plan;
+import com.anexya.app.service.impl.RollupAggregationStrategy.Range;
+
+/**
+ * Computes {@link DimensionSummary} rows for every {@link SummaryDimension} with one query shape; only the grouping
+ * columns differ. A plan that only reads {@code tag_reads} is answered in a single grouped pass (narrowed by the
+ * {@code (site_id|location_id, read_at)} indexes when filtered); otherwise per-(site, epc, location) rows of every
+ * source are grouped again.
+ */
+final class DimensionSummaryQuery {
+    private static final String RAW_AGGREGATES = "count(*) as cnt, sum(rssi) as rssi_sum, max(rssi) as rssi_max, count(distinct epc_id) as epc_count, "
+            + "min(read_at) as first_seen, max(read_at) as last_seen";
+    private static final String MERGED_AGGREGATES = "sum(cnt) as cnt, sum(rssi_sum) as rssi_sum, max(rssi_max) as rssi_max, count(distinct epc_id) as epc_count, "
+            + "min(first_seen) as first_seen, max(last_seen) as last_seen";
+    private static final String ROLLUP_COLUMNS = "site_id, epc_id, location_id, read_count as cnt, rssi_sum, rssi_max, first_seen, last_seen";
+
+    private DimensionSummaryQuery() {
+    }
+
+    /**
+     * Plan that reads the whole range from {@code tag_reads}.
+     */
+    static Plan raw(Instant start, Instant endExclusive) {
+        return new Plan(List.of(), List.of(), List.of(new Range(start, endExclusive)));
+    }
+
+    static List<DimensionSummary> summarize(JdbcTemplate jdbcTemplate,
+                                            DimensionDictionary dictionary,
+                                            SummaryDimension dimension,
+                                            Instant startDate,
+                                            Instant endDate,
+                                            Optional<String> siteName,
+                                            Optional<String> epc,
+                                            BiFunction<Instant, Instant, Plan> planner) {
+        final Optional<Integer> siteId = siteName.flatMap(name -> dictionary.findId(Dimension.SITE, name));
+        final Optional<Integer> epcId = epc.flatMap(value -> dictionary.findId(Dimension.EPC, value));
+        if (siteName.isPresent() && siteId.isEmpty() || epc.isPresent() && epcId.isEmpty() || endDate.isBefore(startDate)) {
+            return List.of();
+        }
+        // endDate is inclusive like the raw strategy's "between"; read_at has microsecond precision
+        final Plan plan = planner.apply(startDate, endDate.plus(1, ChronoUnit.MICROS));
+        final Map<String, Integer> filters = RollupAggregationStrategy.filters(siteId, Optional.empty(), epcId);
+        final String columns = dimension.bySite() && dimension.byLocation() ? "site_id, location_id" : dimension.bySite() ? "site_id" : "location_id";
+
+        final StringBuilder sql = new StringBuilder();
+        final List<Object> params = new ArrayList<>();
+        if (plan.days()
+                .isEmpty()
+                && plan.hours()
+                       .isEmpty()) {
+            RollupAggregationStrategy.appendSource(sql,
+                                                   params,
+                                                   "select " + columns + ", " + RAW_AGGREGATES + " from tag_reads",
+                                                   "read_at",
+                                                   plan.raw(),
+                                                   filters,
+                                                   " group by " + columns);
+        } else {
+            final StringBuilder parts = new StringBuilder();
+            RollupAggregationStrategy.appendSource(parts, params, "select " + ROLLUP_COLUMNS + " from tag_read_rollup_daily", "bucket_start", plan.days(), filters, "");
+            RollupAggregationStrategy.appendSource(parts, params, "select " + ROLLUP_COLUMNS + " from tag_read_rollup_hourly", "bucket_start", plan.hours(), filters, "");
+            RollupAggregationStrategy.appendSource(parts,
+                                                   params,
+                                                   "select site_id, " + PartialSummary.COLUMNS + " from tag_reads",
+                                                   "read_at",
+                                                   plan.raw(),
+                                                   filters,
+                                                   " group by site_id, epc_id, location_id");
+            sql.append("select ")
+               .append(columns)
+               .append(", ")
+               .append(MERGED_AGGREGATES)
+               .append(" from (")
+               .append(parts)
+               .append(") parts group by ")
+               .append(columns);
+        }
+        final List<DimensionSummary> summaries = jdbcTemplate.query(sql.toString(),
+                                                                    (rs, rowNum) -> DimensionSummary.builder()
+                                                                                                    .siteName(dimension.bySite() ? dictionary.valueOf(Dimension.SITE, rs.getInt("site_id")) : null)
+                                                                                                    .location(dimension.byLocation() ? dictionary.valueOf(Dimension.LOCATION, rs.getInt("location_id")) : null)
+                                                                                                    .totalReadCount(rs.getLong("cnt"))
+                                                                                                    .averageRssi(rs.getDouble("rssi_sum") / rs.getLong("cnt"))
+                                                                                                    .peakRssi(rs.getDouble("rssi_max"))
+                                                                                                    .epcCount(rs.getLong("epc_count"))
+                                                                                                    .firstSeen(rs.getTimestamp("first_seen")
+                                                                                                                 .toInstant())
+                                                                                                    .lastSeen(rs.getTimestamp("last_seen")
+                                                                                                                .toInstant())
+                                                                                                    .build(),
+                                                                    params.toArray());
+        return summaries.stream()
+                        .sorted(Comparator.comparingLong(DimensionSummary::totalReadCount)
+                                          .reversed()
+                                          .thenComparing(DimensionSummary::siteName, Comparator.nullsFirst(Comparator.naturalOrder()))
+                                          .thenComparing(DimensionSummary::location, Comparator.nullsFirst(Comparator.naturalOrder())))
+                        .toList();
+    }
+}
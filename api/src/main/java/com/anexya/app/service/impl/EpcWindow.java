@@ -0,0 +1,195 @@
+package com.anexya.app.service.impl;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Time-bucketed aggregates of one EPC: one cell per (bucket, site, location), held in parallel primitive arrays sorted
+ * by that key. Times are epoch microseconds. Not thread-safe; {@link InMemoryAggregationStrategy} guards access.
+ */
+final class EpcWindow {
+    /**
+     * Array bytes per cell: bucket, count, first and last seen (long), site and location (int), rssi sum and max
+     * (double).
+     */
+    static final int BYTES_PER_CELL = 4 * Long.BYTES + 2 * Integer.BYTES + 2 * Double.BYTES;
+    /**
+     * Object and array headers of one window.
+     */
+    static final int OVERHEAD_BYTES = 16 + 8 * 16 + 8;
+
+    private long[] buckets;
+    private int[] sites;
+    private int[] locations;
+    private long[] counts;
+    private double[] rssiSums;
+    private double[] rssiMaxes;
+    private long[] firstSeen;
+    private long[] lastSeen;
+    private int size;
+    private long truncatedThrough = Long.MIN_VALUE;
+
+    EpcWindow(int capacity) {
+        buckets = new long[capacity];
+        sites = new int[capacity];
+        locations = new int[capacity];
+        counts = new long[capacity];
+        rssiSums = new double[capacity];
+        rssiMaxes = new double[capacity];
+        firstSeen = new long[capacity];
+        lastSeen = new long[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Newest bucket {@link #removeOldest()} dropped a cell from, or {@link Long#MIN_VALUE}; collections starting at or
+     * before it are incomplete.
+     */
+    long truncatedThrough() {
+        return truncatedThrough;
+    }
+
+    long bytes() {
+        return OVERHEAD_BYTES + (long) buckets.length * BYTES_PER_CELL;
+    }
+
+    /**
+     * Merges an aggregate into its cell and returns true when that opened a new cell.
+     */
+    boolean add(long bucket, int siteId, int locationId, long count, double rssiSum, double rssiMax, long first, long last) {
+        final int found = find(bucket, siteId, locationId);
+        if (found >= 0) {
+            counts[found] += count;
+            rssiSums[found] += rssiSum;
+            rssiMaxes[found] = Math.max(rssiMaxes[found], rssiMax);
+            firstSeen[found] = Math.min(firstSeen[found], first);
+            lastSeen[found] = Math.max(lastSeen[found], last);
+            return false;
+        }
+        final int at = -found - 1;
+        if (size == buckets.length) {
+            grow();
+        }
+        shift(at, at + 1, size - at);
+        buckets[at] = bucket;
+        sites[at] = siteId;
+        locations[at] = locationId;
+        counts[at] = count;
+        rssiSums[at] = rssiSum;
+        rssiMaxes[at] = rssiMax;
+        firstSeen[at] = first;
+        lastSeen[at] = last;
+        size++;
+        return true;
+    }
+
+    /**
+     * Drops the oldest cell to stay within a cell limit and remembers its bucket as truncated.
+     */
+    void removeOldest() {
+        truncatedThrough = Math.max(truncatedThrough, buckets[0]);
+        shift(1, 0, --size);
+    }
+
+    /**
+     * Drops every cell older than {@code bucket} and returns how many were dropped.
+     */
+    int removeBefore(long bucket) {
+        final int keepFrom = lowerBound(bucket);
+        if (keepFrom > 0) {
+            shift(keepFrom, 0, size - keepFrom);
+            size -= keepFrom;
+        }
+        return keepFrom;
+    }
+
+    /**
+     * Per-location partials over buckets {@code [fromBucket, toBucket]}; {@code siteId} 0 matches every site.
+     */
+    List<PartialSummary> collect(int epcId, long fromBucket, long toBucket, int siteId) {
+        final Map<Integer, PartialSummary> byLocation = new HashMap<>();
+        for (int i = lowerBound(fromBucket); i < size && buckets[i] <= toBucket; i++) {
+            if (siteId != 0 && sites[i] != siteId) {
+                continue;
+            }
+            byLocation.merge(locations[i],
+                             new PartialSummary(epcId, locations[i], counts[i], rssiSums[i], rssiMaxes[i], instant(firstSeen[i]), instant(lastSeen[i])),
+                             PartialSummary::merge);
+        }
+        return List.copyOf(byLocation.values());
+    }
+
+    private int find(long bucket, int siteId, int locationId) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            int cmp = Long.compare(buckets[mid], bucket);
+            if (cmp == 0) {
+                cmp = Integer.compare(sites[mid], siteId);
+            }
+            if (cmp == 0) {
+                cmp = Integer.compare(locations[mid], locationId);
+            }
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -low - 1;
+    }
+
+    private int lowerBound(long bucket) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (buckets[mid] < bucket) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void shift(int from, int to, int length) {
+        System.arraycopy(buckets, from, buckets, to, length);
+        System.arraycopy(sites, from, sites, to, length);
+        System.arraycopy(locations, from, locations, to, length);
+        System.arraycopy(counts, from, counts, to, length);
+        System.arraycopy(rssiSums, from, rssiSums, to, length);
+        System.arraycopy(rssiMaxes, from, rssiMaxes, to, length);
+        System.arraycopy(firstSeen, from, firstSeen, to, length);
+        System.arraycopy(lastSeen, from, lastSeen, to, length);
+    }
+
+    private void grow() {
+        final int capacity = Math.max(4, buckets.length * 2);
+        buckets = Arrays.copyOf(buckets, capacity);
+        sites = Arrays.copyOf(sites, capacity);
+        locations = Arrays.copyOf(locations, capacity);
+        counts = Arrays.copyOf(counts, capacity);
+        rssiSums = Arrays.copyOf(rssiSums, capacity);
+        rssiMaxes = Arrays.copyOf(rssiMaxes, capacity);
+        firstSeen = Arrays.copyOf(firstSeen, capacity);
+        lastSeen = Arrays.copyOf(lastSeen, capacity);
+    }
+
+    static long micros(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000);
+    }
+
+    static Instant instant(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000);
+    }
+}
@@ -0,0 +1,505 @@
+package com.anexya.app.service.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import com.anexya.app.domain.DimensionSummary;
+import com.anexya.app.domain.SummaryDimension;
+import com.anexya.app.domain.TagRead;
+import com.anexya.app.domain.TagSummary;
+import com.anexya.app.repository.Dimension;
+import com.anexya.app.repository.DimensionDictionary;
+import com.anexya.app.service.AggregationStrategy;
+import com.anexya.app.service.TagReadsChangedEvent;
+import com.anexya.app.util.LongObjectMap;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Answers summaries of the last {@code retention} from per-EPC {@link EpcWindow windows} held in memory, without
+ * querying MySQL. Windows are rebuilt from {@code tag_reads} at startup and every {@code rebuild-interval}, and kept
+ * current from {@link TagReadsChangedEvent}s: inserts are added in place, updates and deletes queue their EPC for a
+ * reload on the virtual-thread executor. Ranges are widened to whole buckets. Ranges reaching past the retention or
+ * into the dropped cells of an EPC in scope, and every range while a rebuild is pending or {@code max-cells} was
+ * exceeded, fall back to {@link JdbcAggregationStrategy}.
+ * <p>
+ * Only writes made through this instance are seen between rebuilds. An updated EPC shows its old aggregates until its
+ * reload has run, and a write racing that reload can be counted twice or missed until the next rebuild.
+ */
+@Component
+@Profile("mysql")
+@ConditionalOnProperty(name = "app.aggregation.strategy", havingValue = "memory")
+public class InMemoryAggregationStrategy implements AggregationStrategy {
+    private static final Logger log = LoggerFactory.getLogger(InMemoryAggregationStrategy.class);
+
+    private static final String EPOCH = "'1970-01-01 00:00:00'";
+    private static final String LOAD_SQL = "select epc_id, site_id, location_id, timestampdiff(microsecond, " + EPOCH + ", read_at) div ? as bucket, "
+            + "count(*) as cnt, sum(rssi) as rssi_sum, max(rssi) as rssi_max, "
+            + "timestampdiff(microsecond, " + EPOCH + ", min(read_at)) as first_seen, timestampdiff(microsecond, " + EPOCH + ", max(read_at)) as last_seen "
+            + "from tag_reads where read_at >= ?";
+    private static final String GROUP_BY = " group by epc_id, site_id, location_id, bucket";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DimensionDictionary dictionary;
+    private final ExecutorService executor;
+    private final AggregationStrategy fallback;
+    private final Duration retention;
+    private final long bucketMicros;
+    private final int maxCellsPerEpc;
+    private final long maxCells;
+    private final Duration rebuildInterval;
+    private final Clock clock;
+    private final Counter memoryQueries;
+    private final Counter fallbackQueries;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Set<Integer> touchedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> pendingReloads = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean reloading = new AtomicBoolean();
+    private volatile boolean rebuilding;
+    private Windows windows;
+
+    private volatile boolean running;
+    private Thread maintainer;
+
+    @Autowired
+    public InMemoryAggregationStrategy(JdbcTemplate jdbcTemplate,
+                                       DimensionDictionary dictionary,
+                                       @Qualifier("applicationVirtualThreadExecutor") ExecutorService executor,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${app.aggregation.memory.retention:7d}") Duration retention,
+                                       @Value("${app.aggregation.memory.bucket:1m}") Duration bucket,
+                                       @Value("${app.aggregation.memory.max-cells-per-epc:0}") int maxCellsPerEpc,
+                                       @Value("${app.aggregation.memory.max-cells:5000000}") long maxCells,
+                                       @Value("${app.aggregation.memory.rebuild-interval:1h}") Duration rebuildInterval) {
+        this(jdbcTemplate, dictionary, executor, meterRegistry, retention, bucket, maxCellsPerEpc, maxCells, rebuildInterval, Clock.systemUTC());
+    }
+
+    /**
+     * {@code maxCellsPerEpc} 0 allows two cells per retained bucket, enough for an EPC read in every bucket that moves
+     * once per bucket on average.
+     */
+    public InMemoryAggregationStrategy(JdbcTemplate jdbcTemplate,
+                                       DimensionDictionary dictionary,
+                                       ExecutorService executor,
+                                       MeterRegistry meterRegistry,
+                                       Duration retention,
+                                       Duration bucket,
+                                       int maxCellsPerEpc,
+                                       long maxCells,
+                                       Duration rebuildInterval,
+                                       Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dictionary = dictionary;
+        this.executor = executor;
+        this.fallback = new JdbcAggregationStrategy(jdbcTemplate, dictionary);
+        this.retention = retention;
+        this.bucketMicros = bucket.toNanos() / 1_000;
+        // the window spans the buckets of the retention plus the partial one at its start
+        final long retainedBuckets = retention.toNanos() / bucket.toNanos() + 1;
+        if (maxCellsPerEpc > 0 && maxCellsPerEpc < retainedBuckets) {
+            log.warn("app.aggregation.memory.max-cells-per-epc {} is below the {} buckets of the retention; EPCs read in every bucket fall back to MySQL",
+                     maxCellsPerEpc,
+                     retainedBuckets);
+        }
+        this.maxCellsPerEpc = maxCellsPerEpc > 0 ? maxCellsPerEpc : (int) Math.min(Integer.MAX_VALUE, 2 * retainedBuckets);
+        this.maxCells = maxCells;
+        this.rebuildInterval = rebuildInterval;
+        this.clock = clock;
+        this.memoryQueries = meterRegistry.counter("tag_reads.memory.queries", "source", "memory");
+        this.fallbackQueries = meterRegistry.counter("tag_reads.memory.queries", "source", "jdbc");
+        Gauge.builder("tag_reads.memory.epcs", this, strategy -> strategy.read(current -> current == null ? 0 : current.epcs.size()))
+             .register(meterRegistry);
+        Gauge.builder("tag_reads.memory.cells", this, strategy -> strategy.read(current -> current == null ? 0 : current.cells))
+             .register(meterRegistry);
+        Gauge.builder("tag_reads.memory.bytes", this, strategy -> strategy.read(current -> current == null ? 0 : current.bytes()))
+             .baseUnit("bytes")
+             .register(meterRegistry);
+    }
+
+    /**
+     * All windows of one build.
+     */
+    private static final class Windows {
+        final LongObjectMap<EpcWindow> epcs = new LongObjectMap<>();
+        long cells;
+        boolean overflowed;
+
+        long bytes() {
+            final long[] bytes = { 0 };
+            epcs.forEach((epcId, window) -> bytes[0] += window.bytes());
+            return bytes[0];
+        }
+    }
+
+    private record Cell(int epcId, int siteId, int locationId, long micros, double rssi) {
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        maintainer = Thread.ofVirtual()
+                           .name("tag-read-memory-aggregates")
+                           .start(this::maintainLoop);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (maintainer != null) {
+            maintainer.interrupt();
+        }
+    }
+
+    @Override
+    public List<TagSummary> summarizeByTag(Instant startDate, Instant endDate, Optional<String> siteName, Optional<String> epc) {
+        if (!covers(startDate)) {
+            fallbackQueries.increment();
+            return fallback.summarizeByTag(startDate, endDate, siteName, epc);
+        }
+        final Optional<Integer> siteId = siteName.flatMap(name -> dictionary.findId(Dimension.SITE, name));
+        final Optional<Integer> epcId = epc.flatMap(value -> dictionary.findId(Dimension.EPC, value));
+        if (siteName.isPresent() && siteId.isEmpty() || epc.isPresent() && epcId.isEmpty() || endDate.isBefore(startDate)) {
+            return List.of();
+        }
+        final long fromBucket = bucketOf(EpcWindow.micros(startDate));
+        final long toBucket = bucketOf(EpcWindow.micros(endDate));
+        final int site = siteId.orElse(0);
+        final List<PartialSummary> partials = new ArrayList<>();
+        // only EPCs that dropped cells the range needs send it to MySQL
+        final boolean[] truncated = { false };
+        lock.readLock()
+            .lock();
+        try {
+            if (epcId.isPresent()) {
+                final EpcWindow window = windows.epcs.get(epcId.get());
+                if (window != null) {
+                    truncated[0] = window.truncatedThrough() >= fromBucket;
+                    partials.addAll(window.collect(epcId.get(), fromBucket, toBucket, site));
+                }
+            } else {
+                windows.epcs.forEach((id, window) -> {
+                    truncated[0] |= window.truncatedThrough() >= fromBucket;
+                    partials.addAll(window.collect((int) id, fromBucket, toBucket, site));
+                });
+            }
+        } finally {
+            lock.readLock()
+                .unlock();
+        }
+        if (truncated[0]) {
+            fallbackQueries.increment();
+            return fallback.summarizeByTag(startDate, endDate, siteName, epc);
+        }
+        memoryQueries.increment();
+        return PartialSummary.summarize(partials, dictionary);
+    }
+
+    /**
+     * Answered from MySQL: the in-memory cells are kept per EPC, not per site or location.
+     */
+    @Override
+    public List<DimensionSummary> summarizeBy(SummaryDimension dimension, Instant startDate, Instant endDate, Optional<String> siteName, Optional<String> epc) {
+        return DimensionSummaryQuery.summarize(jdbcTemplate, dictionary, dimension, startDate, endDate, siteName, epc, DimensionSummaryQuery::raw);
+    }
+
+    @EventListener
+    public void onTagReadsChanged(TagReadsChangedEvent event) {
+        try {
+            apply(event);
+        } catch (RuntimeException e) {
+            // the write already committed; the next rebuild corrects the windows
+            log.warn("Applying tag read changes to in-memory aggregates failed", e);
+        }
+    }
+
+    /**
+     * Replaces every window with aggregates loaded from {@code tag_reads}.
+     */
+    public void rebuild() {
+        rebuilding = true;
+        touchedDuringRebuild.clear();
+        try {
+            final Windows built = new Windows();
+            load(built, "", List.of());
+            if (built.overflowed) {
+                log.warn("In-memory aggregates need more than {} cells; summaries fall back to MySQL", maxCells);
+            }
+            lock.writeLock()
+                .lock();
+            try {
+                windows = built;
+            } finally {
+                lock.writeLock()
+                    .unlock();
+            }
+        } finally {
+            rebuilding = false;
+        }
+        // writes that raced the load may or may not be in it
+        touchedDuringRebuild.forEach(this::reload);
+    }
+
+    private void apply(TagReadsChangedEvent event) {
+        final long windowStart = bucketOf(EpcWindow.micros(clock.instant()
+                                                                .minus(retention)));
+        // resolve ids before taking the lock: a dictionary miss queries MySQL
+        final List<Cell> cells = new ArrayList<>(event.inserted()
+                                                      .size());
+        for (TagRead read : event.inserted()) {
+            final long micros = EpcWindow.micros(read.readAt());
+            if (bucketOf(micros) >= windowStart) {
+                resolve(read, micros).ifPresent(cells::add);
+            }
+        }
+        final Set<String> replacedEpcs = new LinkedHashSet<>();
+        for (TagRead read : event.replaced()) {
+            if (bucketOf(EpcWindow.micros(read.readAt())) >= windowStart) {
+                replacedEpcs.add(read.epc());
+            }
+        }
+        final Set<Integer> reload = new LinkedHashSet<>(dictionary.findIds(Dimension.EPC, replacedEpcs)
+                                                                  .values());
+        if (rebuilding) {
+            cells.forEach(cell -> touchedDuringRebuild.add(cell.epcId()));
+            touchedDuringRebuild.addAll(reload);
+        }
+        lock.writeLock()
+            .lock();
+        try {
+            if (windows != null) {
+                cells.forEach(cell -> add(windows,
+                                          cell.epcId(),
+                                          bucketOf(cell.micros()),
+                                          cell.siteId(),
+                                          cell.locationId(),
+                                          1,
+                                          cell.rssi(),
+                                          cell.rssi(),
+                                          cell.micros(),
+                                          cell.micros()));
+            }
+        } finally {
+            lock.writeLock()
+                .unlock();
+        }
+        if (!reload.isEmpty()) {
+            // reloading queries MySQL, so it runs off the writer's thread
+            pendingReloads.addAll(reload);
+            scheduleReloads();
+        }
+    }
+
+    private void scheduleReloads() {
+        if (reloading.compareAndSet(false, true)) {
+            executor.execute(this::drainReloads);
+        }
+    }
+
+    private void drainReloads() {
+        try {
+            for (Iterator<Integer> pending = pendingReloads.iterator(); pending.hasNext();) {
+                final int epcId = pending.next();
+                pending.remove();
+                try {
+                    reload(epcId);
+                } catch (RuntimeException e) {
+                    // the next rebuild corrects the window
+                    log.warn("Reloading in-memory aggregates of EPC id {} failed", epcId, e);
+                }
+            }
+        } finally {
+            reloading.set(false);
+            // an EPC queued after the iterator passed it still needs a drain
+            if (!pendingReloads.isEmpty()) {
+                scheduleReloads();
+            }
+        }
+    }
+
+    private void reload(int epcId) {
+        final Windows loaded = new Windows();
+        load(loaded, " and epc_id = ?", List.of(epcId));
+        final EpcWindow window = loaded.epcs.get(epcId);
+        lock.writeLock()
+            .lock();
+        try {
+            if (windows == null) {
+                return;
+            }
+            final EpcWindow previous = window == null ? windows.epcs.remove(epcId) : windows.epcs.put(epcId, window);
+            windows.cells += loaded.cells - (previous == null ? 0 : previous.size());
+            windows.overflowed |= windows.cells > maxCells;
+        } finally {
+            lock.writeLock()
+                .unlock();
+        }
+    }
+
+    private void load(Windows target, String filter, List<Object> filterParams) {
+        final long windowStart = bucketOf(EpcWindow.micros(clock.instant()
+                                                                .minus(retention)));
+        final List<Object> params = new ArrayList<>();
+        params.add(bucketMicros);
+        params.add(Timestamp.from(EpcWindow.instant(windowStart * bucketMicros)));
+        params.addAll(filterParams);
+        final String sql = LOAD_SQL + filter + GROUP_BY;
+        final PreparedStatementCreator streaming = con -> {
+            final PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // Connector/J streams rows one at a time instead of buffering the whole result set
+            ps.setFetchSize(Integer.MIN_VALUE);
+            new ArgumentPreparedStatementSetter(params.toArray()).setValues(ps);
+            return ps;
+        };
+        jdbcTemplate.query(streaming, (RowCallbackHandler) rs -> addRow(target, rs));
+    }
+
+    private void addRow(Windows target, ResultSet rs) throws SQLException {
+        if (target.overflowed) {
+            return;
+        }
+        add(target,
+            rs.getInt("epc_id"),
+            rs.getLong("bucket"),
+            rs.getInt("site_id"),
+            rs.getInt("location_id"),
+            rs.getLong("cnt"),
+            rs.getDouble("rssi_sum"),
+            rs.getDouble("rssi_max"),
+            rs.getLong("first_seen"),
+            rs.getLong("last_seen"));
+    }
+
+    private void add(Windows target, int epcId, long bucket, int siteId, int locationId, long count, double rssiSum, double rssiMax, long first, long last) {
+        if (target.overflowed) {
+            return;
+        }
+        EpcWindow window = target.epcs.get(epcId);
+        if (window == null) {
+            window = new EpcWindow(4);
+            target.epcs.put(epcId, window);
+        }
+        if (window.add(bucket, siteId, locationId, count, rssiSum, rssiMax, first, last)) {
+            target.cells++;
+        }
+        while (window.size() > maxCellsPerEpc) {
+            window.removeOldest();
+            target.cells--;
+        }
+        target.overflowed = target.cells > maxCells;
+    }
+
+    private void prune() {
+        final long windowStart = bucketOf(EpcWindow.micros(clock.instant()
+                                                                .minus(retention)));
+        lock.writeLock()
+            .lock();
+        try {
+            if (windows == null) {
+                return;
+            }
+            windows.epcs.forEach((epcId, window) -> windows.cells -= window.removeBefore(windowStart));
+            windows.epcs.removeIf(window -> window.size() == 0);
+        } finally {
+            lock.writeLock()
+                .unlock();
+        }
+    }
+
+    private boolean covers(Instant start) {
+        final long startMicros = EpcWindow.micros(start);
+        final long windowStart = EpcWindow.micros(clock.instant()
+                                                       .minus(retention));
+        return read(current -> current != null && !current.overflowed && startMicros >= windowStart);
+    }
+
+    private <T> T read(Function<Windows, T> reader) {
+        lock.readLock()
+            .lock();
+        try {
+            return reader.apply(windows);
+        } finally {
+            lock.readLock()
+                .unlock();
+        }
+    }
+
+    private Optional<Cell> resolve(TagRead read, long micros) {
+        final Optional<Integer> epcId = dictionary.findId(Dimension.EPC, read.epc());
+        final Optional<Integer> siteId = dictionary.findId(Dimension.SITE, read.siteName());
+        final Optional<Integer> locationId = dictionary.findId(Dimension.LOCATION, read.location());
+        if (epcId.isEmpty() || siteId.isEmpty() || locationId.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(new Cell(epcId.get(), siteId.get(), locationId.get(), micros, read.rssi()));
+    }
+
+    private long bucketOf(long micros) {
+        return Math.floorDiv(micros, bucketMicros);
+    }
+
+    private void maintainLoop() {
+        Instant nextRebuild = Instant.MIN;
+        while (running) {
+            try {
+                if (!clock.instant()
+                          .isBefore(nextRebuild)) {
+                    rebuild();
+                    nextRebuild = rebuildInterval.isZero() ? Instant.MAX : clock.instant()
+                                                                              .plus(rebuildInterval);
+                } else {
+                    prune();
+                }
+                Thread.sleep(Duration.ofNanos(bucketMicros * 1_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread()
+                      .interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Maintaining in-memory aggregates failed", e);
+                try {
+                    Thread.sleep(Duration.ofNanos(bucketMicros * 1_000));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread()
+                          .interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -5,68 +5,98 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.Objects;
+import java.util.function.Consumer;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Profile;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Component;
 
+import com.anexya.app.repository.Dimension;
+import com.anexya.app.repository.DimensionDictionary;
+import com.anexya.app.repository.impl.StreamingStatement;
 import com.anexya.app.service.AggregationStrategy;
+import com.anexya.app.domain.DimensionSummary;
+import com.anexya.app.domain.SummaryDimension;
 import com.anexya.app.domain.TagSummary;
 
 import lombok.RequiredArgsConstructor;
 
 @Component
 @Profile("mysql")
+@ConditionalOnProperty(name = "app.aggregation.strategy", havingValue = "jdbc", matchIfMissing = true)
 @RequiredArgsConstructor
 public class JdbcAggregationStrategy implements AggregationStrategy {
     private final JdbcTemplate jdbcTemplate;
+    private final DimensionDictionary dictionary;
 
     @Override
     public List<TagSummary> summarizeByTag(Instant startDate, Instant endDate, Optional<String> siteName, Optional<String> epc) {
+        final List<TagSummary> summaries = new ArrayList<>();
+        streamByTag(jdbcTemplate, startDate, endDate, siteName, epc, summaries::add);
+        return summaries;
+    }
+
+    @Override
+    public void streamByTag(JdbcTemplate jdbcTemplate,
+                            Instant startDate,
+                            Instant endDate,
+                            Optional<String> siteName,
+                            Optional<String> epc,
+                            Consumer<TagSummary> consumer) {
+        // dictionary-encoded filters: an unknown site or epc has no reads
+        final Optional<Integer> siteId = siteName.flatMap(name -> dictionary.findId(Dimension.SITE, name));
+        final Optional<Integer> epcId = epc.flatMap(value -> dictionary.findId(Dimension.EPC, value));
+        if (siteName.isPresent() && siteId.isEmpty() || epc.isPresent() && epcId.isEmpty()) {
+            return;
+        }
+
         final StringBuilder sql = new StringBuilder();
-        sql.append("select epc, count(*) as totalReadCount, avg(rssi) as averageRssi, max(rssi) as peakRssi, ");
-        sql.append("count(distinct location) as locationCount, ");
+        sql.append("select epc_id, count(*) as totalReadCount, avg(rssi) as averageRssi, max(rssi) as peakRssi, ");
+        sql.append("count(distinct location_id) as locationCount, ");
         sql.append("min(read_at) as firstSeen, max(read_at) as lastSeen, ");
-        sql.append("(select location from tag_reads rt2 where rt2.epc = rt.epc ");
+        sql.append("(select rt2.location_id from tag_reads rt2 join dim_location dl on dl.id = rt2.location_id where rt2.epc_id = rt.epc_id ");
         sql.append(" and rt2.read_at between ? and ? ");
-        sql.append(siteName.isPresent() ? " and rt2.site_name = ? " : " ");
-        sql.append(epc.isPresent() ? " and rt2.epc = ? " : " ");
-        sql.append(" group by location order by count(*) desc, location asc limit 1) as mostDetectedLocation ");
+        sql.append(siteId.isPresent() ? " and rt2.site_id = ? " : " ");
+        sql.append(" group by rt2.location_id, dl.value order by count(*) desc, dl.value asc limit 1) as mostDetectedLocationId ");
         sql.append("from tag_reads rt where read_at between ? and ? ");
-        if (siteName.isPresent()) {
-            sql.append(" and site_name = ? ");
+        if (siteId.isPresent()) {
+            sql.append(" and site_id = ? ");
         }
-        if (epc.isPresent()) {
-            sql.append(" and epc = ? ");
+        if (epcId.isPresent()) {
+            sql.append(" and epc_id = ? ");
         }
-        sql.append(" group by epc");
+        sql.append(" group by epc_id");
 
         final List<Object> params = new ArrayList<>();
         // subquery params
         params.add(Timestamp.from(startDate));
         params.add(Timestamp.from(endDate));
-        siteName.ifPresent(params::add);
-        epc.ifPresent(params::add);
+        siteId.ifPresent(params::add);
         // main query params
         params.add(Timestamp.from(startDate));
         params.add(Timestamp.from(endDate));
-        siteName.ifPresent(params::add);
-        epc.ifPresent(params::add);
+        siteId.ifPresent(params::add);
+        epcId.ifPresent(params::add);
+
+        jdbcTemplate.query(StreamingStatement.of(sql.toString(), params.toArray()),
+                           (RowCallbackHandler) rs -> consumer.accept(TagSummary.builder()
+                                                                                .epc(dictionary.valueOf(Dimension.EPC, rs.getInt("epc_id")))
+                                                                                .totalReadCount(rs.getLong("totalReadCount"))
+                                                                                .averageRssi(rs.getDouble("averageRssi"))
+                                                                                .peakRssi(rs.getDouble("peakRssi"))
+                                                                                .locationCount(rs.getLong("locationCount"))
+                                                                                .mostDetectedLocation(dictionary.valueOf(Dimension.LOCATION, rs.getInt("mostDetectedLocationId")))
+                                                                                .firstSeen(rs.getTimestamp("firstSeen")
+                                                                                             .toInstant())
+                                                                                .lastSeen(rs.getTimestamp("lastSeen")
+                                                                                            .toInstant())
+                                                                                .build()));
+    }
 
-    return jdbcTemplate.query(Objects.requireNonNull(sql.toString()),
-                                  (rs, rowNum) -> TagSummary.builder()
-                                                            .epc(rs.getString("epc"))
-                                                            .totalReadCount(rs.getLong("totalReadCount"))
-                                                            .averageRssi(rs.getDouble("averageRssi"))
-                                                            .peakRssi(rs.getDouble("peakRssi"))
-                                                            .locationCount(rs.getLong("locationCount"))
-                                                            .mostDetectedLocation(rs.getString("mostDetectedLocation"))
-                                                            .firstSeen(rs.getTimestamp("firstSeen")
-                                                                         .toInstant())
-                                                            .lastSeen(rs.getTimestamp("lastSeen")
-                                                                        .toInstant())
-                                                            .build(),
-                                  params.toArray());
+    @Override
+    public List<DimensionSummary> summarizeBy(SummaryDimension dimension, Instant startDate, Instant endDate, Optional<String> siteName, Optional<String> epc) {
+        return DimensionSummaryQuery.summarize(jdbcTemplate, dictionary, dimension, startDate, endDate, siteName, epc, DimensionSummaryQuery::raw);
     }
 }
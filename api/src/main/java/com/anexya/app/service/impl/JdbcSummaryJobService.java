@@ -0,0 +1,425 @@
+package com.anexya.app.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.anexya.app.domain.SummaryJob;
+import com.anexya.app.domain.SummaryJobStatus;
+import com.anexya.app.domain.TagSummary;
+import com.anexya.app.service.AggregationStrategy;
+import com.anexya.app.service.SummaryJobService;
+import com.anexya.app.util.TimeOrderedUuid;
+import com.anexya.app.web.InvalidRequestException;
+import com.anexya.app.web.SummaryJobNotFoundException;
+import com.anexya.app.web.SummaryJobQueueFullException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs {@code summary/by-epc} jobs on a small dedicated thread pool, so at most {@code parallelism} long reports run at
+ * once, and on the {@code summaryJobDataSource} connections, so they never wait on or hold the application pool and are
+ * not cut off by its socket timeout. Rows are streamed from the strategy into compressed chunks of {@code chunk-rows}
+ * rows in {@code summary_job_results}; with the JDBC and window strategies neither writing nor reading a result holds
+ * all of it in memory. Interrupting a job's virtual thread closes its socket. On the next submission, jobs still running
+ * {@code timeout} after they started, or still queued {@code queue-timeout} after they were submitted (e.g. because
+ * the instance running them died), are failed and interrupted if they run here, and finished jobs are purged with
+ * their chunks after {@code retention}.
+ */
+@Component
+@Profile("mysql")
+public class JdbcSummaryJobService implements SummaryJobService {
+    private static final Logger log = LoggerFactory.getLogger(JdbcSummaryJobService.class);
+    private static final String SELECT_SQL = "select bin_to_uuid(id) as id, status, start_date, end_date, site_name, epc, submitted_at, started_at, "
+            + "finished_at, result_count, error from summary_jobs";
+    private static final String ACTIVE = "status in ('QUEUED', 'RUNNING')";
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate jobJdbcTemplate;
+    private final AggregationStrategy aggregationStrategy;
+    private final int maxQueued;
+    private final int chunkRows;
+    private final Duration timeout;
+    private final Duration queueTimeout;
+    private final Duration retention;
+    private final Clock clock;
+    private final ThreadPoolExecutor executor;
+    private final Map<UUID, FutureTask<Void>> local = new ConcurrentHashMap<>();
+    private final Counter submitted;
+    private final Counter deduplicated;
+    private final Counter completed;
+    private final Counter failed;
+
+    @Autowired
+    public JdbcSummaryJobService(JdbcTemplate jdbcTemplate,
+                                 @Qualifier("summaryJobDataSource") DataSource jobDataSource,
+                                 AggregationStrategy aggregationStrategy,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.summary-jobs.parallelism:2}") int parallelism,
+                                 @Value("${app.summary-jobs.max-queued:100}") int maxQueued,
+                                 @Value("${app.summary-jobs.chunk-rows:10000}") int chunkRows,
+                                 @Value("${app.summary-jobs.timeout:1h}") Duration timeout,
+                                 @Value("${app.summary-jobs.queue-timeout:24h}") Duration queueTimeout,
+                                 @Value("${app.summary-jobs.retention:24h}") Duration retention) {
+        this(jdbcTemplate,
+             new JdbcTemplate(jobDataSource),
+             aggregationStrategy,
+             meterRegistry,
+             parallelism,
+             maxQueued,
+             chunkRows,
+             timeout,
+             queueTimeout,
+             retention,
+             Clock.systemUTC());
+    }
+
+    public JdbcSummaryJobService(JdbcTemplate jdbcTemplate,
+                                 JdbcTemplate jobJdbcTemplate,
+                                 AggregationStrategy aggregationStrategy,
+                                 MeterRegistry meterRegistry,
+                                 int parallelism,
+                                 int maxQueued,
+                                 int chunkRows,
+                                 Duration timeout,
+                                 Duration queueTimeout,
+                                 Duration retention,
+                                 Clock clock) {
+        if (chunkRows < 1) {
+            throw new IllegalArgumentException("app.summary-jobs.chunk-rows must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.jobJdbcTemplate = jobJdbcTemplate;
+        this.aggregationStrategy = aggregationStrategy;
+        this.maxQueued = maxQueued;
+        this.chunkRows = chunkRows;
+        this.timeout = timeout;
+        this.queueTimeout = queueTimeout;
+        this.retention = retention;
+        this.clock = clock;
+        this.executor = new ThreadPoolExecutor(parallelism,
+                                               parallelism,
+                                               0,
+                                               TimeUnit.MILLISECONDS,
+                                               new ArrayBlockingQueue<>(maxQueued),
+                                               Thread.ofVirtual()
+                                                     .name("summary-job-", 0)
+                                                     .factory());
+        this.submitted = meterRegistry.counter("tag_reads.summary_jobs.submitted");
+        this.deduplicated = meterRegistry.counter("tag_reads.summary_jobs.deduplicated");
+        this.completed = meterRegistry.counter("tag_reads.summary_jobs.completed");
+        this.failed = meterRegistry.counter("tag_reads.summary_jobs.failed");
+        Gauge.builder("tag_reads.summary_jobs.queued", executor.getQueue(), BlockingQueue::size)
+             .register(meterRegistry);
+    }
+
+    @Override
+    public SummaryJob submit(Instant startDate, Instant endDate, Optional<String> siteName, Optional<String> epc) {
+        if (endDate.isBefore(startDate)) {
+            throw new InvalidRequestException("startDate must not be after endDate");
+        }
+        expireAndPurge();
+        final byte[] hash = activeHash(startDate, endDate, siteName, epc);
+        for (int attempt = 1;; attempt++) {
+            final UUID id = TimeOrderedUuid.next();
+            try {
+                jdbcTemplate.update("insert into summary_jobs (id, status, start_date, end_date, site_name, epc, active_hash, submitted_at) "
+                        + "values (uuid_to_bin(?), ?, ?, ?, ?, ?, ?, ?)",
+                                    id.toString(),
+                                    SummaryJobStatus.QUEUED.name(),
+                                    Timestamp.from(startDate),
+                                    Timestamp.from(endDate),
+                                    siteName.orElse(null),
+                                    epc.orElse(null),
+                                    hash,
+                                    Timestamp.from(clock.instant()));
+            } catch (DuplicateKeyException e) {
+                final List<SummaryJob> active = jdbcTemplate.query(SELECT_SQL + " where active_hash = ?", this::mapJob, hash);
+                if (!active.isEmpty()) {
+                    deduplicated.increment();
+                    return active.get(0);
+                }
+                // The identical job finished between the insert and the lookup; its hash is free again.
+                if (attempt >= 3) {
+                    throw e;
+                }
+                continue;
+            }
+            schedule(id, startDate, endDate, siteName, epc);
+            submitted.increment();
+            return get(id);
+        }
+    }
+
+    @Override
+    public SummaryJob get(UUID id) {
+        return jdbcTemplate.query(SELECT_SQL + " where id = uuid_to_bin(?)", this::mapJob, id.toString())
+                           .stream()
+                           .findFirst()
+                           .orElseThrow(() -> new SummaryJobNotFoundException(id));
+    }
+
+    @Override
+    public SummaryJob cancel(UUID id) {
+        final SummaryJob job = get(id);
+        if (!job.status()
+                .isActive()) {
+            return job;
+        }
+        jdbcTemplate.update("update summary_jobs set status = ?, active_hash = null, finished_at = ? where id = uuid_to_bin(?) and " + ACTIVE,
+                            SummaryJobStatus.CANCELLED.name(),
+                            Timestamp.from(clock.instant()),
+                            id.toString());
+        final FutureTask<Void> task = local.remove(id);
+        if (task != null) {
+            task.cancel(true);
+            executor.purge();
+        }
+        return get(id);
+    }
+
+    @Override
+    public void streamResult(UUID id, Consumer<TagSummary> consumer) {
+        final SummaryJob job = get(id);
+        if (job.status() != SummaryJobStatus.DONE) {
+            throw new InvalidRequestException("Summary job " + id + " is " + job.status() + ", not DONE");
+        }
+        // One chunk per query, so the connection is released before its rows are written to the client.
+        for (int seq = 0;; seq++) {
+            final List<byte[]> chunk = jdbcTemplate.query("select chunk from summary_job_results where job_id = uuid_to_bin(?) and seq = ?",
+                                                          (rs, rowNum) -> rs.getBytes("chunk"),
+                                                          id.toString(),
+                                                          seq);
+            if (chunk.isEmpty()) {
+                return;
+            }
+            SummaryResultCodec.decode(chunk.get(0), consumer);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        final List<UUID> interrupted = List.copyOf(local.keySet());
+        executor.shutdownNow();
+        for (UUID id : interrupted) {
+            fail(id, "Interrupted by shutdown");
+        }
+        local.clear();
+    }
+
+    private void schedule(UUID id, Instant startDate, Instant endDate, Optional<String> siteName, Optional<String> epc) {
+        final FutureTask<Void> task = new FutureTask<>(() -> run(id, startDate, endDate, siteName, epc), null);
+        local.put(id, task);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            local.remove(id);
+            jdbcTemplate.update("delete from summary_jobs where id = uuid_to_bin(?)", id.toString());
+            throw new SummaryJobQueueFullException(maxQueued);
+        }
+    }
+
+    private void run(UUID id, Instant startDate, Instant endDate, Optional<String> siteName, Optional<String> epc) {
+        try {
+            final int started = jobJdbcTemplate.update("update summary_jobs set status = ?, started_at = ? where id = uuid_to_bin(?) and status = ?",
+                                                       SummaryJobStatus.RUNNING.name(),
+                                                       Timestamp.from(clock.instant()),
+                                                       id.toString(),
+                                                       SummaryJobStatus.QUEUED.name());
+            if (started == 0) {
+                return;
+            }
+            final ChunkWriter writer = new ChunkWriter(id);
+            aggregationStrategy.streamByTag(jobJdbcTemplate, startDate, endDate, siteName, epc, writer);
+            writer.flush();
+            // Conditional on RUNNING, so a job cancelled or timed out meanwhile keeps that status and drops the result.
+            final int done = jobJdbcTemplate.update("update summary_jobs set status = ?, active_hash = null, finished_at = ?, result_count = ? "
+                    + "where id = uuid_to_bin(?) and status = ?",
+                                                    SummaryJobStatus.DONE.name(),
+                                                    Timestamp.from(clock.instant()),
+                                                    writer.rows,
+                                                    id.toString(),
+                                                    SummaryJobStatus.RUNNING.name());
+            if (done > 0) {
+                completed.increment();
+            } else {
+                jobJdbcTemplate.update("delete from summary_job_results where job_id = uuid_to_bin(?)", id.toString());
+            }
+        } catch (RuntimeException e) {
+            // Cancel and shutdown interrupt the worker and record the job's final status themselves.
+            if (Thread.interrupted() || !local.containsKey(id)) {
+                return;
+            }
+            log.warn("Summary job {} failed", id, e);
+            fail(id, e.getMessage() != null ? e.getMessage() : e.getClass()
+                                                                .getName());
+        } finally {
+            local.remove(id);
+        }
+    }
+
+    private void fail(UUID id, String error) {
+        final int updated = jdbcTemplate.update("update summary_jobs set status = ?, active_hash = null, finished_at = ?, error = ? where id = uuid_to_bin(?) and "
+                + ACTIVE,
+                                                SummaryJobStatus.FAILED.name(),
+                                                Timestamp.from(clock.instant()),
+                                                error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error,
+                                                id.toString());
+        if (updated > 0) {
+            failed.increment();
+        }
+    }
+
+    private void expireAndPurge() {
+        final Instant now = clock.instant();
+        final int expired = jdbcTemplate.update("update summary_jobs set status = ?, active_hash = null, finished_at = ?, error = ? "
+                + "where status = ? and started_at < ? or status = ? and submitted_at < ?",
+                                                SummaryJobStatus.FAILED.name(),
+                                                Timestamp.from(now),
+                                                "Timed out after " + timeout,
+                                                SummaryJobStatus.RUNNING.name(),
+                                                Timestamp.from(now.minus(timeout)),
+                                                SummaryJobStatus.QUEUED.name(),
+                                                Timestamp.from(now.minus(queueTimeout)));
+        if (expired > 0) {
+            log.warn("Failed {} summary jobs running longer than {} or queued longer than {}", expired, timeout, queueTimeout);
+            failed.increment(expired);
+        }
+        interruptInactive();
+        jdbcTemplate.update("delete from summary_jobs where finished_at < ?", Timestamp.from(now.minus(retention)));
+    }
+
+    /**
+     * Interrupts local tasks whose jobs are no longer active, e.g. because this or another instance timed them out.
+     */
+    private void interruptInactive() {
+        final List<UUID> ids = List.copyOf(local.keySet());
+        if (ids.isEmpty()) {
+            return;
+        }
+        final String placeholders = ids.stream()
+                                       .map(id -> "uuid_to_bin(?)")
+                                       .collect(Collectors.joining(", "));
+        final Set<UUID> active = jdbcTemplate.query("select bin_to_uuid(id) as id from summary_jobs where id in (" + placeholders + ") and " + ACTIVE,
+                                                    (rs, rowNum) -> UUID.fromString(rs.getString("id")),
+                                                    ids.stream()
+                                                       .map(UUID::toString)
+                                                       .toArray())
+                                             .stream()
+                                             .collect(Collectors.toSet());
+        for (UUID id : ids) {
+            if (!active.contains(id)) {
+                final FutureTask<Void> task = local.remove(id);
+                if (task != null) {
+                    task.cancel(true);
+                }
+            }
+        }
+        executor.purge();
+    }
+
+    private SummaryJob mapJob(ResultSet rs, int rowNum) throws SQLException {
+        return SummaryJob.builder()
+                         .id(UUID.fromString(rs.getString("id")))
+                         .status(SummaryJobStatus.valueOf(rs.getString("status")))
+                         .startDate(toInstant(rs.getTimestamp("start_date")))
+                         .endDate(toInstant(rs.getTimestamp("end_date")))
+                         .siteName(rs.getString("site_name"))
+                         .epc(rs.getString("epc"))
+                         .submittedAt(toInstant(rs.getTimestamp("submitted_at")))
+                         .startedAt(toInstant(rs.getTimestamp("started_at")))
+                         .finishedAt(toInstant(rs.getTimestamp("finished_at")))
+                         .resultCount(rs.getObject("result_count", Long.class))
+                         .error(rs.getString("error"))
+                         .build();
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toInstant() : null;
+    }
+
+    private static byte[] activeHash(Instant startDate, Instant endDate, Optional<String> siteName, Optional<String> epc) {
+        final String site = siteName.map(value -> "=" + value)
+                                    .orElse("-");
+        final String tag = epc.map(value -> "=" + value)
+                              .orElse("-");
+        final String key = String.join("\u0000", startDate.toString(), endDate.toString(), site, tag);
+        try {
+            return MessageDigest.getInstance("SHA-256")
+                                .digest(key.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Buffers streamed rows and stores every {@code chunkRows} of them as the job's next chunk.
+     */
+    private final class ChunkWriter implements Consumer<TagSummary> {
+        private final UUID id;
+        private final List<TagSummary> buffer = new ArrayList<>();
+        private int seq;
+        private long rows;
+
+        private ChunkWriter(UUID id) {
+            this.id = id;
+        }
+
+        @Override
+        public void accept(TagSummary summary) {
+            buffer.add(summary);
+            rows++;
+            if (buffer.size() >= chunkRows) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            jobJdbcTemplate.update("insert into summary_job_results (job_id, seq, chunk) values (uuid_to_bin(?), ?, ?)",
+                                   id.toString(),
+                                   seq++,
+                                   SummaryResultCodec.encode(buffer));
+            buffer.clear();
+        }
+    }
+}
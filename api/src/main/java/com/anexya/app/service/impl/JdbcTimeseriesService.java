@@ -0,0 +1,291 @@
+package com.anexya.app.service.impl;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.anexya.app.cache.TtlCache;
+import com.anexya.app.domain.BucketWidth;
+import com.anexya.app.domain.TimeseriesBucket;
+import com.anexya.app.repository.Dimension;
+import com.anexya.app.repository.DimensionDictionary;
+import com.anexya.app.service.TimeseriesService;
+import com.anexya.app.service.impl.RollupAggregationStrategy.Plan;
+import com.anexya.app.service.impl.RollupAggregationStrategy.Range;
+import com.anexya.app.web.InvalidRequestException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Buckets reads with grouped queries: 1m/5m buckets straight from {@code tag_reads} (served by its
+ * {@code (dimension, read_at)} indexes), 1h/1d buckets from the hourly/daily rollups, reading hours still queued for a
+ * refresh raw. Requested ranges are widened to whole buckets.
+ * <p>
+ * Work is split into chunks of {@value #CHUNK_BUCKETS} buckets. A chunk that ended more than {@code closed-after} ago
+ * is cached whole for {@code ttl}, so a dashboard refreshing a sliding range only queries its newest buckets. Reads that
+ * arrive later than {@code closed-after} for a cached chunk show up once the entry expires.
+ */
+@Component
+@Profile("mysql")
+public class JdbcTimeseriesService implements TimeseriesService {
+    static final String CACHE_NAME = "tag-read-timeseries";
+    static final int CHUNK_BUCKETS = 60;
+
+    private static final String BUCKET = "timestampdiff(second, ?, %s) div ? as bucket";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DimensionDictionary dictionary;
+    private final int maxBuckets;
+    private final Duration closedAfter;
+    private final Clock clock;
+    private final TtlCache<ChunkKey, List<TimeseriesBucket>> cache;
+
+    /**
+     * Dimension ids are 0 when not filtered on.
+     */
+    private record ChunkKey(BucketWidth width, int siteId, int locationId, int epcId, Instant start) {
+    }
+
+    /**
+     * Contiguous part of the widened range; only closed chunks have a cache key.
+     */
+    private record Segment(Instant from, Instant to, ChunkKey key) {
+    }
+
+    /**
+     * Buckets of one query and the ranges it had to read raw because their rollups were not current.
+     */
+    private record Queried(List<TimeseriesBucket> buckets, List<Range> raw) {
+    }
+
+    @Autowired
+    public JdbcTimeseriesService(JdbcTemplate jdbcTemplate,
+                                 DimensionDictionary dictionary,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.timeseries.max-buckets:1440}") int maxBuckets,
+                                 @Value("${app.timeseries.cache.enabled:true}") boolean cacheEnabled,
+                                 @Value("${app.timeseries.cache.max-entries:10000}") int cacheMaxEntries,
+                                 @Value("${app.timeseries.cache.ttl:5m}") Duration cacheTtl,
+                                 @Value("${app.timeseries.cache.closed-after:2m}") Duration closedAfter) {
+        this(jdbcTemplate, dictionary, meterRegistry, maxBuckets, cacheEnabled, cacheMaxEntries, cacheTtl, closedAfter, Clock.systemUTC());
+    }
+
+    public JdbcTimeseriesService(JdbcTemplate jdbcTemplate,
+                                 DimensionDictionary dictionary,
+                                 MeterRegistry meterRegistry,
+                                 int maxBuckets,
+                                 boolean cacheEnabled,
+                                 int cacheMaxEntries,
+                                 Duration cacheTtl,
+                                 Duration closedAfter,
+                                 Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dictionary = dictionary;
+        this.maxBuckets = maxBuckets;
+        this.closedAfter = closedAfter;
+        this.clock = clock;
+        this.cache = cacheEnabled ? new TtlCache<>(CACHE_NAME, cacheMaxEntries, cacheTtl, meterRegistry, clock) : null;
+    }
+
+    @Override
+    public List<TimeseriesBucket> readRates(Instant startDate,
+                                            Instant endDate,
+                                            BucketWidth width,
+                                            Optional<String> siteName,
+                                            Optional<String> location,
+                                            Optional<String> epc) {
+        if (endDate.isBefore(startDate)) {
+            throw new InvalidRequestException("startDate must not be after endDate");
+        }
+        final Instant first = width.floor(startDate);
+        final Instant endExclusive = width.floor(endDate)
+                                          .plus(width.duration());
+        final long buckets = Duration.between(first, endExclusive)
+                                     .dividedBy(width.duration());
+        if (buckets > maxBuckets) {
+            throw new InvalidRequestException("range spans " + buckets + " " + width.label() + " buckets; at most " + maxBuckets + " are allowed");
+        }
+        final Optional<Integer> siteId = siteName.flatMap(name -> dictionary.findId(Dimension.SITE, name));
+        final Optional<Integer> locationId = location.flatMap(value -> dictionary.findId(Dimension.LOCATION, value));
+        final Optional<Integer> epcId = epc.flatMap(value -> dictionary.findId(Dimension.EPC, value));
+        if (siteName.isPresent() && siteId.isEmpty() || location.isPresent() && locationId.isEmpty() || epc.isPresent() && epcId.isEmpty()) {
+            return List.of();
+        }
+        final Map<String, Integer> filters = RollupAggregationStrategy.filters(siteId, locationId, epcId);
+        final ChunkKey template = new ChunkKey(width, siteId.orElse(0), locationId.orElse(0), epcId.orElse(0), null);
+        final List<Segment> segments = segments(first, endExclusive, width, template);
+
+        final List<List<TimeseriesBucket>> resolved = new ArrayList<>(segments.size());
+        for (Segment segment : segments) {
+            resolved.add(segment.key() == null ? null
+                                               : cache.getIfPresent(segment.key())
+                                                      .orElse(null));
+        }
+        // one query per run of segments that are not cached
+        for (int i = 0; i < segments.size();) {
+            if (resolved.get(i) != null) {
+                i++;
+                continue;
+            }
+            int end = i;
+            while (end < segments.size() && resolved.get(end) == null) {
+                end++;
+            }
+            final Queried queried = query(segments.get(i)
+                                                  .from(),
+                                          segments.get(end - 1)
+                                                  .to(),
+                                          width,
+                                          filters);
+            final List<TimeseriesBucket> rows = queried.buckets();
+            int row = 0;
+            for (int s = i; s < end; s++) {
+                final Segment segment = segments.get(s);
+                final List<TimeseriesBucket> part = new ArrayList<>();
+                while (row < rows.size() && rows.get(row)
+                                                .bucketStart()
+                                                .isBefore(segment.to())) {
+                    part.add(rows.get(row++));
+                }
+                resolved.set(s, List.copyOf(part));
+                // a chunk with hours still queued for a refresh is still taking writes; leave it to the next request
+                if (segment.key() != null && queried.raw()
+                                                    .stream()
+                                                    .noneMatch(range -> range.from()
+                                                                             .isBefore(segment.to())
+                                                            && segment.from()
+                                                                      .isBefore(range.to()))) {
+                    cache.put(segment.key(), resolved.get(s));
+                }
+            }
+            i = end;
+        }
+        return resolved.stream()
+                       .flatMap(List::stream)
+                       .filter(bucket -> !bucket.bucketStart()
+                                                .isBefore(first)
+                               && bucket.bucketStart()
+                                        .isBefore(endExclusive))
+                       .toList();
+    }
+
+    private List<Segment> segments(Instant first, Instant endExclusive, BucketWidth width, ChunkKey template) {
+        final long chunkSeconds = width.duration()
+                                       .toSeconds()
+                * CHUNK_BUCKETS;
+        final Instant closedBefore = clock.instant()
+                                          .minus(closedAfter);
+        final List<Segment> segments = new ArrayList<>();
+        for (Instant chunk = Instant.ofEpochSecond(Math.floorDiv(first.getEpochSecond(), chunkSeconds) * chunkSeconds); chunk.isBefore(endExclusive); chunk = chunk.plusSeconds(chunkSeconds)) {
+            final Instant chunkEnd = chunk.plusSeconds(chunkSeconds);
+            if (cache != null && !chunkEnd.isAfter(closedBefore)) {
+                segments.add(new Segment(chunk,
+                                         chunkEnd,
+                                         new ChunkKey(template.width(), template.siteId(), template.locationId(), template.epcId(), chunk)));
+            } else {
+                segments.add(new Segment(chunk.isBefore(first) ? first : chunk, chunkEnd.isAfter(endExclusive) ? endExclusive : chunkEnd, null));
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Buckets of {@code [from, to)}, both aligned to {@code width}, in bucket order.
+     */
+    private Queried query(Instant from, Instant to, BucketWidth width, Map<String, Integer> filters) {
+        final List<Range> raw = new ArrayList<>();
+        final List<Object> params = new ArrayList<>();
+        params.add(Timestamp.from(from));
+        params.add(width.duration()
+                        .toSeconds());
+        final StringBuilder sql = new StringBuilder();
+        if (width == BucketWidth.ONE_MINUTE || width == BucketWidth.FIVE_MINUTES) {
+            RollupAggregationStrategy.appendSource(sql,
+                                                   params,
+                                                   "select " + BUCKET.formatted("read_at")
+                                                           + ", count(*) as cnt, sum(rssi) as rssi_sum, max(rssi) as rssi_max, count(distinct epc_id) as epc_count from tag_reads",
+                                                   "read_at",
+                                                   List.of(new Range(from, to)),
+                                                   filters,
+                                                   " group by bucket order by bucket");
+        } else {
+            final Plan plan = RollupAggregationStrategy.plan(jdbcTemplate,
+                                                             from,
+                                                             to,
+                                                             width == BucketWidth.ONE_DAY ? RollupAggregationStrategy::plan : JdbcTimeseriesService::hourPlan);
+            final StringBuilder parts = new StringBuilder();
+            RollupAggregationStrategy.appendSource(parts,
+                                                   params,
+                                                   "select bucket_start as ts, epc_id, read_count as cnt, rssi_sum, rssi_max from tag_read_rollup_daily",
+                                                   "bucket_start",
+                                                   plan.days(),
+                                                   filters,
+                                                   "");
+            RollupAggregationStrategy.appendSource(parts,
+                                                   params,
+                                                   "select bucket_start as ts, epc_id, read_count as cnt, rssi_sum, rssi_max from tag_read_rollup_hourly",
+                                                   "bucket_start",
+                                                   plan.hours(),
+                                                   filters,
+                                                   "");
+            // raw ranges are whole hours, so rows grouped per hour still fall into the right bucket
+            RollupAggregationStrategy.appendSource(parts,
+                                                   params,
+                                                   "select timestamp(date_format(read_at, '%Y-%m-%d %H:00:00')) as ts, epc_id, count(*) as cnt, sum(rssi) as rssi_sum, "
+                                                           + "max(rssi) as rssi_max from tag_reads",
+                                                   "read_at",
+                                                   plan.raw(),
+                                                   filters,
+                                                   " group by ts, epc_id");
+            raw.addAll(plan.raw());
+            sql.append("select ")
+               .append(BUCKET.formatted("ts"))
+               .append(", sum(cnt) as cnt, sum(rssi_sum) as rssi_sum, max(rssi_max) as rssi_max, count(distinct epc_id) as epc_count from (")
+               .append(parts)
+               .append(") parts group by bucket order by bucket");
+        }
+        final List<TimeseriesBucket> buckets = jdbcTemplate.query(sql.toString(),
+                                                                  (rs, rowNum) -> TimeseriesBucket.builder()
+                                                                                                  .bucketStart(from.plus(width.duration()
+                                                                                                                              .multipliedBy(rs.getLong("bucket"))))
+                                                                                                  .readCount(rs.getLong("cnt"))
+                                                                                                  .averageRssi(rs.getDouble("rssi_sum") / rs.getLong("cnt"))
+                                                                                                  .peakRssi(rs.getDouble("rssi_max"))
+                                                                                                  .epcCount(rs.getLong("epc_count"))
+                                                                                                  .build(),
+                                                                  params.toArray());
+        return new Queried(buckets, raw);
+    }
+
+    /**
+     * Splits whole hours {@code [from, to)} into runs of refreshed hours, read from the hourly rollup, and runs of
+     * queued hours, read raw.
+     */
+    static Plan hourPlan(Instant from, Instant to, Set<Instant> dirtyHours) {
+        final List<Range> hours = new ArrayList<>();
+        final List<Range> raw = new ArrayList<>();
+        Instant runStart = from;
+        for (Instant hour = from; hour.isBefore(to); hour = hour.plus(1, ChronoUnit.HOURS)) {
+            final Instant next = hour.plus(1, ChronoUnit.HOURS);
+            final boolean dirty = dirtyHours.contains(hour);
+            if (!next.isBefore(to) || dirtyHours.contains(next) != dirty) {
+                (dirty ? raw : hours).add(new Range(runStart, next));
+                runStart = next;
+            }
+        }
+        return new Plan(List.of(), hours, raw);
+    }
+}
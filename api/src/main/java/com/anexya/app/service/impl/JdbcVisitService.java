@@ -0,0 +1,142 @@
+package com.anexya.app.service.impl;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.anexya.app.domain.DwellSummary;
+import com.anexya.app.domain.TagVisit;
+import com.anexya.app.repository.Dimension;
+import com.anexya.app.repository.DimensionDictionary;
+import com.anexya.app.service.VisitService;
+import com.anexya.app.web.InvalidRequestException;
+
+/**
+ * Answers dwell and visit history queries from {@code tag_visits}, which {@link VisitSessionizer} maintains on
+ * ingest, so neither scans {@code tag_reads}.
+ */
+@Component
+@Profile("mysql")
+public class JdbcVisitService implements VisitService {
+    private static final String DWELL_SQL = "select site_id, location_id, count(*) as visits, count(distinct epc_id) as epcs, "
+            + "avg(timestampdiff(microsecond, enter_at, exit_at)) as avg_micros, max(timestampdiff(microsecond, enter_at, exit_at)) as max_micros, "
+            + "sum(timestampdiff(microsecond, enter_at, exit_at)) as total_micros from tag_visits where enter_at >= ? and enter_at <= ?";
+    private static final String VISITS_SQL = "select id, site_id, location_id, enter_at, exit_at, read_count, rssi_sum, rssi_max from tag_visits where epc_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DimensionDictionary dictionary;
+    private final Duration idleGap;
+    private final int maxPageSize;
+    private final Clock clock;
+
+    @Autowired
+    public JdbcVisitService(JdbcTemplate jdbcTemplate,
+                            DimensionDictionary dictionary,
+                            @Value("${app.visits.idle-gap:30m}") Duration idleGap,
+                            @Value("${app.search.max-page-size:1000}") int maxPageSize) {
+        this(jdbcTemplate, dictionary, idleGap, maxPageSize, Clock.systemUTC());
+    }
+
+    public JdbcVisitService(JdbcTemplate jdbcTemplate, DimensionDictionary dictionary, Duration idleGap, int maxPageSize, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dictionary = dictionary;
+        this.idleGap = idleGap;
+        this.maxPageSize = maxPageSize;
+        this.clock = clock;
+    }
+
+    @Override
+    public List<DwellSummary> dwellTimes(Instant startDate, Instant endDate, Optional<String> siteName, Optional<String> location) {
+        if (endDate.isBefore(startDate)) {
+            throw new InvalidRequestException("startDate must not be after endDate");
+        }
+        final Optional<Integer> siteId = siteName.flatMap(name -> dictionary.findId(Dimension.SITE, name));
+        final Optional<Integer> locationId = location.flatMap(value -> dictionary.findId(Dimension.LOCATION, value));
+        if (siteName.isPresent() && siteId.isEmpty() || location.isPresent() && locationId.isEmpty()) {
+            return List.of();
+        }
+        final StringBuilder sql = new StringBuilder(DWELL_SQL);
+        final List<Object> params = new ArrayList<>(List.of(Timestamp.from(startDate), Timestamp.from(endDate)));
+        siteId.ifPresent(id -> {
+            sql.append(" and site_id = ?");
+            params.add(id);
+        });
+        locationId.ifPresent(id -> {
+            sql.append(" and location_id = ?");
+            params.add(id);
+        });
+        sql.append(" group by site_id, location_id order by visits desc, site_id, location_id");
+        return jdbcTemplate.query(sql.toString(),
+                                  (rs, rowNum) -> DwellSummary.builder()
+                                                              .siteName(dictionary.valueOf(Dimension.SITE, rs.getInt("site_id")))
+                                                              .location(dictionary.valueOf(Dimension.LOCATION, rs.getInt("location_id")))
+                                                              .visitCount(rs.getLong("visits"))
+                                                              .epcCount(rs.getLong("epcs"))
+                                                              .averageDwellSeconds(rs.getDouble("avg_micros") / 1e6)
+                                                              .maxDwellSeconds(rs.getDouble("max_micros") / 1e6)
+                                                              .totalDwellSeconds(rs.getDouble("total_micros") / 1e6)
+                                                              .build(),
+                                  params.toArray());
+    }
+
+    @Override
+    public List<TagVisit> visits(String epc, Optional<Instant> from, Optional<Instant> to, int limit) {
+        if (limit < 1 || limit > maxPageSize) {
+            throw new InvalidRequestException("limit must be between 1 and " + maxPageSize);
+        }
+        final Optional<Integer> epcId = dictionary.findId(Dimension.EPC, epc);
+        if (epcId.isEmpty()) {
+            return List.of();
+        }
+        final StringBuilder sql = new StringBuilder(VISITS_SQL);
+        final List<Object> params = new ArrayList<>(List.of(epcId.get()));
+        from.ifPresent(instant -> {
+            sql.append(" and exit_at >= ?");
+            params.add(Timestamp.from(instant));
+        });
+        to.ifPresent(instant -> {
+            sql.append(" and enter_at <= ?");
+            params.add(Timestamp.from(instant));
+        });
+        sql.append(" order by enter_at desc, id desc limit ?");
+        params.add(limit);
+        final long latestId = latestVisitId(epcId.get());
+        final Instant openAfter = clock.instant()
+                                       .minus(idleGap);
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+            final Instant exitAt = rs.getTimestamp("exit_at")
+                                     .toInstant();
+            return TagVisit.builder()
+                           .epc(epc)
+                           .siteName(dictionary.valueOf(Dimension.SITE, rs.getInt("site_id")))
+                           .location(dictionary.valueOf(Dimension.LOCATION, rs.getInt("location_id")))
+                           .enterAt(rs.getTimestamp("enter_at")
+                                      .toInstant())
+                           .exitAt(exitAt)
+                           .readCount(rs.getLong("read_count"))
+                           .averageRssi(rs.getDouble("rssi_sum") / rs.getLong("read_count"))
+                           .peakRssi(rs.getDouble("rssi_max"))
+                           .open(rs.getLong("id") == latestId && !exitAt.isBefore(openAfter))
+                           .build();
+        }, params.toArray());
+    }
+
+    private long latestVisitId(int epcId) {
+        return jdbcTemplate.query("select id from tag_visits where epc_id = ? order by enter_at desc, id desc limit 1",
+                                  (rs, rowNum) -> rs.getLong("id"),
+                                  epcId)
+                           .stream()
+                           .findFirst()
+                           .orElse(0L);
+    }
+}
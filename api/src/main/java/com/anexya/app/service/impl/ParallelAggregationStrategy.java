@@ -0,0 +1,151 @@
+package com.anexya.app.service.impl;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.anexya.app.domain.DimensionSummary;
+import com.anexya.app.domain.SummaryDimension;
+import com.anexya.app.domain.TagSummary;
+import com.anexya.app.repository.Dimension;
+import com.anexya.app.repository.DimensionDictionary;
+import com.anexya.app.repository.impl.ParallelQueryRunner;
+import com.anexya.app.service.AggregationStrategy;
+
+/**
+ * Splits the range into slices, by default along the quarterly {@code tag_reads} partitions, and aggregates each slice
+ * on its own connection through {@link ParallelQueryRunner}. Each slice returns per-(epc, location)
+ * {@link PartialSummary partials}, which are merged into the summaries.
+ */
+@Component
+@Profile("mysql")
+@ConditionalOnProperty(name = "app.aggregation.strategy", havingValue = "parallel")
+public class ParallelAggregationStrategy implements AggregationStrategy {
+    private final JdbcTemplate jdbcTemplate;
+    private final DimensionDictionary dictionary;
+    private final ParallelQueryRunner queryRunner;
+    private final Duration sliceSize;
+    private final int maxSlices;
+
+    public ParallelAggregationStrategy(JdbcTemplate jdbcTemplate,
+                                       DimensionDictionary dictionary,
+                                       ParallelQueryRunner queryRunner,
+                                       @Value("${app.aggregation.parallel.slice-size:0s}") Duration sliceSize,
+                                       @Value("${app.aggregation.parallel.max-slices:64}") int maxSlices) {
+        if (sliceSize.isNegative()) {
+            throw new IllegalArgumentException("app.aggregation.parallel.slice-size must be positive, or 0s for quarterly slices: " + sliceSize);
+        }
+        if (maxSlices < 1) {
+            throw new IllegalArgumentException("app.aggregation.parallel.max-slices must be positive: " + maxSlices);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.dictionary = dictionary;
+        this.queryRunner = queryRunner;
+        this.sliceSize = sliceSize;
+        this.maxSlices = maxSlices;
+    }
+
+    record Slice(Instant from, Instant to) {
+    }
+
+    @Override
+    public List<TagSummary> summarizeByTag(Instant startDate, Instant endDate, Optional<String> siteName, Optional<String> epc) {
+        final Optional<Integer> siteId = siteName.flatMap(name -> dictionary.findId(Dimension.SITE, name));
+        final Optional<Integer> epcId = epc.flatMap(value -> dictionary.findId(Dimension.EPC, value));
+        if (siteName.isPresent() && siteId.isEmpty() || epc.isPresent() && epcId.isEmpty() || endDate.isBefore(startDate)) {
+            return List.of();
+        }
+
+        final StringBuilder sql = new StringBuilder();
+        sql.append("select ")
+           .append(PartialSummary.COLUMNS)
+           .append(" from tag_reads where read_at >= ? and read_at < ? ");
+        if (siteId.isPresent()) {
+            sql.append(" and site_id = ? ");
+        }
+        if (epcId.isPresent()) {
+            sql.append(" and epc_id = ? ");
+        }
+        sql.append(" group by epc_id, location_id");
+        final String query = sql.toString();
+
+        // endDate is inclusive like the other strategies' "between"; read_at has microsecond precision
+        final List<List<PartialSummary>> partials = queryRunner.map(slices(startDate, endDate.plus(1, ChronoUnit.MICROS), sliceSize, maxSlices), slice -> {
+            final List<Object> params = new ArrayList<>(4);
+            params.add(Timestamp.from(slice.from()));
+            params.add(Timestamp.from(slice.to()));
+            siteId.ifPresent(params::add);
+            epcId.ifPresent(params::add);
+            return jdbcTemplate.query(query, PartialSummary.ROW_MAPPER, params.toArray());
+        });
+        return PartialSummary.summarize(partials.stream()
+                                                .flatMap(List::stream)
+                                                .toList(),
+                                        dictionary);
+    }
+
+    /**
+     * Not sliced: distinct EPC counts do not add up across slices, so this is one grouped pass over {@code tag_reads}.
+     */
+    @Override
+    public List<DimensionSummary> summarizeBy(SummaryDimension dimension, Instant startDate, Instant endDate, Optional<String> siteName, Optional<String> epc) {
+        return DimensionSummaryQuery.summarize(jdbcTemplate, dictionary, dimension, startDate, endDate, siteName, epc, DimensionSummaryQuery::raw);
+    }
+
+    /**
+     * At most {@code maxSlices} half-open slices covering {@code [start, endExclusive)}. A zero slice size cuts at UTC
+     * quarter starts, which are the partition boundaries of {@code tag_reads}, so every slice prunes to a single
+     * partition; past the cap, consecutive quarters are joined. A fixed slice size is widened to fit the cap instead.
+     */
+    static List<Slice> slices(Instant start, Instant endExclusive, Duration sliceSize, int maxSlices) {
+        final Duration size = sliceSize.isZero() || !start.isBefore(endExclusive) ? sliceSize
+                : max(sliceSize,
+                      Duration.between(start, endExclusive)
+                              .plusNanos(maxSlices - 1)
+                              .dividedBy(maxSlices));
+        final List<Slice> slices = new ArrayList<>();
+        Instant from = start;
+        while (from.isBefore(endExclusive)) {
+            final Instant next = size.isZero() ? nextQuarter(from) : from.plus(size);
+            final Instant to = next.isBefore(endExclusive) ? next : endExclusive;
+            slices.add(new Slice(from, to));
+            from = to;
+        }
+        if (slices.size() <= maxSlices) {
+            return slices;
+        }
+        final int perSlice = (slices.size() + maxSlices - 1) / maxSlices;
+        final List<Slice> joined = new ArrayList<>(maxSlices);
+        for (int i = 0; i < slices.size(); i += perSlice) {
+            joined.add(new Slice(slices.get(i)
+                                       .from(),
+                                 slices.get(Math.min(i + perSlice, slices.size()) - 1)
+                                       .to()));
+        }
+        return joined;
+    }
+
+    private static Duration max(Duration a, Duration b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    private static Instant nextQuarter(Instant instant) {
+        final ZonedDateTime utc = instant.atZone(ZoneOffset.UTC);
+        final int quarterStartMonth = (utc.getMonthValue() - 1) / 3 * 3 + 1;
+        return ZonedDateTime.of(utc.getYear(), quarterStartMonth, 1, 0, 0, 0, 0, ZoneOffset.UTC)
+                            .plusMonths(3)
+                            .toInstant();
+    }
+}
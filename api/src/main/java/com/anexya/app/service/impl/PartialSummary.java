@@ -0,0 +1,88 @@
+package com.anexya.app.service.impl;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import com.anexya.app.domain.TagSummary;
+import com.anexya.app.repository.Dimension;
+import com.anexya.app.repository.DimensionDictionary;
+
+/**
+ * Aggregate of one EPC's reads at one location over some part of a range. Partials of disjoint parts merge into the
+ * partial of their union, and the partials of every location give all {@link TagSummary} fields, so summaries can be
+ * computed per slice, per rollup bucket or in memory and combined afterwards.
+ */
+record PartialSummary(int epcId, int locationId, long count, double rssiSum, double rssiMax, Instant firstSeen, Instant lastSeen) {
+    /**
+     * Columns every partial query selects, grouped by epc_id and location_id.
+     */
+    static final String COLUMNS = "epc_id, location_id, count(*) as cnt, sum(rssi) as rssi_sum, max(rssi) as rssi_max, min(read_at) as first_seen, max(read_at) as last_seen";
+
+    static final RowMapper<PartialSummary> ROW_MAPPER = (rs, rowNum) -> new PartialSummary(rs.getInt("epc_id"),
+                                                                                           rs.getInt("location_id"),
+                                                                                           rs.getLong("cnt"),
+                                                                                           rs.getDouble("rssi_sum"),
+                                                                                           rs.getDouble("rssi_max"),
+                                                                                           rs.getTimestamp("first_seen")
+                                                                                             .toInstant(),
+                                                                                           rs.getTimestamp("last_seen")
+                                                                                             .toInstant());
+
+    PartialSummary merge(PartialSummary other) {
+        return new PartialSummary(epcId,
+                                  locationId,
+                                  count + other.count,
+                                  rssiSum + other.rssiSum,
+                                  Math.max(rssiMax, other.rssiMax),
+                                  firstSeen.isBefore(other.firstSeen) ? firstSeen : other.firstSeen,
+                                  lastSeen.isAfter(other.lastSeen) ? lastSeen : other.lastSeen);
+    }
+
+    /**
+     * Merges partials of the same (epc, location) and folds each EPC's locations into its summary.
+     */
+    static List<TagSummary> summarize(Collection<PartialSummary> partials, DimensionDictionary dictionary) {
+        final Map<Integer, Map<Integer, PartialSummary>> byEpc = new LinkedHashMap<>();
+        partials.forEach(partial -> byEpc.computeIfAbsent(partial.epcId(), id -> new HashMap<>())
+                                         .merge(partial.locationId(), partial, PartialSummary::merge));
+        final Map<Integer, String> locationNames = new HashMap<>();
+        final List<TagSummary> summaries = new ArrayList<>(byEpc.size());
+        byEpc.forEach((epcId, locations) -> {
+            final PartialSummary total = locations.values()
+                                                  .stream()
+                                                  .reduce(PartialSummary::merge)
+                                                  .orElseThrow();
+            // ties are broken on the location name, not its surrogate id
+            final String mostDetected = locations.values()
+                                                 .stream()
+                                                 .min(Comparator.comparingLong(PartialSummary::count)
+                                                                .reversed()
+                                                                .thenComparing(partial -> locationName(partial.locationId(), locationNames, dictionary)))
+                                                 .map(partial -> locationName(partial.locationId(), locationNames, dictionary))
+                                                 .orElseThrow();
+            summaries.add(TagSummary.builder()
+                                    .epc(dictionary.valueOf(Dimension.EPC, epcId))
+                                    .totalReadCount(total.count())
+                                    .averageRssi(total.rssiSum() / total.count())
+                                    .peakRssi(total.rssiMax())
+                                    .locationCount(locations.size())
+                                    .mostDetectedLocation(mostDetected)
+                                    .firstSeen(total.firstSeen())
+                                    .lastSeen(total.lastSeen())
+                                    .build());
+        });
+        return summaries;
+    }
+
+    private static String locationName(int locationId, Map<Integer, String> names, DimensionDictionary dictionary) {
+        return names.computeIfAbsent(locationId, id -> dictionary.valueOf(Dimension.LOCATION, id));
+    }
+}
@@ -0,0 +1,317 @@
+package com.anexya.app.service.impl;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import com.anexya.app.domain.DimensionSummary;
+import com.anexya.app.domain.SummaryDimension;
+import com.anexya.app.domain.TagSummary;
+import com.anexya.app.repository.Dimension;
+import com.anexya.app.repository.DimensionDictionary;
+import com.anexya.app.service.AggregationStrategy;
+import com.anexya.app.sketch.QuantileSketch;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Answers summaries from the hourly and daily rollups maintained by
+ * {@link com.anexya.app.repository.impl.RollupMaintainer}. The range is split into whole days, whole hours and the
+ * partial hours at either end; only the partial hours, hours still queued for a refresh and reads the backfill has not
+ * reached yet are read from {@code tag_reads}. Work therefore grows with the number of buckets in the range rather than the number of reads.
+ * RSSI quantiles come from the rows' {@link QuantileSketch}es, merged with sketches of the raw parts.
+ */
+@Component
+@Profile("mysql")
+@ConditionalOnProperty(name = "app.aggregation.strategy", havingValue = "rollup")
+@RequiredArgsConstructor
+public class RollupAggregationStrategy implements AggregationStrategy {
+    private static final String ROLLUP_COLUMNS = "epc_id, location_id, read_count as cnt, rssi_sum, rssi_max, first_seen, last_seen";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DimensionDictionary dictionary;
+
+    record Range(Instant from, Instant to) {
+    }
+
+    /**
+     * Half-open ranges to read from each source; together they cover the requested range exactly once.
+     */
+    record Plan(List<Range> days, List<Range> hours, List<Range> raw) {
+    }
+
+    /**
+     * Plans a range that the rollups cover, given the hours in it that are queued for a refresh.
+     */
+    interface Planner {
+        Plan plan(Instant start, Instant endExclusive, Set<Instant> dirtyHours);
+    }
+
+    @Override
+    public List<TagSummary> summarizeByTag(Instant startDate, Instant endDate, Optional<String> siteName, Optional<String> epc) {
+        final Optional<Integer> siteId = siteName.flatMap(name -> dictionary.findId(Dimension.SITE, name));
+        final Optional<Integer> epcId = epc.flatMap(value -> dictionary.findId(Dimension.EPC, value));
+        if (siteName.isPresent() && siteId.isEmpty() || epc.isPresent() && epcId.isEmpty() || endDate.isBefore(startDate)) {
+            return List.of();
+        }
+        // endDate is inclusive like the raw strategy's "between"; read_at has microsecond precision
+        final Instant endExclusive = endDate.plus(1, ChronoUnit.MICROS);
+        final Plan plan = plan(jdbcTemplate, startDate, endExclusive, RollupAggregationStrategy::plan);
+        final Map<String, Integer> filters = filters(siteId, Optional.empty(), epcId);
+
+        final StringBuilder sql = new StringBuilder();
+        final List<Object> params = new ArrayList<>();
+        appendSource(sql, params, "select " + ROLLUP_COLUMNS + " from tag_read_rollup_daily", "bucket_start", plan.days(), filters, "");
+        appendSource(sql, params, "select " + ROLLUP_COLUMNS + " from tag_read_rollup_hourly", "bucket_start", plan.hours(), filters, "");
+        appendSource(sql, params, "select " + PartialSummary.COLUMNS + " from tag_reads", "read_at", plan.raw(), filters, " group by epc_id, location_id");
+        if (sql.isEmpty()) {
+            return List.of();
+        }
+        final String query = "select epc_id, location_id, sum(cnt) as cnt, sum(rssi_sum) as rssi_sum, max(rssi_max) as rssi_max, "
+                + "min(first_seen) as first_seen, max(last_seen) as last_seen from (" + sql + ") parts group by epc_id, location_id";
+        final List<TagSummary> summaries = PartialSummary.summarize(jdbcTemplate.query(query, PartialSummary.ROW_MAPPER, params.toArray()), dictionary);
+        final Map<String, QuantileSketch> sketches = new HashMap<>();
+        rssiSketches(plan, filters).forEach((id, sketch) -> sketches.put(dictionary.valueOf(Dimension.EPC, id), sketch));
+        return summaries.stream()
+                        .map(summary -> withQuantiles(summary, sketches.get(summary.epc())))
+                        .toList();
+    }
+
+    @Override
+    public List<DimensionSummary> summarizeBy(SummaryDimension dimension, Instant startDate, Instant endDate, Optional<String> siteName, Optional<String> epc) {
+        return DimensionSummaryQuery.summarize(jdbcTemplate,
+                                               dictionary,
+                                               dimension,
+                                               startDate,
+                                               endDate,
+                                               siteName,
+                                               epc,
+                                               (start, endExclusive) -> plan(jdbcTemplate, start, endExclusive, RollupAggregationStrategy::plan));
+    }
+
+    private Map<Integer, QuantileSketch> rssiSketches(Plan plan, Map<String, Integer> filters) {
+        final Map<Integer, QuantileSketch> sketches = new HashMap<>();
+        // an EPC with a rollup row still lacking its sketch gets no quantiles rather than skewed ones
+        final Set<Integer> incomplete = new HashSet<>();
+        final StringBuilder rollupSql = new StringBuilder();
+        final List<Object> rollupParams = new ArrayList<>();
+        appendSource(rollupSql, rollupParams, "select epc_id, rssi_sketch from tag_read_rollup_daily", "bucket_start", plan.days(), filters, "");
+        appendSource(rollupSql, rollupParams, "select epc_id, rssi_sketch from tag_read_rollup_hourly", "bucket_start", plan.hours(), filters, "");
+        if (!rollupSql.isEmpty()) {
+            jdbcTemplate.query(rollupSql.toString(), (RowCallbackHandler) rs -> {
+                final byte[] sketch = rs.getBytes("rssi_sketch");
+                if (sketch == null) {
+                    incomplete.add(rs.getInt("epc_id"));
+                } else {
+                    sketches.computeIfAbsent(rs.getInt("epc_id"), id -> new QuantileSketch())
+                            .merge(QuantileSketch.fromBytes(sketch));
+                }
+            }, rollupParams.toArray());
+        }
+        final StringBuilder rawSql = new StringBuilder();
+        final List<Object> rawParams = new ArrayList<>();
+        appendSource(rawSql, rawParams, "select epc_id, rssi, count(*) as cnt from tag_reads", "read_at", plan.raw(), filters, " group by epc_id, rssi");
+        if (!rawSql.isEmpty()) {
+            jdbcTemplate.query(rawSql.toString(),
+                               (RowCallbackHandler) rs -> sketches.computeIfAbsent(rs.getInt("epc_id"), id -> new QuantileSketch())
+                                                                  .add(rs.getDouble("rssi"), rs.getLong("cnt")),
+                               rawParams.toArray());
+        }
+        incomplete.forEach(sketches::remove);
+        return sketches;
+    }
+
+    private static TagSummary withQuantiles(TagSummary summary, QuantileSketch sketch) {
+        if (sketch == null) {
+            return summary;
+        }
+        return summary.toBuilder()
+                      .rssiP50(sketch.quantile(0.5))
+                      .rssiP90(sketch.quantile(0.9))
+                      .rssiP99(sketch.quantile(0.99))
+                      .build();
+    }
+
+    static Plan plan(Instant start, Instant endExclusive, Set<Instant> dirtyHours) {
+        final List<Range> days = new ArrayList<>();
+        final List<Range> hours = new ArrayList<>();
+        final List<Range> raw = new ArrayList<>();
+        final Instant hourStart = ceil(start, ChronoUnit.HOURS);
+        final Instant hourEnd = endExclusive.truncatedTo(ChronoUnit.HOURS);
+        if (!hourStart.isBefore(hourEnd)) {
+            raw.add(new Range(start, endExclusive));
+            return new Plan(days, hours, raw);
+        }
+        addIfNotEmpty(raw, start, hourStart);
+        addIfNotEmpty(raw, hourEnd, endExclusive);
+
+        final Instant dayStart = ceil(hourStart, ChronoUnit.DAYS);
+        final Instant dayEnd = hourEnd.truncatedTo(ChronoUnit.DAYS);
+        final List<Instant> candidateHours = new ArrayList<>();
+        if (dayStart.isBefore(dayEnd)) {
+            addHours(candidateHours, hourStart, dayStart);
+            for (Instant day = dayStart; day.isBefore(dayEnd); day = day.plus(1, ChronoUnit.DAYS)) {
+                final Instant next = day.plus(1, ChronoUnit.DAYS);
+                final Instant from = day;
+                // a day whose hours are still queued has a stale daily row: fall back to its hours
+                if (dirtyHours.stream()
+                              .anyMatch(hour -> !hour.isBefore(from) && hour.isBefore(next))) {
+                    addHours(candidateHours, day, next);
+                } else {
+                    days.add(new Range(day, next));
+                }
+            }
+            addHours(candidateHours, dayEnd, hourEnd);
+        } else {
+            addHours(candidateHours, hourStart, hourEnd);
+        }
+        for (Instant hour : candidateHours) {
+            (dirtyHours.contains(hour) ? raw : hours).add(new Range(hour, hour.plus(1, ChronoUnit.HOURS)));
+        }
+        return new Plan(merge(days), merge(hours), merge(raw));
+    }
+
+    /**
+     * Plans {@code [start, endExclusive)} with {@code planner}, except that the part before the rollup backfill's
+     * {@code covered_from} is read raw.
+     */
+    static Plan plan(JdbcTemplate jdbcTemplate, Instant start, Instant endExclusive, Planner planner) {
+        final Instant coveredFrom = coveredFrom(jdbcTemplate);
+        final Instant split = coveredFrom.isBefore(start) ? start : coveredFrom.isAfter(endExclusive) ? endExclusive : coveredFrom;
+        if (!split.isBefore(endExclusive)) {
+            return new Plan(List.of(), List.of(), List.of(new Range(start, endExclusive)));
+        }
+        final Plan covered = planner.plan(split, endExclusive, dirtyHours(jdbcTemplate, split, endExclusive));
+        if (!start.isBefore(split)) {
+            return covered;
+        }
+        final List<Range> raw = new ArrayList<>(covered.raw());
+        raw.add(new Range(start, split));
+        return new Plan(covered.days(), covered.hours(), merge(raw));
+    }
+
+    /**
+     * Start of the rollups' coverage: {@link Instant#MIN} once the backfill is done, {@link Instant#MAX} before it has
+     * rolled up its first day.
+     */
+    private static Instant coveredFrom(JdbcTemplate jdbcTemplate) {
+        final List<Instant> state = jdbcTemplate.query("select covered_from from tag_read_rollup_backfill where id = 1",
+                                                       (rs, rowNum) -> rs.getTimestamp("covered_from") == null ? Instant.MAX
+                                                               : rs.getTimestamp("covered_from")
+                                                                   .toInstant());
+        return state.isEmpty() ? Instant.MIN : state.get(0);
+    }
+
+    /**
+     * Hours in {@code [start, endExclusive)} whose rollups are queued for a refresh and must be read raw.
+     */
+    static Set<Instant> dirtyHours(JdbcTemplate jdbcTemplate, Instant start, Instant endExclusive) {
+        return new HashSet<>(jdbcTemplate.query("select bucket_start from tag_read_rollup_dirty where bucket_start >= ? and bucket_start < ?",
+                                                (rs, rowNum) -> rs.getTimestamp("bucket_start")
+                                                                  .toInstant(),
+                                                Timestamp.from(start.truncatedTo(ChronoUnit.HOURS)),
+                                                Timestamp.from(endExclusive)));
+    }
+
+    /**
+     * Equality filters on dictionary ids, keyed by column; empty optionals are not filtered on.
+     */
+    static Map<String, Integer> filters(Optional<Integer> siteId, Optional<Integer> locationId, Optional<Integer> epcId) {
+        final Map<String, Integer> filters = new LinkedHashMap<>();
+        siteId.ifPresent(id -> filters.put("site_id", id));
+        locationId.ifPresent(id -> filters.put("location_id", id));
+        epcId.ifPresent(id -> filters.put("epc_id", id));
+        return filters;
+    }
+
+    /**
+     * Appends {@code select} restricted to {@code ranges} of {@code column} and to {@code filters}, joined to any
+     * previous source with {@code union all}; does nothing when there are no ranges.
+     */
+    static void appendSource(StringBuilder sql,
+                             List<Object> params,
+                             String select,
+                             String column,
+                             List<Range> ranges,
+                             Map<String, Integer> filters,
+                             String suffix) {
+        if (ranges.isEmpty()) {
+            return;
+        }
+        if (!sql.isEmpty()) {
+            sql.append(" union all ");
+        }
+        sql.append(select)
+           .append(" where (");
+        for (int i = 0; i < ranges.size(); i++) {
+            sql.append(i == 0 ? "" : " or ")
+               .append(column)
+               .append(" >= ? and ")
+               .append(column)
+               .append(" < ?");
+            params.add(Timestamp.from(ranges.get(i)
+                                            .from()));
+            params.add(Timestamp.from(ranges.get(i)
+                                            .to()));
+        }
+        sql.append(")");
+        filters.forEach((filterColumn, id) -> {
+            sql.append(" and ")
+               .append(filterColumn)
+               .append(" = ?");
+            params.add(id);
+        });
+        sql.append(suffix);
+    }
+
+    private static Instant ceil(Instant instant, ChronoUnit unit) {
+        final Instant floor = instant.truncatedTo(unit);
+        return floor.equals(instant) ? floor : floor.plus(1, unit);
+    }
+
+    private static void addIfNotEmpty(List<Range> ranges, Instant from, Instant to) {
+        if (from.isBefore(to)) {
+            ranges.add(new Range(from, to));
+        }
+    }
+
+    private static void addHours(List<Instant> hours, Instant from, Instant to) {
+        for (Instant hour = from; hour.isBefore(to); hour = hour.plus(1, ChronoUnit.HOURS)) {
+            hours.add(hour);
+        }
+    }
+
+    private static List<Range> merge(List<Range> ranges) {
+        final List<Range> sorted = new ArrayList<>(ranges);
+        sorted.sort(Comparator.comparing(Range::from));
+        final List<Range> merged = new ArrayList<>(sorted.size());
+        for (Range range : sorted) {
+            final int last = merged.size() - 1;
+            if (last >= 0 && !merged.get(last)
+                                    .to()
+                                    .isBefore(range.from())) {
+                merged.set(last, new Range(merged.get(last)
+                                                 .from(),
+                                           range.to()));
+            } else {
+                merged.add(range);
+            }
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,107 @@
+package com.anexya.app.service.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.anexya.app.domain.TagSummary;
+
+/**
+ * Gzip-compressed binary encoding of summary job results. Each row starts with a marker byte, nullable fields carry
+ * a presence flag, and a zero marker ends the stream, so rows can be decoded one at a time.
+ */
+final class SummaryResultCodec {
+    private static final int ROW = 1;
+    private static final int END = 0;
+
+    private SummaryResultCodec() {
+    }
+
+    static byte[] encode(List<TagSummary> summaries) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            for (TagSummary summary : summaries) {
+                out.writeByte(ROW);
+                out.writeUTF(summary.epc());
+                out.writeLong(summary.totalReadCount());
+                out.writeDouble(summary.averageRssi());
+                out.writeDouble(summary.peakRssi());
+                out.writeLong(summary.locationCount());
+                writeString(out, summary.mostDetectedLocation());
+                writeInstant(out, summary.firstSeen());
+                writeInstant(out, summary.lastSeen());
+                writeDouble(out, summary.rssiP50());
+                writeDouble(out, summary.rssiP90());
+                writeDouble(out, summary.rssiP99());
+            }
+            out.writeByte(END);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static void decode(byte[] encoded, Consumer<TagSummary> consumer) {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(encoded)))) {
+            while (in.readByte() == ROW) {
+                consumer.accept(TagSummary.builder()
+                                          .epc(in.readUTF())
+                                          .totalReadCount(in.readLong())
+                                          .averageRssi(in.readDouble())
+                                          .peakRssi(in.readDouble())
+                                          .locationCount(in.readLong())
+                                          .mostDetectedLocation(readString(in))
+                                          .firstSeen(readInstant(in))
+                                          .lastSeen(readInstant(in))
+                                          .rssiP50(readDouble(in))
+                                          .rssiP90(readDouble(in))
+                                          .rssiP99(readDouble(in))
+                                          .build());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static void writeInstant(DataOutputStream out, Instant value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.getEpochSecond());
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static void writeDouble(DataOutputStream out, Double value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static Instant readInstant(DataInputStream in) throws IOException {
+        return in.readBoolean() ? Instant.ofEpochSecond(in.readLong(), in.readInt()) : null;
+    }
+
+    private static Double readDouble(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readDouble() : null;
+    }
+}
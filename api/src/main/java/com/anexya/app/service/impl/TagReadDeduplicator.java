@@ -0,0 +1,315 @@
+package com.anexya.app.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.anexya.app.domain.TagRead;
+import com.anexya.app.util.LongObjectMap;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Suppresses repeated reads of the same EPC at the same (site, location) within a time window. The first read of a
+ * window is written; later duplicates are dropped, or, in {@link Mode#STRONGEST} mode, rewritten onto the kept row
+ * when their RSSI is stronger. A window keeps only the kept row's id and RSSI, and expired windows are swept in the
+ * background.
+ */
+@Component
+public class TagReadDeduplicator {
+    public enum Mode {
+        FIRST, STRONGEST
+    }
+
+    /**
+     * {@code read} is the row to write, or for a suppressed duplicate the duplicate re-keyed onto the kept row's id.
+     * {@code replacesExisting} is true when a {@link Mode#STRONGEST} admission re-keyed the read onto a kept row, so it
+     * must be written with {@link com.anexya.app.repository.TagReadRepository#replaceIfStronger(TagRead)};
+     * {@code replacedRssi} is the RSSI it displaced.
+     */
+    public record Admission(TagRead read, boolean suppressed, boolean replacesExisting, Double replacedRssi) {
+        public Admission(TagRead read, boolean suppressed) {
+            this(read, suppressed, false, null);
+        }
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(TagReadDeduplicator.class);
+    private static final int SEGMENTS = 16;
+
+    private final boolean enabled;
+    private final Mode mode;
+    private final long windowMillis;
+    private final int maxEntriesPerSegment;
+    private final Clock clock;
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final Counter passed;
+    private final Counter suppressed;
+    private final Counter replaced;
+    private final Counter swept;
+
+    private volatile boolean running;
+    private Thread sweeper;
+
+    @Autowired
+    public TagReadDeduplicator(MeterRegistry meterRegistry,
+                               @Value("${app.ingest.dedup.enabled:false}") boolean enabled,
+                               @Value("${app.ingest.dedup.mode:STRONGEST}") Mode mode,
+                               @Value("${app.ingest.dedup.window:1s}") Duration window,
+                               @Value("${app.ingest.dedup.max-entries:1000000}") int maxEntries) {
+        this(meterRegistry, enabled, mode, window, maxEntries, Clock.systemUTC());
+    }
+
+    public TagReadDeduplicator(MeterRegistry meterRegistry, boolean enabled, Mode mode, Duration window, int maxEntries, Clock clock) {
+        this.enabled = enabled;
+        this.mode = mode;
+        this.windowMillis = window.toMillis();
+        this.maxEntriesPerSegment = Math.max(1, maxEntries / SEGMENTS);
+        this.clock = clock;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+        this.passed = meterRegistry.counter("tag_reads.dedup.passed");
+        this.suppressed = meterRegistry.counter("tag_reads.dedup.suppressed");
+        this.replaced = meterRegistry.counter("tag_reads.dedup.replaced");
+        this.swept = meterRegistry.counter("tag_reads.dedup.swept");
+        Gauge.builder("tag_reads.dedup.entries", this, TagReadDeduplicator::size)
+             .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        sweeper = Thread.ofVirtual()
+                        .name("tag-read-dedup-sweeper")
+                        .start(this::sweepLoop);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (sweeper != null) {
+            sweeper.interrupt();
+        }
+    }
+
+    /**
+     * Decides what to write for an incoming read. The returned read is the row to persist (possibly re-keyed onto the
+     * kept row's id) or, when suppressed, the duplicate re-keyed onto the kept row that already represents it.
+     */
+    public Admission admit(TagRead read) {
+        if (!enabled) {
+            return new Admission(read, false);
+        }
+        final long key = keyOf(read);
+        final long now = clock.millis();
+        final Segment segment = segments[(int) (key >>> 60) & (SEGMENTS - 1)];
+        synchronized (segment) {
+            final Window window = segment.windows.get(key);
+            if (window == null || !window.matches(read) || window.expired(read, now, windowMillis)) {
+                if (window == null && segment.windows.size() >= maxEntriesPerSegment && segment.evictExpired(now, windowMillis) == 0) {
+                    // table is full of live windows: fail open rather than grow without bound
+                    passed.increment();
+                    return new Admission(read, false);
+                }
+                segment.windows.put(key, new Window(read, now));
+                passed.increment();
+                return new Admission(read, false);
+            }
+            window.lastSeen = now;
+            final TagRead rekeyed = read.toBuilder()
+                                        .id(window.id())
+                                        .build();
+            if (mode == Mode.STRONGEST && read.rssi() != null && (Double.isNaN(window.rssi) || read.rssi() > window.rssi)) {
+                final Double previous = Double.isNaN(window.rssi) ? null : window.rssi;
+                window.rssi = read.rssi();
+                replaced.increment();
+                return new Admission(rekeyed, false, true, previous);
+            }
+            suppressed.increment();
+            return new Admission(rekeyed, true);
+        }
+    }
+
+    /**
+     * True when a later duplicate can be rewritten onto the row a read opens. The opening write must then not
+     * overwrite a stronger replacement that reached the database first.
+     */
+    public boolean mayReplace() {
+        return enabled && mode == Mode.STRONGEST;
+    }
+
+    /**
+     * Undoes an admission whose write failed. A window the read opened is dropped so the next duplicate is written; a
+     * rewritten window gets its previous RSSI back, unless a later admission has already moved it on.
+     */
+    public void rollback(Admission admission) {
+        if (!enabled || admission.suppressed()) {
+            return;
+        }
+        final long key = keyOf(admission.read());
+        final Segment segment = segments[(int) (key >>> 60) & (SEGMENTS - 1)];
+        synchronized (segment) {
+            final Window window = segment.windows.get(key);
+            if (window == null || !window.holds(admission.read())) {
+                return;
+            }
+            if (admission.replacesExisting()) {
+                window.rssi = admission.replacedRssi() == null ? Double.NaN : admission.replacedRssi();
+            } else {
+                segment.windows.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Drops the window kept on {@code read}'s row, for writes that are abandoned after the admission is gone (such as
+     * dead-lettered write-behind reads), so the next duplicate is written instead of suppressed.
+     */
+    public void forget(TagRead read) {
+        if (!enabled) {
+            return;
+        }
+        final long key = keyOf(read);
+        final Segment segment = segments[(int) (key >>> 60) & (SEGMENTS - 1)];
+        synchronized (segment) {
+            final Window window = segment.windows.get(key);
+            if (window != null && window.id()
+                                        .equals(read.id())) {
+                segment.windows.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Removes every expired window, one segment at a time so admissions only wait on the segment being swept. Returns
+     * the number of windows removed.
+     */
+    public int sweep() {
+        final long now = clock.millis();
+        int removed = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                removed += segment.evictExpired(now, windowMillis);
+            }
+        }
+        swept.increment(removed);
+        return removed;
+    }
+
+    public int size() {
+        int total = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                total += segment.windows.size();
+            }
+        }
+        return total;
+    }
+
+    private void sweepLoop() {
+        while (running) {
+            try {
+                Thread.sleep(Math.max(1, windowMillis));
+                sweep();
+            } catch (InterruptedException e) {
+                Thread.currentThread()
+                      .interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Sweeping expired dedup windows failed", e);
+            }
+        }
+    }
+
+    static long keyOf(TagRead read) {
+        // 64-bit FNV-1a over site, location and epc with a separator between fields
+        long hash = 0xcbf29ce484222325L;
+        hash = fnv(hash, read.siteName());
+        hash = fnv(hash, read.location());
+        return fnv(hash, read.epc());
+    }
+
+    private static long fnv(long hash, String value) {
+        long h = hash;
+        if (value != null) {
+            for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+                h ^= b & 0xff;
+                h *= 0x100000001b3L;
+            }
+        }
+        h ^= 0x1f;
+        return h * 0x100000001b3L;
+    }
+
+    private static final class Segment {
+        private final LongObjectMap<Window> windows = new LongObjectMap<>();
+
+        int evictExpired(long now, long windowMillis) {
+            return windows.removeIf(w -> now - w.lastSeen >= windowMillis);
+        }
+    }
+
+    /**
+     * A window pins no strings: the key and fingerprint stand in for (site, location, epc), and the kept row is
+     * reduced to its id and RSSI ({@code NaN} when it had none).
+     */
+    private static final class Window {
+        private final int fingerprint;
+        private final long idMostSigBits;
+        private final long idLeastSigBits;
+        private final long openedAtReadMillis;
+        private double rssi;
+        private long lastSeen;
+
+        Window(TagRead kept, long now) {
+            this.fingerprint = fingerprintOf(kept);
+            this.idMostSigBits = kept.id()
+                                     .getMostSignificantBits();
+            this.idLeastSigBits = kept.id()
+                                      .getLeastSignificantBits();
+            this.openedAtReadMillis = kept.readAt()
+                                          .toEpochMilli();
+            this.rssi = kept.rssi() == null ? Double.NaN : kept.rssi();
+            this.lastSeen = now;
+        }
+
+        UUID id() {
+            return new UUID(idMostSigBits, idLeastSigBits);
+        }
+
+        boolean matches(TagRead read) {
+            return fingerprint == fingerprintOf(read);
+        }
+
+        boolean holds(TagRead read) {
+            final double held = read.rssi() == null ? Double.NaN : read.rssi();
+            return id().equals(read.id()) && Double.compare(rssi, held) == 0;
+        }
+
+        boolean expired(TagRead read, long now, long windowMillis) {
+            return now - lastSeen >= windowMillis || Math.abs(read.readAt()
+                                                                  .toEpochMilli()
+                    - openedAtReadMillis) >= windowMillis;
+        }
+
+        // a second, independent hash, so two keys colliding on the 64-bit FNV key are still told apart
+        private static int fingerprintOf(TagRead read) {
+            return Objects.hash(read.siteName(), read.location(), read.epc());
+        }
+    }
+}
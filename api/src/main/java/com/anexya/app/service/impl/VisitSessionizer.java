@@ -0,0 +1,540 @@
+package com.anexya.app.service.impl;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.IntConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import com.anexya.app.domain.TagRead;
+import com.anexya.app.repository.Dimension;
+import com.anexya.app.repository.DimensionDictionary;
+import com.anexya.app.service.TagReadsChangedEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Turns committed reads into {@code tag_visits}. The only state kept per EPC is its latest visit: a read newer than
+ * that visit's last read extends it when the EPC is still at the same site and location and was read within
+ * {@code app.visits.idle-gap}, and otherwise closes it by starting a new visit. Anything else (a read no newer than the
+ * latest visit, an update, a delete or a backfill) re-sessionizes the EPC from {@code tag_reads}, starting at the last
+ * visit that entered before the earliest change.
+ * <p>
+ * Change events only queue their reads; a background thread applies whatever has queued since its last pass as one
+ * batch, so writers do not wait on visits. Past {@code app.visits.max-pending-reads} queued reads, further reads are
+ * kept only as the earliest change per EPC, which is re-sessionized from {@code tag_reads} instead. Batches are applied
+ * in transactions that first lock the EPCs' {@code tag_current_state} rows (the repository writes them before the
+ * change event is published), so sessionizers on any instance handle an EPC one at a time. Extensions are applied
+ * up to {@value #EPCS_PER_TRANSACTION} EPCs per transaction, rebuilds {@value #REBUILDS_PER_TRANSACTION}, so a
+ * rebuild never keeps ingest waiting on hundreds of locked rows. A failed batch is logged and left until its EPCs
+ * change again or visits are rebuilt.
+ * <p>
+ * Reads that predate {@code tag_visits}, and every read after {@code app.visits.rebuild-on-startup}, are sessionized
+ * by a rebuild on the virtual-thread executor. It walks {@code dim_epc}, so EPCs whose {@code tag_current_state} row
+ * is not seeded yet are not skipped; locking such an EPC's missing row still holds off its first insert. Progress is
+ * kept in {@code tag_visits_rebuild}, so a restart resumes the rebuild, and a MySQL named lock keeps it to one
+ * instance.
+ */
+@Component
+@Profile("mysql")
+public class VisitSessionizer {
+    private static final Logger log = LoggerFactory.getLogger(VisitSessionizer.class);
+    private static final int EPCS_PER_TRANSACTION = 500;
+    // a rebuild rewrites visits from the EPC's reads, so it holds its tag_current_state locks for a few EPCs at a time
+    private static final int REBUILDS_PER_TRANSACTION = 8;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final String REBUILD_LOCK = "tag_visits_rebuild";
+
+    private static final String LATEST_SQL = "(select id, epc_id, site_id, location_id, enter_at, exit_at, read_count, rssi_sum, rssi_max from tag_visits "
+            + "where epc_id = ? order by enter_at desc, id desc limit 1)";
+    private static final String PREVIOUS_SQL = "select enter_at, exit_at from tag_visits where epc_id = ? and enter_at < ? order by enter_at desc, id desc limit 1";
+    private static final String INSERT_SQL = "insert into tag_visits (epc_id, site_id, location_id, enter_at, exit_at, read_count, rssi_sum, rssi_max) values (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL = "update tag_visits set exit_at = ?, read_count = ?, rssi_sum = ?, rssi_max = ? where id = ?";
+    private static final String READS_SQL = "select site_id, location_id, rssi, read_at from tag_reads where epc_id = ? and read_at >= ? order by read_at, id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DimensionDictionary dictionary;
+    private final ExecutorService executor;
+    private final Duration idleGap;
+    private final boolean rebuildOnStartup;
+    private final int maxPendingReads;
+    private final Counter extended;
+    private final Counter rebuilt;
+
+    private final Object pendingLock = new Object();
+    private List<TagRead> pendingInserts = new ArrayList<>();
+    private Map<String, Instant> pendingRebuilds = new HashMap<>();
+
+    private volatile boolean running;
+    private Thread applier;
+
+    private record Bounds(Instant enterAt, Instant exitAt) {
+    }
+
+    public VisitSessionizer(JdbcTemplate jdbcTemplate,
+                            DimensionDictionary dictionary,
+                            @Qualifier("applicationVirtualThreadExecutor") ExecutorService executor,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.visits.idle-gap:30m}") Duration idleGap,
+                            @Value("${app.visits.rebuild-on-startup:false}") boolean rebuildOnStartup,
+                            @Value("${app.visits.max-pending-reads:100000}") int maxPendingReads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dictionary = dictionary;
+        this.executor = executor;
+        this.idleGap = idleGap;
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.maxPendingReads = maxPendingReads;
+        this.extended = meterRegistry.counter("tag_reads.visits.extended_reads");
+        this.rebuilt = meterRegistry.counter("tag_reads.visits.rebuilt_epcs");
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        applier = Thread.ofVirtual()
+                        .name("tag-visit-sessionizer")
+                        .start(this::applyLoop);
+    }
+
+    /**
+     * Lets the background thread apply what is still queued before the application shuts down.
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        synchronized (pendingLock) {
+            running = false;
+            pendingLock.notifyAll();
+        }
+        if (applier != null) {
+            applier.join(Duration.ofSeconds(10));
+        }
+    }
+
+    @EventListener
+    public void onTagReadsChanged(TagReadsChangedEvent event) {
+        synchronized (pendingLock) {
+            if (pendingInserts.size() + event.inserted()
+                                             .size() <= maxPendingReads) {
+                pendingInserts.addAll(event.inserted());
+            } else {
+                event.inserted()
+                     .forEach(read -> pendingRebuilds.merge(read.epc(), read.readAt(), VisitSessionizer::earlier));
+            }
+            event.replaced()
+                 .forEach(read -> pendingRebuilds.merge(read.epc(), read.readAt(), VisitSessionizer::earlier));
+            pendingLock.notifyAll();
+        }
+    }
+
+    /**
+     * Applies every queued change on the calling thread.
+     */
+    public void drain() {
+        final List<TagRead> inserts;
+        final Map<String, Instant> rebuilds;
+        synchronized (pendingLock) {
+            inserts = pendingInserts;
+            rebuilds = pendingRebuilds;
+            pendingInserts = new ArrayList<>();
+            pendingRebuilds = new HashMap<>();
+        }
+        if (inserts.isEmpty() && rebuilds.isEmpty()) {
+            return;
+        }
+        try {
+            apply(inserts, rebuilds);
+        } catch (RuntimeException e) {
+            log.warn("Sessionizing tag read changes failed", e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void rebuildOnStartup() {
+        executor.execute(() -> {
+            try {
+                if (rebuildOnStartup) {
+                    jdbcTemplate.update("insert into tag_visits_rebuild (id, after_epc_id) values (1, 0) on duplicate key update after_epc_id = 0");
+                }
+                resumeRebuild();
+            } catch (RuntimeException e) {
+                log.warn("Rebuilding visits failed; the next start resumes it", e);
+            }
+        });
+    }
+
+    /**
+     * Re-sessionizes every EPC from scratch, e.g. after {@code idle-gap} changed.
+     */
+    public void rebuildAll() {
+        log.info("Rebuilt visits of {} EPCs", rebuildEpcsAfter(0, epcId -> {
+        }));
+    }
+
+    /**
+     * Continues the rebuild recorded in {@code tag_visits_rebuild}, if any, and clears it when every EPC is done. Does
+     * nothing while another instance holds the rebuild lock.
+     */
+    private void resumeRebuild() {
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            final JdbcTemplate session = new JdbcTemplate(new SingleConnectionDataSource(con, true));
+            final Integer locked = session.queryForObject("select get_lock(?, 0)", Integer.class, REBUILD_LOCK);
+            if (locked == null || locked != 1) {
+                return null;
+            }
+            try {
+                final List<Integer> after = session.queryForList("select after_epc_id from tag_visits_rebuild where id = 1", Integer.class);
+                if (!after.isEmpty()) {
+                    log.info("Rebuilding visits of EPCs after id {}", after.get(0));
+                    final long epcs = rebuildEpcsAfter(after.get(0),
+                                                       epcId -> session.update("update tag_visits_rebuild set after_epc_id = ? where id = 1", epcId));
+                    session.update("delete from tag_visits_rebuild where id = 1");
+                    log.info("Rebuilt visits of {} EPCs", epcs);
+                }
+            } finally {
+                session.queryForObject("select release_lock(?)", Integer.class, REBUILD_LOCK);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Re-sessionizes every EPC with an id above {@code after}, {@value #REBUILDS_PER_TRANSACTION} per transaction, and
+     * passes the last id of each finished page of {@value #EPCS_PER_TRANSACTION} to {@code progress}. Returns the
+     * number of EPCs rebuilt.
+     */
+    private long rebuildEpcsAfter(int after, IntConsumer progress) {
+        long epcs = 0;
+        while (true) {
+            final List<Integer> epcIds = jdbcTemplate.queryForList("select id from dim_epc where id > ? order by id limit ?",
+                                                                   Integer.class,
+                                                                   after,
+                                                                   EPCS_PER_TRANSACTION);
+            if (epcIds.isEmpty()) {
+                break;
+            }
+            final TreeMap<Integer, Instant> rebuild = new TreeMap<>();
+            epcIds.forEach(epcId -> rebuild.put(epcId, Instant.EPOCH));
+            rebuildInChunks(rebuild);
+            epcs += epcIds.size();
+            after = epcIds.get(epcIds.size() - 1);
+            progress.accept(after);
+        }
+        return epcs;
+    }
+
+    private void applyLoop() {
+        while (true) {
+            synchronized (pendingLock) {
+                while (running && pendingInserts.isEmpty() && pendingRebuilds.isEmpty()) {
+                    try {
+                        pendingLock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread()
+                              .interrupt();
+                        return;
+                    }
+                }
+                if (!running && pendingInserts.isEmpty() && pendingRebuilds.isEmpty()) {
+                    return;
+                }
+            }
+            // everything queued while the previous batch ran goes into this one
+            drain();
+        }
+    }
+
+    private static Instant earlier(Instant a, Instant b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private void apply(List<TagRead> insertedReads, Map<String, Instant> replaced) {
+        // resolve ids before taking any locks: a dictionary miss queries MySQL
+        final Map<Integer, List<Read>> inserted = new HashMap<>();
+        for (TagRead read : insertedReads) {
+            inserted.computeIfAbsent(dictionary.idFor(Dimension.EPC, read.epc()), epcId -> new ArrayList<>())
+                    .add(new Read(dictionary.idFor(Dimension.SITE, read.siteName()),
+                                  dictionary.idFor(Dimension.LOCATION, read.location()),
+                                  read.rssi(),
+                                  read.readAt()));
+        }
+        final TreeMap<Integer, Instant> rebuild = new TreeMap<>();
+        dictionary.findIds(Dimension.EPC, replaced.keySet())
+                  .forEach((epc, epcId) -> rebuild.put(epcId, replaced.get(epc)));
+        final TreeMap<Integer, List<Read>> extend = new TreeMap<>();
+        inserted.forEach((epcId, reads) -> {
+            reads.sort(Comparator.comparing(Read::readAt));
+            if (rebuild.containsKey(epcId)) {
+                rebuild.merge(epcId, reads.get(0)
+                                          .readAt(),
+                              VisitSessionizer::earlier);
+            } else {
+                extend.put(epcId, reads);
+            }
+        });
+        final List<Integer> extendIds = new ArrayList<>(extend.keySet());
+        for (int from = 0; from < extendIds.size(); from += EPCS_PER_TRANSACTION) {
+            final Map<Integer, List<Read>> chunk = new HashMap<>();
+            extendIds.subList(from, Math.min(from + EPCS_PER_TRANSACTION, extendIds.size()))
+                     .forEach(epcId -> chunk.put(epcId, extend.get(epcId)));
+            sessionize(chunk, new TreeMap<>());
+        }
+        rebuildInChunks(rebuild);
+    }
+
+    private void rebuildInChunks(TreeMap<Integer, Instant> rebuild) {
+        final List<Integer> epcIds = new ArrayList<>(rebuild.keySet());
+        for (int from = 0; from < epcIds.size(); from += REBUILDS_PER_TRANSACTION) {
+            final TreeMap<Integer, Instant> chunk = new TreeMap<>();
+            epcIds.subList(from, Math.min(from + REBUILDS_PER_TRANSACTION, epcIds.size()))
+                  .forEach(epcId -> chunk.put(epcId, rebuild.get(epcId)));
+            sessionize(Map.of(), chunk);
+        }
+    }
+
+    private void sessionize(Map<Integer, List<Read>> extend, TreeMap<Integer, Instant> rebuild) {
+        for (int attempt = 1;; attempt++) {
+            try {
+                sessionizeOnce(extend, new TreeMap<>(rebuild));
+                return;
+            } catch (PessimisticLockingFailureException e) {
+                // repository writes update tag_current_state rows in their own order
+                if (attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Retrying visit update after lock conflict", e);
+            }
+        }
+    }
+
+    private void sessionizeOnce(Map<Integer, List<Read>> extend, TreeMap<Integer, Instant> rebuild) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            final JdbcTemplate session = new JdbcTemplate(new SingleConnectionDataSource(con, true));
+            inTransaction(con, () -> {
+                lock(session, extend, rebuild);
+                // read after the locks, so the snapshot includes whatever the previous holder committed
+                final Map<Integer, Visit> latest = latest(session, extend.keySet());
+                final List<Visit> updated = new ArrayList<>();
+                final List<Visit> created = new ArrayList<>();
+                extend.forEach((epcId, reads) -> {
+                    final Visit visit = latest.get(epcId);
+                    if (visit != null && !reads.get(0)
+                                               .readAt()
+                                               .isAfter(visit.exitAt)) {
+                        // not newer than what the visits already cover; it may also already be counted by a rebuild
+                        rebuild.put(epcId, reads.get(0)
+                                                .readAt());
+                        return;
+                    }
+                    Visit current = visit;
+                    for (Read read : reads) {
+                        if (current != null && current.accepts(read, idleGap)) {
+                            current.add(read);
+                        } else {
+                            if (current != null) {
+                                (current.id == 0 ? created : updated).add(current);
+                            }
+                            current = new Visit(0, epcId, read);
+                        }
+                    }
+                    (current.id == 0 ? created : updated).add(current);
+                    extended.increment(reads.size());
+                });
+                session.batchUpdate(UPDATE_SQL,
+                                    updated.stream()
+                                           .filter(visit -> visit.changed)
+                                           .map(visit -> new Object[] { Timestamp.from(visit.exitAt), visit.readCount, visit.rssiSum, visit.rssiMax, visit.id })
+                                           .toList());
+                insert(session, created);
+                rebuild.forEach((epcId, since) -> rebuild(session, epcId, since));
+            });
+            return null;
+        });
+    }
+
+    /**
+     * Locks in ascending EPC order so that concurrent sessionizers cannot deadlock on each other.
+     */
+    private static void lock(JdbcTemplate session, Map<Integer, List<Read>> extend, TreeMap<Integer, Instant> rebuild) {
+        final List<Object> epcIds = new ArrayList<>(extend.keySet());
+        epcIds.addAll(rebuild.keySet());
+        if (epcIds.isEmpty()) {
+            return;
+        }
+        final String placeholders = String.join(", ", Collections.nCopies(epcIds.size(), "?"));
+        session.queryForList("select epc_id from tag_current_state where epc_id in (" + placeholders + ") order by epc_id for update",
+                             Integer.class,
+                             epcIds.toArray());
+    }
+
+    private static Map<Integer, Visit> latest(JdbcTemplate session, Set<Integer> epcIds) {
+        final Map<Integer, Visit> latest = new HashMap<>();
+        if (epcIds.isEmpty()) {
+            return latest;
+        }
+        // one index seek per EPC instead of a scan of every EPC's visits
+        session.query(String.join(" union all ", Collections.nCopies(epcIds.size(), LATEST_SQL)), (RowCallbackHandler) rs -> {
+            final Visit visit = new Visit(rs.getLong("id"),
+                                          rs.getInt("epc_id"),
+                                          new Read(rs.getInt("site_id"),
+                                                   rs.getInt("location_id"),
+                                                   rs.getDouble("rssi_max"),
+                                                   rs.getTimestamp("enter_at")
+                                                     .toInstant()));
+            visit.exitAt = rs.getTimestamp("exit_at")
+                             .toInstant();
+            visit.readCount = rs.getLong("read_count");
+            visit.rssiSum = rs.getDouble("rssi_sum");
+            visit.changed = false;
+            latest.put(visit.epcId, visit);
+        }, epcIds.toArray());
+        return latest;
+    }
+
+    /**
+     * Replaces the visits an EPC may have from {@code since} on with visits rebuilt from its reads. The visit entered
+     * last before {@code since} is rebuilt too, since reads at {@code since} may belong to it, and so is any earlier
+     * visit that reaches into the rebuilt range through reads with equal timestamps.
+     */
+    private void rebuild(JdbcTemplate session, int epcId, Instant since) {
+        Instant start = since;
+        Optional<Bounds> previous = previous(session, epcId, start);
+        if (previous.isPresent()) {
+            start = previous.get()
+                            .enterAt();
+        }
+        while ((previous = previous(session, epcId, start)).isPresent() && !previous.get()
+                                                                                    .exitAt()
+                                                                                    .isBefore(start)) {
+            start = previous.get()
+                            .enterAt();
+        }
+        session.update("delete from tag_visits where epc_id = ? and enter_at >= ?", epcId, Timestamp.from(start));
+        final List<Visit> visits = new ArrayList<>();
+        final Visit[] current = new Visit[1];
+        session.query(READS_SQL, (RowCallbackHandler) rs -> {
+            final Read read = new Read(rs.getInt("site_id"),
+                                       rs.getInt("location_id"),
+                                       rs.getDouble("rssi"),
+                                       rs.getTimestamp("read_at")
+                                         .toInstant());
+            if (current[0] != null && current[0].accepts(read, idleGap)) {
+                current[0].add(read);
+            } else {
+                current[0] = new Visit(0, epcId, read);
+                visits.add(current[0]);
+            }
+        }, epcId, Timestamp.from(start));
+        insert(session, visits);
+        rebuilt.increment();
+    }
+
+    private static Optional<Bounds> previous(JdbcTemplate session, int epcId, Instant before) {
+        return session.query(PREVIOUS_SQL,
+                             (rs, rowNum) -> new Bounds(rs.getTimestamp("enter_at")
+                                                          .toInstant(),
+                                                        rs.getTimestamp("exit_at")
+                                                          .toInstant()),
+                             epcId,
+                             Timestamp.from(before))
+                      .stream()
+                      .findFirst();
+    }
+
+    private static void insert(JdbcTemplate session, List<Visit> visits) {
+        session.batchUpdate(INSERT_SQL,
+                            visits.stream()
+                                  .map(visit -> new Object[] { visit.epcId,
+                                                               visit.siteId,
+                                                               visit.locationId,
+                                                               Timestamp.from(visit.enterAt),
+                                                               Timestamp.from(visit.exitAt),
+                                                               visit.readCount,
+                                                               visit.rssiSum,
+                                                               visit.rssiMax })
+                                  .toList());
+    }
+
+    private static void inTransaction(Connection con, Runnable work) throws SQLException {
+        con.setAutoCommit(false);
+        try {
+            work.run();
+            con.commit();
+        } catch (RuntimeException e) {
+            con.rollback();
+            throw e;
+        } finally {
+            con.setAutoCommit(true);
+        }
+    }
+
+    private record Read(int siteId, int locationId, double rssi, Instant readAt) {
+    }
+
+    /**
+     * A visit being built; {@code id} is 0 until it is stored.
+     */
+    private static final class Visit {
+        private final long id;
+        private final int epcId;
+        private final int siteId;
+        private final int locationId;
+        private final Instant enterAt;
+        private Instant exitAt;
+        private long readCount = 1;
+        private double rssiSum;
+        private double rssiMax;
+        private boolean changed = true;
+
+        Visit(long id, int epcId, Read first) {
+            this.id = id;
+            this.epcId = epcId;
+            this.siteId = first.siteId();
+            this.locationId = first.locationId();
+            this.enterAt = first.readAt();
+            this.exitAt = first.readAt();
+            this.rssiSum = first.rssi();
+            this.rssiMax = first.rssi();
+        }
+
+        boolean accepts(Read read, Duration idleGap) {
+            return read.siteId() == siteId && read.locationId() == locationId && Duration.between(exitAt, read.readAt())
+                                                                                       .compareTo(idleGap) <= 0;
+        }
+
+        void add(Read read) {
+            exitAt = read.readAt();
+            readCount++;
+            rssiSum += read.rssi();
+            rssiMax = Math.max(rssiMax, read.rssi());
+            changed = true;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.anexya.app.service.impl;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import com.anexya.app.domain.DimensionSummary;
+import com.anexya.app.domain.SummaryDimension;
+import com.anexya.app.domain.TagSummary;
+import com.anexya.app.repository.Dimension;
+import com.anexya.app.repository.DimensionDictionary;
+import com.anexya.app.repository.impl.StreamingStatement;
+import com.anexya.app.service.AggregationStrategy;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Computes every summary field in one scan of the range: reads are grouped once per (epc, location), and window
+ * functions over those groups give the per-EPC totals and rank the most detected location. Unlike
+ * {@link JdbcAggregationStrategy} there is no correlated subquery that regroups each EPC's reads.
+ */
+@Component
+@Profile("mysql")
+@ConditionalOnProperty(name = "app.aggregation.strategy", havingValue = "window")
+@RequiredArgsConstructor
+public class WindowAggregationStrategy implements AggregationStrategy {
+    private final JdbcTemplate jdbcTemplate;
+    private final DimensionDictionary dictionary;
+
+    @Override
+    public List<TagSummary> summarizeByTag(Instant startDate, Instant endDate, Optional<String> siteName, Optional<String> epc) {
+        final List<TagSummary> summaries = new ArrayList<>();
+        streamByTag(jdbcTemplate, startDate, endDate, siteName, epc, summaries::add);
+        return summaries;
+    }
+
+    @Override
+    public void streamByTag(JdbcTemplate jdbcTemplate,
+                            Instant startDate,
+                            Instant endDate,
+                            Optional<String> siteName,
+                            Optional<String> epc,
+                            Consumer<TagSummary> consumer) {
+        final Optional<Integer> siteId = siteName.flatMap(name -> dictionary.findId(Dimension.SITE, name));
+        final Optional<Integer> epcId = epc.flatMap(value -> dictionary.findId(Dimension.EPC, value));
+        if (siteName.isPresent() && siteId.isEmpty() || epc.isPresent() && epcId.isEmpty()) {
+            return;
+        }
+
+        final StringBuilder sql = new StringBuilder();
+        sql.append("with per_location as (");
+        sql.append(" select epc_id, location_id, count(*) as readCount, sum(rssi) as rssiSum, max(rssi) as peakRssi, ");
+        sql.append(" min(read_at) as firstSeen, max(read_at) as lastSeen ");
+        sql.append(" from tag_reads where read_at between ? and ? ");
+        if (siteId.isPresent()) {
+            sql.append(" and site_id = ? ");
+        }
+        if (epcId.isPresent()) {
+            sql.append(" and epc_id = ? ");
+        }
+        sql.append(" group by epc_id, location_id), ");
+        sql.append("ranked as (");
+        sql.append(" select p.epc_id, p.location_id, ");
+        sql.append(" sum(p.readCount) over w as totalReadCount, sum(p.rssiSum) over w as rssiSum, max(p.peakRssi) over w as peakRssi, ");
+        sql.append(" count(*) over w as locationCount, min(p.firstSeen) over w as firstSeen, max(p.lastSeen) over w as lastSeen, ");
+        sql.append(" row_number() over (partition by p.epc_id order by p.readCount desc, dl.value asc) as locationRank ");
+        sql.append(" from per_location p join dim_location dl on dl.id = p.location_id ");
+        sql.append(" window w as (partition by p.epc_id)) ");
+        sql.append("select epc_id, totalReadCount, rssiSum / totalReadCount as averageRssi, peakRssi, locationCount, ");
+        sql.append("location_id as mostDetectedLocationId, firstSeen, lastSeen from ranked where locationRank = 1");
+
+        final List<Object> params = new ArrayList<>();
+        params.add(Timestamp.from(startDate));
+        params.add(Timestamp.from(endDate));
+        siteId.ifPresent(params::add);
+        epcId.ifPresent(params::add);
+
+        jdbcTemplate.query(StreamingStatement.of(sql.toString(), params.toArray()),
+                           (RowCallbackHandler) rs -> consumer.accept(TagSummary.builder()
+                                                                                .epc(dictionary.valueOf(Dimension.EPC, rs.getInt("epc_id")))
+                                                                                .totalReadCount(rs.getLong("totalReadCount"))
+                                                                                .averageRssi(rs.getDouble("averageRssi"))
+                                                                                .peakRssi(rs.getDouble("peakRssi"))
+                                                                                .locationCount(rs.getLong("locationCount"))
+                                                                                .mostDetectedLocation(dictionary.valueOf(Dimension.LOCATION, rs.getInt("mostDetectedLocationId")))
+                                                                                .firstSeen(rs.getTimestamp("firstSeen")
+                                                                                             .toInstant())
+                                                                                .lastSeen(rs.getTimestamp("lastSeen")
+                                                                                            .toInstant())
+                                                                                .build()));
+    }
+
+    /**
+     * Dimension summaries need no ranking, so they come from the shared grouped query over {@code tag_reads}.
+     */
+    @Override
+    public List<DimensionSummary> summarizeBy(SummaryDimension dimension, Instant startDate, Instant endDate, Optional<String> siteName, Optional<String> epc) {
+        return DimensionSummaryQuery.summarize(jdbcTemplate, dictionary, dimension, startDate, endDate, siteName, epc, DimensionSummaryQuery::raw);
+    }
+}
@@ -0,0 +1,468 @@
+package com.anexya.app.service.impl;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+
+import com.anexya.app.crypto.ReferenceCodeCrypto;
+import com.anexya.app.domain.TagRead;
+import com.anexya.app.domain.TagReadWriteResult;
+import com.anexya.app.repository.TagReadRepository;
+import com.anexya.app.service.TagReadsChangedEvent;
+import com.anexya.app.web.IngestQueueFullException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Bounded write-behind buffer for asynchronous ingest. A single writer drains the queue and commits reads in groups
+ * bounded by {@code group-size} and {@code flush-interval}; callers only wait for the enqueue.
+ * <p>
+ * Accepted reads are never dropped: a group that fails on a connection or transient error is retried with backoff,
+ * any other failure is retried one read at a time, and reads that still cannot be written (or are left over when
+ * shutdown gives up) are appended to a CSV file in {@code dead-letter-dir} that the backfill endpoint replays.
+ */
+@Component
+public class WriteBehindIngestQueue {
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindIngestQueue.class);
+    private static final Duration MAX_RETRY_BACKOFF = Duration.ofSeconds(5);
+    private static final Duration ABANDON_TIMEOUT = Duration.ofSeconds(5);
+
+    public enum Backpressure {
+        BLOCK, REJECT, SPILL
+    }
+
+    private final TagReadRepository repository;
+    private final TagReadDeduplicator deduplicator;
+    private final ReferenceCodeCrypto referenceCodeCrypto;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final int groupSize;
+    private final Duration flushInterval;
+    private final Duration blockTimeout;
+    private final Duration shutdownTimeout;
+    private final Backpressure backpressure;
+    private final Path deadLetterDir;
+    private final BlockingQueue<Pending> queue;
+    // submitters hold the read lock while enqueueing; stop() takes the write lock, so no read lands after the drain
+    private final ReadWriteLock stopLock = new ReentrantReadWriteLock();
+    private final Counter committed;
+    private final Counter failed;
+    private final Counter retried;
+    private final Counter deadLettered;
+    private final Counter spilled;
+    private final Counter rejected;
+
+    private volatile boolean running;
+    private volatile boolean stopping;
+    private volatile boolean abandoning;
+    private Thread writer;
+    private Path deadLetterFile;
+
+    public WriteBehindIngestQueue(TagReadRepository repository,
+                                  TagReadDeduplicator deduplicator,
+                                  ReferenceCodeCrypto referenceCodeCrypto,
+                                  ApplicationEventPublisher eventPublisher,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.ingest.async.enabled:false}") boolean enabled,
+                                  @Value("${app.ingest.async.capacity:65536}") int capacity,
+                                  @Value("${app.ingest.async.group-size:500}") int groupSize,
+                                  @Value("${app.ingest.async.flush-interval:50ms}") Duration flushInterval,
+                                  @Value("${app.ingest.async.backpressure:BLOCK}") Backpressure backpressure,
+                                  @Value("${app.ingest.async.block-timeout:2s}") Duration blockTimeout,
+                                  @Value("${app.ingest.async.shutdown-timeout:30s}") Duration shutdownTimeout,
+                                  @Value("${app.ingest.async.dead-letter-dir:dead-letters}") Path deadLetterDir) {
+        this.repository = repository;
+        this.deduplicator = deduplicator;
+        this.referenceCodeCrypto = referenceCodeCrypto;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.groupSize = groupSize;
+        this.flushInterval = flushInterval;
+        this.backpressure = backpressure;
+        this.blockTimeout = blockTimeout;
+        this.shutdownTimeout = shutdownTimeout;
+        this.deadLetterDir = deadLetterDir;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.committed = meterRegistry.counter("tag_reads.write_behind.committed");
+        this.failed = meterRegistry.counter("tag_reads.write_behind.failed");
+        this.retried = meterRegistry.counter("tag_reads.write_behind.retried");
+        this.deadLettered = meterRegistry.counter("tag_reads.write_behind.dead_lettered");
+        this.spilled = meterRegistry.counter("tag_reads.write_behind.spilled");
+        this.rejected = meterRegistry.counter("tag_reads.write_behind.rejected");
+        Gauge.builder("tag_reads.write_behind.depth", queue, BlockingQueue::size)
+             .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = Thread.ofVirtual()
+                       .name("tag-read-write-behind")
+                       .start(this::drainLoop);
+    }
+
+    public void submit(TagRead read) {
+        submit(read, false);
+    }
+
+    /**
+     * Queues a read. {@code replacesExisting} marks a read the deduplicator re-keyed onto an existing row, so it is
+     * committed with {@link TagReadRepository#replaceIfStronger(TagRead)} and published as a replacement.
+     */
+    public void submit(TagRead read, boolean replacesExisting) {
+        final Pending pending = new Pending(read, replacesExisting);
+        stopLock.readLock()
+                .lock();
+        try {
+            if (stopping) {
+                rejected.increment();
+                throw new IngestQueueFullException("Ingest queue is shutting down, retry later");
+            }
+            if (!running) {
+                writeThrough(pending);
+                return;
+            }
+            if (queue.offer(pending)) {
+                return;
+            }
+            switch (backpressure) {
+                case BLOCK -> {
+                    if (!offerWithTimeout(pending)) {
+                        rejected.increment();
+                        throw new IngestQueueFullException();
+                    }
+                }
+                case SPILL -> {
+                    spilled.increment();
+                    writeThrough(pending);
+                }
+                default -> {
+                    rejected.increment();
+                    throw new IngestQueueFullException();
+                }
+            }
+        } finally {
+            stopLock.readLock()
+                    .unlock();
+        }
+    }
+
+    public int depth() {
+        return queue.size();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        stopLock.writeLock()
+                .lock();
+        try {
+            if (!running) {
+                return;
+            }
+            stopping = true;
+            running = false;
+        } finally {
+            stopLock.writeLock()
+                    .unlock();
+        }
+        writer.join(shutdownTimeout.toMillis());
+        if (writer.isAlive()) {
+            log.warn("write-behind queue did not drain within {}; dead-lettering {} remaining reads", shutdownTimeout, queue.size());
+            abandoning = true;
+            writer.interrupt();
+            writer.join(ABANDON_TIMEOUT.toMillis());
+        }
+    }
+
+    private boolean offerWithTimeout(Pending pending) {
+        try {
+            return queue.offer(pending, blockTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+            return false;
+        }
+    }
+
+    private void writeThrough(Pending pending) {
+        if (!pending.replacesExisting() && !deduplicator.mayReplace()) {
+            repository.save(pending.read());
+            eventPublisher.publishEvent(TagReadsChangedEvent.inserted(List.of(pending.read())));
+        } else if (!pending.replacesExisting()) {
+            // a replacement may already have written this row from another thread
+            if (repository.replaceIfStronger(pending.read())) {
+                eventPublisher.publishEvent(TagReadsChangedEvent.inserted(List.of(pending.read())));
+            }
+        } else if (repository.replaceIfStronger(pending.read())) {
+            eventPublisher.publishEvent(TagReadsChangedEvent.replaced(List.of(pending.read())));
+        }
+    }
+
+    private void drainLoop() {
+        final List<Pending> group = new ArrayList<>(groupSize);
+        while (running || !queue.isEmpty()) {
+            if (abandoning) {
+                queue.drainTo(group);
+                deadLetter(group, "shutdown timed out");
+                return;
+            }
+            try {
+                fillGroup(group);
+            } catch (InterruptedException e) {
+                queue.drainTo(group, groupSize - group.size());
+            }
+            if (!group.isEmpty()) {
+                commit(List.copyOf(group));
+                group.clear();
+            }
+        }
+    }
+
+    private void fillGroup(List<Pending> group) throws InterruptedException {
+        final Pending first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        group.add(first);
+        final long deadline = System.nanoTime() + flushInterval.toNanos();
+        while (group.size() < groupSize) {
+            if (queue.drainTo(group, groupSize - group.size()) > 0) {
+                continue;
+            }
+            final long remaining = deadline - System.nanoTime();
+            final Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+            if (next == null) {
+                return;
+            }
+            group.add(next);
+        }
+    }
+
+    /**
+     * Inserts the group's new reads, then applies its replacements in queue order; a replacement's row was opened by
+     * an earlier read, so it is always inserted first.
+     */
+    private void commit(List<Pending> group) {
+        final List<TagRead> inserts = group.stream()
+                                           .filter(pending -> !pending.replacesExisting())
+                                           .map(Pending::read)
+                                           .toList();
+        if (!inserts.isEmpty()) {
+            commitInserts(inserts);
+        }
+        group.stream()
+             .filter(Pending::replacesExisting)
+             .map(Pending::read)
+             .forEach(this::commitReplacement);
+    }
+
+    private void commitInserts(List<TagRead> reads) {
+        final RuntimeException error = withRetry(reads.size(), () -> publish(reads, repository.saveAll(reads)));
+        if (error == null) {
+            return;
+        }
+        if (abandoning || isTransient(error)) {
+            deadLetter(inserts(reads), error.toString());
+            return;
+        }
+        log.error("write-behind group commit of {} reads failed; retrying them one at a time", reads.size(), error);
+        reads.forEach(this::commitOne);
+    }
+
+    private void commitReplacement(TagRead read) {
+        final boolean[] applied = new boolean[1];
+        final RuntimeException error = withRetry(1, () -> applied[0] = repository.replaceIfStronger(read));
+        if (error != null) {
+            deadLetter(List.of(new Pending(read, true)), error.toString());
+            return;
+        }
+        committed.increment();
+        if (applied[0]) {
+            eventPublisher.publishEvent(TagReadsChangedEvent.replaced(List.of(read)));
+        }
+    }
+
+    /**
+     * Runs {@code write}, retrying connection and transient failures with backoff. Returns {@code null} once it
+     * succeeds, or the error that ended the attempts.
+     */
+    private RuntimeException withRetry(int reads, Runnable write) {
+        Duration backoff = flushInterval;
+        while (true) {
+            try {
+                write.run();
+                return null;
+            } catch (RuntimeException e) {
+                if (abandoning || !isTransient(e)) {
+                    return e;
+                }
+                retried.increment(reads);
+                log.warn("write-behind commit of {} reads failed; retrying in {}", reads, backoff, e);
+                if (!sleep(backoff)) {
+                    return e;
+                }
+                final Duration doubled = backoff.multipliedBy(2);
+                backoff = doubled.compareTo(MAX_RETRY_BACKOFF) < 0 ? doubled : MAX_RETRY_BACKOFF;
+            }
+        }
+    }
+
+    private void commitOne(TagRead read) {
+        try {
+            publish(List.of(read), repository.saveAll(List.of(read)));
+        } catch (RuntimeException e) {
+            deadLetter(inserts(List.of(read)), e.toString());
+        }
+    }
+
+    private void publish(List<TagRead> reads, List<TagReadWriteResult> results) {
+        final List<TagRead> inserted = new ArrayList<>(reads.size());
+        for (int i = 0; i < results.size(); i++) {
+            final TagReadWriteResult result = results.get(i);
+            if (result.isSaved()) {
+                committed.increment();
+                inserted.add(reads.get(i));
+            } else {
+                deadLetter(inserts(List.of(reads.get(i))), result.error());
+            }
+        }
+        if (!inserted.isEmpty()) {
+            eventPublisher.publishEvent(TagReadsChangedEvent.inserted(inserted));
+        }
+    }
+
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException || e instanceof RecoverableDataAccessException || e instanceof DataAccessResourceFailureException;
+    }
+
+    private boolean sleep(Duration backoff) {
+        if (abandoning) {
+            return false;
+        }
+        try {
+            Thread.sleep(backoff);
+            return !abandoning;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+
+    private static List<Pending> inserts(List<TagRead> reads) {
+        return reads.stream()
+                    .map(read -> new Pending(read, false))
+                    .toList();
+    }
+
+    /**
+     * Appends reads in the backfill endpoint's dead-letter CSV format: each row keeps its id and whether it replaces a
+     * kept row, so a replay neither duplicates reads nor turns a replacement into a second row, and the reference code
+     * is written as stored, encrypted. The directory and files are created readable by the owner only.
+     */
+    private synchronized void deadLetter(List<Pending> pendings, String error) {
+        if (pendings.isEmpty()) {
+            return;
+        }
+        final List<TagRead> reads = pendings.stream()
+                                            .map(Pending::read)
+                                            .toList();
+        // the rows were never written, so duplicates must not be suppressed against them
+        reads.forEach(deduplicator::forget);
+        failed.increment(reads.size());
+        // file channels are closed by a pending interrupt, which stop() may have delivered
+        final boolean interrupted = Thread.interrupted();
+        try {
+            final StringBuilder rows = new StringBuilder();
+            for (Pending pending : pendings) {
+                rows.append(toCsv(pending))
+                    .append('\n');
+            }
+            if (deadLetterFile == null) {
+                Files.createDirectories(deadLetterDir, ownerOnly("rwx------"));
+                deadLetterFile = Files.createFile(deadLetterDir.resolve("write-behind-" + Instant.now()
+                                                                                         .toEpochMilli()
+                        + ".csv"), ownerOnly("rw-------"));
+                Files.writeString(deadLetterFile, String.join(",", CsvTagReadBackfillService.DEAD_LETTER_COLUMNS) + "\n", StandardCharsets.UTF_8);
+            }
+            Files.writeString(deadLetterFile, rows, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+            deadLettered.increment(reads.size());
+            log.error("dead-lettered {} write-behind reads to {}: {}", reads.size(), deadLetterFile, error);
+        } catch (IOException | RuntimeException e) {
+            // a failed encryption lands here too: the reference code is never written in plaintext instead
+            log.error("could not dead-letter {} write-behind reads ({}); they are lost: {}",
+                      reads.size(),
+                      error,
+                      reads.stream()
+                           .map(TagRead::id)
+                           .toList(),
+                      e);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread()
+                      .interrupt();
+            }
+        }
+    }
+
+    private static FileAttribute<?>[] ownerOnly(String permissions) {
+        if (!FileSystems.getDefault()
+                        .supportedFileAttributeViews()
+                        .contains("posix")) {
+            return new FileAttribute<?>[0];
+        }
+        return new FileAttribute<?>[] { PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString(permissions)) };
+    }
+
+    private String toCsv(Pending pending) {
+        final TagRead read = pending.read();
+        return String.join(",",
+                           String.valueOf(read.id()),
+                           String.valueOf(pending.replacesExisting()),
+                           quote(read.siteName()),
+                           quote(read.epc()),
+                           quote(referenceCodeCrypto.encrypt(read.referenceCode())),
+                           quote(read.location()),
+                           String.valueOf(read.rssi()),
+                           String.valueOf(read.readAt()));
+    }
+
+    private static String quote(String value) {
+        return value == null ? "" : "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private record Pending(TagRead read, boolean replacesExisting) {
+    }
+}
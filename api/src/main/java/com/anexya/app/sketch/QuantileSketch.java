@@ -0,0 +1,181 @@
+package com.anexya.app.sketch;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * DDSketch (Masson, Rim and Lee, VLDB 2019): values are counted in logarithmic bins, so every quantile is returned
+ * within a relative error of {@link #RELATIVE_ACCURACY} of the value actually at that rank. Sketches merge exactly (bin
+ * counts add up), which lets them be stored per rollup bucket and combined at query time. Size grows with the logarithm
+ * of the value range, not the number of values: RSSI between -100 and -20 dBm fits in at most 82 bins. Not
+ * thread-safe.
+ */
+public final class QuantileSketch {
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    /**
+     * Magnitudes below this are counted as zero.
+     */
+    private static final double MIN_INDEXABLE = 1e-9;
+    private static final byte FORMAT = 1;
+
+    private final TreeMap<Integer, Long> negative = new TreeMap<>();
+    private final TreeMap<Integer, Long> positive = new TreeMap<>();
+    private long zeroCount;
+    private long count;
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    public void add(double value, long occurrences) {
+        if (!Double.isFinite(value) || occurrences < 1) {
+            throw new IllegalArgumentException("Cannot add " + occurrences + " x " + value);
+        }
+        final double magnitude = Math.abs(value);
+        if (magnitude < MIN_INDEXABLE) {
+            zeroCount += occurrences;
+        } else {
+            (value > 0 ? positive : negative).merge(key(magnitude), occurrences, Long::sum);
+        }
+        count += occurrences;
+    }
+
+    public void merge(QuantileSketch other) {
+        other.negative.forEach((key, occurrences) -> negative.merge(key, occurrences, Long::sum));
+        other.positive.forEach((key, occurrences) -> positive.merge(key, occurrences, Long::sum));
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Value at quantile {@code q} in [0, 1], taking the value at rank {@code floor(q * (count - 1))} of the sorted
+     * values; NaN when the sketch is empty.
+     */
+    public double quantile(double q) {
+        if (!(q >= 0 && q <= 1)) {
+            throw new IllegalArgumentException("Quantile must be within [0, 1]: " + q);
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        final long rank = (long) Math.floor(q * (count - 1));
+        long seen = 0;
+        for (Map.Entry<Integer, Long> bin : negative.descendingMap()
+                                                    .entrySet()) {
+            seen += bin.getValue();
+            if (seen > rank) {
+                return -value(bin.getKey());
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) {
+            return 0;
+        }
+        for (Map.Entry<Integer, Long> bin : positive.entrySet()) {
+            seen += bin.getValue();
+            if (seen > rank) {
+                return value(bin.getKey());
+            }
+        }
+        throw new IllegalStateException("Bin counts do not add up to " + count);
+    }
+
+    /**
+     * Compact encoding: format byte, then the zero count and both bin stores as varints (keys delta-encoded).
+     */
+    public byte[] toBytes() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(8 + 3 * (negative.size() + positive.size()));
+        out.write(FORMAT);
+        writeVarLong(out, zeroCount);
+        writeBins(out, negative);
+        writeBins(out, positive);
+        return out.toByteArray();
+    }
+
+    public static QuantileSketch fromBytes(byte[] bytes) {
+        final ByteBuffer in = ByteBuffer.wrap(bytes);
+        try {
+            if (in.get() != FORMAT) {
+                throw new IllegalArgumentException("Unsupported sketch format " + bytes[0]);
+            }
+            final QuantileSketch sketch = new QuantileSketch();
+            sketch.zeroCount = readVarLong(in);
+            sketch.count = sketch.zeroCount + readBins(in, sketch.negative) + readBins(in, sketch.positive);
+            return sketch;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated sketch of " + bytes.length + " bytes", e);
+        }
+    }
+
+    private static int key(double magnitude) {
+        return (int) Math.ceil(Math.log(magnitude) / LOG_GAMMA);
+    }
+
+    /**
+     * Representative of bin {@code (gamma^(key-1), gamma^key]}: at most {@link #RELATIVE_ACCURACY} away from any value
+     * in it.
+     */
+    private static double value(int key) {
+        return 2 * Math.pow(GAMMA, key) / (GAMMA + 1);
+    }
+
+    private static void writeBins(ByteArrayOutputStream out, TreeMap<Integer, Long> bins) {
+        writeVarLong(out, bins.size());
+        long previous = 0;
+        for (Map.Entry<Integer, Long> bin : bins.entrySet()) {
+            final long delta = bin.getKey() - previous;
+            writeVarLong(out, (delta << 1) ^ (delta >> 63));
+            writeVarLong(out, bin.getValue());
+            previous = bin.getKey();
+        }
+    }
+
+    private static long readBins(ByteBuffer in, TreeMap<Integer, Long> bins) {
+        final long size = readVarLong(in);
+        long key = 0;
+        long total = 0;
+        for (long i = 0; i < size; i++) {
+            final long zigzag = readVarLong(in);
+            key += (zigzag >>> 1) ^ -(zigzag & 1);
+            final long occurrences = readVarLong(in);
+            bins.put(Math.toIntExact(key), occurrences);
+            total += occurrences;
+        }
+        return total;
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            out.write((int) (remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        out.write((int) remaining);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in sketch");
+    }
+}
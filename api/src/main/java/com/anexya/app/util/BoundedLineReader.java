@@ -0,0 +1,60 @@
+package com.anexya.app.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads lines like {@link BufferedReader#readLine()} but buffers at most {@code maxLength} characters of each. The rest
+ * of a longer line is skipped up to its terminator, and {@link #truncated()} reports it, so one line without a newline
+ * cannot grow the heap without limit.
+ */
+public final class BoundedLineReader {
+    private final BufferedReader reader;
+    private final int maxLength;
+    private final StringBuilder line = new StringBuilder();
+    private boolean truncated;
+
+    public BoundedLineReader(Reader reader, int maxLength) {
+        if (maxLength < 1) {
+            throw new IllegalArgumentException("maxLength must be positive");
+        }
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Returns the next line without its terminator, cut to {@code maxLength} characters, or {@code null} at the end
+     * of the input.
+     */
+    public String readLine() throws IOException {
+        line.setLength(0);
+        truncated = false;
+        int c = reader.read();
+        if (c < 0) {
+            return null;
+        }
+        while (c >= 0 && c != '\n' && c != '\r') {
+            if (line.length() < maxLength) {
+                line.append((char) c);
+            } else {
+                truncated = true;
+            }
+            c = reader.read();
+        }
+        if (c == '\r') {
+            reader.mark(1);
+            if (reader.read() != '\n') {
+                reader.reset();
+            }
+        }
+        return line.toString();
+    }
+
+    /**
+     * Whether the line last returned by {@link #readLine()} was longer than {@code maxLength}.
+     */
+    public boolean truncated() {
+        return truncated;
+    }
+}
@@ -0,0 +1,37 @@
+package com.anexya.app.util;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Version 7 UUIDs (RFC 9562): a 48-bit Unix millisecond timestamp followed by random bits, so ids sort by creation
+ * time and new rows append to the right-hand side of the primary key index.
+ */
+public final class TimeOrderedUuid {
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private TimeOrderedUuid() {
+    }
+
+    public static UUID next() {
+        return at(System.currentTimeMillis());
+    }
+
+    public static UUID at(long epochMillis) {
+        final byte[] random = new byte[10];
+        RANDOM.nextBytes(random);
+        final long msb = (epochMillis & 0xFFFF_FFFF_FFFFL) << 16 | 0x7000L | (random[0] & 0x0FL) << 8 | random[1] & 0xFFL;
+        final long lsb = 0x8000_0000_0000_0000L | ByteBuffer.wrap(random, 2, 8)
+                                                            .getLong() & 0x3FFF_FFFF_FFFF_FFFFL;
+        return new UUID(msb, lsb);
+    }
+
+    public static Instant timestampOf(UUID uuid) {
+        if (uuid.version() != 7) {
+            throw new IllegalArgumentException("Not a version 7 UUID: " + uuid);
+        }
+        return Instant.ofEpochMilli(uuid.getMostSignificantBits() >>> 16);
+    }
+}
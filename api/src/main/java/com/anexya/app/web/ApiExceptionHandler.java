@@ -2,6 +2,7 @@ package com.anexya.app.web;
 
 import java.util.Map;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindException;
@@ -25,6 +26,34 @@ public class ApiExceptionHandler {
         return new ErrorResponse(ex.getMessage(), Map.of());
     }
 
+    @ExceptionHandler(SummaryJobNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    @ResponseBody
+    public ErrorResponse handleJobNotFound(SummaryJobNotFoundException ex) {
+        return new ErrorResponse(ex.getMessage(), Map.of());
+    }
+
+    @ExceptionHandler(SummaryJobQueueFullException.class)
+    public ResponseEntity<ErrorResponse> handleJobQueueFull(SummaryJobQueueFullException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                             .header(HttpHeaders.RETRY_AFTER, "30")
+                             .body(new ErrorResponse(ex.getMessage(), Map.of()));
+    }
+
+    @ExceptionHandler(IngestQueueFullException.class)
+    public ResponseEntity<ErrorResponse> handleQueueFull(IngestQueueFullException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                             .header(HttpHeaders.RETRY_AFTER, "1")
+                             .body(new ErrorResponse(ex.getMessage(), Map.of()));
+    }
+
+    @ExceptionHandler(InvalidRequestException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ResponseBody
+    public ErrorResponse handleInvalidRequest(InvalidRequestException ex) {
+        return new ErrorResponse("Invalid request", Map.of("error", ex.getMessage()));
+    }
+
     @ExceptionHandler({MethodArgumentNotValidException.class, BindException.class})
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ResponseBody
@@ -0,0 +1,15 @@
+package com.anexya.app.web;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class IngestQueueFullException extends RuntimeException {
+    public IngestQueueFullException() {
+        this("Ingest queue is full, retry later");
+    }
+
+    public IngestQueueFullException(String message) {
+        super(message);
+    }
+}
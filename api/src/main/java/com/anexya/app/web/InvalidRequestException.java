@@ -0,0 +1,7 @@
+package com.anexya.app.web;
+
+public class InvalidRequestException extends RuntimeException {
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
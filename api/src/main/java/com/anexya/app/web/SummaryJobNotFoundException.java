@@ -0,0 +1,13 @@
+package com.anexya.app.web;
+
+import java.util.UUID;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class SummaryJobNotFoundException extends RuntimeException {
+    public SummaryJobNotFoundException(UUID id) {
+        super("Summary job not found: " + id);
+    }
+}
@@ -0,0 +1,11 @@
+package com.anexya.app.web;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class SummaryJobQueueFullException extends RuntimeException {
+    public SummaryJobQueueFullException(int maxQueued) {
+        super("Summary job queue is full (" + maxQueued + " jobs), retry later");
+    }
+}
@@ -10,4 +10,8 @@ public class TagReadNotFoundException extends RuntimeException {
     public TagReadNotFoundException(UUID id) {
         super("Tag read not found: " + id);
     }
+
+    public TagReadNotFoundException(String epc) {
+        super("No reads for EPC: " + epc);
+    }
 }
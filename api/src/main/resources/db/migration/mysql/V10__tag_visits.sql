@@ -0,0 +1,24 @@
+-- Visits: runs of consecutive reads of one EPC at one (site, location), split where the EPC moves or goes unread for
+-- longer than the idle gap (app.visits.idle-gap). Kept up to date on ingest by VisitSessionizer.
+create table if not exists tag_visits (
+    id bigint not null auto_increment primary key,
+    epc_id int not null,
+    site_id int not null,
+    location_id int not null,
+    enter_at datetime(6) not null,
+    exit_at datetime(6) not null,
+    read_count bigint not null,
+    rssi_sum double not null,
+    rssi_max double not null,
+    index idx_tag_visits_epc_enter (epc_id, enter_at),
+    index idx_tag_visits_location_enter (location_id, enter_at),
+    index idx_tag_visits_site_enter (site_id, enter_at)
+);
+
+-- existing reads are sessionized in the background by VisitSessionizer, resuming after after_epc_id
+create table if not exists tag_visits_rebuild (
+    id tinyint not null primary key,
+    after_epc_id int not null default 0
+);
+
+insert into tag_visits_rebuild (id) values (1);
@@ -0,0 +1,11 @@
+-- Store tag_reads.id as binary(16) instead of char(36).
+-- Existing ids convert byte-for-byte (uuid_to_bin without swap); new ids are time-ordered v7 UUIDs,
+-- whose leading timestamp bytes keep primary-key inserts at the right-hand edge of the index.
+
+alter table tag_reads add column id_bin binary(16) null first;
+
+update tag_reads set id_bin = uuid_to_bin(id);
+
+alter table tag_reads drop primary key, drop column id;
+
+alter table tag_reads change column id_bin id binary(16) not null first, add primary key (id);
@@ -0,0 +1,2 @@
+-- Serves keyset-paginated searches without a dimension filter (order by read_at desc, id desc).
+create index idx_tag_reads_read_at on tag_reads (read_at);
@@ -0,0 +1,5 @@
+-- Keyed HMAC-SHA256 of the plaintext reference code, so lookups by code are indexed point queries.
+-- Null for rows written before the blind index key was configured until they are backfilled.
+alter table tag_reads add column reference_hash binary(32) null after reference_code;
+
+create index idx_tag_reads_reference_hash on tag_reads (reference_hash);
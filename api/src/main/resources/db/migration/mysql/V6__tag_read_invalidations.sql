@@ -0,0 +1,9 @@
+-- Change log for cross-instance invalidation of the tag read cache: each write appends the affected ids and every
+-- instance polls for rows newer than the last seq it has seen. Rows are pruned after a short retention.
+create table if not exists tag_read_invalidations (
+    seq bigint not null auto_increment primary key,
+    tag_read_id binary(16) not null,
+    origin char(36) not null,
+    created_at timestamp(6) not null default current_timestamp(6),
+    index idx_tag_read_invalidations_created_at (created_at)
+);
@@ -0,0 +1,18 @@
+-- Latest read per EPC, kept up to date on ingest so "where is this tag now" is a primary key lookup.
+create table if not exists tag_current_state (
+    epc_id int not null primary key,
+    site_id int not null,
+    location_id int not null,
+    rssi double not null,
+    read_at datetime(6) not null,
+    tag_read_id binary(16) not null,
+    index idx_tag_current_state_tag_read_id (tag_read_id)
+);
+
+-- existing reads are seeded per EPC in the background by TagCurrentStateSeeder, resuming after after_epc_id
+create table if not exists tag_current_state_seed (
+    id tinyint not null primary key,
+    after_epc_id int not null default 0
+);
+
+insert into tag_current_state_seed (id) values (1);
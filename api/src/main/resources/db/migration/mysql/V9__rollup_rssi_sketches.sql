@@ -0,0 +1,4 @@
+-- Mergeable RSSI quantile sketches (com.anexya.app.sketch.QuantileSketch) per rollup row. RollupMaintainer writes
+-- them whenever it builds a row, on refresh and on backfill; a row without one makes summaries omit quantiles.
+alter table tag_read_rollup_hourly add column rssi_sketch blob null;
+alter table tag_read_rollup_daily add column rssi_sketch blob null;
@@ -33,6 +33,9 @@ class TagSummaryMapperTest {
                                        .mostDetectedLocation("Dock1")
                                        .firstSeen(first)
                                        .lastSeen(last)
+                                       .rssiP50(-41.0)
+                                       .rssiP90(-35.0)
+                                       .rssiP99(-31.0)
                                        .build();
 
         TagSummaryResponse dto = mapper.toResponse(summary);
@@ -45,6 +48,9 @@ class TagSummaryMapperTest {
         assertThat(dto.mostDetectedLocation()).isEqualTo("Dock1");
         assertThat(dto.firstSeen()).isEqualTo(first.toString());
         assertThat(dto.lastSeen()).isEqualTo(last.toString());
+        assertThat(dto.rssiP50()).isEqualTo(-41.0);
+        assertThat(dto.rssiP90()).isEqualTo(-35.0);
+        assertThat(dto.rssiP99()).isEqualTo(-31.0);
     }
 
     @Test
@@ -65,6 +71,7 @@ class TagSummaryMapperTest {
         assertThat(dto.mostDetectedLocation()).isNull();
         assertThat(dto.firstSeen()).isNull();
         assertThat(dto.lastSeen()).isNull();
+        assertThat(dto.rssiP50()).isNull();
     }
 
     @Test
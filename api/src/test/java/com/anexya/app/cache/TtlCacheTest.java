@@ -0,0 +1,90 @@
+package com.anexya.app.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.anexya.app.util.MutableClock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TtlCacheTest {
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final TtlCache<String, Integer> cache = new TtlCache<>("test", 2, Duration.ofSeconds(10), registry, clock);
+
+    @Test
+    void get_shouldLoadOnceUntilExpiry() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("a", k -> loads.incrementAndGet());
+        cache.get("a", k -> loads.incrementAndGet());
+        clock.advance(Duration.ofSeconds(10));
+        int reloaded = cache.get("a", k -> loads.incrementAndGet());
+
+        assertThat(reloaded).isEqualTo(2);
+        assertThat(counter("hit")).isEqualTo(1);
+        assertThat(counter("miss")).isEqualTo(2);
+        assertThat(registry.get("cache.evictions")
+                           .counter()
+                           .count()).isEqualTo(1);
+    }
+
+    @Test
+    void put_shouldEvictLeastRecentlyUsedWhenFull() {
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.getIfPresent("a");
+        cache.put("c", 3);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getIfPresent("a")).contains(1);
+        assertThat(cache.getIfPresent("b")).isEmpty();
+        assertThat(cache.getIfPresent("c")).contains(3);
+    }
+
+    @Test
+    void invalidate_shouldDropEntries() {
+        cache.put("a", 1);
+        cache.put("b", 2);
+
+        cache.invalidate("a");
+        assertThat(cache.getIfPresent("a")).isEmpty();
+
+        cache.invalidateAll();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void get_shouldNotCacheALoadThatOverlappedAnInvalidation() {
+        int loaded = cache.get("a", k -> {
+            cache.invalidate("a");
+            return 1;
+        });
+
+        assertThat(loaded).isEqualTo(1);
+        assertThat(cache.getIfPresent("a")).isEmpty();
+    }
+
+    @Test
+    void putIfUnchanged_shouldRejectValuesReadBeforeAWrite() {
+        long before = cache.generation("a");
+        cache.put("a", 2);
+
+        assertThat(cache.putIfUnchanged("a", 1, before)).isFalse();
+        assertThat(cache.getIfPresent("a")).contains(2);
+        assertThat(cache.putIfUnchanged("a", 3, cache.generation("a"))).isTrue();
+        assertThat(cache.getIfPresent("a")).contains(3);
+    }
+
+    private double counter(String result) {
+        return registry.get("cache.gets")
+                       .tag("result", result)
+                       .counter()
+                       .count();
+    }
+}
@@ -0,0 +1,126 @@
+package com.anexya.app.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.anexya.app.api.SummaryJobResponse;
+import com.anexya.app.api.mapper.SummaryJobMapper;
+import com.anexya.app.api.mapper.TagSummaryMapper;
+import com.anexya.app.domain.SummaryJob;
+import com.anexya.app.domain.SummaryJobStatus;
+import com.anexya.app.domain.TagSummary;
+import com.anexya.app.service.SummaryJobService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@ExtendWith(MockitoExtension.class)
+class SummaryJobControllerTest {
+    private static final UUID ID = UUID.fromString("018d0b1e-0000-7000-8000-000000000001");
+
+    @Mock
+    private SummaryJobService summaryJobService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private SummaryJobController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new SummaryJobController(summaryJobService,
+                                              Mappers.getMapper(SummaryJobMapper.class),
+                                              Mappers.getMapper(TagSummaryMapper.class),
+                                              objectMapper);
+    }
+
+    @Test
+    void submitShouldAcceptAndPointAtTheJob() {
+        when(summaryJobService.submit(Instant.EPOCH, Instant.EPOCH, Optional.empty(), Optional.of("EPC1"))).thenReturn(job(SummaryJobStatus.QUEUED));
+
+        ResponseEntity<SummaryJobResponse> response = controller.submit(Instant.EPOCH, Instant.EPOCH, null, "EPC1");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        assertThat(response.getHeaders()
+                           .getFirst(HttpHeaders.LOCATION)).isEqualTo("/api/tag-reads/summary/jobs/" + ID);
+        assertThat(response.getBody()
+                           .status()).isEqualTo(SummaryJobStatus.QUEUED);
+    }
+
+    @Test
+    void resultShouldWriteOneLinePerSummaryWhenDone() throws Exception {
+        when(summaryJobService.get(ID)).thenReturn(job(SummaryJobStatus.DONE));
+        doAnswer(inv -> {
+            Consumer<TagSummary> consumer = inv.getArgument(1);
+            consumer.accept(summary("EPC1"));
+            consumer.accept(summary("EPC2"));
+            return null;
+        }).when(summaryJobService)
+          .streamResult(eq(ID), any());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        controller.result(ID, response);
+
+        String[] lines = response.getContentAsString(StandardCharsets.UTF_8)
+                                 .split("\n");
+        assertThat(response.getContentType()).isEqualTo(MediaType.APPLICATION_NDJSON_VALUE);
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readTree(lines[1])
+                               .get("epc")
+                               .asText()).isEqualTo("EPC2");
+    }
+
+    @Test
+    void resultShouldConflictUntilDone() throws Exception {
+        when(summaryJobService.get(ID)).thenReturn(job(SummaryJobStatus.RUNNING));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        controller.result(ID, response);
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.CONFLICT.value());
+        assertThat(objectMapper.readTree(response.getContentAsByteArray())
+                               .get("status")
+                               .asText()).isEqualTo("RUNNING");
+        verify(summaryJobService, never()).streamResult(any(), any());
+    }
+
+    private static SummaryJob job(SummaryJobStatus status) {
+        return SummaryJob.builder()
+                         .id(ID)
+                         .status(status)
+                         .startDate(Instant.EPOCH)
+                         .endDate(Instant.EPOCH)
+                         .submittedAt(Instant.EPOCH)
+                         .build();
+    }
+
+    private static TagSummary summary(String epc) {
+        return TagSummary.builder()
+                         .epc(epc)
+                         .totalReadCount(1)
+                         .averageRssi(-40.0)
+                         .peakRssi(-40.0)
+                         .locationCount(1)
+                         .mostDetectedLocation("Dock1")
+                         .build();
+    }
+}
@@ -0,0 +1,181 @@
+package com.anexya.app.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.anexya.app.api.BatchCreateResponse;
+import com.anexya.app.api.CreateTagReadRequest;
+import com.anexya.app.api.mapper.TagReadRequestMapper;
+import com.anexya.app.domain.TagReadCreate;
+import com.anexya.app.domain.TagReadWriteResult;
+import com.anexya.app.service.TagReadService;
+import com.anexya.app.web.InvalidRequestException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+
+@ExtendWith(MockitoExtension.class)
+class TagReadBatchIngestorTest {
+    @Mock
+    private TagReadService tagReadService;
+
+    private ValidatorFactory validatorFactory;
+    private TagReadBatchIngestor ingestor;
+
+    @BeforeEach
+    void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        ingestor = new TagReadBatchIngestor(tagReadService,
+                                            Mappers.getMapper(TagReadRequestMapper.class),
+                                            validatorFactory.getValidator(),
+                                            new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(ingestor, "maxBatchItems", 3);
+        ReflectionTestUtils.setField(ingestor, "streamChunkSize", 2);
+        ReflectionTestUtils.setField(ingestor, "maxLineLength", 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void ingest_shouldRejectInvalidItemsAndSaveTheRest() {
+        UUID first = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        when(tagReadService.createAll(anyList())).thenReturn(List.of(TagReadWriteResult.saved(0, first), TagReadWriteResult.failed(1, third, "duplicate")));
+
+        BatchCreateResponse response = ingestor.ingest(List.of(valid("EPC1"),
+                                                               CreateTagReadRequest.builder()
+                                                                                   .siteName(" ")
+                                                                                   .epc("EPC2")
+                                                                                   .referenceCode("REF")
+                                                                                   .location("Dock")
+                                                                                   .rssi(-40.0)
+                                                                                   .readAt(Instant.EPOCH)
+                                                                                   .build(),
+                                                               valid("EPC3")));
+
+        assertThat(response.saved()).isEqualTo(1);
+        assertThat(response.rejected()).isEqualTo(1);
+        assertThat(response.failed()).isEqualTo(1);
+        assertThat(response.results()).extracting(r -> r.index() + ":" + r.status())
+                                      .containsExactly("0:SAVED", "1:REJECTED", "2:FAILED");
+        assertThat(response.results()
+                           .get(1)
+                           .error()).contains("siteName");
+        assertThat(response.results()
+                           .get(2)
+                           .id()).isEqualTo(third);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TagReadCreate>> captor = ArgumentCaptor.forClass(List.class);
+        verify(tagReadService).createAll(captor.capture());
+        assertThat(captor.getValue()).extracting(TagReadCreate::epc)
+                                     .containsExactly("EPC1", "EPC3");
+    }
+
+    @Test
+    void ingest_shouldRejectNullItems() {
+        when(tagReadService.createAll(anyList())).thenReturn(List.of());
+        List<CreateTagReadRequest> requests = new ArrayList<>(Collections.singletonList(null));
+
+        BatchCreateResponse response = ingestor.ingest(requests);
+
+        assertThat(response.rejected()).isEqualTo(1);
+    }
+
+    @Test
+    void ingest_shouldFailForEmptyOrOversizedBatches() {
+        assertThatThrownBy(() -> ingestor.ingest(List.of())).isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> ingestor.ingest(null)).isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> ingestor.ingest(List.of(valid("1"), valid("2"), valid("3"), valid("4")))).isInstanceOf(InvalidRequestException.class);
+    }
+
+    @Test
+    void ingestNdjson_shouldFlushInChunksAndReportEveryLine() throws Exception {
+        when(tagReadService.createAll(anyList())).thenAnswer(inv -> {
+            List<TagReadCreate> creates = inv.getArgument(0);
+            return IntStream.range(0, creates.size())
+                            .mapToObj(i -> TagReadWriteResult.saved(i, UUID.randomUUID()))
+                            .toList();
+        });
+        String body = String.join("\n",
+                                  line("EPC1"),
+                                  "",
+                                  "{not json",
+                                  line("EPC2"),
+                                  line("EPC3"),
+                                  "{\"epc\":\"EPC4\"}");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ingestor.ingestNdjson(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8)
+                                .lines()
+                                .toList();
+        assertThat(lines).hasSize(5);
+        assertThat(lines.get(0)).contains("\"index\":0", "SAVED");
+        assertThat(lines.get(1)).contains("\"index\":2", "REJECTED", "malformed JSON");
+        assertThat(lines.get(2)).contains("\"index\":3", "SAVED");
+        assertThat(lines.get(3)).contains("\"index\":4", "SAVED");
+        assertThat(lines.get(4)).contains("\"index\":5", "REJECTED");
+        verify(tagReadService, times(3)).createAll(anyList());
+    }
+
+    @Test
+    void ingestNdjson_shouldRejectOverlongLines() throws Exception {
+        when(tagReadService.createAll(anyList())).thenAnswer(inv -> List.of(TagReadWriteResult.saved(0, UUID.randomUUID())));
+        String body = line("EPC1") + "\n" + line("E".repeat(10_000));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ingestor.ingestNdjson(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8)
+                                .lines()
+                                .toList();
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).contains("\"index\":0", "SAVED");
+        assertThat(lines.get(1)).contains("\"index\":1", "REJECTED", "exceeds 1000 characters");
+    }
+
+    private static String line(String epc) {
+        return "{\"siteName\":\"Site\",\"epc\":\"" + epc + "\",\"referenceCode\":\"REF\",\"location\":\"Dock\",\"rssi\":-40.0,\"readAt\":\"2024-01-01T00:00:00Z\"}";
+    }
+
+    private static CreateTagReadRequest valid(String epc) {
+        return CreateTagReadRequest.builder()
+                                   .siteName("Site")
+                                   .epc(epc)
+                                   .referenceCode("REF")
+                                   .location("Dock")
+                                   .rssi(-40.0)
+                                   .readAt(Instant.parse("2024-01-01T00:00:00Z"))
+                                   .build();
+    }
+}
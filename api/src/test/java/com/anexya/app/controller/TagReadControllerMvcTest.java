@@ -6,16 +6,20 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -30,15 +34,25 @@ import org.springframework.context.annotation.FilterType;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import com.anexya.app.api.BatchCreateResponse;
+import com.anexya.app.api.BatchItemResponse;
+import com.anexya.app.api.ProjectedTagReadResponse;
 import com.anexya.app.api.TagReadResponse;
 import com.anexya.app.api.TagSummaryResponse;
+import com.anexya.app.api.mapper.DimensionSummaryMapper;
+import com.anexya.app.api.mapper.TagCurrentStateMapper;
 import com.anexya.app.api.mapper.TagReadMapper;
 import com.anexya.app.api.mapper.TagReadRequestMapper;
 import com.anexya.app.api.mapper.TagSummaryMapper;
+import com.anexya.app.api.mapper.TimeseriesBucketMapper;
 import com.anexya.app.domain.TagRead;
 import com.anexya.app.service.AggregationStrategy;
 import com.anexya.app.service.TagReadService;
+import com.anexya.app.service.TimeseriesService;
 import com.anexya.app.domain.TagReadCreate;
+import com.anexya.app.domain.TagReadCursor;
+import com.anexya.app.domain.TagReadFilter;
+import com.anexya.app.domain.TagReadPage;
 import com.anexya.app.domain.TagReadUpdate;
 import com.anexya.app.domain.TagSummary;
 import com.anexya.app.web.RequestLoggingFilter;
@@ -74,6 +88,24 @@ class TagReadControllerMvcTest {
     @MockBean
     private TagReadRequestMapper tagReadRequestMapper;
 
+    @MockBean
+    private TagReadBatchIngestor batchIngestor;
+
+    @MockBean
+    private TagReadSearchStreamer searchStreamer;
+
+    @MockBean
+    private TagCurrentStateMapper tagCurrentStateMapper;
+
+    @MockBean
+    private TimeseriesService timeseriesService;
+
+    @MockBean
+    private TimeseriesBucketMapper timeseriesBucketMapper;
+
+    @MockBean
+    private DimensionSummaryMapper dimensionSummaryMapper;
+
     @Test
     void createAndGet_shouldReturnCreatedAndFetched() throws Exception {
 
@@ -150,25 +182,62 @@ class TagReadControllerMvcTest {
                                .rssi(-40.0)
                                .readAt(Instant.EPOCH)
                                .build();
-        TagReadResponse dto = TagReadResponse.builder()
-                                             .id(id)
-                                             .epc("EPC-FILTER")
-                                             .siteName("S")
-                                             .referenceCode("REF")
-                                             .location("Dock")
-                                             .rssi(-40.0)
-                                             .readAt(Instant.EPOCH)
-                                             .build();
-        when(tagReadService.findByFilters(Optional.of("EPC-FILTER"), Optional.of("Dock"), Optional.empty())).thenReturn(List.of(found));
-        when(tagReadMapper.toResponse(found)).thenReturn(dto);
+        ProjectedTagReadResponse dto = ProjectedTagReadResponse.builder()
+                                                               .id(id)
+                                                               .epc("EPC-FILTER")
+                                                               .siteName("S")
+                                                               .referenceCode("REF")
+                                                               .location("Dock")
+                                                               .rssi(-40.0)
+                                                               .readAt(Instant.EPOCH)
+                                                               .build();
+        TagReadFilter filter = TagReadFilter.builder()
+                                            .epc("EPC-FILTER")
+                                            .location("Dock")
+                                            .build();
+        TagReadCursor next = new TagReadCursor(Instant.EPOCH, id);
+        when(tagReadService.search(filter, Optional.empty(), 1)).thenReturn(new TagReadPage(List.of(found), Optional.of(next)));
+        when(tagReadMapper.toProjectedResponse(found)).thenReturn(dto);
 
         mockMvc.perform(get("/api/tag-reads/search").param("epc", "EPC-FILTER")
-                                                    .param("location", "Dock"))
+                                                    .param("location", "Dock")
+                                                    .param("limit", "1"))
                .andExpect(status().isOk())
                .andExpect(jsonPath("$", hasSize(1)))
-               .andExpect(jsonPath("$[0].epc", equalTo("EPC-FILTER")));
+               .andExpect(jsonPath("$[0].epc", equalTo("EPC-FILTER")))
+               .andExpect(header().string("X-Next-Cursor", TagReadCursorCodec.encode(next)));
+
+        verify(tagReadService).search(filter, Optional.empty(), 1);
+    }
 
-        verify(tagReadService).findByFilters(Optional.of("EPC-FILTER"), Optional.of("Dock"), Optional.empty());
+    @Test
+    void createBatch_shouldReturnPerItemResults() throws Exception {
+        UUID id = UUID.randomUUID();
+        when(batchIngestor.ingest(any())).thenReturn(BatchCreateResponse.builder()
+                                                                        .saved(1)
+                                                                        .rejected(1)
+                                                                        .results(List.of(BatchItemResponse.builder()
+                                                                                                          .index(0)
+                                                                                                          .id(id)
+                                                                                                          .status("SAVED")
+                                                                                                          .build(),
+                                                                                         BatchItemResponse.builder()
+                                                                                                          .index(1)
+                                                                                                          .status("REJECTED")
+                                                                                                          .error("siteName must not be blank")
+                                                                                                          .build()))
+                                                                        .build());
+
+        String payload = "[{\"siteName\":\"S\",\"epc\":\"E\",\"referenceCode\":\"R\",\"location\":\"L\",\"rssi\":-40.0,\"readAt\":\"2024-01-01T00:00:00Z\"},"
+                + "{\"epc\":\"E\",\"referenceCode\":\"R\",\"location\":\"L\",\"rssi\":-40.0,\"readAt\":\"2024-01-01T00:00:00Z\"}]";
+
+        mockMvc.perform(post("/api/tag-reads/batch").contentType(MediaType.APPLICATION_JSON)
+                                                    .content(payload))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.saved", equalTo(1)))
+               .andExpect(jsonPath("$.rejected", equalTo(1)))
+               .andExpect(jsonPath("$.results[0].id", equalTo(id.toString())))
+               .andExpect(jsonPath("$.results[1].status", equalTo("REJECTED")));
     }
 
     @Test
@@ -269,6 +338,23 @@ class TagReadControllerMvcTest {
                .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void searchStream_shouldRejectAnInvertedRangeBeforeStreaming() throws Exception {
+        mockMvc.perform(get("/api/tag-reads/search/stream").param("from", "2024-03-02T00:00:00Z")
+                                                           .param("to", "2024-03-01T00:00:00Z"))
+               .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(searchStreamer);
+    }
+
+    @Test
+    void timeseries_shouldRejectUnknownBucket() throws Exception {
+        mockMvc.perform(get("/api/tag-reads/summary/timeseries").param("startDate", "2024-03-01T00:00:00Z")
+                                                                .param("endDate", "2024-03-02T00:00:00Z")
+                                                                .param("bucket", "15m"))
+               .andExpect(status().isBadRequest());
+    }
+
     @Test
     void get_shouldReturnBadRequestForInvalidUuid() throws Exception {
         mockMvc.perform(get("/api/tag-reads/not-a-uuid"))
@@ -277,12 +363,104 @@ class TagReadControllerMvcTest {
 
     @Test
     void search_shouldHandleEmptyFilters() throws Exception {
-        when(tagReadService.findByFilters(Optional.empty(), Optional.empty(), Optional.empty())).thenReturn(List.of());
+        TagReadFilter empty = TagReadFilter.builder()
+                                           .build();
+        when(tagReadService.search(empty, Optional.empty(), 100)).thenReturn(new TagReadPage(List.of(), Optional.empty()));
 
         mockMvc.perform(get("/api/tag-reads/search"))
                .andExpect(status().isOk())
-               .andExpect(jsonPath("$", hasSize(0)));
+               .andExpect(jsonPath("$", hasSize(0)))
+               .andExpect(header().doesNotExist("X-Next-Cursor"));
+
+        verify(tagReadService).search(empty, Optional.empty(), 100);
+    }
+
+    @Test
+    void search_shouldBindTimeRange() throws Exception {
+        TagReadFilter filter = TagReadFilter.builder()
+                                            .from(Instant.parse("2024-01-01T00:00:00Z"))
+                                            .to(Instant.parse("2024-03-31T23:59:59Z"))
+                                            .build();
+        when(tagReadService.search(filter, Optional.empty(), 100)).thenReturn(new TagReadPage(List.of(), Optional.empty()));
+
+        mockMvc.perform(get("/api/tag-reads/search").param("from", "2024-01-01T00:00:00Z")
+                                                    .param("to", "2024-03-31T23:59:59Z"))
+               .andExpect(status().isOk());
+
+        verify(tagReadService).search(filter, Optional.empty(), 100);
+    }
+
+    @Test
+    void search_shouldReturnBadRequestForMalformedCursor() throws Exception {
+        mockMvc.perform(get("/api/tag-reads/search").param("cursor", "%%%"))
+               .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void findByReferenceCode_shouldReturnMappedList() throws Exception {
+        UUID id = UUID.randomUUID();
+        TagRead found = TagRead.builder()
+                               .id(id)
+                               .siteName("S")
+                               .epc("EPC")
+                               .referenceCode("REF-1")
+                               .location("Dock")
+                               .rssi(-40.0)
+                               .readAt(Instant.EPOCH)
+                               .build();
+        when(tagReadService.findByReferenceCode("REF-1")).thenReturn(List.of(found));
+        when(tagReadMapper.toResponse(found)).thenReturn(TagReadResponse.builder()
+                                                                        .id(id)
+                                                                        .referenceCode("REF-1")
+                                                                        .build());
+
+        mockMvc.perform(get("/api/tag-reads/by-reference/REF-1"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$", hasSize(1)))
+               .andExpect(jsonPath("$[0].referenceCode", equalTo("REF-1")));
+    }
+
+    @Test
+    void current_shouldReturnNotFoundForUnknownEpc() throws Exception {
+        when(tagReadService.current("UNKNOWN")).thenThrow(new TagReadNotFoundException("UNKNOWN"));
 
-        verify(tagReadService).findByFilters(Optional.empty(), Optional.empty(), Optional.empty());
+        mockMvc.perform(get("/api/tag-reads/current/UNKNOWN"))
+               .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void currentBatch_shouldRejectEmptyEpcList() throws Exception {
+        mockMvc.perform(post("/api/tag-reads/current").contentType(MediaType.APPLICATION_JSON)
+                                                      .content("{\"epcs\":[]}"))
+               .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchBatch_shouldGroupResultsPerEpc() throws Exception {
+        UUID id = UUID.randomUUID();
+        TagRead found = TagRead.builder()
+                               .id(id)
+                               .epc("EPC1")
+                               .readAt(Instant.EPOCH)
+                               .build();
+        TagReadFilter filter = TagReadFilter.builder()
+                                            .siteName("S")
+                                            .from(Instant.parse("2024-01-01T00:00:00Z"))
+                                            .build();
+        Map<String, List<TagRead>> grouped = new LinkedHashMap<>();
+        grouped.put("EPC1", List.of(found));
+        grouped.put("EPC2", List.of());
+        when(tagReadService.searchByEpcs(List.of("EPC1", "EPC2"), filter, 5)).thenReturn(grouped);
+        when(tagReadMapper.toProjectedResponse(found)).thenReturn(ProjectedTagReadResponse.builder()
+                                                                                          .id(id)
+                                                                                          .epc("EPC1")
+                                                                                          .build());
+
+        mockMvc.perform(post("/api/tag-reads/search/batch").contentType(MediaType.APPLICATION_JSON)
+                                                           .content("{\"epcs\":[\"EPC1\",\"EPC2\"],\"siteName\":\"S\",\"from\":\"2024-01-01T00:00:00Z\",\"limitPerEpc\":5}"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.EPC1", hasSize(1)))
+               .andExpect(jsonPath("$.EPC1[0].id", equalTo(id.toString())))
+               .andExpect(jsonPath("$.EPC2", hasSize(0)));
     }
 }
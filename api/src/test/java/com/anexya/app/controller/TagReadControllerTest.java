@@ -3,10 +3,13 @@ package com.anexya.app.controller;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -19,20 +22,42 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 
+import com.anexya.app.api.BatchCreateResponse;
 import com.anexya.app.api.CreateTagReadRequest;
+import com.anexya.app.api.CurrentStateBatchRequest;
+import com.anexya.app.api.DimensionSummaryResponse;
+import com.anexya.app.api.ProjectedTagReadResponse;
+import com.anexya.app.api.TagCurrentStateResponse;
 import com.anexya.app.api.TagReadResponse;
 import com.anexya.app.api.TagSummaryResponse;
+import com.anexya.app.api.TimeseriesBucketResponse;
 import com.anexya.app.api.UpdateTagReadRequest;
+import com.anexya.app.api.mapper.DimensionSummaryMapper;
+import com.anexya.app.api.mapper.TagCurrentStateMapper;
 import com.anexya.app.api.mapper.TagReadMapper;
 import com.anexya.app.api.mapper.TagReadRequestMapper;
 import com.anexya.app.api.mapper.TagSummaryMapper;
+import com.anexya.app.api.mapper.TimeseriesBucketMapper;
+import com.anexya.app.domain.BucketWidth;
+import com.anexya.app.domain.DimensionSummary;
+import com.anexya.app.domain.SummaryDimension;
+import com.anexya.app.domain.TagCurrentState;
 import com.anexya.app.domain.TagRead;
 import com.anexya.app.service.AggregationStrategy;
 import com.anexya.app.service.TagReadService;
+import com.anexya.app.service.TimeseriesService;
 import com.anexya.app.domain.TagReadCreate;
+import com.anexya.app.domain.TagReadCursor;
+import com.anexya.app.domain.TagReadField;
+import com.anexya.app.domain.TagReadFilter;
+import com.anexya.app.domain.TagReadPage;
 import com.anexya.app.domain.TagReadUpdate;
 import com.anexya.app.domain.TagSummary;
+import com.anexya.app.domain.TimeseriesBucket;
+import com.anexya.app.web.InvalidRequestException;
 import com.anexya.app.web.TagReadNotFoundException;
 
 /**
@@ -47,9 +72,21 @@ class TagReadControllerTest {
     @Mock
     private AggregationStrategy aggregationStrategy;
 
+    @Mock
+    private TagReadBatchIngestor batchIngestor;
+
+    @Mock
+    private TagReadSearchStreamer searchStreamer;
+
+    @Mock
+    private TimeseriesService timeseriesService;
+
     private TagReadMapper tagReadMapper;
     private TagSummaryMapper tagSummaryMapper;
     private TagReadRequestMapper tagReadRequestMapper;
+    private TagCurrentStateMapper tagCurrentStateMapper;
+    private TimeseriesBucketMapper timeseriesBucketMapper;
+    private DimensionSummaryMapper dimensionSummaryMapper;
     private TagReadController controller;
 
     @BeforeEach
@@ -57,7 +94,20 @@ class TagReadControllerTest {
         tagReadMapper = Mappers.getMapper(TagReadMapper.class);
         tagSummaryMapper = Mappers.getMapper(TagSummaryMapper.class);
         tagReadRequestMapper = Mappers.getMapper(TagReadRequestMapper.class);
-        controller = new TagReadController(tagReadService, aggregationStrategy, tagReadMapper, tagSummaryMapper, tagReadRequestMapper);
+        tagCurrentStateMapper = Mappers.getMapper(TagCurrentStateMapper.class);
+        timeseriesBucketMapper = Mappers.getMapper(TimeseriesBucketMapper.class);
+        dimensionSummaryMapper = Mappers.getMapper(DimensionSummaryMapper.class);
+        controller = new TagReadController(tagReadService,
+                                           aggregationStrategy,
+                                           tagReadMapper,
+                                           tagSummaryMapper,
+                                           tagReadRequestMapper,
+                                           batchIngestor,
+                                           searchStreamer,
+                                           tagCurrentStateMapper,
+                                           timeseriesService,
+                                           timeseriesBucketMapper,
+                                           dimensionSummaryMapper);
     }
 
     @Test
@@ -89,12 +139,71 @@ class TagReadControllerTest {
         TagRead domain = TagRead.builder()
                                 .id(UUID.randomUUID())
                                 .build();
-        when(tagReadService.findByFilters(Optional.of("epc"), Optional.of("loc"), Optional.of("site"))).thenReturn(List.of(domain));
+        TagReadFilter filter = TagReadFilter.builder()
+                                            .epc("epc")
+                                            .location("loc")
+                                            .siteName("site")
+                                            .build();
+        when(tagReadService.search(filter, Optional.empty(), 50)).thenReturn(new TagReadPage(List.of(domain), Optional.empty()));
+
+        ResponseEntity<List<ProjectedTagReadResponse>> response = controller.search("epc", "loc", "site", null, null, null, null, 50);
+
+        assertThat(response.getBody()).containsExactly(tagReadMapper.toProjectedResponse(domain));
+        assertThat(response.getHeaders()
+                           .containsKey(TagReadController.NEXT_CURSOR_HEADER)).isFalse();
+    }
+
+    @Test
+    void searchShouldPassTheTimeRange() {
+        Instant from = Instant.parse("2024-01-01T00:00:00Z");
+        Instant to = Instant.parse("2024-02-01T00:00:00Z");
+        TagReadFilter filter = TagReadFilter.builder()
+                                            .siteName("site")
+                                            .from(from)
+                                            .to(to)
+                                            .build();
+        when(tagReadService.search(filter, Optional.empty(), 10)).thenReturn(new TagReadPage(List.of(), Optional.empty()));
+
+        controller.search(null, null, "site", from, to, null, null, 10);
+
+        verify(tagReadService).search(filter, Optional.empty(), 10);
+    }
+
+    @Test
+    void searchShouldParseFieldProjection() {
+        TagReadFilter filter = TagReadFilter.builder()
+                                            .fields(EnumSet.of(TagReadField.EPC, TagReadField.LOCATION))
+                                            .build();
+        when(tagReadService.search(filter, Optional.empty(), 10)).thenReturn(new TagReadPage(List.of(), Optional.empty()));
+
+        controller.search(null, null, null, null, null, "epc, location", null, 10);
+
+        verify(tagReadService).search(filter, Optional.empty(), 10);
+        assertThatThrownBy(() -> controller.search(null, null, null, null, null, "epc,secret", null, 10)).isInstanceOf(InvalidRequestException.class)
+                                                                                                          .hasMessageContaining("secret");
+    }
+
+    @Test
+    void searchShouldRoundTripTheContinuationToken() {
+        TagReadCursor next = new TagReadCursor(Instant.parse("2024-01-01T00:00:00.123456Z"), UUID.randomUUID());
+        TagReadFilter empty = TagReadFilter.builder()
+                                           .build();
+        when(tagReadService.search(empty, Optional.empty(), 1)).thenReturn(new TagReadPage(List.of(), Optional.of(next)));
+        when(tagReadService.search(empty, Optional.of(next), 1)).thenReturn(new TagReadPage(List.of(), Optional.empty()));
 
-        List<TagReadResponse> results = controller.search("epc", "loc", "site");
+        String token = controller.search(null, null, null, null, null, null, null, 1)
+                                 .getHeaders()
+                                 .getFirst(TagReadController.NEXT_CURSOR_HEADER);
+        controller.search(null, null, null, null, null, null, token, 1);
 
-        assertThat(results).containsExactly(tagReadMapper.toResponse(domain));
-        verify(tagReadService).findByFilters(Optional.of("epc"), Optional.of("loc"), Optional.of("site"));
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+        verify(tagReadService).search(empty, Optional.of(next), 1);
+    }
+
+    @Test
+    void searchShouldRejectMalformedCursor() {
+        assertThatThrownBy(() -> controller.search(null, null, null, null, null, null, "not a cursor", 10)).isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> controller.search(null, null, null, null, null, null, "AAAA", 10)).isInstanceOf(InvalidRequestException.class);
     }
 
     @Test
@@ -119,6 +228,79 @@ class TagReadControllerTest {
         assertThat(response.getBody()).isEqualTo(tagReadMapper.toResponse(domain));
     }
 
+    @Test
+    void createAsyncShouldReturnAccepted() {
+        TagRead domain = TagRead.builder()
+                                .id(UUID.randomUUID())
+                                .build();
+        when(tagReadService.enqueue(any(TagReadCreate.class))).thenReturn(domain);
+
+        var request = CreateTagReadRequest.builder()
+                                          .siteName("site")
+                                          .epc("epc")
+                                          .referenceCode("ref")
+                                          .location("loc")
+                                          .rssi(-40.0)
+                                          .readAt(Instant.parse("2024-01-01T00:00:00Z"))
+                                          .build();
+
+        ResponseEntity<TagReadResponse> response = controller.createAsync(request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        assertThat(response.getBody()).isEqualTo(tagReadMapper.toResponse(domain));
+    }
+
+    @Test
+    void createBatchShouldDelegateToIngestor() {
+        var request = CreateTagReadRequest.builder()
+                                          .siteName("site")
+                                          .epc("epc")
+                                          .referenceCode("ref")
+                                          .location("loc")
+                                          .rssi(-40.0)
+                                          .readAt(Instant.parse("2024-01-01T00:00:00Z"))
+                                          .build();
+        BatchCreateResponse expected = BatchCreateResponse.builder()
+                                                          .saved(1)
+                                                          .results(List.of())
+                                                          .build();
+        when(batchIngestor.ingest(List.of(request))).thenReturn(expected);
+
+        BatchCreateResponse response = controller.createBatch(List.of(request));
+
+        assertThat(response).isSameAs(expected);
+    }
+
+    @Test
+    void createBatchStreamShouldStreamNdjson() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setContent("{}".getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        controller.createBatchStream(request, response);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentType()).isEqualTo("application/x-ndjson");
+        verify(batchIngestor).ingestNdjson(any(), any());
+    }
+
+    @Test
+    void searchStreamShouldWriteJsonAndNdjson() throws Exception {
+        TagReadFilter filter = TagReadFilter.builder()
+                                            .siteName("site")
+                                            .build();
+        MockHttpServletResponse json = new MockHttpServletResponse();
+        MockHttpServletResponse ndjson = new MockHttpServletResponse();
+
+        controller.searchStream(null, null, "site", null, null, null, null, json);
+        controller.searchStream(null, null, "site", null, null, null, "application/x-ndjson", ndjson);
+
+        assertThat(json.getContentType()).isEqualTo("application/json");
+        assertThat(ndjson.getContentType()).isEqualTo("application/x-ndjson");
+        verify(searchStreamer).writeJsonArray(eq(filter), any());
+        verify(searchStreamer).writeNdjson(eq(filter), any());
+    }
+
     @Test
     void updateShouldReturnMappedResponse() {
         UUID id = UUID.randomUUID();
@@ -160,6 +342,60 @@ class TagReadControllerTest {
         assertThat(results).containsExactly(tagSummaryMapper.toResponse(summary));
     }
 
+    @Test
+    void dimensionSummariesShouldUseTheirDimension() {
+        DimensionSummary dock = DimensionSummary.builder()
+                                                .location("Dock1")
+                                                .totalReadCount(4)
+                                                .averageRssi(-40.0)
+                                                .peakRssi(-30.0)
+                                                .epcCount(2)
+                                                .firstSeen(Instant.EPOCH)
+                                                .lastSeen(Instant.EPOCH)
+                                                .build();
+        DimensionSummary site = DimensionSummary.builder()
+                                                .siteName("SiteA")
+                                                .totalReadCount(4)
+                                                .averageRssi(-40.0)
+                                                .peakRssi(-30.0)
+                                                .epcCount(2)
+                                                .firstSeen(Instant.EPOCH)
+                                                .lastSeen(Instant.EPOCH)
+                                                .build();
+        when(aggregationStrategy.summarizeBy(SummaryDimension.LOCATION, Instant.EPOCH, Instant.EPOCH, Optional.of("SiteA"), Optional.empty())).thenReturn(List.of(dock));
+        when(aggregationStrategy.summarizeBy(SummaryDimension.SITE, Instant.EPOCH, Instant.EPOCH, Optional.empty(), Optional.of("EPC1"))).thenReturn(List.of(site));
+        when(aggregationStrategy.summarizeBy(SummaryDimension.SITE_LOCATION, Instant.EPOCH, Instant.EPOCH, Optional.empty(), Optional.empty())).thenReturn(List.of());
+
+        List<DimensionSummaryResponse> byLocation = controller.summarizeByLocation(Instant.EPOCH, Instant.EPOCH, "SiteA", null);
+        List<DimensionSummaryResponse> bySite = controller.summarizeBySite(Instant.EPOCH, Instant.EPOCH, null, "EPC1");
+        List<DimensionSummaryResponse> bySiteLocation = controller.summarizeBySiteLocation(Instant.EPOCH, Instant.EPOCH, null, null);
+
+        assertThat(byLocation).containsExactly(dimensionSummaryMapper.toResponse(dock));
+        assertThat(bySite).containsExactly(dimensionSummaryMapper.toResponse(site));
+        assertThat(bySiteLocation).isEmpty();
+    }
+
+    @Test
+    void timeseriesShouldParseBucketAndMapResponses() {
+        TimeseriesBucket bucket = TimeseriesBucket.builder()
+                                                  .bucketStart(Instant.EPOCH)
+                                                  .readCount(3)
+                                                  .averageRssi(-40.0)
+                                                  .peakRssi(-35.0)
+                                                  .epcCount(2)
+                                                  .build();
+        when(timeseriesService.readRates(Instant.EPOCH, Instant.EPOCH, BucketWidth.ONE_HOUR, Optional.of("s"), Optional.empty(), Optional.empty())).thenReturn(List.of(bucket));
+
+        List<TimeseriesBucketResponse> results = controller.timeseries(Instant.EPOCH, Instant.EPOCH, "1h", "s", null, null);
+
+        assertThat(results).containsExactly(timeseriesBucketMapper.toResponse(bucket));
+    }
+
+    @Test
+    void timeseriesShouldRejectUnknownBucket() {
+        assertThatThrownBy(() -> controller.timeseries(Instant.EPOCH, Instant.EPOCH, "2h", null, null, null)).isInstanceOf(InvalidRequestException.class);
+    }
+
     @Test
     void deleteShouldReturnNoContent() {
         UUID id = UUID.randomUUID();
@@ -169,4 +405,26 @@ class TagReadControllerTest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
         verify(tagReadService).delete(id);
     }
+
+    @Test
+    void current_shouldMapLatestStatePerEpc() {
+        UUID readId = UUID.randomUUID();
+        TagCurrentState state = TagCurrentState.builder()
+                                               .epc("EPC1")
+                                               .siteName("Site")
+                                               .location("Dock 3")
+                                               .rssi(-42.0)
+                                               .readAt(Instant.parse("2024-01-01T00:00:00Z"))
+                                               .tagReadId(readId)
+                                               .build();
+        when(tagReadService.current("EPC1")).thenReturn(state);
+        when(tagReadService.current(List.of("EPC1", "EPC2"))).thenReturn(List.of(state));
+
+        TagCurrentStateResponse single = controller.current("EPC1");
+        List<TagCurrentStateResponse> batch = controller.currentBatch(new CurrentStateBatchRequest(List.of("EPC1", "EPC2")));
+
+        assertThat(single.location()).isEqualTo("Dock 3");
+        assertThat(single.tagReadId()).isEqualTo(readId);
+        assertThat(batch).containsExactly(single);
+    }
 }
@@ -0,0 +1,199 @@
+package com.anexya.app.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import com.anexya.app.api.mapper.TagReadMapper;
+import com.anexya.app.domain.TagRead;
+import com.anexya.app.domain.TagReadField;
+import com.anexya.app.domain.TagReadFilter;
+import com.anexya.app.service.TagReadService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@ExtendWith(MockitoExtension.class)
+class TagReadSearchStreamerTest {
+    private static final TagReadFilter FILTER = TagReadFilter.builder()
+                                                             .epc("EPC1")
+                                                             .build();
+
+    @Mock
+    private TagReadService tagReadService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private TagReadSearchStreamer streamer;
+
+    @BeforeEach
+    void setUp() {
+        streamer = new TagReadSearchStreamer(tagReadService, Mappers.getMapper(TagReadMapper.class), objectMapper);
+    }
+
+    @Test
+    void writeJsonArray_shouldWriteEveryStreamedRow() throws Exception {
+        stubStream(read("Dock1"), read("Dock2"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        streamer.writeJsonArray(FILTER, out);
+
+        JsonNode body = objectMapper.readTree(out.toByteArray());
+        assertThat(body.isArray()).isTrue();
+        assertThat(body).extracting(node -> node.get("location")
+                                                .asText())
+                        .containsExactly("Dock1", "Dock2");
+    }
+
+    @Test
+    void writeJsonArray_shouldWriteEmptyArrayWhenNothingMatches() throws Exception {
+        stubStream();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        streamer.writeJsonArray(FILTER, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("[]");
+    }
+
+    @Test
+    void writeNdjson_shouldWriteOneObjectPerLine() throws Exception {
+        stubStream(read("Dock1"), read("Dock2"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        streamer.writeNdjson(FILTER, out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8)
+                                .lines()
+                                .toList();
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readTree(lines.get(1))
+                               .get("location")
+                               .asText()).isEqualTo("Dock2");
+    }
+
+    @Test
+    void writeNdjson_shouldOmitUnrequestedFieldsWhenProjected() throws Exception {
+        TagReadFilter projected = TagReadFilter.builder()
+                                               .epc("EPC1")
+                                               .fields(EnumSet.of(TagReadField.LOCATION))
+                                               .build();
+        TagRead stored = read("Dock1");
+        stubStream(FILTER, stored);
+        stubStream(projected, stored.toBuilder()
+                                    .siteName(null)
+                                    .epc(null)
+                                    .referenceCode(null)
+                                    .rssi(null)
+                                    .build());
+        ByteArrayOutputStream full = new ByteArrayOutputStream();
+        ByteArrayOutputStream partial = new ByteArrayOutputStream();
+
+        streamer.writeNdjson(FILTER, full);
+        streamer.writeNdjson(projected, partial);
+
+        assertThat(objectMapper.readTree(full.toByteArray())
+                               .fieldNames()).toIterable()
+                                             .containsExactlyInAnyOrder("id", "siteName", "epc", "referenceCode", "location", "rssi", "readAt");
+        assertThat(objectMapper.readTree(partial.toByteArray())
+                               .fieldNames()).toIterable()
+                                             .containsExactlyInAnyOrder("id", "location", "readAt");
+    }
+
+    @Test
+    void writeJsonArray_whenTheStreamFails_shouldLeaveTheArrayOpenAndTheOutputUnclosed() {
+        stubFailingStream(read("Dock1"));
+        TrackingOutputStream out = new TrackingOutputStream();
+
+        assertThatThrownBy(() -> streamer.writeJsonArray(FILTER, out)).isInstanceOf(DataAccessResourceFailureException.class);
+
+        assertThat(out.closed).isFalse();
+        assertThat(out.toString(StandardCharsets.UTF_8)).startsWith("[")
+                                                      .doesNotContain("]");
+        assertThatThrownBy(() -> objectMapper.readTree(out.toByteArray())).isInstanceOf(JsonProcessingException.class);
+    }
+
+    @Test
+    void writeJsonArray_whenTheStreamFailsBeforeAnyRow_shouldNotWriteAnEmptyArray() {
+        stubFailingStream();
+        TrackingOutputStream out = new TrackingOutputStream();
+
+        assertThatThrownBy(() -> streamer.writeJsonArray(FILTER, out)).isInstanceOf(DataAccessResourceFailureException.class);
+
+        assertThat(out.closed).isFalse();
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("[");
+    }
+
+    @Test
+    void writeNdjson_whenTheStreamFails_shouldNotCloseTheOutput() {
+        stubFailingStream(read("Dock1"));
+        TrackingOutputStream out = new TrackingOutputStream();
+
+        assertThatThrownBy(() -> streamer.writeNdjson(FILTER, out)).isInstanceOf(DataAccessResourceFailureException.class);
+
+        assertThat(out.closed).isFalse();
+    }
+
+    private void stubFailingStream(TagRead... reads) {
+        doAnswer(inv -> {
+            Consumer<TagRead> consumer = inv.getArgument(1);
+            for (TagRead read : reads) {
+                consumer.accept(read);
+            }
+            throw new DataAccessResourceFailureException("connection lost");
+        }).when(tagReadService)
+          .stream(eq(FILTER), any());
+    }
+
+    private void stubStream(TagRead... reads) {
+        stubStream(FILTER, reads);
+    }
+
+    private void stubStream(TagReadFilter filter, TagRead... reads) {
+        doAnswer(inv -> {
+            Consumer<TagRead> consumer = inv.getArgument(1);
+            for (TagRead read : reads) {
+                consumer.accept(read);
+            }
+            return null;
+        }).when(tagReadService)
+          .stream(eq(filter), any());
+    }
+
+    private static final class TrackingOutputStream extends ByteArrayOutputStream {
+        private boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static TagRead read(String location) {
+        return TagRead.builder()
+                      .id(UUID.randomUUID())
+                      .siteName("Site")
+                      .epc("EPC1")
+                      .referenceCode("REF")
+                      .location(location)
+                      .rssi(-40.0)
+                      .readAt(Instant.parse("2024-01-01T00:00:00Z"))
+                      .build();
+    }
+}
@@ -0,0 +1,80 @@
+package com.anexya.app.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.anexya.app.api.DwellSummaryResponse;
+import com.anexya.app.api.TagVisitResponse;
+import com.anexya.app.api.mapper.TagVisitMapper;
+import com.anexya.app.domain.DwellSummary;
+import com.anexya.app.domain.TagVisit;
+import com.anexya.app.service.VisitService;
+
+@ExtendWith(MockitoExtension.class)
+class TagVisitControllerTest {
+    @Mock
+    private VisitService visitService;
+
+    private TagVisitController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new TagVisitController(visitService, Mappers.getMapper(TagVisitMapper.class));
+    }
+
+    @Test
+    void visitsShouldMapDwellAndTimestamps() {
+        TagVisit visit = TagVisit.builder()
+                                 .epc("EPC1")
+                                 .siteName("SiteA")
+                                 .location("Dock1")
+                                 .enterAt(Instant.parse("2024-01-10T10:00:00Z"))
+                                 .exitAt(Instant.parse("2024-01-10T10:20:00.5Z"))
+                                 .readCount(3)
+                                 .averageRssi(-42.0)
+                                 .peakRssi(-40.0)
+                                 .open(true)
+                                 .build();
+        when(visitService.visits("EPC1", Optional.empty(), Optional.of(Instant.EPOCH), 10)).thenReturn(List.of(visit));
+
+        List<TagVisitResponse> result = controller.visits("EPC1", null, Instant.EPOCH, 10);
+
+        assertThat(result).singleElement()
+                          .satisfies(response -> {
+                              assertThat(response.enterAt()).isEqualTo("2024-01-10T10:00:00Z");
+                              assertThat(response.exitAt()).isEqualTo("2024-01-10T10:20:00.500Z");
+                              assertThat(response.dwellSeconds()).isEqualTo(1200.5);
+                              assertThat(response.open()).isTrue();
+                          });
+    }
+
+    @Test
+    void dwellShouldPassFiltersAndMapSummaries() {
+        DwellSummary summary = DwellSummary.builder()
+                                           .siteName("SiteA")
+                                           .location("Dock1")
+                                           .visitCount(2)
+                                           .epcCount(2)
+                                           .averageDwellSeconds(900.0)
+                                           .maxDwellSeconds(1200.0)
+                                           .totalDwellSeconds(1800.0)
+                                           .build();
+        when(visitService.dwellTimes(Instant.EPOCH, Instant.EPOCH, Optional.of("SiteA"), Optional.empty())).thenReturn(List.of(summary));
+
+        List<DwellSummaryResponse> result = controller.dwell(Instant.EPOCH, Instant.EPOCH, "SiteA", null);
+
+        assertThat(result).containsExactly(Mappers.getMapper(TagVisitMapper.class)
+                                                  .toResponse(summary));
+    }
+}
@@ -0,0 +1,47 @@
+package com.anexya.app.crypto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+class ReferenceCodeBlindIndexTest {
+    private static final String KEY = Base64.getEncoder()
+                                            .encodeToString(new byte[32]);
+
+    @Test
+    void hash_shouldBeDeterministicPerKeyAndCode() {
+        ReferenceCodeBlindIndex index = new ReferenceCodeBlindIndex(KEY);
+
+        byte[] first = index.hash("REF-1")
+                            .orElseThrow();
+
+        assertThat(first).hasSize(32);
+        assertThat(index.hash("REF-1")
+                        .orElseThrow()).isEqualTo(first);
+        assertThat(index.hash("REF-2")
+                        .orElseThrow()).isNotEqualTo(first);
+    }
+
+    @Test
+    void hash_shouldDependOnKey() {
+        byte[] otherKey = new byte[32];
+        otherKey[0] = 1;
+        ReferenceCodeBlindIndex index = new ReferenceCodeBlindIndex(KEY);
+        ReferenceCodeBlindIndex other = new ReferenceCodeBlindIndex(Base64.getEncoder()
+                                                                          .encodeToString(otherKey));
+
+        assertThat(other.hash("REF-1")
+                        .orElseThrow()).isNotEqualTo(index.hash("REF-1")
+                                                          .orElseThrow());
+    }
+
+    @Test
+    void hash_shouldBeEmptyWithoutKey() {
+        ReferenceCodeBlindIndex index = new ReferenceCodeBlindIndex("");
+
+        assertThat(index.isEnabled()).isFalse();
+        assertThat(index.hash("REF-1")).isEmpty();
+    }
+}
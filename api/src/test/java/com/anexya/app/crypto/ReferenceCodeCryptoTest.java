@@ -0,0 +1,118 @@
+package com.anexya.app.crypto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.anexya.app.cloud.CloudServiceFactory;
+import com.anexya.app.cloud.local.LocalKeyManagementService;
+import com.anexya.app.util.MutableClock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ReferenceCodeCryptoTest {
+    private static final String KEY_ID = "alias/reference-codes";
+
+    @Mock
+    private ObjectProvider<CloudServiceFactory> cloudFactoryProvider;
+
+    @Mock
+    private CloudServiceFactory cloudFactory;
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+    private final LocalKeyManagementService kms = spy(new LocalKeyManagementService(Base64.getEncoder()
+                                                                                          .encodeToString(new byte[32])));
+    private ReferenceCodeCrypto crypto;
+
+    @BeforeEach
+    void setUp() {
+        when(cloudFactoryProvider.getIfAvailable()).thenReturn(cloudFactory);
+        when(cloudFactory.kms()).thenReturn(Optional.of(kms));
+        crypto = crypto(ReferenceCodeCrypto.Mode.ENVELOPE);
+    }
+
+    @Test
+    void envelope_shouldRoundTripWithOneKmsCallPerDataKey() {
+        String first = crypto.encrypt("REF-1");
+        String second = crypto.encrypt("REF-2");
+
+        assertThat(first).startsWith(EnvelopeCipher.PREFIX)
+                         .isNotEqualTo(second);
+        assertThat(crypto.decrypt(first)).isEqualTo("REF-1");
+        assertThat(crypto.decrypt(second)).isEqualTo("REF-2");
+        verify(kms, times(1)).encrypt(any(), eq(KEY_ID));
+        verify(kms, times(0)).decrypt(any(), any());
+    }
+
+    @Test
+    void envelope_shouldRotateDataKeyAfterTtlAndUnwrapOnCacheMiss() {
+        String beforeRotation = crypto.encrypt("REF-1");
+        clock.advance(Duration.ofMinutes(6));
+        crypto.encrypt("REF-2");
+
+        ReferenceCodeCrypto coldReader = crypto(ReferenceCodeCrypto.Mode.ENVELOPE);
+        assertThat(coldReader.decrypt(beforeRotation)).isEqualTo("REF-1");
+        assertThat(coldReader.decrypt(beforeRotation)).isEqualTo("REF-1");
+
+        verify(kms, times(2)).encrypt(any(), eq(KEY_ID));
+        verify(kms, times(1)).decrypt(any(), eq(KEY_ID));
+    }
+
+    @Test
+    void decrypt_shouldStillReadLegacyKmsRowsInEnvelopeMode() {
+        String legacy = crypto(ReferenceCodeCrypto.Mode.KMS).encrypt("REF-OLD");
+
+        assertThat(legacy).doesNotStartWith(EnvelopeCipher.PREFIX);
+        assertThat(crypto.decrypt(legacy)).isEqualTo("REF-OLD");
+    }
+
+    @Test
+    void decrypt_shouldRejectTamperedEnvelope() {
+        String stored = crypto.encrypt("REF-1");
+        byte[] raw = Base64.getDecoder()
+                           .decode(stored.substring(EnvelopeCipher.PREFIX.length()));
+        raw[raw.length - 1] ^= 1;
+        String tampered = EnvelopeCipher.PREFIX + Base64.getEncoder()
+                                                        .encodeToString(raw);
+
+        assertThatThrownBy(() -> crypto.decrypt(tampered)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldPassThroughWhenNoKeyConfigured() {
+        ReflectionTestUtils.setField(crypto, "keyId", "");
+
+        assertThat(crypto.encrypt("REF")).isEqualTo("REF");
+        assertThat(crypto.decrypt("REF")).isEqualTo("REF");
+        assertThat(crypto.encrypt(null)).isNull();
+    }
+
+    private ReferenceCodeCrypto crypto(ReferenceCodeCrypto.Mode mode) {
+        ReferenceCodeCrypto instance = new ReferenceCodeCrypto(cloudFactoryProvider, new EnvelopeCipher(new SimpleMeterRegistry(), Duration.ofMinutes(5), 16, clock));
+        ReflectionTestUtils.setField(instance, "keyId", KEY_ID);
+        ReflectionTestUtils.setField(instance, "mode", mode);
+        return instance;
+    }
+}
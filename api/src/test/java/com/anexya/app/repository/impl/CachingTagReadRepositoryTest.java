@@ -0,0 +1,164 @@
+package com.anexya.app.repository.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.anexya.app.domain.TagRead;
+import com.anexya.app.domain.TagReadWriteResult;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class CachingTagReadRepositoryTest {
+    @Mock
+    private JdbcTagReadRepository delegate;
+
+    @Mock
+    private TagReadInvalidationLog invalidationLog;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CachingTagReadRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new CachingTagReadRepository(delegate, invalidationLog, meterRegistry, true, 100, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void findById_shouldServeRepeatedLookupsFromCache() {
+        TagRead read = read(UUID.randomUUID(), "REF");
+        when(delegate.findById(read.id())).thenReturn(Optional.of(read));
+
+        assertThat(repository.findById(read.id())).contains(read);
+        assertThat(repository.findById(read.id())).contains(read);
+
+        verify(delegate, times(1)).findById(read.id());
+        assertThat(meterRegistry.counter("cache.gets", "cache", "tag-reads", "result", "hit")
+                                .count()).isEqualTo(1.0);
+        assertThat(meterRegistry.counter("cache.gets", "cache", "tag-reads", "result", "miss")
+                                .count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void findById_shouldNotCacheMisses() {
+        UUID id = UUID.randomUUID();
+        when(delegate.findById(id)).thenReturn(Optional.empty());
+
+        assertThat(repository.findById(id)).isEmpty();
+        assertThat(repository.findById(id)).isEmpty();
+
+        verify(delegate, times(2)).findById(id);
+    }
+
+    @Test
+    void save_shouldRefreshCachedValueAndPublish() {
+        UUID id = UUID.randomUUID();
+        TagRead updated = read(id, "NEW");
+        when(delegate.findById(id)).thenReturn(Optional.of(read(id, "OLD")));
+        when(delegate.save(updated)).thenReturn(updated);
+        repository.findById(id);
+
+        repository.save(updated);
+
+        assertThat(repository.findById(id)).contains(updated);
+        verify(delegate, times(1)).findById(id);
+        verify(invalidationLog).publish(List.of(id));
+    }
+
+    @Test
+    void findById_shouldNotCacheAReadThatRacedAWrite() {
+        UUID id = UUID.randomUUID();
+        TagRead stale = read(id, "OLD");
+        when(delegate.findById(id)).thenAnswer(inv -> {
+            // another request deletes the row while this load is in flight
+            repository.deleteById(id);
+            return Optional.of(stale);
+        });
+
+        assertThat(repository.findById(id)).contains(stale);
+        repository.findById(id);
+
+        verify(delegate, times(2)).findById(id);
+    }
+
+    @Test
+    void deleteAndSaveAll_shouldDropCachedValues() {
+        TagRead first = read(UUID.randomUUID(), "A");
+        TagRead second = read(UUID.randomUUID(), "B");
+        when(delegate.findById(first.id())).thenReturn(Optional.of(first));
+        when(delegate.findById(second.id())).thenReturn(Optional.of(second));
+        when(delegate.saveAll(List.of(second))).thenReturn(List.of(TagReadWriteResult.saved(0, second.id())));
+        repository.findById(first.id());
+        repository.findById(second.id());
+
+        repository.deleteById(first.id());
+        repository.saveAll(List.of(second));
+        repository.findById(first.id());
+        repository.findById(second.id());
+
+        verify(delegate, times(2)).findById(first.id());
+        verify(delegate, times(2)).findById(second.id());
+        verify(invalidationLog).publish(List.of(first.id()));
+        verify(invalidationLog).publish(List.of(second.id()));
+    }
+
+    @Test
+    void subscribe_shouldDropEntriesChangedByOtherInstances() {
+        TagRead read = read(UUID.randomUUID(), "REF");
+        when(delegate.findById(read.id())).thenReturn(Optional.of(read));
+        repository.subscribe();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Consumer<UUID>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(invalidationLog).start(listener.capture());
+        repository.findById(read.id());
+
+        listener.getValue()
+                .accept(read.id());
+        repository.findById(read.id());
+
+        verify(delegate, times(2)).findById(read.id());
+    }
+
+    @Test
+    void findById_shouldPassThroughWhenDisabled() {
+        CachingTagReadRepository uncached = new CachingTagReadRepository(delegate, invalidationLog, meterRegistry, false, 100, Duration.ofMinutes(1));
+        UUID id = UUID.randomUUID();
+        when(delegate.findById(id)).thenReturn(Optional.empty());
+
+        uncached.subscribe();
+        uncached.findById(id);
+        uncached.findById(id);
+
+        verify(delegate, times(2)).findById(id);
+        verifyNoInteractions(invalidationLog);
+    }
+
+    private static TagRead read(UUID id, String referenceCode) {
+        return TagRead.builder()
+                      .id(id)
+                      .siteName("Site")
+                      .epc("EPC")
+                      .referenceCode(referenceCode)
+                      .location("Dock")
+                      .rssi(-50.0)
+                      .readAt(Instant.EPOCH)
+                      .build();
+    }
+}
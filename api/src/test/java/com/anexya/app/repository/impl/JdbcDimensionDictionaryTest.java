@@ -0,0 +1,106 @@
+package com.anexya.app.repository.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.anexya.app.repository.Dimension;
+
+@Testcontainers
+@TestInstance(Lifecycle.PER_CLASS)
+class JdbcDimensionDictionaryTest {
+
+    private static final String IMAGE = "mysql:8.0";
+
+    @SuppressWarnings("resource")
+    @Container
+    private static final MySQLContainer<?> mysql = new MySQLContainer<>(IMAGE).withDatabaseName("testdb")
+                                                                              .withUsername("test")
+                                                                              .withPassword("test");
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void setUpDataSource() {
+        DataSource dataSource = new DriverManagerDataSource(Objects.requireNonNull(mysql.getJdbcUrl()),
+                                                            Objects.requireNonNull(mysql.getUsername()),
+                                                            Objects.requireNonNull(mysql.getPassword()));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        Flyway.configure()
+              .dataSource(dataSource)
+              .locations("classpath:db/migration/testmysql")
+              .load()
+              .migrate();
+    }
+
+    @Test
+    void idFor_shouldKeepValuesThatDifferOnlyInCaseOrAccentsApart() {
+        JdbcDimensionDictionary dictionary = new JdbcDimensionDictionary(jdbcTemplate, 1000);
+
+        int upper = dictionary.idFor(Dimension.EPC, "E2801160A");
+        int lower = dictionary.idFor(Dimension.EPC, "e2801160a");
+        int plain = dictionary.idFor(Dimension.LOCATION, "Dock Entree");
+        int accented = dictionary.idFor(Dimension.LOCATION, "Dock Entr\u00e9e");
+
+        assertThat(upper).isNotEqualTo(lower);
+        assertThat(plain).isNotEqualTo(accented);
+        JdbcDimensionDictionary fresh = new JdbcDimensionDictionary(jdbcTemplate, 1000);
+        assertThat(fresh.valueOf(Dimension.EPC, lower)).isEqualTo("e2801160a");
+        assertThat(fresh.findId(Dimension.EPC, "E2801160A")).contains(upper);
+    }
+
+    @Test
+    void idFor_shouldKeepValuesThatDifferOnlyInTrailingSpacesApart() {
+        JdbcDimensionDictionary dictionary = new JdbcDimensionDictionary(jdbcTemplate, 1000);
+
+        int plain = dictionary.idFor(Dimension.SITE, "Plant A");
+        int padded = dictionary.idFor(Dimension.SITE, "Plant A ");
+
+        assertThat(padded).isNotEqualTo(plain);
+        JdbcDimensionDictionary fresh = new JdbcDimensionDictionary(jdbcTemplate, 1000);
+        assertThat(fresh.findId(Dimension.SITE, "Plant A")).contains(plain);
+        assertThat(fresh.valueOf(Dimension.SITE, padded)).isEqualTo("Plant A ");
+    }
+
+    @Test
+    void idFor_shouldKeepResolvingValuesPastTheCacheCap() {
+        JdbcDimensionDictionary dictionary = new JdbcDimensionDictionary(jdbcTemplate, 16);
+        int first = dictionary.idFor(Dimension.SITE, "Site-0");
+        for (int i = 1; i < 200; i++) {
+            dictionary.idFor(Dimension.SITE, "Site-" + i);
+        }
+
+        assertThat(dictionary.idFor(Dimension.SITE, "Site-0")).isEqualTo(first);
+        assertThat(dictionary.valueOf(Dimension.SITE, first)).isEqualTo("Site-0");
+        assertThat(jdbcTemplate.queryForObject("select count(*) from dim_site where value like 'Site-%'", Integer.class)).isEqualTo(200);
+    }
+
+    @Test
+    void findIds_shouldResolveCachedAndUncachedValuesAndSkipUnknownOnes() {
+        JdbcDimensionDictionary writer = new JdbcDimensionDictionary(jdbcTemplate, 1000);
+        int cached = writer.idFor(Dimension.EPC, "BATCH-1");
+        int stored = writer.idFor(Dimension.EPC, "BATCH-2");
+        JdbcDimensionDictionary reader = new JdbcDimensionDictionary(jdbcTemplate, 1000);
+        reader.idFor(Dimension.EPC, "BATCH-1");
+
+        Map<String, Integer> ids = reader.findIds(Dimension.EPC, List.of("BATCH-1", "BATCH-2", "batch-2", "BATCH-UNKNOWN"));
+
+        assertThat(ids).containsOnly(Map.entry("BATCH-1", cached), Map.entry("BATCH-2", stored));
+        assertThat(reader.valueOf(Dimension.EPC, stored)).isEqualTo("BATCH-2");
+    }
+}
@@ -0,0 +1,222 @@
+package com.anexya.app.repository.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.ExecutorServiceAdapter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.anexya.app.domain.TagCurrentState;
+import com.anexya.app.domain.TagRead;
+import com.anexya.app.repository.Dimension;
+import com.anexya.app.repository.DimensionDictionary;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@Testcontainers
+@TestInstance(Lifecycle.PER_CLASS)
+class JdbcTagCurrentStateRepositoryTest {
+
+    private static final String IMAGE = "mysql:8.0";
+
+    @SuppressWarnings("resource")
+    @Container
+    private static final MySQLContainer<?> mysql = new MySQLContainer<>(IMAGE).withDatabaseName("testdb")
+                                                                              .withUsername("test")
+                                                                              .withPassword("test");
+
+    private JdbcTemplate jdbcTemplate;
+    private DimensionDictionary dictionary;
+    private JdbcTagCurrentStateRepository repository;
+
+    @BeforeAll
+    void setUpDataSource() {
+        DataSource dataSource = new DriverManagerDataSource(Objects.requireNonNull(mysql.getJdbcUrl()),
+                                                            Objects.requireNonNull(mysql.getUsername()),
+                                                            Objects.requireNonNull(mysql.getPassword()));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        Flyway.configure()
+              .dataSource(dataSource)
+              .locations("classpath:db/migration/testmysql")
+              .load()
+              .migrate();
+        dictionary = new JdbcDimensionDictionary(jdbcTemplate, 1000);
+        repository = new JdbcTagCurrentStateRepository(jdbcTemplate, dictionary);
+    }
+
+    @AfterEach
+    void clean() {
+        jdbcTemplate.execute("delete from tag_current_state");
+        jdbcTemplate.execute("delete from tag_reads");
+    }
+
+    @Test
+    void advance_shouldKeepOnlyTheNewestRead() {
+        TagRead older = read("EPC1", "Dock1", "2024-01-10T00:00:00Z");
+        TagRead newest = read("EPC1", "Dock2", "2024-01-12T00:00:00Z");
+        TagRead late = read("EPC1", "Dock3", "2024-01-11T00:00:00Z");
+
+        repository.advance(List.of(older));
+        repository.advance(List.of(newest, read("EPC2", "Dock9", "2024-01-01T00:00:00Z")));
+        repository.advance(List.of(late));
+
+        TagCurrentState state = repository.findByEpc("EPC1")
+                                          .orElseThrow();
+        assertThat(state.location()).isEqualTo("Dock2");
+        assertThat(state.readAt()).isEqualTo(newest.readAt());
+        assertThat(state.tagReadId()).isEqualTo(newest.id());
+        assertThat(repository.findByEpcs(List.of("EPC1", "EPC2", "UNKNOWN"))).extracting(TagCurrentState::epc)
+                                                                             .containsExactlyInAnyOrder("EPC1", "EPC2");
+    }
+
+    @Test
+    void repair_shouldFallBackToPreviousReadWhenCurrentOneIsDeleted() {
+        TagRead previous = read("EPC1", "Dock1", "2024-01-10T00:00:00Z");
+        TagRead current = read("EPC1", "Dock2", "2024-01-12T00:00:00Z");
+        insertHistory(previous);
+        insertHistory(current);
+        repository.advance(List.of(previous, current));
+
+        jdbcTemplate.update("delete from tag_reads where id = ?", (Object) UuidBytes.toBytes(current.id()));
+        repository.repair(current.id());
+
+        TagCurrentState state = repository.findByEpc("EPC1")
+                                          .orElseThrow();
+        assertThat(state.location()).isEqualTo("Dock1");
+        assertThat(state.tagReadId()).isEqualTo(previous.id());
+    }
+
+    @Test
+    void advance_shouldBreakReadAtTiesOnTheHigherId() {
+        TagRead low = read("EPC1", "Dock1", "2024-01-10T00:00:00Z").toBuilder()
+                                                                   .id(UUID.fromString("00000000-0000-7000-8000-000000000001"))
+                                                                   .build();
+        TagRead high = low.toBuilder()
+                          .id(UUID.fromString("f0000000-0000-7000-8000-000000000001"))
+                          .location("Dock2")
+                          .build();
+
+        repository.advance(List.of(high, low));
+        repository.advance(List.of(low));
+
+        TagCurrentState state = repository.findByEpc("EPC1")
+                                          .orElseThrow();
+        assertThat(state.tagReadId()).isEqualTo(high.id());
+        assertThat(state.location()).isEqualTo("Dock2");
+    }
+
+    @Test
+    void repair_shouldNotUndoANewerReadAndShouldDropEpcsWithoutHistory() {
+        TagRead current = read("EPC1", "Dock1", "2024-01-12T00:00:00Z");
+        TagRead newer = read("EPC1", "Dock2", "2024-01-13T00:00:00Z");
+        TagRead only = read("EPC2", "Dock1", "2024-01-12T00:00:00Z");
+        insertHistory(current);
+        insertHistory(only);
+        repository.advance(List.of(current, only));
+
+        // a newer read lands in history while the current one is being rewritten
+        insertHistory(newer);
+        repository.repair(current.id());
+        jdbcTemplate.update("delete from tag_reads where id = ?", (Object) UuidBytes.toBytes(only.id()));
+        repository.repair(only.id());
+
+        assertThat(repository.findByEpc("EPC1")
+                             .orElseThrow()
+                             .tagReadId()).isEqualTo(newer.id());
+        assertThat(repository.findByEpc("EPC2")).isEmpty();
+    }
+
+    @Test
+    void findByEpcs_shouldAnswerEpcsWithoutARowFromHistory() {
+        TagRead seeded = read("EPC1", "Dock1", "2024-01-12T00:00:00Z");
+        TagRead older = read("EPC2", "Dock1", "2024-01-10T00:00:00Z");
+        TagRead unseeded = read("EPC2", "Dock2", "2024-01-11T00:00:00Z");
+        insertHistory(seeded);
+        insertHistory(older);
+        insertHistory(unseeded);
+        repository.advance(List.of(seeded));
+
+        assertThat(repository.findByEpc("EPC2")
+                             .orElseThrow()
+                             .tagReadId()).isEqualTo(unseeded.id());
+        assertThat(repository.findByEpcs(List.of("EPC1", "EPC2", "UNKNOWN"))).extracting(TagCurrentState::tagReadId)
+                                                                             .containsExactlyInAnyOrder(seeded.id(), unseeded.id());
+        assertThat(jdbcTemplate.queryForObject("select count(*) from tag_current_state", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    void seed_shouldFillEpcsFromHistoryWithoutUndoingNewerReads() {
+        TagRead older = read("EPC1", "Dock1", "2024-01-10T00:00:00Z");
+        TagRead newest = read("EPC1", "Dock2", "2024-01-11T00:00:00Z");
+        TagRead stored = read("EPC2", "Dock1", "2024-01-10T00:00:00Z");
+        TagRead ingested = read("EPC2", "Dock3", "2024-01-12T00:00:00Z");
+        insertHistory(older);
+        insertHistory(newest);
+        insertHistory(stored);
+        // written by ingest before the seed reached EPC2
+        repository.advance(List.of(ingested));
+        jdbcTemplate.update("insert into tag_current_state_seed (id, after_epc_id) values (1, 0) on duplicate key update after_epc_id = 0");
+        TagCurrentStateSeeder seeder = new TagCurrentStateSeeder(jdbcTemplate,
+                                                                 repository,
+                                                                 new ExecutorServiceAdapter(new SyncTaskExecutor()),
+                                                                 new SimpleMeterRegistry());
+
+        assertThat(seeder.seed()).isGreaterThanOrEqualTo(2);
+
+        assertThat(jdbcTemplate.queryForList("select epc_id, tag_read_id from tag_current_state order by epc_id")).hasSize(2);
+        assertThat(repository.findByEpc("EPC1")
+                             .orElseThrow()
+                             .tagReadId()).isEqualTo(newest.id());
+        assertThat(repository.findByEpc("EPC2")
+                             .orElseThrow()
+                             .tagReadId()).isEqualTo(ingested.id());
+        assertThat(jdbcTemplate.queryForObject("select count(*) from tag_current_state_seed", Integer.class)).isZero();
+        assertThat(seeder.seed()).isZero();
+    }
+
+    @Test
+    void findByEpc_shouldBeEmptyForUnknownEpc() {
+        assertThat(repository.findByEpc("NEVER-SEEN")).isEmpty();
+    }
+
+    private void insertHistory(TagRead read) {
+        jdbcTemplate.update("insert into tag_reads (id, site_id, epc_id, reference_code, location_id, rssi, read_at) values (?, ?, ?, ?, ?, ?, ?)",
+                            UuidBytes.toBytes(read.id()),
+                            dictionary.idFor(Dimension.SITE, read.siteName()),
+                            dictionary.idFor(Dimension.EPC, read.epc()),
+                            read.referenceCode(),
+                            dictionary.idFor(Dimension.LOCATION, read.location()),
+                            read.rssi(),
+                            Timestamp.from(read.readAt()));
+    }
+
+    private static TagRead read(String epc, String location, String readAt) {
+        return TagRead.builder()
+                      .id(UUID.randomUUID())
+                      .siteName("Site")
+                      .epc(epc)
+                      .referenceCode("REF")
+                      .location(location)
+                      .rssi(-50.0)
+                      .readAt(Instant.parse(readAt))
+                      .build();
+    }
+}
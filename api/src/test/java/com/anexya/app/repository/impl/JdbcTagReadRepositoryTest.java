@@ -0,0 +1,263 @@
+package com.anexya.app.repository.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.anexya.app.crypto.ReferenceCodeBlindIndex;
+import com.anexya.app.crypto.ReferenceCodeCrypto;
+import com.anexya.app.domain.TagRead;
+import com.anexya.app.domain.TagReadCursor;
+import com.anexya.app.domain.TagReadField;
+import com.anexya.app.domain.TagReadFilter;
+import com.anexya.app.domain.TagReadPage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@Testcontainers
+@TestInstance(Lifecycle.PER_CLASS)
+class JdbcTagReadRepositoryTest {
+
+    private static final String IMAGE = "mysql:8.0";
+    private static final String BLIND_INDEX_KEY = Base64.getEncoder()
+                                                        .encodeToString(new byte[32]);
+
+    @SuppressWarnings("resource")
+    @Container
+    private static final MySQLContainer<?> mysql = new MySQLContainer<>(IMAGE).withDatabaseName("testdb")
+                                                                              .withUsername("test")
+                                                                              .withPassword("test");
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private JdbcDimensionDictionary dictionary;
+    private ReferenceCodeCrypto crypto;
+    private JdbcTagReadRepository repository;
+
+    @BeforeAll
+    void setUpDataSource() {
+        dataSource = new DriverManagerDataSource(Objects.requireNonNull(mysql.getJdbcUrl()),
+                                                 Objects.requireNonNull(mysql.getUsername()),
+                                                 Objects.requireNonNull(mysql.getPassword()));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        Flyway.configure()
+              .dataSource(dataSource)
+              .locations("classpath:db/migration/testmysql")
+              .load()
+              .migrate();
+        dictionary = new JdbcDimensionDictionary(jdbcTemplate, 1000);
+        // stands in for KMS: stored codes are visibly encrypted, so a missed decryption shows up in the assertions
+        crypto = mock(ReferenceCodeCrypto.class);
+        when(crypto.encrypt(anyString())).thenAnswer(inv -> "enc:" + inv.<String>getArgument(0));
+        when(crypto.decrypt(anyString())).thenAnswer(inv -> inv.<String>getArgument(0)
+                                                               .substring("enc:".length()));
+        repository = repository(new ReferenceCodeBlindIndex(BLIND_INDEX_KEY));
+    }
+
+    @AfterEach
+    void clean() {
+        jdbcTemplate.execute("delete from tag_current_state");
+        jdbcTemplate.execute("delete from tag_reads");
+    }
+
+    @AfterAll
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void findPage_shouldBreakReadAtTiesOnIdAcrossPageBoundaries() {
+        Instant tied = Instant.parse("2024-01-10T10:00:00Z");
+        List<TagRead> reads = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            reads.add(read("PAGE-EPC", "REF-" + i, tied).toBuilder()
+                                                        .id(UUID.fromString("00000000-0000-7000-8000-00000000000" + i))
+                                                        .build());
+        }
+        TagRead newer = read("PAGE-EPC", "REF-NEW", tied.plusSeconds(1));
+        TagRead older = read("PAGE-EPC", "REF-OLD", tied.minusSeconds(1));
+        reads.add(newer);
+        reads.add(older);
+        repository.saveAll(reads);
+        TagReadFilter filter = TagReadFilter.builder()
+                                            .epc("PAGE-EPC")
+                                            .build();
+
+        List<TagRead> walked = new ArrayList<>();
+        Optional<TagReadCursor> cursor = Optional.empty();
+        int pages = 0;
+        do {
+            TagReadPage page = repository.findPage(filter, cursor, 2);
+            walked.addAll(page.items());
+            cursor = page.next();
+            pages++;
+        } while (cursor.isPresent());
+
+        assertThat(pages).isEqualTo(4);
+        assertThat(walked).extracting(TagRead::id)
+                          .containsExactly(newer.id(),
+                                           reads.get(4)
+                                                .id(),
+                                           reads.get(3)
+                                                .id(),
+                                           reads.get(2)
+                                                .id(),
+                                           reads.get(1)
+                                                .id(),
+                                           reads.get(0)
+                                                .id(),
+                                           older.id());
+        assertThat(walked).extracting(TagRead::referenceCode)
+                          .containsExactly("REF-NEW", "REF-5", "REF-4", "REF-3", "REF-2", "REF-1", "REF-OLD");
+    }
+
+    @Test
+    void findPage_shouldBeEmptyForUnknownEpc() {
+        repository.saveAll(List.of(read("KNOWN-EPC", "REF-1", Instant.parse("2024-01-10T10:00:00Z"))));
+
+        TagReadPage page = repository.findPage(TagReadFilter.builder()
+                                                            .epc("NEVER-SEEN")
+                                                            .build(),
+                                               Optional.empty(),
+                                               10);
+
+        assertThat(page.items()).isEmpty();
+        assertThat(page.next()).isEmpty();
+    }
+
+    @Test
+    void findByEpcs_shouldLimitEachEpcAcrossChunksAndMapUnknownEpcsToEmpty() {
+        Instant at = Instant.parse("2024-01-10T10:00:00Z");
+        List<TagRead> reads = new ArrayList<>();
+        for (String epc : List.of("BATCH-EPC-1", "BATCH-EPC-2", "BATCH-EPC-3")) {
+            for (int i = 0; i < 3; i++) {
+                reads.add(read(epc, epc + "-REF-" + i, at.plusSeconds(i)));
+            }
+        }
+        repository.saveAll(reads);
+        // three known EPCs in chunks of two, so the per-EPC limit has to hold in each chunk's query
+        ReflectionTestUtils.setField(repository, "epcChunkSize", 2);
+        try {
+            Map<String, List<TagRead>> byEpc = repository.findByEpcs(List.of("BATCH-EPC-3", "NEVER-SEEN", "BATCH-EPC-1", "BATCH-EPC-2"),
+                                                                     TagReadFilter.builder()
+                                                                                  .build(),
+                                                                     2);
+
+            assertThat(byEpc.keySet()).containsExactly("BATCH-EPC-3", "NEVER-SEEN", "BATCH-EPC-1", "BATCH-EPC-2");
+            assertThat(byEpc.get("NEVER-SEEN")).isEmpty();
+            for (String epc : List.of("BATCH-EPC-1", "BATCH-EPC-2", "BATCH-EPC-3")) {
+                assertThat(byEpc.get(epc)).extracting(TagRead::referenceCode)
+                                          .containsExactly(epc + "-REF-2", epc + "-REF-1");
+            }
+        } finally {
+            ReflectionTestUtils.setField(repository, "epcChunkSize", 200);
+        }
+    }
+
+    @Test
+    void findByEpcs_shouldGroupReadsWhenTheEpcIsProjectedAway() {
+        TagRead kept = read("PROJECTED-EPC", "REF-1", Instant.parse("2024-01-10T10:00:00Z"));
+        repository.saveAll(List.of(kept));
+
+        Map<String, List<TagRead>> byEpc = repository.findByEpcs(List.of("PROJECTED-EPC"),
+                                                                 TagReadFilter.builder()
+                                                                              .fields(EnumSet.of(TagReadField.RSSI))
+                                                                              .build(),
+                                                                 10);
+
+        assertThat(byEpc.get("PROJECTED-EPC")).extracting(TagRead::id, TagRead::epc, TagRead::rssi, TagRead::referenceCode)
+                                              .containsExactly(tuple(kept.id(), null, -50.0, null));
+    }
+
+    @Test
+    void findByReferenceCode_shouldReturnMatchesNewestFirstAndNothingForMisses() {
+        TagRead first = read("CODE-EPC-1", "REF-A", Instant.parse("2024-01-10T10:00:00Z"));
+        TagRead second = read("CODE-EPC-2", "REF-A", Instant.parse("2024-01-11T10:00:00Z"));
+        TagRead other = read("CODE-EPC-1", "REF-B", Instant.parse("2024-01-12T10:00:00Z"));
+        repository.saveAll(List.of(first, second, other));
+
+        assertThat(repository.findByReferenceCode("REF-A", 10)).extracting(TagRead::id, TagRead::referenceCode)
+                                                              .containsExactly(tuple(second.id(), "REF-A"), tuple(first.id(), "REF-A"));
+        assertThat(repository.findByReferenceCode("REF-A", 1)).extracting(TagRead::id)
+                                                             .containsExactly(second.id());
+        assertThat(repository.findByReferenceCode("REF-C", 10)).isEmpty();
+    }
+
+    @Test
+    void findByReferenceCode_shouldDropHashCollisionsAndNeedTheBlindIndex() {
+        TagRead match = read("CODE-EPC-1", "REF-A", Instant.parse("2024-01-10T10:00:00Z"));
+        TagRead collision = read("CODE-EPC-2", "REF-A", Instant.parse("2024-01-11T10:00:00Z"));
+        repository.saveAll(List.of(match, collision));
+        // same hash, different code: what an HMAC collision would look like
+        jdbcTemplate.update("update tag_reads set reference_code = ? where id = ?", "enc:REF-Z", UuidBytes.toBytes(collision.id()));
+
+        assertThat(repository.findByReferenceCode("REF-A", 10)).extracting(TagRead::id)
+                                                              .containsExactly(match.id());
+        assertThat(repository(new ReferenceCodeBlindIndex("")).findByReferenceCode("REF-A", 10)).isEmpty();
+    }
+
+    private JdbcTagReadRepository repository(ReferenceCodeBlindIndex blindIndex) {
+        JdbcTagCurrentStateRepository currentState = new JdbcTagCurrentStateRepository(jdbcTemplate, dictionary);
+        JdbcTagReadRepository created = new JdbcTagReadRepository(jdbcTemplate,
+                                                                  crypto,
+                                                                  dictionary,
+                                                                  new PartitionPruningProbe(jdbcTemplate, new SimpleMeterRegistry()),
+                                                                  new ReferenceCodeDecryptor(crypto, executor, 4, 10),
+                                                                  blindIndex,
+                                                                  currentState,
+                                                                  new ParallelQueryRunner(executor, 2),
+                                                                  new RollupMaintainer(jdbcTemplate, new SimpleMeterRegistry(), false, false, Duration.ofSeconds(30), 1000),
+                                                                  new TagReadBulkLoader(dataSource),
+                                                                  new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        ReflectionTestUtils.setField(created, "jdbcBatchSize", 500);
+        ReflectionTestUtils.setField(created, "epcChunkSize", 200);
+        return created;
+    }
+
+    private static TagRead read(String epc, String referenceCode, Instant readAt) {
+        return TagRead.builder()
+                      .id(UUID.randomUUID())
+                      .siteName("Site")
+                      .epc(epc)
+                      .referenceCode(referenceCode)
+                      .location("Dock1")
+                      .rssi(-50.0)
+                      .readAt(readAt)
+                      .build();
+    }
+}
@@ -0,0 +1,62 @@
+package com.anexya.app.repository.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ParallelQueryRunnerTest {
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void map_shouldKeepInputOrderAndCapConcurrency() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        ParallelQueryRunner runner = new ParallelQueryRunner(executor, 2);
+
+        List<Integer> results = runner.map(IntStream.range(0, 20)
+                                                    .boxed()
+                                                    .toList(),
+                                           i -> {
+                                               peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                                               try {
+                                                   Thread.sleep(5);
+                                               } catch (InterruptedException e) {
+                                                   Thread.currentThread()
+                                                         .interrupt();
+                                               }
+                                               running.decrementAndGet();
+                                               return i * 10;
+                                           });
+
+        assertThat(results).containsExactlyElementsOf(IntStream.range(0, 20)
+                                                               .mapToObj(i -> i * 10)
+                                                               .toList());
+        assertThat(peak.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void map_shouldRethrowQueryFailures() {
+        ParallelQueryRunner runner = new ParallelQueryRunner(executor, 2);
+
+        assertThatThrownBy(() -> runner.map(List.of(1, 2, 3), i -> {
+            if (i == 2) {
+                throw new IllegalArgumentException("boom");
+            }
+            return i;
+        })).isInstanceOf(IllegalArgumentException.class)
+           .hasMessage("boom");
+    }
+}
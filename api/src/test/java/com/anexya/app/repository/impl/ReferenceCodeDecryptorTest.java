@@ -0,0 +1,84 @@
+package com.anexya.app.repository.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.anexya.app.crypto.ReferenceCodeCrypto;
+import com.anexya.app.domain.TagRead;
+
+@ExtendWith(MockitoExtension.class)
+class ReferenceCodeDecryptorTest {
+    @Mock
+    private ReferenceCodeCrypto crypto;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void decryptAll_shouldSplitLargeResultsAcrossThreadsAndKeepOrder() {
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        when(crypto.decrypt(anyString())).thenAnswer(inv -> {
+            threads.add(Thread.currentThread());
+            return "plain-" + inv.<String>getArgument(0);
+        });
+        ReferenceCodeDecryptor decryptor = new ReferenceCodeDecryptor(crypto, executor, 4, 10);
+
+        List<TagRead> decrypted = decryptor.decryptAll(reads(100));
+
+        assertThat(decrypted).extracting(TagRead::referenceCode)
+                             .containsExactlyElementsOf(IntStream.range(0, 100)
+                                                                 .mapToObj(i -> "plain-c" + i)
+                                                                 .toList());
+        assertThat(threads).hasSizeGreaterThan(1)
+                           .doesNotContain(Thread.currentThread());
+    }
+
+    @Test
+    void decryptAll_shouldStayOnCallerThreadForSmallResults() {
+        when(crypto.decrypt(anyString())).thenAnswer(inv -> Thread.currentThread()
+                                                                  .getName());
+        ReferenceCodeDecryptor decryptor = new ReferenceCodeDecryptor(crypto, executor, 4, 10);
+
+        List<TagRead> decrypted = decryptor.decryptAll(reads(10));
+
+        assertThat(decrypted).extracting(TagRead::referenceCode)
+                             .containsOnly(Thread.currentThread()
+                                                 .getName());
+    }
+
+    @Test
+    void decryptAll_shouldPropagateDecryptionFailures() {
+        when(crypto.decrypt(anyString())).thenThrow(new IllegalStateException("bad key"));
+        ReferenceCodeDecryptor decryptor = new ReferenceCodeDecryptor(crypto, executor, 4, 10);
+
+        assertThatThrownBy(() -> decryptor.decryptAll(reads(50))).isInstanceOf(IllegalStateException.class)
+                                                                 .hasMessage("bad key");
+    }
+
+    private static List<TagRead> reads(int count) {
+        return IntStream.range(0, count)
+                        .mapToObj(i -> TagRead.builder()
+                                              .referenceCode("c" + i)
+                                              .build())
+                        .toList();
+    }
+}
@@ -0,0 +1,161 @@
+package com.anexya.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.anexya.app.domain.TagSummary;
+import com.anexya.app.repository.Dimension;
+import com.anexya.app.repository.DimensionDictionary;
+import com.anexya.app.repository.impl.JdbcDimensionDictionary;
+import com.anexya.app.service.impl.JdbcAggregationStrategy;
+import com.anexya.app.service.impl.WindowAggregationStrategy;
+
+/**
+ * Times the correlated-subquery and window-function strategies on generated reads. Excluded from {@code test}; run
+ * with {@code ./gradlew benchmark -Pbenchmark.rows=1000000,10000000,100000000}. Every EPC gets about 1000 reads spread
+ * over 2024, and each size is summarized over its first quarter.
+ */
+@Tag("benchmark")
+@Testcontainers
+@TestInstance(Lifecycle.PER_CLASS)
+class AggregationStrategyBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(AggregationStrategyBenchmark.class);
+
+    private static final String IMAGE = "mysql:8.0";
+    private static final int READS_PER_EPC = 1000;
+    private static final int LOCATIONS = 20;
+    private static final int CHUNK = 1_000_000;
+    private static final int RUNS = 3;
+    private static final Instant FROM = Instant.parse("2024-01-01T00:00:00Z");
+    private static final Instant TO = Instant.parse("2024-03-31T23:59:59Z");
+
+    @SuppressWarnings("resource")
+    @Container
+    private static final MySQLContainer<?> mysql = new MySQLContainer<>(IMAGE).withDatabaseName("testdb")
+                                                                              .withUsername("test")
+                                                                              .withPassword("test")
+                                                                              .withCommand("--innodb-buffer-pool-size=2G");
+
+    private JdbcTemplate jdbcTemplate;
+    private DimensionDictionary dictionary;
+    private AggregationStrategy correlated;
+    private AggregationStrategy window;
+
+    @BeforeAll
+    void setUpDataSource() {
+        DataSource dataSource = new DriverManagerDataSource(Objects.requireNonNull(mysql.getJdbcUrl()),
+                                                            Objects.requireNonNull(mysql.getUsername()),
+                                                            Objects.requireNonNull(mysql.getPassword()));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        Flyway.configure()
+              .dataSource(dataSource)
+              .locations("classpath:db/migration/testmysql")
+              .load()
+              .migrate();
+        dictionary = new JdbcDimensionDictionary(jdbcTemplate, 1000);
+        correlated = new JdbcAggregationStrategy(jdbcTemplate, dictionary);
+        window = new WindowAggregationStrategy(jdbcTemplate, dictionary);
+
+        jdbcTemplate.execute("create table if not exists bench_seq (n int not null primary key)");
+        jdbcTemplate.execute("insert ignore into bench_seq (n) with recursive seq (n) as (select 0 union all select n + 1 from seq where n < 999) select n from seq");
+        dictionary.idFor(Dimension.SITE, "BENCH-SITE-0");
+        dictionary.idFor(Dimension.SITE, "BENCH-SITE-1");
+        for (int i = 0; i < LOCATIONS; i++) {
+            dictionary.idFor(Dimension.LOCATION, "BENCH-LOC-" + i);
+        }
+    }
+
+    @Test
+    void compareStrategies() {
+        final long[] sizes = Arrays.stream(System.getProperty("benchmark.rows", "1000000")
+                                                 .split(","))
+                                   .map(String::trim)
+                                   .mapToLong(Long::parseLong)
+                                   .sorted()
+                                   .toArray();
+        for (long rows : sizes) {
+            generate(rows);
+            final List<TagSummary> expected = sorted(correlated.summarizeByTag(FROM, TO, Optional.empty(), Optional.empty()));
+            final List<TagSummary> actual = sorted(window.summarizeByTag(FROM, TO, Optional.empty(), Optional.empty()));
+            assertThat(actual).hasSameSizeAs(expected);
+            assertThat(actual).extracting(TagSummary::epc, TagSummary::totalReadCount, TagSummary::mostDetectedLocation)
+                              .isEqualTo(expected.stream()
+                                                 .map(summary -> tuple(summary.epc(), summary.totalReadCount(), summary.mostDetectedLocation()))
+                                                 .toList());
+
+            final Duration correlatedTime = time(correlated);
+            final Duration windowTime = time(window);
+            log.info("rows={} epcs={} correlated={}ms window={}ms",
+                     rows,
+                     expected.size(),
+                     correlatedTime.toMillis(),
+                     windowTime.toMillis());
+        }
+    }
+
+    /**
+     * Grows tag_reads to {@code rows} rows in {@link #CHUNK} sized statements. Location choice is skewed so each EPC
+     * has a clear most detected location.
+     */
+    private void generate(long rows) {
+        final long epcs = Math.max(1, rows / READS_PER_EPC);
+        final Long existing = jdbcTemplate.queryForObject("select count(*) from tag_reads", Long.class);
+        jdbcTemplate.update("insert ignore into dim_epc (value) select concat('BENCH-EPC-', a.n * 1000 + b.n) from bench_seq a cross join bench_seq b where a.n * 1000 + b.n < ?",
+                            epcs);
+        for (long base = existing == null ? 0 : existing; base < rows; base += CHUNK) {
+            jdbcTemplate.update("insert into tag_reads (id, site_id, epc_id, reference_code, location_id, rssi, read_at) "
+                    + "select uuid_to_bin(uuid()), s.id, e.id, 'REF', l.id, -30 - (x % 50), timestamp('2024-01-01') + interval ((x * 7919) % 31536000) second "
+                    + "from (select ? + a.n * 1000 + b.n as x from bench_seq a cross join bench_seq b) g "
+                    + "join dim_epc e on e.value = concat('BENCH-EPC-', x % ?) "
+                    + "join dim_site s on s.value = concat('BENCH-SITE-', (x % ?) % 2) "
+                    + "join dim_location l on l.value = concat('BENCH-LOC-', least((x div ?) % 23, 19)) "
+                    + "where x < ?",
+                                base,
+                                epcs,
+                                epcs,
+                                epcs,
+                                rows);
+        }
+        jdbcTemplate.execute("analyze table tag_reads");
+    }
+
+    private static Duration time(AggregationStrategy strategy) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            final long start = System.nanoTime();
+            strategy.summarizeByTag(FROM, TO, Optional.empty(), Optional.empty());
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return Duration.ofNanos(best);
+    }
+
+    private static List<TagSummary> sorted(List<TagSummary> summaries) {
+        return summaries.stream()
+                        .sorted(Comparator.comparing(TagSummary::epc))
+                        .toList();
+    }
+}
@@ -0,0 +1,195 @@
+package com.anexya.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.anexya.app.cloud.CloudServiceFactory;
+import com.anexya.app.crypto.ReferenceCodeCrypto;
+import com.anexya.app.domain.BackfillProgress;
+import com.anexya.app.domain.TagRead;
+import com.anexya.app.repository.TagReadRepository;
+import com.anexya.app.service.impl.CsvTagReadBackfillService;
+import com.anexya.app.web.InvalidRequestException;
+
+@ExtendWith(MockitoExtension.class)
+class CsvTagReadBackfillServiceTest {
+    private static final String HEADER = "readAt,siteName,epc,referenceCode,location,rssi";
+
+    @Mock
+    private TagReadRepository repository;
+
+    @Mock
+    private ReferenceCodeCrypto referenceCodeCrypto;
+
+    @Mock
+    private ObjectProvider<CloudServiceFactory> cloudFactoryProvider;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private CsvTagReadBackfillService service;
+
+    private final List<BackfillProgress> reports = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+        ReflectionTestUtils.setField(service, "maxLineLength", 200);
+    }
+
+    @Test
+    void load_shouldLoadInChunksAndReportProgress() throws Exception {
+        when(repository.loadAll(anyList())).thenAnswer(inv -> inv.<List<TagRead>>getArgument(0)
+                                                                .size());
+
+        BackfillProgress done = service.load(csv(row("EPC1"), row("EPC2"), row("EPC3")), 0, reports::add);
+
+        assertThat(reports).extracting(BackfillProgress::offset)
+                           .containsExactly(2L, 3L, 3L);
+        assertThat(reports).extracting(BackfillProgress::done)
+                           .containsExactly(false, false, true);
+        assertThat(done.loaded()).isEqualTo(3);
+        assertThat(done.rejected()).isZero();
+        verify(repository, times(2)).loadAll(anyList());
+    }
+
+    @Test
+    void load_shouldParseQuotedFieldsByHeaderName() throws Exception {
+        when(repository.loadAll(anyList())).thenReturn(1);
+
+        service.load(csv("2024-01-01T00:00:00Z,Site,EPC1,\"REF, \"\"quoted\"\"\",Dock 1,-40.5"), 0, reports::add);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TagRead>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository).loadAll(captor.capture());
+        TagRead read = captor.getValue()
+                             .get(0);
+        assertThat(read.referenceCode()).isEqualTo("REF, \"quoted\"");
+        assertThat(read.location()).isEqualTo("Dock 1");
+        assertThat(read.rssi()).isEqualTo(-40.5);
+        assertThat(read.id()).isNotNull();
+    }
+
+    @Test
+    void load_shouldRejectBadRowsWithLineNumbers() throws Exception {
+        when(repository.loadAll(anyList())).thenReturn(1);
+
+        BackfillProgress done = service.load(csv(row("EPC1"), "2024-01-01T00:00:00Z,Site,,REF,Dock,-40", "not-a-date,Site,EPC3,REF,Dock,-40"), 0, reports::add);
+
+        assertThat(done.loaded()).isEqualTo(1);
+        assertThat(done.rejected()).isEqualTo(2);
+        assertThat(done.offset()).isEqualTo(3);
+        assertThat(reports.get(0)
+                          .errors()).containsExactly("line 3: epc must not be blank");
+        assertThat(reports.get(1)
+                          .errors()).singleElement()
+                                    .asString()
+                                    .startsWith("line 4: ");
+    }
+
+    @Test
+    void load_shouldRejectOverlongLinesWithoutBufferingThem() throws Exception {
+        when(repository.loadAll(anyList())).thenReturn(2);
+
+        BackfillProgress done = service.load(csv(row("EPC1"), row("X".repeat(5000)), row("EPC3")), 0, reports::add);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TagRead>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository, times(2)).loadAll(captor.capture());
+        assertThat(captor.getAllValues()).flatExtracting(reads -> reads.stream()
+                                                                       .map(TagRead::epc)
+                                                                       .toList())
+                                         .containsExactly("EPC1", "EPC3");
+        assertThat(done.rejected()).isEqualTo(1);
+        assertThat(done.offset()).isEqualTo(3);
+        assertThat(reports.get(0)
+                          .errors()).containsExactly("line 3: line exceeds 200 characters");
+    }
+
+    @Test
+    void load_shouldResumeFromOffset() throws Exception {
+        when(repository.loadAll(anyList())).thenReturn(1);
+
+        BackfillProgress done = service.load(csv(row("EPC1"), row("EPC2"), row("EPC3")), 2, reports::add);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TagRead>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository).loadAll(captor.capture());
+        assertThat(captor.getValue()).extracting(TagRead::epc)
+                                     .containsExactly("EPC3");
+        assertThat(done.offset()).isEqualTo(3);
+    }
+
+    @Test
+    void load_shouldFailForMissingHeaderColumns() {
+        ByteArrayInputStream partialHeader = new ByteArrayInputStream("siteName,epc\n".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> service.load(partialHeader, 0, reports::add)).isInstanceOf(InvalidRequestException.class)
+                                                                              .hasMessageContaining("referenceCode");
+        assertThatThrownBy(() -> service.load(new ByteArrayInputStream(new byte[0]), 0, reports::add)).isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> service.load(csv(row("EPC1")), -1, reports::add)).isInstanceOf(InvalidRequestException.class);
+        verify(repository, never()).loadAll(anyList());
+    }
+
+    @Test
+    void load_shouldReplayDeadLettersUnderTheirIdsAndApplyReplacementsConditionally() throws Exception {
+        UUID opened = UUID.randomUUID();
+        UUID kept = UUID.randomUUID();
+        when(referenceCodeCrypto.decrypt("cipher")).thenReturn("REF");
+        when(repository.loadAll(anyList())).thenReturn(1);
+        when(repository.replaceIfStronger(any())).thenReturn(false);
+        String deadLetters = "id,replacesExisting,siteName,epc,encryptedReferenceCode,location,rssi,readAt\n"
+                + opened + ",false,Site,EPC1,cipher,Dock,-40.0,2024-01-01T00:00:00Z\n"
+                + kept + ",true,Site,EPC2,cipher,Dock,-30.0,2024-01-01T00:00:00Z";
+
+        BackfillProgress done = service.load(new ByteArrayInputStream(deadLetters.getBytes(StandardCharsets.UTF_8)), 0, reports::add);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TagRead>> loaded = ArgumentCaptor.forClass(List.class);
+        verify(repository).loadAll(loaded.capture());
+        assertThat(loaded.getValue()).singleElement()
+                                     .satisfies(read -> {
+                                         assertThat(read.id()).isEqualTo(opened);
+                                         assertThat(read.referenceCode()).isEqualTo("REF");
+                                     });
+        ArgumentCaptor<TagRead> replaced = ArgumentCaptor.forClass(TagRead.class);
+        verify(repository).replaceIfStronger(replaced.capture());
+        assertThat(replaced.getValue()
+                           .id()).isEqualTo(kept);
+        // the stored row was already at least as strong, so the replacement is not counted
+        assertThat(done.loaded()).isEqualTo(1);
+        assertThat(done.rejected()).isZero();
+    }
+
+    private static ByteArrayInputStream csv(String... rows) {
+        return new ByteArrayInputStream((HEADER + "\n" + String.join("\n", rows)).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String row(String epc) {
+        return "2024-01-01T00:00:00Z,Site," + epc + ",REF,Dock,-40";
+    }
+}
@@ -3,14 +3,21 @@ package com.anexya.app.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -19,19 +26,32 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import com.anexya.app.cloud.CloudLogger;
 import com.anexya.app.cloud.CloudServiceFactory;
 import com.anexya.app.cloud.MetricsPublisher;
+import com.anexya.app.crypto.ReferenceCodeBlindIndex;
 import com.anexya.app.domain.TagRead;
+import com.anexya.app.repository.TagCurrentStateRepository;
 import com.anexya.app.repository.TagReadRepository;
 import com.anexya.app.service.impl.DefaultTagReadService;
+import com.anexya.app.service.impl.TagReadDeduplicator;
+import com.anexya.app.service.impl.WriteBehindIngestQueue;
 import com.anexya.app.domain.TagReadCreate;
+import com.anexya.app.domain.TagReadFilter;
+import com.anexya.app.domain.TagReadPage;
 import com.anexya.app.domain.TagReadUpdate;
+import com.anexya.app.domain.TagReadWriteResult;
+import com.anexya.app.web.InvalidRequestException;
 import com.anexya.app.web.TagReadNotFoundException;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 @ExtendWith(MockitoExtension.class)
 class DefaultTagReadServiceTest {
     @Mock
@@ -49,6 +69,26 @@ class DefaultTagReadServiceTest {
     @Mock
     private MetricsPublisher metricsPublisher;
 
+    @Mock
+    private WriteBehindIngestQueue writeBehindQueue;
+
+    @Mock
+    private ReferenceCodeBlindIndex blindIndex;
+
+    @Mock
+    private TagCurrentStateRepository currentStateRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private TagReadDeduplicator deduplicator = new TagReadDeduplicator(new SimpleMeterRegistry(),
+                                                                       false,
+                                                                       TagReadDeduplicator.Mode.STRONGEST,
+                                                                       Duration.ofSeconds(1),
+                                                                       100,
+                                                                       Clock.systemUTC());
+
     @InjectMocks
     private DefaultTagReadService service;
 
@@ -97,6 +137,7 @@ class DefaultTagReadServiceTest {
         verify(repository).save(savedCaptor.capture());
         assertThat(savedCaptor.getValue()
                               .epc()).isEqualTo("EPC1");
+        verify(eventPublisher).publishEvent(TagReadsChangedEvent.inserted(List.of(savedCaptor.getValue())));
 
         verify(cloudLogger).log(eq("tag_read_created"), anyMap());
         verify(metricsPublisher).increment(eq("tag_reads.created"), eq(1.0), anyMap());
@@ -138,6 +179,250 @@ class DefaultTagReadServiceTest {
         verifyNoInteractions(cloudLogger, metricsPublisher);
     }
 
+    @Test
+    void create_shouldReturnKeptReadWhenDuplicateIsSuppressed() {
+        TagRead kept = TagRead.builder()
+                              .id(UUID.randomUUID())
+                              .epc("EPC1")
+                              .build();
+        doReturn(new TagReadDeduplicator.Admission(kept, true)).when(deduplicator)
+                                                             .admit(any());
+
+        TagRead result = service.create(TagReadCreate.builder()
+                                                     .siteName("SiteA")
+                                                     .epc("EPC1")
+                                                     .referenceCode("REF1")
+                                                     .location("Dock")
+                                                     .rssi(-40.0)
+                                                     .build());
+
+        assertThat(result).isSameAs(kept);
+        verifyNoInteractions(repository, cloudFactoryProvider);
+    }
+
+    @Test
+    void create_shouldRollBackDedupWindowWhenSaveFails() {
+        when(repository.save(any())).thenThrow(new IllegalStateException("db down"));
+
+        assertThatThrownBy(() -> service.create(TagReadCreate.builder()
+                                                             .siteName("SiteA")
+                                                             .epc("EPC1")
+                                                             .referenceCode("REF1")
+                                                             .location("Dock")
+                                                             .rssi(-40.0)
+                                                             .build())).isInstanceOf(IllegalStateException.class);
+
+        verify(deduplicator).rollback(any(TagReadDeduplicator.Admission.class));
+    }
+
+    @Test
+    void create_shouldReplaceKeptRowOnlyWhenStoredOneIsWeaker() {
+        DefaultTagReadService dedupService = strongestDedupService();
+        Instant readAt = Instant.now();
+        when(repository.replaceIfStronger(any())).thenAnswer(inv -> inv.<TagRead> getArgument(0)
+                                                                       .rssi() < -45.0);
+        TagRead first = dedupService.create(dockRead(-50.0, readAt));
+        TagRead stored = first.toBuilder()
+                              .rssi(-30.0)
+                              .build();
+        when(repository.findById(first.id())).thenReturn(Optional.of(stored));
+
+        TagRead lost = dedupService.create(dockRead(-40.0, readAt));
+        TagRead weaker = dedupService.create(dockRead(-45.0, readAt));
+
+        // the stored row is returned as is, and the window is not rolled back below the read that lost
+        assertThat(lost).isSameAs(stored);
+        assertThat(weaker.id()).isEqualTo(first.id());
+        verify(repository, never()).save(any());
+        verify(repository, times(2)).replaceIfStronger(any());
+    }
+
+    @Test
+    void create_shouldReturnTheStoredReplacementWhenItLandedBeforeTheOpeningWrite() {
+        DefaultTagReadService dedupService = strongestDedupService();
+        Instant readAt = Instant.now();
+        ArgumentCaptor<TagRead> written = ArgumentCaptor.forClass(TagRead.class);
+        // the opening write finds the row already holding a stronger replacement
+        when(repository.replaceIfStronger(written.capture())).thenReturn(false);
+        when(repository.findById(any())).thenAnswer(inv -> Optional.of(written.getValue()
+                                                                              .toBuilder()
+                                                                              .rssi(-30.0)
+                                                                              .build()));
+
+        TagRead result = dedupService.create(dockRead(-50.0, readAt));
+
+        assertThat(result.id()).isEqualTo(written.getValue()
+                                                 .id());
+        assertThat(result.rssi()).isEqualTo(-30.0);
+        verify(repository, never()).save(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    private DefaultTagReadService strongestDedupService() {
+        TagReadDeduplicator strongest = new TagReadDeduplicator(new SimpleMeterRegistry(),
+                                                                true,
+                                                                TagReadDeduplicator.Mode.STRONGEST,
+                                                                Duration.ofMinutes(1),
+                                                                100,
+                                                                Clock.systemUTC());
+        return new DefaultTagReadService(repository,
+                                         cloudFactoryProvider,
+                                         writeBehindQueue,
+                                         strongest,
+                                         blindIndex,
+                                         currentStateRepository,
+                                         eventPublisher);
+    }
+
+    @Test
+    void createAll_shouldReportSuppressedDuplicates() {
+        TagReadDeduplicator enabled = new TagReadDeduplicator(new SimpleMeterRegistry(),
+                                                              true,
+                                                              TagReadDeduplicator.Mode.FIRST,
+                                                              Duration.ofMinutes(1),
+                                                              100,
+                                                              Clock.systemUTC());
+        DefaultTagReadService dedupService = new DefaultTagReadService(repository,
+                                                                       cloudFactoryProvider,
+                                                                       writeBehindQueue,
+                                                                       enabled,
+                                                                       blindIndex,
+                                                                       currentStateRepository,
+                                                                       eventPublisher);
+        when(repository.saveAll(any())).thenAnswer(inv -> {
+            List<TagRead> reads = inv.getArgument(0);
+            return List.of(TagReadWriteResult.saved(0,
+                                                    reads.get(0)
+                                                         .id()));
+        });
+        TagReadCreate create = TagReadCreate.builder()
+                                            .siteName("SiteA")
+                                            .epc("EPC1")
+                                            .referenceCode("REF1")
+                                            .location("Dock")
+                                            .rssi(-40.0)
+                                            .readAt(Instant.now())
+                                            .build();
+
+        List<TagReadWriteResult> results = dedupService.createAll(List.of(create, create));
+
+        assertThat(results).extracting(TagReadWriteResult::status)
+                           .containsExactly(TagReadWriteResult.Status.SAVED, TagReadWriteResult.Status.SUPPRESSED);
+        assertThat(results.get(1)
+                          .id()).isEqualTo(results.get(0)
+                                                  .id());
+    }
+
+    @Test
+    void enqueue_shouldHandOffToWriteBehindQueue() {
+        stubCloudAvailable();
+        when(writeBehindQueue.isEnabled()).thenReturn(true);
+
+        TagRead accepted = service.enqueue(TagReadCreate.builder()
+                                                        .siteName("SiteA")
+                                                        .epc("EPC1")
+                                                        .referenceCode("REF1")
+                                                        .location("Dock")
+                                                        .rssi(-40.0)
+                                                        .build());
+
+        assertThat(accepted.id()).isNotNull();
+        verify(writeBehindQueue).submit(accepted, false);
+        verify(repository, never()).save(any());
+        verify(metricsPublisher).increment(eq("tag_reads.enqueued"), eq(1.0), anyMap());
+    }
+
+    @Test
+    void enqueue_shouldWriteSynchronouslyWhenQueueDisabled() {
+        when(writeBehindQueue.isEnabled()).thenReturn(false);
+        when(repository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(cloudFactoryProvider.getIfAvailable()).thenReturn(null);
+
+        TagRead created = service.enqueue(TagReadCreate.builder()
+                                                       .siteName("SiteA")
+                                                       .epc("EPC1")
+                                                       .referenceCode("REF1")
+                                                       .location("Dock")
+                                                       .rssi(-40.0)
+                                                       .build());
+
+        assertThat(created.id()).isNotNull();
+        verify(repository).save(any(TagRead.class));
+        verify(writeBehindQueue, never()).submit(any(), anyBoolean());
+    }
+
+    @Test
+    void createAll_shouldSaveInOneBatchAndEmitMetrics() {
+        stubCloudAvailable();
+        when(repository.saveAll(any())).thenAnswer(inv -> {
+            List<TagRead> reads = inv.getArgument(0);
+            return List.of(TagReadWriteResult.saved(0,
+                                                    reads.get(0)
+                                                         .id()),
+                           TagReadWriteResult.failed(1,
+                                                     reads.get(1)
+                                                          .id(),
+                                                     "boom"));
+        });
+
+        List<TagReadWriteResult> results = service.createAll(List.of(TagReadCreate.builder()
+                                                                                  .siteName("SiteA")
+                                                                                  .epc("EPC1")
+                                                                                  .referenceCode("REF1")
+                                                                                  .location("Dock")
+                                                                                  .rssi(-40.0)
+                                                                                  .build(),
+                                                                     TagReadCreate.builder()
+                                                                                  .siteName("SiteA")
+                                                                                  .epc("EPC2")
+                                                                                  .referenceCode("REF2")
+                                                                                  .location("Dock")
+                                                                                  .rssi(-41.0)
+                                                                                  .readAt(Instant.EPOCH)
+                                                                                  .build()));
+
+        assertThat(results).extracting(TagReadWriteResult::status)
+                           .containsExactly(TagReadWriteResult.Status.SAVED, TagReadWriteResult.Status.FAILED);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TagRead>> savedCaptor = ArgumentCaptor.forClass(List.class);
+        verify(repository).saveAll(savedCaptor.capture());
+        assertThat(savedCaptor.getValue()).hasSize(2)
+                                          .allSatisfy(read -> assertThat(read.id()).isNotNull());
+        assertThat(savedCaptor.getValue()
+                              .get(0)
+                              .readAt()).isNotNull();
+        assertThat(savedCaptor.getValue()
+                              .get(1)
+                              .readAt()).isEqualTo(Instant.EPOCH);
+        verify(cloudLogger).log(eq("tag_reads_batch_created"), anyMap());
+        verify(metricsPublisher).increment(eq("tag_reads.created"), eq(1.0), anyMap());
+    }
+
+    @Test
+    void createAll_shouldSkipRepositoryForEmptyBatch() {
+        assertThat(service.createAll(List.of())).isEmpty();
+
+        verifyNoInteractions(repository, cloudFactoryProvider);
+    }
+
+    @Test
+    void createAll_shouldWorkWhenCloudUnavailable() {
+        when(repository.saveAll(any())).thenReturn(List.of(TagReadWriteResult.saved(0, UUID.randomUUID())));
+        when(cloudFactoryProvider.getIfAvailable()).thenReturn(null);
+
+        List<TagReadWriteResult> results = service.createAll(List.of(TagReadCreate.builder()
+                                                                                  .siteName("SiteA")
+                                                                                  .epc("EPC1")
+                                                                                  .referenceCode("REF1")
+                                                                                  .location("Dock")
+                                                                                  .rssi(-40.0)
+                                                                                  .build()));
+
+        assertThat(results).hasSize(1);
+        verifyNoInteractions(cloudLogger, metricsPublisher);
+    }
+
     @Test
     void update_shouldPersistChangesAndRetainReadAtWhenNull() {
         UUID id = UUID.randomUUID();
@@ -172,6 +457,7 @@ class DefaultTagReadServiceTest {
                                                                // null
 
         verify(repository).save(any(TagRead.class));
+        verify(eventPublisher).publishEvent(TagReadsChangedEvent.replaced(List.of(existing, updated)));
         verify(cloudLogger).log(eq("tag_read_updated"), anyMap());
         verify(metricsPublisher).increment(eq("tag_reads.updated"), eq(1.0), anyMap());
     }
@@ -259,6 +545,7 @@ class DefaultTagReadServiceTest {
         service.delete(id);
 
         verify(repository).deleteById(id);
+        verify(eventPublisher).publishEvent(TagReadsChangedEvent.replaced(List.of(existing)));
         verify(cloudLogger).log(eq("tag_read_deleted"), anyMap());
         verify(metricsPublisher).increment(eq("tag_reads.deleted"), eq(1.0), anyMap());
     }
@@ -279,13 +566,114 @@ class DefaultTagReadServiceTest {
     }
 
     @Test
-    void findByFilters_shouldDelegateToRepository() {
-        when(repository.findByFilters(Optional.of("E"), Optional.empty(), Optional.of("S"))).thenReturn(List.of());
+    void search_shouldDelegateToRepository() {
+        ReflectionTestUtils.setField(service, "maxPageSize", 10);
+        TagReadFilter filter = TagReadFilter.builder()
+                                            .epc("E")
+                                            .siteName("S")
+                                            .build();
+        TagReadPage page = new TagReadPage(List.of(), Optional.empty());
+        when(repository.findPage(filter, Optional.empty(), 10)).thenReturn(page);
+
+        assertThat(service.search(filter, Optional.empty(), 10)).isSameAs(page);
+    }
+
+    @Test
+    void search_shouldRejectLimitsOutsideTheCap() {
+        ReflectionTestUtils.setField(service, "maxPageSize", 10);
+        TagReadFilter filter = TagReadFilter.builder()
+                                            .build();
+
+        assertThatThrownBy(() -> service.search(filter, Optional.empty(), 0)).isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> service.search(filter, Optional.empty(), 11)).isInstanceOf(InvalidRequestException.class);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void searchAndStream_shouldRejectInvertedTimeRange() {
+        ReflectionTestUtils.setField(service, "maxPageSize", 10);
+        TagReadFilter inverted = TagReadFilter.builder()
+                                              .from(Instant.parse("2024-02-01T00:00:00Z"))
+                                              .to(Instant.parse("2024-01-01T00:00:00Z"))
+                                              .build();
+
+        assertThatThrownBy(() -> service.search(inverted, Optional.empty(), 10)).isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> service.stream(inverted, read -> {
+        })).isInstanceOf(InvalidRequestException.class);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void findByReferenceCode_shouldDelegateWithPageCap() {
+        ReflectionTestUtils.setField(service, "maxPageSize", 10);
+        TagRead read = TagRead.builder()
+                              .id(UUID.randomUUID())
+                              .referenceCode("REF")
+                              .build();
+        when(blindIndex.isEnabled()).thenReturn(true);
+        when(repository.findByReferenceCode("REF", 10)).thenReturn(List.of(read));
+
+        assertThat(service.findByReferenceCode("REF")).containsExactly(read);
+    }
+
+    @Test
+    void findByReferenceCode_shouldRejectWhenBlindIndexDisabled() {
+        when(blindIndex.isEnabled()).thenReturn(false);
+
+        assertThatThrownBy(() -> service.findByReferenceCode("REF")).isInstanceOf(InvalidRequestException.class);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void current_shouldThrowNotFoundForUnknownEpc() {
+        when(currentStateRepository.findByEpc("EPC1")).thenReturn(Optional.empty());
 
-        List<TagRead> results = service.findByFilters(Optional.of("E"), Optional.empty(), Optional.of("S"));
+        assertThatThrownBy(() -> service.current("EPC1")).isInstanceOf(TagReadNotFoundException.class);
+    }
+
+    @Test
+    void currentBatch_shouldRejectListsOverTheCap() {
+        ReflectionTestUtils.setField(service, "maxPageSize", 2);
+
+        assertThatThrownBy(() -> service.current(List.of("A", "B", "C"))).isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> service.current(List.<String>of())).isInstanceOf(InvalidRequestException.class);
+        verifyNoInteractions(currentStateRepository);
+    }
+
+    @Test
+    void searchByEpcs_shouldDeduplicateEpcsAndDelegate() {
+        ReflectionTestUtils.setField(service, "maxPageSize", 10);
+        ReflectionTestUtils.setField(service, "maxBatchEpcs", 3);
+        TagReadFilter filter = TagReadFilter.builder()
+                                            .siteName("S")
+                                            .build();
+        Map<String, List<TagRead>> found = Map.of("A", List.of(), "B", List.of());
+        when(repository.findByEpcs(List.of("A", "B"), filter, 5)).thenReturn(found);
+
+        assertThat(service.searchByEpcs(List.of("A", "B", "A"), filter, 5)).isSameAs(found);
+    }
+
+    @Test
+    void searchByEpcs_shouldRejectOversizedRequests() {
+        ReflectionTestUtils.setField(service, "maxPageSize", 10);
+        ReflectionTestUtils.setField(service, "maxBatchEpcs", 2);
+        TagReadFilter filter = TagReadFilter.builder()
+                                            .build();
+
+        assertThatThrownBy(() -> service.searchByEpcs(List.of("A", "B", "C"), filter, 5)).isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> service.searchByEpcs(List.of("A"), filter, 11)).isInstanceOf(InvalidRequestException.class);
+        verifyNoInteractions(repository);
+    }
 
-        assertThat(results).isEmpty();
-        verify(repository).findByFilters(Optional.of("E"), Optional.empty(), Optional.of("S"));
+    private static TagReadCreate dockRead(double rssi, Instant readAt) {
+        return TagReadCreate.builder()
+                            .siteName("SiteA")
+                            .epc("EPC1")
+                            .referenceCode("REF1")
+                            .location("Dock")
+                            .rssi(rssi)
+                            .readAt(readAt)
+                            .build();
     }
 
     private void stubCloudAvailable() {
@@ -0,0 +1,215 @@
+package com.anexya.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.ExecutorServiceAdapter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.anexya.app.domain.TagRead;
+import com.anexya.app.domain.TagSummary;
+import com.anexya.app.repository.Dimension;
+import com.anexya.app.repository.DimensionDictionary;
+import com.anexya.app.repository.impl.JdbcDimensionDictionary;
+import com.anexya.app.service.impl.InMemoryAggregationStrategy;
+import com.anexya.app.service.impl.JdbcAggregationStrategy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@Testcontainers
+@TestInstance(Lifecycle.PER_CLASS)
+class InMemoryAggregationStrategyTest {
+
+    private static final String IMAGE = "mysql:8.0";
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-01-15T12:00:00Z"), ZoneOffset.UTC);
+
+    @SuppressWarnings("resource")
+    @Container
+    private static final MySQLContainer<?> mysql = new MySQLContainer<>(IMAGE).withDatabaseName("testdb")
+                                                                              .withUsername("test")
+                                                                              .withPassword("test");
+
+    private JdbcTemplate jdbcTemplate;
+    private DimensionDictionary dictionary;
+    private AggregationStrategy raw;
+    private SimpleMeterRegistry meterRegistry;
+    private InMemoryAggregationStrategy memory;
+
+    @BeforeAll
+    void setUpDataSource() {
+        DataSource dataSource = new DriverManagerDataSource(Objects.requireNonNull(mysql.getJdbcUrl()),
+                                                            Objects.requireNonNull(mysql.getUsername()),
+                                                            Objects.requireNonNull(mysql.getPassword()));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        Flyway.configure()
+              .dataSource(dataSource)
+              .locations("classpath:db/migration/testmysql")
+              .load()
+              .migrate();
+        dictionary = new JdbcDimensionDictionary(jdbcTemplate, 1000);
+        raw = new JdbcAggregationStrategy(jdbcTemplate, dictionary);
+    }
+
+    @BeforeEach
+    void seed() {
+        clean();
+        insert(read("SiteA", "EPC1", "Dock1", -40.0, "2024-01-01T00:00:00Z"));
+        insert(read("SiteA", "EPC1", "Dock1", -42.0, "2024-01-10T09:59:59.999999Z"));
+        insert(read("SiteA", "EPC1", "Dock2", -30.0, "2024-01-11T12:00:00Z"));
+        insert(read("SiteA", "EPC1", "Dock2", -35.5, "2024-01-12T23:30:00Z"));
+        insert(read("SiteB", "EPC2", "Dock3", -20.0, "2024-01-11T06:10:00Z"));
+        insert(read("SiteB", "EPC2", "Dock3", -25.0, "2024-01-14T02:00:00Z"));
+        memory = strategy(4096);
+        memory.rebuild();
+    }
+
+    @AfterEach
+    void clean() {
+        jdbcTemplate.execute("delete from tag_reads");
+    }
+
+    @Test
+    void summarize_shouldMatchRawStrategyWithinRetention() {
+        assertSameAsRaw("2024-01-09T00:00:00Z", "2024-01-15T11:59:59.999999Z", Optional.empty(), Optional.empty());
+        assertSameAsRaw("2024-01-10T09:59:00Z", "2024-01-11T12:00:59.999999Z", Optional.of("SiteA"), Optional.empty());
+        assertSameAsRaw("2024-01-09T00:00:00Z", "2024-01-15T11:59:59.999999Z", Optional.empty(), Optional.of("EPC2"));
+        assertThat(meterRegistry.counter("tag_reads.memory.queries", "source", "memory")
+                                .count()).isEqualTo(3.0);
+        assertThat(meterRegistry.get("tag_reads.memory.bytes")
+                                .gauge()
+                                .value()).isPositive();
+    }
+
+    @Test
+    void summarize_shouldFallBackBeyondRetention() {
+        assertSameAsRaw("2024-01-01T00:00:00Z", "2024-01-15T11:59:59.999999Z", Optional.empty(), Optional.empty());
+        assertThat(meterRegistry.counter("tag_reads.memory.queries", "source", "jdbc")
+                                .count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void onTagReadsChanged_shouldApplyInsertsAndReloadReplacedEpcs() {
+        TagRead added = read("SiteA", "EPC1", "Dock3", -10.0, "2024-01-13T08:00:00Z");
+        insert(added);
+        memory.onTagReadsChanged(TagReadsChangedEvent.inserted(List.of(added)));
+
+        assertSameAsRaw("2024-01-09T00:00:00Z", "2024-01-15T11:59:59.999999Z", Optional.empty(), Optional.empty());
+
+        TagRead moved = added.toBuilder()
+                             .epc("EPC2")
+                             .build();
+        jdbcTemplate.update("update tag_reads set epc_id = ? where id = uuid_to_bin(?)",
+                            dictionary.idFor(Dimension.EPC, "EPC2"),
+                            added.id()
+                                 .toString());
+        memory.onTagReadsChanged(TagReadsChangedEvent.replaced(List.of(added, moved)));
+
+        assertSameAsRaw("2024-01-09T00:00:00Z", "2024-01-15T11:59:59.999999Z", Optional.empty(), Optional.empty());
+    }
+
+    @Test
+    void summarize_shouldFallBackBeforeTruncatedBuckets() {
+        memory = strategy(2);
+        memory.rebuild();
+
+        assertSameAsRaw("2024-01-09T00:00:00Z", "2024-01-15T11:59:59.999999Z", Optional.empty(), Optional.empty());
+        assertThat(meterRegistry.counter("tag_reads.memory.queries", "source", "jdbc")
+                                .count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void summarize_shouldStayInMemoryForEpcsThatKeptAllTheirCells() {
+        memory = strategy(2);
+        memory.rebuild();
+
+        // only EPC1 has more than two cells
+        assertSameAsRaw("2024-01-09T00:00:00Z", "2024-01-15T11:59:59.999999Z", Optional.empty(), Optional.of("EPC2"));
+        assertSameAsRaw("2024-01-11T12:00:00Z", "2024-01-15T11:59:59.999999Z", Optional.empty(), Optional.empty());
+        assertThat(meterRegistry.counter("tag_reads.memory.queries", "source", "memory")
+                                .count()).isEqualTo(2.0);
+    }
+
+    private InMemoryAggregationStrategy strategy(int maxCellsPerEpc) {
+        meterRegistry = new SimpleMeterRegistry();
+        return new InMemoryAggregationStrategy(jdbcTemplate,
+                                               dictionary,
+                                               new ExecutorServiceAdapter(new SyncTaskExecutor()),
+                                               meterRegistry,
+                                               Duration.ofDays(7),
+                                               Duration.ofMinutes(1),
+                                               maxCellsPerEpc,
+                                               1000,
+                                               Duration.ZERO,
+                                               CLOCK);
+    }
+
+    private void assertSameAsRaw(String from, String to, Optional<String> siteName, Optional<String> epc) {
+        List<TagSummary> expected = sorted(raw.summarizeByTag(Instant.parse(from), Instant.parse(to), siteName, epc));
+        List<TagSummary> actual = sorted(memory.summarizeByTag(Instant.parse(from), Instant.parse(to), siteName, epc));
+
+        assertThat(actual).hasSameSizeAs(expected);
+        for (int i = 0; i < expected.size(); i++) {
+            TagSummary want = expected.get(i);
+            TagSummary got = actual.get(i);
+            assertThat(got).usingRecursiveComparison()
+                           .ignoringFields("averageRssi")
+                           .isEqualTo(want);
+            assertThat(got.averageRssi()).isCloseTo(want.averageRssi(), within(1e-9));
+        }
+    }
+
+    private static List<TagSummary> sorted(List<TagSummary> summaries) {
+        return summaries.stream()
+                        .sorted(Comparator.comparing(TagSummary::epc))
+                        .toList();
+    }
+
+    private void insert(TagRead read) {
+        jdbcTemplate.update("insert into tag_reads (id, site_id, epc_id, reference_code, location_id, rssi, read_at) values (uuid_to_bin(?),?,?,?,?,?,?)",
+                            read.id()
+                                .toString(),
+                            dictionary.idFor(Dimension.SITE, read.siteName()),
+                            dictionary.idFor(Dimension.EPC, read.epc()),
+                            read.referenceCode(),
+                            dictionary.idFor(Dimension.LOCATION, read.location()),
+                            read.rssi(),
+                            Timestamp.from(read.readAt()));
+    }
+
+    private static TagRead read(String site, String epc, String location, double rssi, String readAt) {
+        return TagRead.builder()
+                      .id(UUID.randomUUID())
+                      .siteName(site)
+                      .epc(epc)
+                      .referenceCode("REF")
+                      .location(location)
+                      .rssi(rssi)
+                      .readAt(Instant.parse(readAt))
+                      .build();
+    }
+}
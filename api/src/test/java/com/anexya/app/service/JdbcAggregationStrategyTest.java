@@ -1,6 +1,7 @@
 package com.anexya.app.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 import java.sql.Timestamp;
 import java.time.Instant;
@@ -11,6 +12,7 @@ import java.util.Optional;
 
 import javax.sql.DataSource;
 
+import org.flywaydb.core.Flyway;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -24,7 +26,12 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import com.anexya.app.service.impl.JdbcAggregationStrategy;
+import com.anexya.app.domain.DimensionSummary;
+import com.anexya.app.domain.SummaryDimension;
 import com.anexya.app.domain.TagSummary;
+import com.anexya.app.repository.Dimension;
+import com.anexya.app.repository.DimensionDictionary;
+import com.anexya.app.repository.impl.JdbcDimensionDictionary;
 
 @Testcontainers
 @TestInstance(Lifecycle.PER_CLASS)
@@ -39,6 +46,7 @@ class JdbcAggregationStrategyTest {
                                                                               .withPassword("test");
 
     private JdbcTemplate jdbcTemplate;
+    private DimensionDictionary dictionary;
     private AggregationStrategy aggregationStrategy;
 
     @BeforeAll
@@ -47,20 +55,13 @@ class JdbcAggregationStrategyTest {
                                                             Objects.requireNonNull(mysql.getUsername()),
                                                             Objects.requireNonNull(mysql.getPassword()));
         jdbcTemplate = new JdbcTemplate(dataSource);
-        jdbcTemplate.execute("drop table if exists tag_reads");
-        jdbcTemplate.execute("""
-                create table tag_reads (
-                    id char(36) not null,
-                    site_name varchar(255) not null,
-                    epc varchar(255) not null,
-                    reference_code varchar(1024) not null,
-                    location varchar(255) not null,
-                    rssi double not null,
-                    read_at datetime(6) not null,
-                    primary key (id)
-                );
-                """);
-        aggregationStrategy = new JdbcAggregationStrategy(jdbcTemplate);
+        Flyway.configure()
+              .dataSource(dataSource)
+              .locations("classpath:db/migration/testmysql")
+              .load()
+              .migrate();
+        dictionary = new JdbcDimensionDictionary(jdbcTemplate, 1000);
+        aggregationStrategy = new JdbcAggregationStrategy(jdbcTemplate, dictionary);
     }
 
     @BeforeEach
@@ -134,13 +135,68 @@ class JdbcAggregationStrategyTest {
                             .totalReadCount()).isEqualTo(1);
     }
 
+    @Test
+    void summarize_unknownSite_returnsEmpty() {
+        List<TagSummary> summaries = aggregationStrategy.summarizeByTag(Instant.parse("2024-01-01T00:00:00Z"),
+                                                                        Instant.parse("2024-02-01T00:00:00Z"),
+                                                                        Optional.of("SiteZ"),
+                                                                        Optional.empty());
+
+        assertThat(summaries).isEmpty();
+    }
+
+    @Test
+    void summarizeBy_groupsByEachDimension() {
+        Instant start = Instant.parse("2024-01-01T00:00:00Z");
+        Instant end = Instant.parse("2024-02-01T00:00:00Z");
+
+        List<DimensionSummary> bySite = aggregationStrategy.summarizeBy(SummaryDimension.SITE, start, end, Optional.empty(), Optional.empty());
+        List<DimensionSummary> byLocation = aggregationStrategy.summarizeBy(SummaryDimension.LOCATION, start, end, Optional.empty(), Optional.empty());
+        List<DimensionSummary> bySiteLocation = aggregationStrategy.summarizeBy(SummaryDimension.SITE_LOCATION, start, end, Optional.of("SiteA"), Optional.empty());
+
+        assertThat(bySite).containsExactly(DimensionSummary.builder()
+                                                           .siteName("SiteA")
+                                                           .totalReadCount(3)
+                                                           .averageRssi((-40.0 - 42.0 - 30.0) / 3.0)
+                                                           .peakRssi(-30.0)
+                                                           .epcCount(1)
+                                                           .firstSeen(Instant.parse("2024-01-10T00:00:00Z"))
+                                                           .lastSeen(Instant.parse("2024-01-12T00:00:00Z"))
+                                                           .build(),
+                                           DimensionSummary.builder()
+                                                           .siteName("SiteB")
+                                                           .totalReadCount(1)
+                                                           .averageRssi(-20.0)
+                                                           .peakRssi(-20.0)
+                                                           .epcCount(1)
+                                                           .firstSeen(Instant.parse("2024-01-13T00:00:00Z"))
+                                                           .lastSeen(Instant.parse("2024-01-13T00:00:00Z"))
+                                                           .build());
+        assertThat(byLocation).extracting(DimensionSummary::location, DimensionSummary::totalReadCount)
+                              .containsExactly(tuple("Dock1", 2L), tuple("Dock2", 1L), tuple("Dock3", 1L));
+        assertThat(byLocation.get(0)
+                             .siteName()).isNull();
+        assertThat(bySiteLocation).extracting(DimensionSummary::siteName, DimensionSummary::location, DimensionSummary::averageRssi)
+                                  .containsExactly(tuple("SiteA", "Dock1", -41.0), tuple("SiteA", "Dock2", -30.0));
+    }
+
+    @Test
+    void summarizeBy_unknownEpc_returnsEmpty() {
+        List<DimensionSummary> summaries = aggregationStrategy.summarizeBy(SummaryDimension.SITE,
+                                                                           Instant.parse("2024-01-01T00:00:00Z"),
+                                                                           Instant.parse("2024-02-01T00:00:00Z"),
+                                                                           Optional.empty(),
+                                                                           Optional.of("EPC9"));
+
+        assertThat(summaries).isEmpty();
+    }
+
     private void insert(String id, String site, String epc, String location, double rssi, String isoInstant) {
-        jdbcTemplate.update("insert into tag_reads (id, site_name, epc, reference_code, location, rssi, read_at) values (?,?,?,?,?,?,?)",
-                            id,
-                            site,
-                            epc,
+        jdbcTemplate.update("insert into tag_reads (id, site_id, epc_id, reference_code, location_id, rssi, read_at) values (uuid_to_bin(uuid()),?,?,?,?,?,?)",
+                            dictionary.idFor(Dimension.SITE, site),
+                            dictionary.idFor(Dimension.EPC, epc),
                             "REF-" + id,
-                            location,
+                            dictionary.idFor(Dimension.LOCATION, location),
                             rssi,
                             Timestamp.from(Instant.parse(isoInstant)));
     }
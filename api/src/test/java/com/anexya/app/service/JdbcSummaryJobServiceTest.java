@@ -0,0 +1,325 @@
+package com.anexya.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.anexya.app.domain.SummaryJob;
+import com.anexya.app.domain.SummaryJobStatus;
+import com.anexya.app.domain.TagSummary;
+import com.anexya.app.service.impl.JdbcSummaryJobService;
+import com.anexya.app.web.InvalidRequestException;
+import com.anexya.app.web.SummaryJobQueueFullException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@Testcontainers
+@TestInstance(Lifecycle.PER_CLASS)
+class JdbcSummaryJobServiceTest {
+
+    private static final String IMAGE = "mysql:8.0";
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+    private static final Instant END = Instant.parse("2024-12-31T23:59:59Z");
+    private static final List<TagSummary> SUMMARIES = List.of(TagSummary.builder()
+                                                                         .epc("EPC1")
+                                                                         .totalReadCount(3)
+                                                                         .averageRssi(-42.5)
+                                                                         .peakRssi(-40.0)
+                                                                         .locationCount(2)
+                                                                         .mostDetectedLocation("Dock1")
+                                                                         .firstSeen(Instant.parse("2024-01-10T10:00:00.000001Z"))
+                                                                         .lastSeen(Instant.parse("2024-01-10T11:00:00Z"))
+                                                                         .rssiP50(-42.0)
+                                                                         .rssiP90(-40.5)
+                                                                         .rssiP99(-40.0)
+                                                                         .build(),
+                                                              TagSummary.builder()
+                                                                        .epc("EPC2")
+                                                                        .totalReadCount(1)
+                                                                        .averageRssi(-60.0)
+                                                                        .peakRssi(-60.0)
+                                                                        .locationCount(1)
+                                                                        .build());
+
+    @SuppressWarnings("resource")
+    @Container
+    private static final MySQLContainer<?> mysql = new MySQLContainer<>(IMAGE).withDatabaseName("testdb")
+                                                                              .withUsername("test")
+                                                                              .withPassword("test");
+
+    private JdbcTemplate jdbcTemplate;
+    private AggregationStrategy strategy;
+    private CountDownLatch release;
+    private CountDownLatch interrupted;
+    private JdbcSummaryJobService jobs;
+
+    @BeforeAll
+    void setUpDataSource() {
+        DataSource dataSource = new DriverManagerDataSource(Objects.requireNonNull(mysql.getJdbcUrl()),
+                                                            Objects.requireNonNull(mysql.getUsername()),
+                                                            Objects.requireNonNull(mysql.getPassword()));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        Flyway.configure()
+              .dataSource(dataSource)
+              .locations("classpath:db/migration/testmysql")
+              .load()
+              .migrate();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("delete from summary_jobs");
+        release = new CountDownLatch(0);
+        interrupted = new CountDownLatch(1);
+        strategy = mock(AggregationStrategy.class);
+        when(strategy.summarizeByTag(any(), any(), any(), any())).thenAnswer(inv -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return SUMMARIES;
+        });
+        doCallRealMethod().when(strategy)
+                          .streamByTag(any(), any(), any(), any(), any(), any());
+        jobs = service(2, 10, 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        jobs.shutdown();
+    }
+
+    @Test
+    void submit_shouldRunJobAndStoreDecodableResult() throws Exception {
+        SummaryJob submitted = jobs.submit(START, END, Optional.of("SiteA"), Optional.empty());
+
+        SummaryJob done = awaitStatus(submitted.id(), SummaryJobStatus.DONE);
+        List<TagSummary> rows = new ArrayList<>();
+        jobs.streamResult(done.id(), rows::add);
+
+        assertThat(done.resultCount()).isEqualTo(2L);
+        assertThat(done.siteName()).isEqualTo("SiteA");
+        assertThat(done.startedAt()).isNotNull();
+        assertThat(done.finishedAt()).isNotNull();
+        assertThat(rows).isEqualTo(SUMMARIES);
+    }
+
+    @Test
+    void streamResult_shouldReadRowsBackAcrossChunks() throws Exception {
+        jobs.shutdown();
+        jobs = service(2, 10, 1);
+        SummaryJob submitted = jobs.submit(START, END, Optional.empty(), Optional.empty());
+
+        SummaryJob done = awaitStatus(submitted.id(), SummaryJobStatus.DONE);
+        List<TagSummary> rows = new ArrayList<>();
+        jobs.streamResult(done.id(), rows::add);
+
+        Long chunks = jdbcTemplate.queryForObject("select count(*) from summary_job_results where job_id = uuid_to_bin(?)",
+                                                  Long.class,
+                                                  done.id()
+                                                      .toString());
+        assertThat(chunks).isEqualTo(2L);
+        assertThat(done.resultCount()).isEqualTo(2L);
+        assertThat(rows).isEqualTo(SUMMARIES);
+    }
+
+    @Test
+    void submit_shouldRunQueriesPastTheApplicationSocketTimeoutOnTheJobPool() throws Exception {
+        String url = Objects.requireNonNull(mysql.getJdbcUrl());
+        JdbcTemplate application = new JdbcTemplate(new DriverManagerDataSource(url + (url.contains("?") ? "&" : "?") + "socketTimeout=1000",
+                                                                                Objects.requireNonNull(mysql.getUsername()),
+                                                                                Objects.requireNonNull(mysql.getPassword())));
+        doAnswer(inv -> {
+            JdbcTemplate jobJdbcTemplate = inv.getArgument(0);
+            jobJdbcTemplate.queryForObject("select sleep(2)", Integer.class);
+            Consumer<TagSummary> consumer = inv.getArgument(5);
+            SUMMARIES.forEach(consumer);
+            return null;
+        }).when(strategy)
+          .streamByTag(any(), any(), any(), any(), any(), any());
+        jobs.shutdown();
+        jobs = service(application, 2, 10, 1000);
+
+        SummaryJob done = awaitStatus(jobs.submit(START, END, Optional.empty(), Optional.empty())
+                                          .id(),
+                                      SummaryJobStatus.DONE);
+
+        assertThat(done.resultCount()).isEqualTo(2L);
+        assertThatThrownBy(() -> application.queryForObject("select sleep(2)", Integer.class)).isInstanceOf(DataAccessException.class);
+    }
+
+    @Test
+    void submit_identicalActiveJob_shouldReturnExistingJob() throws Exception {
+        release = new CountDownLatch(1);
+
+        SummaryJob first = jobs.submit(START, END, Optional.empty(), Optional.of("EPC1"));
+        SummaryJob second = jobs.submit(START, END, Optional.empty(), Optional.of("EPC1"));
+        SummaryJob otherEpc = jobs.submit(START, END, Optional.empty(), Optional.of("EPC2"));
+        SummaryJob siteNamedLikeEpc = jobs.submit(START, END, Optional.of("EPC1"), Optional.empty());
+
+        assertThat(second.id()).isEqualTo(first.id());
+        assertThat(otherEpc.id()).isNotEqualTo(first.id());
+        assertThat(siteNamedLikeEpc.id()).isNotIn(first.id(), otherEpc.id());
+
+        release.countDown();
+        awaitStatus(first.id(), SummaryJobStatus.DONE);
+        SummaryJob afterDone = jobs.submit(START, END, Optional.empty(), Optional.of("EPC1"));
+
+        assertThat(afterDone.id()).isNotEqualTo(first.id());
+    }
+
+    @Test
+    void cancel_runningJob_shouldDiscardItsResult() throws Exception {
+        release = new CountDownLatch(1);
+        SummaryJob submitted = jobs.submit(START, END, Optional.empty(), Optional.empty());
+        awaitStatus(submitted.id(), SummaryJobStatus.RUNNING);
+
+        SummaryJob cancelled = jobs.cancel(submitted.id());
+        release.countDown();
+        Thread.sleep(100);
+
+        assertThat(cancelled.status()).isEqualTo(SummaryJobStatus.CANCELLED);
+        assertThat(jobs.get(submitted.id())
+                       .resultCount()).isNull();
+        assertThat(jobs.get(submitted.id())
+                       .status()).isEqualTo(SummaryJobStatus.CANCELLED);
+        assertThatThrownBy(() -> jobs.streamResult(submitted.id(), summary -> {
+        })).isInstanceOf(InvalidRequestException.class);
+        assertThat(jobs.submit(START, END, Optional.empty(), Optional.empty())
+                       .id()).isNotEqualTo(submitted.id());
+    }
+
+    @Test
+    void submit_whenQueueIsFull_shouldRejectAndForgetTheJob() {
+        jobs.shutdown();
+        jobs = service(1, 1, 1000);
+        release = new CountDownLatch(1);
+
+        jobs.submit(START, END, Optional.empty(), Optional.of("EPC1"));
+        jobs.submit(START, END, Optional.empty(), Optional.of("EPC2"));
+
+        assertThatThrownBy(() -> jobs.submit(START, END, Optional.empty(), Optional.of("EPC3"))).isInstanceOf(SummaryJobQueueFullException.class);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from summary_jobs", Long.class)).isEqualTo(2L);
+    }
+
+    @Test
+    void submit_shouldInterruptLocalJobsRunningPastTheTimeout() throws Exception {
+        release = new CountDownLatch(1);
+        SummaryJob running = jobs.submit(START, END, Optional.empty(), Optional.of("EPC1"));
+        awaitStatus(running.id(), SummaryJobStatus.RUNNING);
+        jdbcTemplate.update("update summary_jobs set started_at = ? where id = uuid_to_bin(?)",
+                            Timestamp.from(Instant.now()
+                                                  .minus(Duration.ofHours(2))),
+                            running.id()
+                                   .toString());
+
+        jobs.submit(START, END, Optional.empty(), Optional.of("EPC2"));
+
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(jobs.get(running.id())
+                       .status()).isEqualTo(SummaryJobStatus.FAILED);
+    }
+
+    @Test
+    void submit_shouldFailStaleActiveJobsAndPurgeOldResults() {
+        UUID stale = UUID.randomUUID();
+        UUID recentlyStarted = UUID.randomUUID();
+        UUID old = UUID.randomUUID();
+        Instant now = Instant.now();
+        jdbcTemplate.update("insert into summary_jobs (id, status, start_date, end_date, active_hash, submitted_at, started_at) "
+                + "values (uuid_to_bin(?), 'RUNNING', ?, ?, unhex(sha2('recently-started', 256)), ?, ?)",
+                            recentlyStarted.toString(),
+                            Timestamp.from(START),
+                            Timestamp.from(END),
+                            Timestamp.from(now.minus(Duration.ofHours(2))),
+                            Timestamp.from(now.minus(Duration.ofMinutes(10))));
+        jdbcTemplate.update("insert into summary_jobs (id, status, start_date, end_date, active_hash, submitted_at, started_at) "
+                + "values (uuid_to_bin(?), 'RUNNING', ?, ?, unhex(sha2('stale', 256)), ?, ?)",
+                            stale.toString(),
+                            Timestamp.from(START),
+                            Timestamp.from(END),
+                            Timestamp.from(now.minus(Duration.ofHours(2))),
+                            Timestamp.from(now.minus(Duration.ofHours(2))));
+        jdbcTemplate.update("insert into summary_jobs (id, status, start_date, end_date, submitted_at, finished_at, result_count) "
+                + "values (uuid_to_bin(?), 'DONE', ?, ?, ?, ?, 0)",
+                            old.toString(),
+                            Timestamp.from(START),
+                            Timestamp.from(END),
+                            Timestamp.from(now.minus(Duration.ofDays(3))),
+                            Timestamp.from(now.minus(Duration.ofDays(2))));
+
+        jobs.submit(START, END, Optional.empty(), Optional.empty());
+
+        SummaryJob expired = jobs.get(stale);
+        assertThat(expired.status()).isEqualTo(SummaryJobStatus.FAILED);
+        assertThat(expired.error()).startsWith("Timed out");
+        assertThat(jobs.get(recentlyStarted)
+                       .status()).isEqualTo(SummaryJobStatus.RUNNING);
+        assertThatThrownBy(() -> jobs.get(old)).hasMessageContaining(old.toString());
+    }
+
+    private JdbcSummaryJobService service(int parallelism, int maxQueued, int chunkRows) {
+        return service(jdbcTemplate, parallelism, maxQueued, chunkRows);
+    }
+
+    private JdbcSummaryJobService service(JdbcTemplate applicationJdbcTemplate, int parallelism, int maxQueued, int chunkRows) {
+        return new JdbcSummaryJobService(applicationJdbcTemplate,
+                                         jdbcTemplate,
+                                         strategy,
+                                         new SimpleMeterRegistry(),
+                                         parallelism,
+                                         maxQueued,
+                                         chunkRows,
+                                         Duration.ofHours(1),
+                                         Duration.ofHours(24),
+                                         Duration.ofHours(24),
+                                         Clock.systemUTC());
+    }
+
+    private SummaryJob awaitStatus(UUID id, SummaryJobStatus status) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        SummaryJob job = jobs.get(id);
+        while (job.status() != status && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            job = jobs.get(id);
+        }
+        assertThat(job.status()).isEqualTo(status);
+        return job;
+    }
+}
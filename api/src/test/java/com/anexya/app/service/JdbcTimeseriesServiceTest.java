@@ -0,0 +1,241 @@
+package com.anexya.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.anexya.app.domain.BucketWidth;
+import com.anexya.app.domain.TimeseriesBucket;
+import com.anexya.app.repository.Dimension;
+import com.anexya.app.repository.DimensionDictionary;
+import com.anexya.app.repository.impl.JdbcDimensionDictionary;
+import com.anexya.app.repository.impl.RollupMaintainer;
+import com.anexya.app.service.impl.JdbcTimeseriesService;
+import com.anexya.app.util.MutableClock;
+import com.anexya.app.web.InvalidRequestException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@Testcontainers
+@TestInstance(Lifecycle.PER_CLASS)
+class JdbcTimeseriesServiceTest {
+
+    private static final String IMAGE = "mysql:8.0";
+
+    @SuppressWarnings("resource")
+    @Container
+    private static final MySQLContainer<?> mysql = new MySQLContainer<>(IMAGE).withDatabaseName("testdb")
+                                                                              .withUsername("test")
+                                                                              .withPassword("test");
+
+    private JdbcTemplate jdbcTemplate;
+    private DimensionDictionary dictionary;
+    private RollupMaintainer maintainer;
+    private MutableClock clock;
+    private SimpleMeterRegistry meterRegistry;
+    private TimeseriesService timeseries;
+
+    @BeforeAll
+    void setUpDataSource() {
+        DataSource dataSource = new DriverManagerDataSource(Objects.requireNonNull(mysql.getJdbcUrl()),
+                                                            Objects.requireNonNull(mysql.getUsername()),
+                                                            Objects.requireNonNull(mysql.getPassword()));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        Flyway.configure()
+              .dataSource(dataSource)
+              .locations("classpath:db/migration/testmysql")
+              .load()
+              .migrate();
+        dictionary = new JdbcDimensionDictionary(jdbcTemplate, 1000);
+        maintainer = new RollupMaintainer(jdbcTemplate, new SimpleMeterRegistry(), true, false, Duration.ofSeconds(30), 1000);
+    }
+
+    @BeforeEach
+    void seed() {
+        clean();
+        insert("SiteA", "EPC1", "Dock1", -40.0, "2024-01-10T00:15:00Z");
+        insert("SiteA", "EPC1", "Dock1", -42.0, "2024-01-10T00:20:00Z");
+        insert("SiteA", "EPC2", "Dock2", -30.0, "2024-01-10T00:21:30Z");
+        insert("SiteB", "EPC1", "Dock3", -20.0, "2024-01-10T01:05:00Z");
+        insert("SiteA", "EPC1", "Dock1", -41.0, "2024-01-11T12:00:00Z");
+        markDirty("2024-01-10T00:00:00Z", "2024-01-10T01:00:00Z", "2024-01-11T12:00:00Z");
+        maintainer.refresh();
+        clock = new MutableClock(Instant.parse("2024-02-01T00:00:00Z"));
+        timeseries = service();
+    }
+
+    @AfterEach
+    void clean() {
+        jdbcTemplate.execute("delete from tag_read_rollup_backfill");
+        jdbcTemplate.execute("delete from tag_read_rollup_dirty");
+        jdbcTemplate.execute("delete from tag_read_rollup_hourly");
+        jdbcTemplate.execute("delete from tag_read_rollup_daily");
+        jdbcTemplate.execute("delete from tag_reads");
+    }
+
+    @Test
+    void readRates_shouldBucketRawReadsByMinutes() {
+        List<TimeseriesBucket> fiveMinutes = readRates("2024-01-10T00:00:00Z", "2024-01-10T01:59:59Z", BucketWidth.FIVE_MINUTES, null, null, null);
+        List<TimeseriesBucket> widened = readRates("2024-01-10T00:20:59Z", "2024-01-10T00:21:00Z", BucketWidth.ONE_MINUTE, null, null, null);
+
+        assertThat(fiveMinutes).extracting(TimeseriesBucket::bucketStart,
+                                           TimeseriesBucket::readCount,
+                                           TimeseriesBucket::averageRssi,
+                                           TimeseriesBucket::peakRssi,
+                                           TimeseriesBucket::epcCount)
+                               .containsExactly(tuple(Instant.parse("2024-01-10T00:15:00Z"), 1L, -40.0, -40.0, 1L),
+                                                tuple(Instant.parse("2024-01-10T00:20:00Z"), 2L, -36.0, -30.0, 2L),
+                                                tuple(Instant.parse("2024-01-10T01:05:00Z"), 1L, -20.0, -20.0, 1L));
+        assertThat(widened).extracting(TimeseriesBucket::bucketStart)
+                           .containsExactly(Instant.parse("2024-01-10T00:20:00Z"), Instant.parse("2024-01-10T00:21:00Z"));
+    }
+
+    @Test
+    void readRates_shouldAnswerHoursAndDaysFromRollups() {
+        List<TimeseriesBucket> hours = readRates("2024-01-10T00:00:00Z", "2024-01-11T23:59:59Z", BucketWidth.ONE_HOUR, null, null, null);
+        List<TimeseriesBucket> days = readRates("2024-01-01T00:00:00Z", "2024-01-31T00:00:00Z", BucketWidth.ONE_DAY, null, null, null);
+
+        assertThat(hours).extracting(TimeseriesBucket::bucketStart, TimeseriesBucket::readCount, TimeseriesBucket::peakRssi, TimeseriesBucket::epcCount)
+                         .containsExactly(tuple(Instant.parse("2024-01-10T00:00:00Z"), 3L, -30.0, 2L),
+                                          tuple(Instant.parse("2024-01-10T01:00:00Z"), 1L, -20.0, 1L),
+                                          tuple(Instant.parse("2024-01-11T12:00:00Z"), 1L, -41.0, 1L));
+        assertThat(days).extracting(TimeseriesBucket::bucketStart, TimeseriesBucket::readCount, TimeseriesBucket::epcCount)
+                        .containsExactly(tuple(Instant.parse("2024-01-10T00:00:00Z"), 4L, 2L), tuple(Instant.parse("2024-01-11T00:00:00Z"), 1L, 1L));
+    }
+
+    @Test
+    void readRates_shouldApplyDimensionFilters() {
+        List<TimeseriesBucket> site = readRates("2024-01-01T00:00:00Z", "2024-01-31T00:00:00Z", BucketWidth.ONE_DAY, "SiteA", null, null);
+        List<TimeseriesBucket> locationAndEpc = readRates("2024-01-10T00:00:00Z", "2024-01-10T23:00:00Z", BucketWidth.ONE_HOUR, null, "Dock1", "EPC1");
+
+        assertThat(site).extracting(TimeseriesBucket::readCount)
+                        .containsExactly(3L, 1L);
+        assertThat(locationAndEpc).extracting(TimeseriesBucket::readCount, TimeseriesBucket::averageRssi)
+                                  .containsExactly(tuple(2L, -41.0));
+        assertThat(readRates("2024-01-10T00:00:00Z", "2024-01-10T23:00:00Z", BucketWidth.ONE_HOUR, null, "Dock-Z", null)).isEmpty();
+    }
+
+    @Test
+    void readRates_shouldReadQueuedHoursRaw() {
+        insert("SiteA", "EPC3", "Dock1", -10.0, "2024-01-10T00:30:00Z");
+        markDirty("2024-01-10T00:00:00Z");
+
+        List<TimeseriesBucket> hours = readRates("2024-01-10T00:00:00Z", "2024-01-10T01:00:00Z", BucketWidth.ONE_HOUR, null, null, null);
+        List<TimeseriesBucket> days = readRates("2024-01-10T00:00:00Z", "2024-01-11T00:00:00Z", BucketWidth.ONE_DAY, null, null, null);
+
+        assertThat(hours).extracting(TimeseriesBucket::readCount, TimeseriesBucket::epcCount)
+                         .containsExactly(tuple(4L, 3L), tuple(1L, 1L));
+        assertThat(days).extracting(TimeseriesBucket::readCount, TimeseriesBucket::epcCount)
+                        .containsExactly(tuple(5L, 3L), tuple(1L, 1L));
+    }
+
+    @Test
+    void readRates_shouldCacheClosedChunksOnly() {
+        clock = new MutableClock(Instant.parse("2024-01-10T01:10:00Z"));
+        timeseries = service();
+        readRates("2024-01-10T00:00:00Z", "2024-01-10T01:09:00Z", BucketWidth.ONE_MINUTE, null, null, null);
+        insert("SiteA", "EPC1", "Dock1", -50.0, "2024-01-10T00:40:00Z");
+        insert("SiteA", "EPC1", "Dock1", -50.0, "2024-01-10T01:07:00Z");
+
+        List<TimeseriesBucket> cached = readRates("2024-01-10T00:00:00Z", "2024-01-10T01:09:00Z", BucketWidth.ONE_MINUTE, null, null, null);
+        clock.advance(Duration.ofMinutes(6));
+        List<TimeseriesBucket> expired = readRates("2024-01-10T00:00:00Z", "2024-01-10T01:09:00Z", BucketWidth.ONE_MINUTE, null, null, null);
+
+        assertThat(cached).extracting(TimeseriesBucket::bucketStart)
+                          .doesNotContain(Instant.parse("2024-01-10T00:40:00Z"))
+                          .contains(Instant.parse("2024-01-10T01:07:00Z"));
+        assertThat(expired).extracting(TimeseriesBucket::bucketStart)
+                           .contains(Instant.parse("2024-01-10T00:40:00Z"));
+        assertThat(meterRegistry.counter("cache.gets", "cache", "tag-read-timeseries", "result", "hit")
+                                .count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void readRates_shouldNotCacheChunksWithQueuedHours() {
+        clock = new MutableClock(Instant.parse("2024-06-01T00:00:00Z"));
+        timeseries = service();
+        insert("SiteA", "EPC3", "Dock1", -10.0, "2024-01-10T00:30:00Z");
+        markDirty("2024-01-10T00:00:00Z");
+
+        List<TimeseriesBucket> queued = readRates("2024-01-01T00:00:00Z", "2024-01-31T00:00:00Z", BucketWidth.ONE_DAY, null, null, null);
+        insert("SiteA", "EPC3", "Dock1", -10.0, "2024-01-10T00:45:00Z");
+        List<TimeseriesBucket> requeried = readRates("2024-01-01T00:00:00Z", "2024-01-31T00:00:00Z", BucketWidth.ONE_DAY, null, null, null);
+        maintainer.refresh();
+        readRates("2024-01-01T00:00:00Z", "2024-01-31T00:00:00Z", BucketWidth.ONE_DAY, null, null, null);
+        readRates("2024-01-01T00:00:00Z", "2024-01-31T00:00:00Z", BucketWidth.ONE_DAY, null, null, null);
+
+        assertThat(queued).extracting(TimeseriesBucket::readCount)
+                          .containsExactly(5L, 1L);
+        assertThat(requeried).extracting(TimeseriesBucket::readCount)
+                             .containsExactly(6L, 1L);
+        assertThat(meterRegistry.counter("cache.gets", "cache", "tag-read-timeseries", "result", "hit")
+                                .count()).isPositive();
+    }
+
+    @Test
+    void readRates_shouldRejectInvalidRanges() {
+        assertThatThrownBy(() -> readRates("2024-01-10T00:00:00Z", "2024-01-09T00:00:00Z", BucketWidth.ONE_HOUR, null, null, null)).isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> readRates("2024-01-01T00:00:00Z", "2024-01-02T00:00:00Z", BucketWidth.ONE_MINUTE, null, null, null)).isInstanceOf(InvalidRequestException.class)
+                                                                                                                                      .hasMessageContaining("1441");
+    }
+
+    private TimeseriesService service() {
+        meterRegistry = new SimpleMeterRegistry();
+        return new JdbcTimeseriesService(jdbcTemplate,
+                                         dictionary,
+                                         meterRegistry,
+                                         1440,
+                                         true,
+                                         100,
+                                         Duration.ofMinutes(5),
+                                         Duration.ofMinutes(2),
+                                         clock);
+    }
+
+    private List<TimeseriesBucket> readRates(String from, String to, BucketWidth width, String siteName, String location, String epc) {
+        return timeseries.readRates(Instant.parse(from),
+                                    Instant.parse(to),
+                                    width,
+                                    Optional.ofNullable(siteName),
+                                    Optional.ofNullable(location),
+                                    Optional.ofNullable(epc));
+    }
+
+    private void markDirty(String... hours) {
+        for (String hour : hours) {
+            jdbcTemplate.update("insert ignore into tag_read_rollup_dirty (bucket_start) values (?)", Timestamp.from(Instant.parse(hour)));
+        }
+    }
+
+    private void insert(String site, String epc, String location, double rssi, String isoInstant) {
+        jdbcTemplate.update("insert into tag_reads (id, site_id, epc_id, reference_code, location_id, rssi, read_at) values (uuid_to_bin(uuid()),?,?,?,?,?,?)",
+                            dictionary.idFor(Dimension.SITE, site),
+                            dictionary.idFor(Dimension.EPC, epc),
+                            "REF",
+                            dictionary.idFor(Dimension.LOCATION, location),
+                            rssi,
+                            Timestamp.from(Instant.parse(isoInstant)));
+    }
+}
@@ -0,0 +1,172 @@
+package com.anexya.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.anexya.app.domain.TagSummary;
+import com.anexya.app.repository.Dimension;
+import com.anexya.app.repository.DimensionDictionary;
+import com.anexya.app.repository.impl.JdbcDimensionDictionary;
+import com.anexya.app.repository.impl.ParallelQueryRunner;
+import com.anexya.app.service.impl.JdbcAggregationStrategy;
+import com.anexya.app.service.impl.ParallelAggregationStrategy;
+
+@Testcontainers
+@TestInstance(Lifecycle.PER_CLASS)
+class ParallelAggregationStrategyTest {
+
+    private static final String IMAGE = "mysql:8.0";
+
+    @SuppressWarnings("resource")
+    @Container
+    private static final MySQLContainer<?> mysql = new MySQLContainer<>(IMAGE).withDatabaseName("testdb")
+                                                                              .withUsername("test")
+                                                                              .withPassword("test");
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private JdbcTemplate jdbcTemplate;
+    private DimensionDictionary dictionary;
+    private ParallelQueryRunner queryRunner;
+    private AggregationStrategy raw;
+
+    @BeforeAll
+    void setUpDataSource() {
+        DataSource dataSource = new DriverManagerDataSource(Objects.requireNonNull(mysql.getJdbcUrl()),
+                                                            Objects.requireNonNull(mysql.getUsername()),
+                                                            Objects.requireNonNull(mysql.getPassword()));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        Flyway.configure()
+              .dataSource(dataSource)
+              .locations("classpath:db/migration/testmysql")
+              .load()
+              .migrate();
+        dictionary = new JdbcDimensionDictionary(jdbcTemplate, 1000);
+        queryRunner = new ParallelQueryRunner(executor, 2);
+        raw = new JdbcAggregationStrategy(jdbcTemplate, dictionary);
+    }
+
+    @AfterAll
+    void shutDown() {
+        executor.shutdownNow();
+    }
+
+    @BeforeEach
+    void seed() {
+        clean();
+        insert("SiteA", "EPC1", "Dock1", -40.0, "2024-02-10T00:15:00Z");
+        insert("SiteA", "EPC1", "Dock2", -42.0, "2024-03-31T23:59:59.999999Z");
+        insert("SiteA", "EPC1", "Dock2", -30.0, "2024-04-01T00:00:00Z");
+        insert("SiteA", "EPC1", "Dock1", -35.5, "2024-08-12T23:30:00Z");
+        insert("SiteA", "EPC1", "Dock1", -41.0, "2024-10-01T00:00:00Z");
+        insert("SiteB", "EPC2", "Dock3", -20.0, "2024-05-11T06:10:00Z");
+        insert("SiteB", "EPC2", "Dock4", -25.0, "2024-12-31T23:59:59Z");
+    }
+
+    @AfterEach
+    void clean() {
+        jdbcTemplate.execute("delete from tag_reads");
+    }
+
+    @Test
+    void summarize_quarterSlices_matchRawStrategy() {
+        AggregationStrategy parallel = new ParallelAggregationStrategy(jdbcTemplate, dictionary, queryRunner, Duration.ZERO, 64);
+
+        assertSameAsRaw(parallel, "2024-01-01T00:00:00Z", "2025-01-01T00:00:00Z", Optional.empty(), Optional.empty());
+        assertSameAsRaw(parallel, "2024-03-31T23:59:59.999999Z", "2024-10-01T00:00:00Z", Optional.empty(), Optional.empty());
+        assertSameAsRaw(parallel, "2024-02-01T00:00:00Z", "2024-09-30T00:00:00Z", Optional.of("SiteA"), Optional.empty());
+        assertSameAsRaw(parallel, "2024-01-01T00:00:00Z", "2024-12-31T23:59:59Z", Optional.empty(), Optional.of("EPC2"));
+    }
+
+    @Test
+    void summarize_fixedSlices_matchRawStrategy() {
+        AggregationStrategy parallel = new ParallelAggregationStrategy(jdbcTemplate, dictionary, queryRunner, Duration.ofDays(7), 64);
+
+        assertSameAsRaw(parallel, "2024-01-01T00:00:00Z", "2025-01-01T00:00:00Z", Optional.empty(), Optional.empty());
+        assertSameAsRaw(parallel, "2024-04-01T00:00:00Z", "2024-04-01T00:00:00Z", Optional.empty(), Optional.empty());
+    }
+
+    @Test
+    void summarize_slicesPastTheCap_areJoinedOrWidened() {
+        AggregationStrategy quarters = new ParallelAggregationStrategy(jdbcTemplate, dictionary, queryRunner, Duration.ZERO, 2);
+        // one-second slices over a year would be 31M queries without the cap
+        AggregationStrategy seconds = new ParallelAggregationStrategy(jdbcTemplate, dictionary, queryRunner, Duration.ofSeconds(1), 3);
+
+        assertSameAsRaw(quarters, "2024-01-01T00:00:00Z", "2025-01-01T00:00:00Z", Optional.empty(), Optional.empty());
+        assertSameAsRaw(seconds, "2024-01-01T00:00:00Z", "2025-01-01T00:00:00Z", Optional.empty(), Optional.empty());
+        assertSameAsRaw(seconds, "2024-03-31T23:59:59.999999Z", "2024-04-01T00:00:00Z", Optional.empty(), Optional.empty());
+    }
+
+    @Test
+    void constructor_shouldRejectNegativeSliceSizeAndNonPositiveCap() {
+        assertThatThrownBy(() -> new ParallelAggregationStrategy(jdbcTemplate, dictionary, queryRunner, Duration.ofDays(-1), 64)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ParallelAggregationStrategy(jdbcTemplate, dictionary, queryRunner, Duration.ZERO, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void summarize_unknownSite_returnsEmpty() {
+        AggregationStrategy parallel = new ParallelAggregationStrategy(jdbcTemplate, dictionary, queryRunner, Duration.ZERO, 64);
+
+        assertThat(parallel.summarizeByTag(Instant.parse("2024-01-01T00:00:00Z"),
+                                           Instant.parse("2025-01-01T00:00:00Z"),
+                                           Optional.of("SiteZ"),
+                                           Optional.empty())).isEmpty();
+    }
+
+    private void assertSameAsRaw(AggregationStrategy parallel, String from, String to, Optional<String> siteName, Optional<String> epc) {
+        List<TagSummary> expected = sorted(raw.summarizeByTag(Instant.parse(from), Instant.parse(to), siteName, epc));
+        List<TagSummary> actual = sorted(parallel.summarizeByTag(Instant.parse(from), Instant.parse(to), siteName, epc));
+
+        assertThat(actual).hasSameSizeAs(expected);
+        for (int i = 0; i < expected.size(); i++) {
+            TagSummary want = expected.get(i);
+            TagSummary got = actual.get(i);
+            assertThat(got).usingRecursiveComparison()
+                           .ignoringFields("averageRssi")
+                           .isEqualTo(want);
+            assertThat(got.averageRssi()).isCloseTo(want.averageRssi(), within(1e-9));
+        }
+    }
+
+    private static List<TagSummary> sorted(List<TagSummary> summaries) {
+        return summaries.stream()
+                        .sorted(Comparator.comparing(TagSummary::epc))
+                        .toList();
+    }
+
+    private void insert(String site, String epc, String location, double rssi, String isoInstant) {
+        jdbcTemplate.update("insert into tag_reads (id, site_id, epc_id, reference_code, location_id, rssi, read_at) values (uuid_to_bin(uuid()),?,?,?,?,?,?)",
+                            dictionary.idFor(Dimension.SITE, site),
+                            dictionary.idFor(Dimension.EPC, epc),
+                            "REF",
+                            dictionary.idFor(Dimension.LOCATION, location),
+                            rssi,
+                            Timestamp.from(Instant.parse(isoInstant)));
+    }
+}
@@ -0,0 +1,246 @@
+package com.anexya.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.assertj.core.api.Assertions.withinPercentage;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.anexya.app.domain.DimensionSummary;
+import com.anexya.app.domain.SummaryDimension;
+import com.anexya.app.domain.TagSummary;
+import com.anexya.app.repository.Dimension;
+import com.anexya.app.repository.DimensionDictionary;
+import com.anexya.app.repository.impl.JdbcDimensionDictionary;
+import com.anexya.app.repository.impl.RollupMaintainer;
+import com.anexya.app.service.impl.JdbcAggregationStrategy;
+import com.anexya.app.service.impl.RollupAggregationStrategy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@Testcontainers
+@TestInstance(Lifecycle.PER_CLASS)
+class RollupAggregationStrategyTest {
+
+    private static final String IMAGE = "mysql:8.0";
+
+    @SuppressWarnings("resource")
+    @Container
+    private static final MySQLContainer<?> mysql = new MySQLContainer<>(IMAGE).withDatabaseName("testdb")
+                                                                              .withUsername("test")
+                                                                              .withPassword("test");
+
+    private JdbcTemplate jdbcTemplate;
+    private DimensionDictionary dictionary;
+    private RollupMaintainer maintainer;
+    private AggregationStrategy rollups;
+    private AggregationStrategy raw;
+
+    @BeforeAll
+    void setUpDataSource() {
+        DataSource dataSource = new DriverManagerDataSource(Objects.requireNonNull(mysql.getJdbcUrl()),
+                                                            Objects.requireNonNull(mysql.getUsername()),
+                                                            Objects.requireNonNull(mysql.getPassword()));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        Flyway.configure()
+              .dataSource(dataSource)
+              .locations("classpath:db/migration/testmysql")
+              .load()
+              .migrate();
+        dictionary = new JdbcDimensionDictionary(jdbcTemplate, 1000);
+        maintainer = new RollupMaintainer(jdbcTemplate, new SimpleMeterRegistry(), true, false, Duration.ofSeconds(30), 1000);
+        rollups = new RollupAggregationStrategy(jdbcTemplate, dictionary);
+        raw = new JdbcAggregationStrategy(jdbcTemplate, dictionary);
+    }
+
+    @BeforeEach
+    void seed() {
+        clean();
+        insert("SiteA", "EPC1", "Dock1", -40.0, "2024-01-10T00:15:00Z");
+        insert("SiteA", "EPC1", "Dock1", -42.0, "2024-01-10T09:59:59.999999Z");
+        insert("SiteA", "EPC1", "Dock2", -30.0, "2024-01-11T12:00:00Z");
+        insert("SiteA", "EPC1", "Dock2", -35.5, "2024-01-12T23:30:00Z");
+        insert("SiteA", "EPC1", "Dock1", -41.0, "2024-01-13T00:45:00Z");
+        insert("SiteB", "EPC2", "Dock3", -20.0, "2024-01-11T06:10:00Z");
+        insert("SiteB", "EPC2", "Dock3", -25.0, "2024-01-14T02:00:00Z");
+        markAllDirty();
+        maintainer.refresh();
+    }
+
+    @AfterEach
+    void clean() {
+        jdbcTemplate.execute("delete from tag_read_rollup_backfill");
+        jdbcTemplate.execute("delete from tag_read_rollup_dirty");
+        jdbcTemplate.execute("delete from tag_read_rollup_hourly");
+        jdbcTemplate.execute("delete from tag_read_rollup_daily");
+        jdbcTemplate.execute("delete from tag_reads");
+    }
+
+    @Test
+    void refresh_shouldDrainTheDirtyQueue() {
+        assertThat(jdbcTemplate.queryForObject("select count(*) from tag_read_rollup_dirty", Integer.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("select sum(read_count) from tag_read_rollup_daily", Integer.class)).isEqualTo(7);
+    }
+
+    @Test
+    void refresh_shouldBackfillReadsWrittenBeforeTheRollupsExisted() {
+        jdbcTemplate.execute("delete from tag_read_rollup_hourly");
+        jdbcTemplate.execute("delete from tag_read_rollup_daily");
+        jdbcTemplate.update("insert into tag_read_rollup_backfill (id) values (1)");
+
+        assertSameAsRaw("2024-01-01T00:00:00Z", "2024-02-01T00:00:00Z", Optional.empty(), Optional.empty());
+        maintainer.refresh();
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from tag_read_rollup_backfill", Integer.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("select sum(read_count) from tag_read_rollup_daily", Integer.class)).isEqualTo(7);
+        assertSameAsRaw("2024-01-10T00:30:00Z", "2024-01-13T00:45:00Z", Optional.empty(), Optional.empty());
+    }
+
+    @Test
+    void summarize_shouldMatchRawStrategyAcrossPartialHoursAndDays() {
+        assertSameAsRaw("2024-01-01T00:00:00Z", "2024-02-01T00:00:00Z", Optional.empty(), Optional.empty());
+        assertSameAsRaw("2024-01-10T00:30:00Z", "2024-01-13T00:45:00Z", Optional.empty(), Optional.empty());
+        assertSameAsRaw("2024-01-10T09:59:59.999999Z", "2024-01-12T23:59:59Z", Optional.of("SiteA"), Optional.empty());
+        assertSameAsRaw("2024-01-11T05:00:00Z", "2024-01-11T07:00:00Z", Optional.empty(), Optional.of("EPC2"));
+    }
+
+    @Test
+    void summarize_shouldReadQueuedHoursFromRawRows() {
+        insert("SiteA", "EPC1", "Dock3", -10.0, "2024-01-11T12:30:00Z");
+        jdbcTemplate.update("insert into tag_read_rollup_dirty (bucket_start) values (?)", Timestamp.from(Instant.parse("2024-01-11T12:00:00Z")));
+
+        assertSameAsRaw("2024-01-09T00:00:00Z", "2024-01-15T00:00:00Z", Optional.empty(), Optional.empty());
+        assertThat(rollups.summarizeByTag(Instant.parse("2024-01-09T00:00:00Z"),
+                                          Instant.parse("2024-01-15T00:00:00Z"),
+                                          Optional.empty(),
+                                          Optional.of("EPC1"))).singleElement()
+                                                               .extracting(TagSummary::peakRssi)
+                                                               .isEqualTo(-10.0);
+    }
+
+    @Test
+    void summarize_shouldMergeRssiSketchesOfRollupsAndRawParts() {
+        assertQuantiles("2024-01-01T00:00:00Z", "2024-02-01T00:00:00Z", -40.0, -35.5, -35.5);
+        // -40.0 at 00:15 falls outside; the partial hours at either end come from raw rows
+        assertQuantiles("2024-01-10T00:30:00Z", "2024-01-13T00:45:00Z", -41.0, -35.5, -35.5);
+    }
+
+    @Test
+    void summarize_rollupWithoutSketch_omitsQuantiles() {
+        jdbcTemplate.update("update tag_read_rollup_daily set rssi_sketch = null");
+
+        assertThat(rollups.summarizeByTag(Instant.parse("2024-01-01T00:00:00Z"),
+                                          Instant.parse("2024-02-01T00:00:00Z"),
+                                          Optional.empty(),
+                                          Optional.of("EPC1"))).singleElement()
+                                                               .extracting(TagSummary::rssiP50)
+                                                               .isNull();
+    }
+
+    @Test
+    void summarize_unknownEpc_returnsEmpty() {
+        assertThat(rollups.summarizeByTag(Instant.parse("2024-01-01T00:00:00Z"),
+                                          Instant.parse("2024-02-01T00:00:00Z"),
+                                          Optional.empty(),
+                                          Optional.of("EPC-Z"))).isEmpty();
+    }
+
+    @Test
+    void summarizeBy_shouldMatchRawStrategyForEveryDimension() {
+        insert("SiteA", "EPC2", "Dock3", -50.0, "2024-01-11T12:30:00Z");
+        jdbcTemplate.update("insert into tag_read_rollup_dirty (bucket_start) values (?)", Timestamp.from(Instant.parse("2024-01-11T12:00:00Z")));
+
+        for (SummaryDimension dimension : SummaryDimension.values()) {
+            assertSameAsRaw(dimension, "2024-01-01T00:00:00Z", "2024-02-01T00:00:00Z", Optional.empty(), Optional.empty());
+            assertSameAsRaw(dimension, "2024-01-10T00:30:00Z", "2024-01-13T00:45:00Z", Optional.empty(), Optional.empty());
+            assertSameAsRaw(dimension, "2024-01-10T09:59:59.999999Z", "2024-01-12T23:59:59Z", Optional.of("SiteA"), Optional.empty());
+            assertSameAsRaw(dimension, "2024-01-09T00:00:00Z", "2024-01-15T00:00:00Z", Optional.empty(), Optional.of("EPC2"));
+        }
+    }
+
+    private void assertSameAsRaw(SummaryDimension dimension, String from, String to, Optional<String> siteName, Optional<String> epc) {
+        List<DimensionSummary> expected = raw.summarizeBy(dimension, Instant.parse(from), Instant.parse(to), siteName, epc);
+        List<DimensionSummary> actual = rollups.summarizeBy(dimension, Instant.parse(from), Instant.parse(to), siteName, epc);
+
+        assertThat(actual).hasSameSizeAs(expected);
+        for (int i = 0; i < expected.size(); i++) {
+            DimensionSummary want = expected.get(i);
+            DimensionSummary got = actual.get(i);
+            assertThat(got).usingRecursiveComparison()
+                           .ignoringFields("averageRssi")
+                           .isEqualTo(want);
+            assertThat(got.averageRssi()).isCloseTo(want.averageRssi(), within(1e-9));
+        }
+    }
+
+    private void assertSameAsRaw(String from, String to, Optional<String> siteName, Optional<String> epc) {
+        List<TagSummary> expected = sorted(raw.summarizeByTag(Instant.parse(from), Instant.parse(to), siteName, epc));
+        List<TagSummary> actual = sorted(rollups.summarizeByTag(Instant.parse(from), Instant.parse(to), siteName, epc));
+
+        assertThat(actual).hasSameSizeAs(expected);
+        for (int i = 0; i < expected.size(); i++) {
+            TagSummary want = expected.get(i);
+            TagSummary got = actual.get(i);
+            assertThat(got).usingRecursiveComparison()
+                           .ignoringFields("averageRssi", "rssiP50", "rssiP90", "rssiP99")
+                           .isEqualTo(want);
+            assertThat(got.averageRssi()).isCloseTo(want.averageRssi(), within(1e-9));
+        }
+    }
+
+    private void assertQuantiles(String from, String to, double p50, double p90, double p99) {
+        TagSummary summary = rollups.summarizeByTag(Instant.parse(from), Instant.parse(to), Optional.empty(), Optional.of("EPC1"))
+                                    .get(0);
+
+        assertThat(summary.rssiP50()).isCloseTo(p50, withinPercentage(1));
+        assertThat(summary.rssiP90()).isCloseTo(p90, withinPercentage(1));
+        assertThat(summary.rssiP99()).isCloseTo(p99, withinPercentage(1));
+    }
+
+    private static List<TagSummary> sorted(List<TagSummary> summaries) {
+        return summaries.stream()
+                        .sorted(Comparator.comparing(TagSummary::epc))
+                        .toList();
+    }
+
+    private void markAllDirty() {
+        jdbcTemplate.query("select distinct read_at from tag_reads", rs -> {
+            jdbcTemplate.update("insert ignore into tag_read_rollup_dirty (bucket_start) values (?)",
+                                Timestamp.from(rs.getTimestamp("read_at")
+                                                 .toInstant()
+                                                 .truncatedTo(ChronoUnit.HOURS)));
+        });
+    }
+
+    private void insert(String site, String epc, String location, double rssi, String isoInstant) {
+        jdbcTemplate.update("insert into tag_reads (id, site_id, epc_id, reference_code, location_id, rssi, read_at) values (uuid_to_bin(uuid()),?,?,?,?,?,?)",
+                            dictionary.idFor(Dimension.SITE, site),
+                            dictionary.idFor(Dimension.EPC, epc),
+                            "REF",
+                            dictionary.idFor(Dimension.LOCATION, location),
+                            rssi,
+                            Timestamp.from(Instant.parse(isoInstant)));
+    }
+}
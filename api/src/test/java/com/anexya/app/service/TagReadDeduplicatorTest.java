@@ -0,0 +1,182 @@
+package com.anexya.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.anexya.app.domain.TagRead;
+import com.anexya.app.service.impl.TagReadDeduplicator;
+import com.anexya.app.service.impl.TagReadDeduplicator.Admission;
+import com.anexya.app.service.impl.TagReadDeduplicator.Mode;
+import com.anexya.app.util.MutableClock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TagReadDeduplicatorTest {
+    private static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MutableClock clock = new MutableClock(T0);
+
+    @Test
+    void admit_shouldSuppressDuplicatesWithinWindow() {
+        TagReadDeduplicator dedup = dedup(Mode.FIRST, 100);
+        TagRead first = read("EPC1", "Dock1", -50.0, T0);
+
+        Admission a1 = dedup.admit(first);
+        clock.advance(Duration.ofMillis(200));
+        Admission a2 = dedup.admit(read("EPC1", "Dock1", -30.0, T0.plusMillis(200)));
+
+        assertThat(a1.suppressed()).isFalse();
+        assertThat(a2.suppressed()).isTrue();
+        assertThat(a2.read()
+                     .id()).isEqualTo(first.id());
+        assertThat(meterRegistry.counter("tag_reads.dedup.passed")
+                                .count()).isEqualTo(1.0);
+        assertThat(meterRegistry.counter("tag_reads.dedup.suppressed")
+                                .count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void admit_shouldRewriteKeptRowWhenStrongerInStrongestMode() {
+        TagReadDeduplicator dedup = dedup(Mode.STRONGEST, 100);
+        TagRead first = read("EPC1", "Dock1", -50.0, T0);
+        dedup.admit(first);
+
+        Admission stronger = dedup.admit(read("EPC1", "Dock1", -30.0, T0.plusMillis(100)));
+        Admission weaker = dedup.admit(read("EPC1", "Dock1", -60.0, T0.plusMillis(200)));
+
+        assertThat(stronger.suppressed()).isFalse();
+        assertThat(stronger.read()
+                           .id()).isEqualTo(first.id());
+        assertThat(stronger.read()
+                           .rssi()).isEqualTo(-30.0);
+        assertThat(weaker.suppressed()).isTrue();
+        assertThat(weaker.read()
+                         .id()).isEqualTo(first.id());
+        assertThat(stronger.replacesExisting()).isTrue();
+        assertThat(stronger.replacedRssi()).isEqualTo(-50.0);
+    }
+
+    @Test
+    void admit_shouldPassDifferentKeysAndReadsOutsideWindow() {
+        TagReadDeduplicator dedup = dedup(Mode.FIRST, 100);
+        dedup.admit(read("EPC1", "Dock1", -50.0, T0));
+
+        assertThat(dedup.admit(read("EPC1", "Dock2", -50.0, T0))
+                        .suppressed()).isFalse();
+        assertThat(dedup.admit(read("EPC2", "Dock1", -50.0, T0))
+                        .suppressed()).isFalse();
+        assertThat(dedup.admit(read("EPC1", "Dock1", -50.0, T0.plusSeconds(2)))
+                        .suppressed()).isFalse();
+        clock.advance(Duration.ofSeconds(5));
+        assertThat(dedup.admit(read("EPC1", "Dock1", -50.0, T0.plusSeconds(2)))
+                        .suppressed()).isFalse();
+    }
+
+    @Test
+    void forget_shouldReopenWindowAfterFailedWrite() {
+        TagReadDeduplicator dedup = dedup(Mode.FIRST, 100);
+        TagRead first = read("EPC1", "Dock1", -50.0, T0);
+        dedup.admit(first);
+
+        dedup.forget(first);
+
+        assertThat(dedup.admit(read("EPC1", "Dock1", -50.0, T0))
+                        .suppressed()).isFalse();
+    }
+
+    @Test
+    void rollback_shouldRestorePreviousKeptReadAfterFailedReplacement() {
+        TagReadDeduplicator dedup = dedup(Mode.STRONGEST, 100);
+        TagRead first = read("EPC1", "Dock1", -50.0, T0);
+        dedup.admit(first);
+        Admission stronger = dedup.admit(read("EPC1", "Dock1", -30.0, T0.plusMillis(100)));
+
+        dedup.rollback(stronger);
+        Admission next = dedup.admit(read("EPC1", "Dock1", -40.0, T0.plusMillis(200)));
+
+        assertThat(next.suppressed()).isFalse();
+        assertThat(next.read()
+                       .id()).isEqualTo(first.id());
+        assertThat(next.replacedRssi()).isEqualTo(-50.0);
+    }
+
+    @Test
+    void rollback_shouldNotUndoALaterAdmission() {
+        TagReadDeduplicator dedup = dedup(Mode.STRONGEST, 100);
+        dedup.admit(read("EPC1", "Dock1", -50.0, T0));
+        Admission stronger = dedup.admit(read("EPC1", "Dock1", -40.0, T0.plusMillis(100)));
+        dedup.admit(read("EPC1", "Dock1", -30.0, T0.plusMillis(200)));
+
+        dedup.rollback(stronger);
+
+        assertThat(dedup.admit(read("EPC1", "Dock1", -35.0, T0.plusMillis(300)))
+                        .suppressed()).isTrue();
+    }
+
+    @Test
+    void sweep_shouldEvictExpiredWindowsBeforeTheTableFillsUp() {
+        TagReadDeduplicator dedup = dedup(Mode.FIRST, 1000);
+        dedup.admit(read("EPC1", "Dock1", -50.0, T0));
+        clock.advance(Duration.ofMillis(500));
+        dedup.admit(read("EPC2", "Dock1", -50.0, T0.plusMillis(500)));
+        clock.advance(Duration.ofMillis(600));
+
+        assertThat(dedup.sweep()).isEqualTo(1);
+        assertThat(dedup.size()).isEqualTo(1);
+        assertThat(meterRegistry.counter("tag_reads.dedup.swept")
+                                .count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void mayReplace_shouldOnlyHoldForEnabledStrongestMode() {
+        assertThat(dedup(Mode.STRONGEST, 100).mayReplace()).isTrue();
+        assertThat(dedup(Mode.FIRST, 100).mayReplace()).isFalse();
+        assertThat(new TagReadDeduplicator(meterRegistry, false, Mode.STRONGEST, Duration.ofSeconds(1), 100, clock).mayReplace()).isFalse();
+    }
+
+    @Test
+    void admit_shouldFailOpenWhenTableIsFullOfLiveWindows() {
+        TagReadDeduplicator dedup = dedup(Mode.FIRST, 16);
+        for (int i = 0; i < 200; i++) {
+            dedup.admit(read("EPC" + i, "Dock", -50.0, T0));
+        }
+
+        assertThat(dedup.size()).isLessThanOrEqualTo(16);
+        assertThat(meterRegistry.counter("tag_reads.dedup.passed")
+                                .count()).isEqualTo(200.0);
+    }
+
+    @Test
+    void admit_shouldPassEverythingWhenDisabled() {
+        TagReadDeduplicator dedup = new TagReadDeduplicator(meterRegistry, false, Mode.FIRST, Duration.ofSeconds(1), 100, clock);
+        TagRead read = read("EPC1", "Dock1", -50.0, T0);
+
+        assertThat(dedup.admit(read)
+                        .suppressed()).isFalse();
+        assertThat(dedup.admit(read)
+                        .suppressed()).isFalse();
+        assertThat(dedup.size()).isZero();
+    }
+
+    private TagReadDeduplicator dedup(Mode mode, int maxEntries) {
+        return new TagReadDeduplicator(meterRegistry, true, mode, Duration.ofSeconds(1), maxEntries, clock);
+    }
+
+    private static TagRead read(String epc, String location, double rssi, Instant readAt) {
+        return TagRead.builder()
+                      .id(UUID.randomUUID())
+                      .siteName("Site")
+                      .epc(epc)
+                      .referenceCode("REF")
+                      .location(location)
+                      .rssi(rssi)
+                      .readAt(readAt)
+                      .build();
+    }
+}
@@ -0,0 +1,289 @@
+package com.anexya.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.ExecutorServiceAdapter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.anexya.app.domain.DwellSummary;
+import com.anexya.app.domain.TagRead;
+import com.anexya.app.domain.TagVisit;
+import com.anexya.app.repository.Dimension;
+import com.anexya.app.repository.DimensionDictionary;
+import com.anexya.app.repository.impl.JdbcDimensionDictionary;
+import com.anexya.app.service.impl.JdbcVisitService;
+import com.anexya.app.service.impl.VisitSessionizer;
+import com.anexya.app.web.InvalidRequestException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@Testcontainers
+@TestInstance(Lifecycle.PER_CLASS)
+class VisitSessionizerTest {
+
+    private static final String IMAGE = "mysql:8.0";
+    private static final Duration IDLE_GAP = Duration.ofMinutes(30);
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-01-10T11:20:00Z"), ZoneOffset.UTC);
+
+    @SuppressWarnings("resource")
+    @Container
+    private static final MySQLContainer<?> mysql = new MySQLContainer<>(IMAGE).withDatabaseName("testdb")
+                                                                              .withUsername("test")
+                                                                              .withPassword("test");
+
+    private JdbcTemplate jdbcTemplate;
+    private DimensionDictionary dictionary;
+    private VisitSessionizer sessionizer;
+    private VisitService visits;
+
+    @BeforeAll
+    void setUpDataSource() {
+        DataSource dataSource = new DriverManagerDataSource(Objects.requireNonNull(mysql.getJdbcUrl()),
+                                                            Objects.requireNonNull(mysql.getUsername()),
+                                                            Objects.requireNonNull(mysql.getPassword()));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        Flyway.configure()
+              .dataSource(dataSource)
+              .locations("classpath:db/migration/testmysql")
+              .load()
+              .migrate();
+        dictionary = new JdbcDimensionDictionary(jdbcTemplate, 1000);
+        sessionizer = sessionizer(100000);
+        visits = new JdbcVisitService(jdbcTemplate, dictionary, IDLE_GAP, 1000, CLOCK);
+    }
+
+    @BeforeEach
+    @AfterEach
+    void clean() {
+        jdbcTemplate.execute("delete from tag_visits");
+        jdbcTemplate.execute("delete from tag_visits_rebuild");
+        jdbcTemplate.execute("delete from tag_current_state");
+        jdbcTemplate.execute("delete from tag_reads");
+    }
+
+    @Test
+    void readsInOrder_shouldSplitOnMovesAndIdleGaps() {
+        write(read("SiteA", "EPC1", "Dock1", -40.0, "2024-01-10T10:00:00Z"), read("SiteA", "EPC1", "Dock1", -44.0, "2024-01-10T10:10:00Z"));
+        write(read("SiteA", "EPC1", "Dock1", -42.0, "2024-01-10T10:20:00Z"));
+        write(read("SiteA", "EPC1", "Dock1", -50.0, "2024-01-10T10:50:00.000001Z"), read("SiteA", "EPC1", "Dock2", -30.0, "2024-01-10T11:05:00Z"));
+
+        List<TagVisit> history = visits.visits("EPC1", Optional.empty(), Optional.empty(), 100);
+
+        assertThat(history).extracting(TagVisit::location, TagVisit::enterAt, TagVisit::exitAt, TagVisit::readCount, TagVisit::open)
+                           .containsExactly(tuple("Dock2", Instant.parse("2024-01-10T11:05:00Z"), Instant.parse("2024-01-10T11:05:00Z"), 1L, true),
+                                            tuple("Dock1",
+                                                  Instant.parse("2024-01-10T10:50:00.000001Z"),
+                                                  Instant.parse("2024-01-10T10:50:00.000001Z"),
+                                                  1L,
+                                                  false),
+                                            tuple("Dock1", Instant.parse("2024-01-10T10:00:00Z"), Instant.parse("2024-01-10T10:20:00Z"), 3L, false));
+        assertThat(history.get(2)
+                          .averageRssi()).isEqualTo(-42.0);
+        assertThat(history.get(2)
+                          .peakRssi()).isEqualTo(-40.0);
+        assertThat(history.get(2)
+                          .dwell()).isEqualTo(Duration.ofMinutes(20));
+    }
+
+    @Test
+    void lateReads_shouldResessionizeTheEpc() {
+        write(read("SiteA", "EPC1", "Dock1", -40.0, "2024-01-10T10:00:00Z"), read("SiteA", "EPC1", "Dock1", -40.0, "2024-01-10T10:20:00Z"));
+        write(read("SiteA", "EPC1", "Dock1", -40.0, "2024-01-10T10:40:00Z"));
+        write(read("SiteA", "EPC1", "Dock2", -40.0, "2024-01-10T10:10:00Z"));
+
+        assertThat(visits.visits("EPC1", Optional.empty(), Optional.empty(), 100)).extracting(TagVisit::location, TagVisit::enterAt, TagVisit::readCount)
+                                                                                  .containsExactly(tuple("Dock1", Instant.parse("2024-01-10T10:20:00Z"), 2L),
+                                                                                                   tuple("Dock2", Instant.parse("2024-01-10T10:10:00Z"), 1L),
+                                                                                                   tuple("Dock1", Instant.parse("2024-01-10T10:00:00Z"), 1L));
+    }
+
+    @Test
+    void deletedReads_shouldResessionizeTheEpc() {
+        TagRead bridge = read("SiteA", "EPC1", "Dock1", -40.0, "2024-01-10T10:25:00Z");
+        write(read("SiteA", "EPC1", "Dock1", -40.0, "2024-01-10T10:00:00Z"), bridge, read("SiteA", "EPC1", "Dock1", -40.0, "2024-01-10T10:50:00Z"));
+        assertThat(visits.visits("EPC1", Optional.empty(), Optional.empty(), 100)).hasSize(1);
+
+        jdbcTemplate.update("delete from tag_reads where id = uuid_to_bin(?)",
+                            bridge.id()
+                                  .toString());
+        sessionizer.onTagReadsChanged(TagReadsChangedEvent.replaced(List.of(bridge)));
+        sessionizer.drain();
+
+        assertThat(visits.visits("EPC1", Optional.empty(), Optional.empty(), 100)).extracting(TagVisit::enterAt)
+                                                                                  .containsExactly(Instant.parse("2024-01-10T10:50:00Z"), Instant.parse("2024-01-10T10:00:00Z"));
+    }
+
+    @Test
+    void readsQueuedPastTheCap_shouldBeResessionizedFromTagReads() {
+        TagRead first = read("SiteA", "EPC1", "Dock1", -40.0, "2024-01-10T10:00:00Z");
+        TagRead second = read("SiteA", "EPC1", "Dock2", -40.0, "2024-01-10T10:05:00Z");
+        TagRead third = read("SiteA", "EPC2", "Dock1", -40.0, "2024-01-10T10:10:00Z");
+        VisitSessionizer capped = sessionizer(1);
+        VisitSessionizer previous = sessionizer;
+        sessionizer = capped;
+        try {
+            write(first);
+            write(second, third);
+        } finally {
+            sessionizer = previous;
+        }
+
+        assertThat(visits.visits("EPC1", Optional.empty(), Optional.empty(), 100)).extracting(TagVisit::location)
+                                                                                  .containsExactly("Dock2", "Dock1");
+        assertThat(visits.visits("EPC2", Optional.empty(), Optional.empty(), 100)).hasSize(1);
+    }
+
+    @Test
+    void incrementalVisits_shouldMatchAFullRebuild() {
+        Random random = new Random(7);
+        List<TagRead> reads = new ArrayList<>();
+        Instant at = Instant.parse("2024-01-10T00:00:00Z");
+        for (int i = 0; i < 400; i++) {
+            at = at.plusSeconds(1 + random.nextInt(2400));
+            reads.add(read("SiteA", "EPC" + random.nextInt(3), "Dock" + random.nextInt(2), -40.0 - random.nextInt(30), at.toString()));
+        }
+        // mostly in order, with some batches arriving late
+        List<List<TagRead>> batches = new ArrayList<>();
+        for (int from = 0; from < reads.size(); from += 10) {
+            batches.add(reads.subList(from, Math.min(from + 10, reads.size())));
+        }
+        for (int i = 0; i < batches.size() - 3; i += 4) {
+            Collections.swap(batches, i, i + 3);
+        }
+        batches.forEach(batch -> write(batch.toArray(TagRead[]::new)));
+        List<Map<String, Object>> incremental = storedVisits();
+
+        sessionizer.rebuildAll();
+
+        assertThat(incremental).hasSizeGreaterThan(3)
+                               .isEqualTo(storedVisits());
+        assertThat(incremental.stream()
+                              .mapToLong(visit -> ((Number) visit.get("read_count")).longValue())
+                              .sum()).isEqualTo(reads.size());
+    }
+
+    @Test
+    void dwellTimes_shouldSummarizeVisitsPerLocation() {
+        write(read("SiteA", "EPC1", "Dock1", -40.0, "2024-01-10T10:00:00Z"), read("SiteA", "EPC1", "Dock1", -40.0, "2024-01-10T10:20:00Z"));
+        write(read("SiteA", "EPC2", "Dock1", -40.0, "2024-01-10T10:05:00Z"), read("SiteA", "EPC2", "Dock1", -40.0, "2024-01-10T10:15:00Z"));
+        write(read("SiteA", "EPC1", "Dock2", -40.0, "2024-01-10T10:30:00Z"));
+
+        List<DwellSummary> summaries = visits.dwellTimes(Instant.parse("2024-01-10T00:00:00Z"),
+                                                         Instant.parse("2024-01-11T00:00:00Z"),
+                                                         Optional.of("SiteA"),
+                                                         Optional.empty());
+
+        assertThat(summaries).containsExactly(DwellSummary.builder()
+                                                          .siteName("SiteA")
+                                                          .location("Dock1")
+                                                          .visitCount(2)
+                                                          .epcCount(2)
+                                                          .averageDwellSeconds(900.0)
+                                                          .maxDwellSeconds(1200.0)
+                                                          .totalDwellSeconds(1800.0)
+                                                          .build(),
+                                              DwellSummary.builder()
+                                                          .siteName("SiteA")
+                                                          .location("Dock2")
+                                                          .visitCount(1)
+                                                          .epcCount(1)
+                                                          .averageDwellSeconds(0.0)
+                                                          .maxDwellSeconds(0.0)
+                                                          .totalDwellSeconds(0.0)
+                                                          .build());
+        assertThat(visits.dwellTimes(Instant.EPOCH, Instant.EPOCH, Optional.empty(), Optional.of("Dock9"))).isEmpty();
+    }
+
+    @Test
+    void visits_shouldRejectOutOfRangeLimits() {
+        assertThatThrownBy(() -> visits.visits("EPC1", Optional.empty(), Optional.empty(), 0)).isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> visits.visits("EPC1", Optional.empty(), Optional.empty(), 1001)).isInstanceOf(InvalidRequestException.class);
+    }
+
+    private List<Map<String, Object>> storedVisits() {
+        return jdbcTemplate.queryForList("select epc_id, site_id, location_id, enter_at, exit_at, read_count, rssi_sum, rssi_max from tag_visits "
+                + "order by epc_id, enter_at, location_id");
+    }
+
+    /**
+     * Stores the reads and their EPCs' current state the way the repository does, then publishes them.
+     */
+    private void write(TagRead... reads) {
+        for (TagRead read : reads) {
+            int epcId = dictionary.idFor(Dimension.EPC, read.epc());
+            int siteId = dictionary.idFor(Dimension.SITE, read.siteName());
+            int locationId = dictionary.idFor(Dimension.LOCATION, read.location());
+            jdbcTemplate.update("insert into tag_reads (id, site_id, epc_id, reference_code, location_id, rssi, read_at) values (uuid_to_bin(?),?,?,?,?,?,?)",
+                                read.id()
+                                    .toString(),
+                                siteId,
+                                epcId,
+                                read.referenceCode(),
+                                locationId,
+                                read.rssi(),
+                                Timestamp.from(read.readAt()));
+            jdbcTemplate.update("insert ignore into tag_current_state (epc_id, site_id, location_id, rssi, read_at, tag_read_id) values (?,?,?,?,?,uuid_to_bin(?))",
+                                epcId,
+                                siteId,
+                                locationId,
+                                read.rssi(),
+                                Timestamp.from(read.readAt()),
+                                read.id()
+                                    .toString());
+        }
+        sessionizer.onTagReadsChanged(TagReadsChangedEvent.inserted(List.of(reads)));
+        sessionizer.drain();
+    }
+
+    private VisitSessionizer sessionizer(int maxPendingReads) {
+        return new VisitSessionizer(jdbcTemplate,
+                                    dictionary,
+                                    new ExecutorServiceAdapter(new SyncTaskExecutor()),
+                                    new SimpleMeterRegistry(),
+                                    IDLE_GAP,
+                                    false,
+                                    maxPendingReads);
+    }
+
+    private static TagRead read(String site, String epc, String location, double rssi, String readAt) {
+        return TagRead.builder()
+                      .id(UUID.randomUUID())
+                      .siteName(site)
+                      .epc(epc)
+                      .referenceCode("REF")
+                      .location(location)
+                      .rssi(rssi)
+                      .readAt(Instant.parse(readAt))
+                      .build();
+    }
+}
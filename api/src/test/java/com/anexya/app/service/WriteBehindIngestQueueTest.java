@@ -0,0 +1,316 @@
+package com.anexya.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+
+import com.anexya.app.crypto.ReferenceCodeCrypto;
+import com.anexya.app.domain.TagRead;
+import com.anexya.app.domain.TagReadWriteResult;
+import com.anexya.app.repository.TagReadRepository;
+import com.anexya.app.service.impl.TagReadDeduplicator;
+import com.anexya.app.service.impl.WriteBehindIngestQueue;
+import com.anexya.app.service.impl.WriteBehindIngestQueue.Backpressure;
+import com.anexya.app.web.IngestQueueFullException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class WriteBehindIngestQueueTest {
+    private final TagReadRepository repository = mock(TagReadRepository.class);
+    private final TagReadDeduplicator deduplicator = mock(TagReadDeduplicator.class);
+    private final ReferenceCodeCrypto referenceCodeCrypto = mock(ReferenceCodeCrypto.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Integer> groupSizes = new CopyOnWriteArrayList<>();
+
+    @TempDir
+    Path deadLetterDir;
+
+    @Test
+    void submit_shouldCommitInGroupsAndFlushOnShutdown() throws Exception {
+        stubSaveAll(null);
+        WriteBehindIngestQueue queue = queue(true, 100, Backpressure.BLOCK);
+        queue.start();
+
+        IntStream.range(0, 25)
+                 .forEach(i -> queue.submit(read()));
+        queue.stop();
+
+        assertThat(groupSizes).allSatisfy(size -> assertThat(size).isLessThanOrEqualTo(10));
+        assertThat(groupSizes.stream()
+                             .mapToInt(Integer::intValue)
+                             .sum()).isEqualTo(25);
+        assertThat(meterRegistry.counter("tag_reads.write_behind.committed")
+                                .count()).isEqualTo(25.0);
+    }
+
+    @Test
+    void submit_shouldRejectWhenFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        stubSaveAll(release);
+        WriteBehindIngestQueue queue = queue(true, 1, Backpressure.REJECT);
+        queue.start();
+
+        queue.submit(read());
+        waitForCommitInProgress(queue);
+        queue.submit(read());
+
+        assertThatThrownBy(() -> queue.submit(read())).isInstanceOf(IngestQueueFullException.class);
+        release.countDown();
+        queue.stop();
+    }
+
+    @Test
+    void submit_shouldSpillToSynchronousWriteWhenFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        stubSaveAll(release);
+        WriteBehindIngestQueue queue = queue(true, 1, Backpressure.SPILL);
+        queue.start();
+
+        queue.submit(read());
+        waitForCommitInProgress(queue);
+        queue.submit(read());
+        TagRead spilled = read();
+        queue.submit(spilled);
+
+        verify(repository).save(spilled);
+        assertThat(meterRegistry.counter("tag_reads.write_behind.spilled")
+                                .count()).isEqualTo(1.0);
+        release.countDown();
+        queue.stop();
+    }
+
+    @Test
+    void submit_afterStop_shouldBeRejected() throws Exception {
+        WriteBehindIngestQueue queue = queue(true, 10, Backpressure.BLOCK);
+        queue.start();
+        queue.stop();
+
+        assertThatThrownBy(() -> queue.submit(read())).isInstanceOf(IngestQueueFullException.class)
+                                                      .hasMessageContaining("shutting down");
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void commit_shouldRetryGroupsThatFailTransiently() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        when(repository.saveAll(anyList())).thenAnswer(inv -> {
+            if (attempts.getAndIncrement() == 0) {
+                throw new CannotGetJdbcConnectionException("pool exhausted");
+            }
+            List<TagRead> reads = inv.getArgument(0);
+            return IntStream.range(0, reads.size())
+                            .mapToObj(i -> TagReadWriteResult.saved(i,
+                                                                    reads.get(i)
+                                                                         .id()))
+                            .toList();
+        });
+        WriteBehindIngestQueue queue = queue(true, 10, Backpressure.BLOCK);
+        queue.start();
+
+        queue.submit(read());
+        queue.submit(read());
+        queue.stop();
+
+        assertThat(meterRegistry.counter("tag_reads.write_behind.committed")
+                                .count()).isEqualTo(2.0);
+        assertThat(meterRegistry.counter("tag_reads.write_behind.retried")
+                                .count()).isPositive();
+        assertThat(deadLetterDir).isEmptyDirectory();
+    }
+
+    @Test
+    void commit_shouldDeadLetterReadsThatKeepFailing() throws Exception {
+        TagRead poison = read().toBuilder()
+                               .epc("POISON")
+                               .referenceCode("REF, \"quoted\"")
+                               .build();
+        when(repository.saveAll(anyList())).thenAnswer(inv -> {
+            List<TagRead> reads = inv.getArgument(0);
+            if (reads.contains(poison)) {
+                throw new DataIntegrityViolationException("bad row");
+            }
+            return List.of(TagReadWriteResult.saved(0,
+                                                    reads.get(0)
+                                                         .id()));
+        });
+        when(referenceCodeCrypto.encrypt("REF, \"quoted\"")).thenReturn("cipher\"text");
+        WriteBehindIngestQueue queue = queue(true, 10, Backpressure.BLOCK);
+        queue.start();
+
+        queue.submit(read());
+        queue.submit(poison);
+        queue.stop();
+
+        try (Stream<Path> files = Files.list(deadLetterDir)) {
+            Path file = files.findFirst()
+                             .orElseThrow();
+            assertThat(Files.readAllLines(file)).containsExactly("id,replacesExisting,siteName,epc,encryptedReferenceCode,location,rssi,readAt",
+                                                                 poison.id() + ",false,\"Site\",\"POISON\",\"cipher\"\"text\",\"Dock\",-40.0," + poison.readAt());
+            assertThat(Files.getPosixFilePermissions(file)).containsExactlyInAnyOrder(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE);
+        }
+        assertThat(meterRegistry.counter("tag_reads.write_behind.committed")
+                                .count()).isEqualTo(1.0);
+        assertThat(meterRegistry.counter("tag_reads.write_behind.dead_lettered")
+                                .count()).isEqualTo(1.0);
+        verify(deduplicator).forget(poison);
+    }
+
+    @Test
+    void commit_shouldDeadLetterReplacementsWithTheirIdAndFlag() throws Exception {
+        stubSaveAll(null);
+        TagRead kept = read();
+        TagRead stronger = kept.toBuilder()
+                               .rssi(-30.0)
+                               .build();
+        when(repository.replaceIfStronger(stronger)).thenThrow(new DataIntegrityViolationException("bad row"));
+        when(referenceCodeCrypto.encrypt("REF")).thenReturn("cipher");
+        WriteBehindIngestQueue queue = queue(true, 10, Backpressure.BLOCK);
+        queue.start();
+
+        queue.submit(kept);
+        queue.submit(stronger, true);
+        queue.stop();
+
+        try (Stream<Path> files = Files.list(deadLetterDir)) {
+            assertThat(Files.readAllLines(files.findFirst()
+                                               .orElseThrow())).containsExactly("id,replacesExisting,siteName,epc,encryptedReferenceCode,location,rssi,readAt",
+                                                                                kept.id() + ",true,\"Site\",\"EPC\",\"cipher\",\"Dock\",-30.0," + kept.readAt());
+        }
+    }
+
+    @Test
+    void commit_shouldApplyReplacementsConditionallyAfterInserts() throws Exception {
+        stubSaveAll(null);
+        TagRead kept = read();
+        TagRead stronger = kept.toBuilder()
+                               .rssi(-30.0)
+                               .build();
+        TagRead weaker = kept.toBuilder()
+                             .rssi(-35.0)
+                             .build();
+        when(repository.replaceIfStronger(stronger)).thenReturn(true);
+        when(repository.replaceIfStronger(weaker)).thenReturn(false);
+        WriteBehindIngestQueue queue = queue(true, 10, Backpressure.BLOCK);
+        queue.start();
+
+        queue.submit(kept);
+        queue.submit(stronger, true);
+        queue.submit(weaker, true);
+        queue.stop();
+
+        InOrder order = inOrder(repository);
+        order.verify(repository)
+             .saveAll(List.of(kept));
+        order.verify(repository)
+             .replaceIfStronger(stronger);
+        order.verify(repository)
+             .replaceIfStronger(weaker);
+        verify(repository, never()).save(any());
+        assertThat(meterRegistry.counter("tag_reads.write_behind.committed")
+                                .count()).isEqualTo(3.0);
+    }
+
+    @Test
+    void submit_shouldWriteThroughWhenDisabled() {
+        WriteBehindIngestQueue queue = queue(false, 10, Backpressure.BLOCK);
+        TagRead read = read();
+
+        queue.submit(read);
+
+        assertThat(queue.isEnabled()).isFalse();
+        verify(repository).save(read);
+        verify(repository, never()).saveAll(any());
+    }
+
+    @Test
+    void submit_shouldNotLetAWriteThroughOpeningReadOverwriteAStrongerReplacement() {
+        WriteBehindIngestQueue queue = queue(false, 10, Backpressure.BLOCK);
+        TagRead read = read();
+        when(deduplicator.mayReplace()).thenReturn(true);
+        when(repository.replaceIfStronger(read)).thenReturn(false);
+
+        queue.submit(read);
+
+        verify(repository, never()).save(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    private WriteBehindIngestQueue queue(boolean enabled, int capacity, Backpressure backpressure) {
+        return new WriteBehindIngestQueue(repository,
+                                          deduplicator,
+                                          referenceCodeCrypto,
+                                          eventPublisher,
+                                          meterRegistry,
+                                          enabled,
+                                          capacity,
+                                          10,
+                                          Duration.ofMillis(20),
+                                          backpressure,
+                                          Duration.ofMillis(10),
+                                          Duration.ofSeconds(5),
+                                          deadLetterDir);
+    }
+
+    private void stubSaveAll(CountDownLatch release) {
+        when(repository.saveAll(anyList())).thenAnswer(inv -> {
+            List<TagRead> reads = inv.getArgument(0);
+            groupSizes.add(reads.size());
+            if (release != null) {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return IntStream.range(0, reads.size())
+                            .mapToObj(i -> TagReadWriteResult.saved(i,
+                                                                    reads.get(i)
+                                                                         .id()))
+                            .toList();
+        });
+    }
+
+    private void waitForCommitInProgress(WriteBehindIngestQueue queue) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((groupSizes.isEmpty() || queue.depth() > 0) && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static TagRead read() {
+        return TagRead.builder()
+                      .id(UUID.randomUUID())
+                      .siteName("Site")
+                      .epc("EPC")
+                      .referenceCode("REF")
+                      .location("Dock")
+                      .rssi(-40.0)
+                      .readAt(Instant.now())
+                      .build();
+    }
+}
@@ -0,0 +1,119 @@
+package com.anexya.app.sketch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class QuantileSketchTest {
+    private static final double[] QUANTILES = { 0, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 1 };
+
+    @Test
+    void quantile_shouldStayWithinRelativeAccuracyOfExactRank() {
+        Random random = new Random(42);
+        double[] values = new double[50_000];
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = -20 - random.nextGaussian() * 15 - 30;
+            sketch.add(values[i]);
+        }
+
+        assertWithinAccuracy(sketch, values);
+        assertThat(sketch.count()).isEqualTo(values.length);
+    }
+
+    @Test
+    void quantile_shouldHandleZeroAndPositiveValues() {
+        double[] values = { -3.5, -1e-12, 0, 0, 2, 7.25, 1_000 };
+        QuantileSketch sketch = new QuantileSketch();
+        for (double value : values) {
+            sketch.add(value);
+        }
+
+        assertWithinAccuracy(sketch, values);
+        assertThat(sketch.quantile(0.5)).isZero();
+    }
+
+    @Test
+    void merge_shouldEqualSketchOfUnion() {
+        QuantileSketch left = new QuantileSketch();
+        QuantileSketch right = new QuantileSketch();
+        QuantileSketch union = new QuantileSketch();
+        for (int i = 1; i <= 1_000; i++) {
+            double value = i % 3 == 0 ? 0 : -i / 10.0;
+            (i % 2 == 0 ? left : right).add(value, i % 5 + 1);
+            union.add(value, i % 5 + 1);
+        }
+
+        left.merge(right);
+
+        assertThat(left.count()).isEqualTo(union.count());
+        assertThat(left.toBytes()).isEqualTo(union.toBytes());
+    }
+
+    @Test
+    void toBytes_shouldRoundTrip() {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.add(-71.5, 3);
+        sketch.add(-40, 1_000_000);
+        sketch.add(0);
+        sketch.add(12.5, 2);
+
+        QuantileSketch copy = QuantileSketch.fromBytes(sketch.toBytes());
+
+        assertThat(copy.count()).isEqualTo(sketch.count());
+        for (double q : QUANTILES) {
+            assertThat(copy.quantile(q)).isEqualTo(sketch.quantile(q));
+        }
+        assertThat(QuantileSketch.fromBytes(new QuantileSketch().toBytes())
+                                 .isEmpty()).isTrue();
+    }
+
+    @Test
+    void quantile_ofEmptySketch_isNaN() {
+        QuantileSketch sketch = new QuantileSketch();
+
+        assertThat(sketch.isEmpty()).isTrue();
+        assertThat(sketch.quantile(0.5)).isNaN();
+    }
+
+    @Test
+    void invalidArguments_shouldBeRejected() {
+        QuantileSketch sketch = new QuantileSketch();
+
+        assertThatThrownBy(() -> sketch.add(Double.NaN)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> sketch.add(Double.NEGATIVE_INFINITY)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> sketch.add(-40, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> sketch.quantile(1.5)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> sketch.quantile(-0.1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> sketch.quantile(Double.NaN)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void fromBytes_shouldRejectCorruptInput() {
+        byte[] valid = new QuantileSketch().toBytes();
+        byte[] wrongFormat = valid.clone();
+        wrongFormat[0] = 9;
+        byte[] overlongVarint = new byte[12];
+        Arrays.fill(overlongVarint, (byte) 0xFF);
+        overlongVarint[0] = valid[0];
+
+        assertThatThrownBy(() -> QuantileSketch.fromBytes(wrongFormat)).hasMessageContaining("format");
+        assertThatThrownBy(() -> QuantileSketch.fromBytes(new byte[0])).hasMessageContaining("Truncated");
+        assertThatThrownBy(() -> QuantileSketch.fromBytes(Arrays.copyOf(valid, 2))).hasMessageContaining("Truncated");
+        assertThatThrownBy(() -> QuantileSketch.fromBytes(overlongVarint)).hasMessageContaining("Malformed");
+    }
+
+    private static void assertWithinAccuracy(QuantileSketch sketch, double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double q : QUANTILES) {
+            double exact = sorted[(int) Math.floor(q * (sorted.length - 1))];
+            assertThat(sketch.quantile(q)).isCloseTo(exact, within(Math.abs(exact) * QuantileSketch.RELATIVE_ACCURACY + 1e-9));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.anexya.app.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.StringReader;
+
+import org.junit.jupiter.api.Test;
+
+class BoundedLineReaderTest {
+
+    @Test
+    void readLine_shouldSplitOnEveryTerminatorLikeBufferedReader() throws Exception {
+        BoundedLineReader reader = new BoundedLineReader(new StringReader("a\nb\r\nc\rd"), 10);
+
+        assertThat(reader.readLine()).isEqualTo("a");
+        assertThat(reader.readLine()).isEqualTo("b");
+        assertThat(reader.readLine()).isEqualTo("c");
+        assertThat(reader.readLine()).isEqualTo("d");
+        assertThat(reader.readLine()).isNull();
+    }
+
+    @Test
+    void readLine_shouldCutLongLinesAndSkipToTheNextOne() throws Exception {
+        BoundedLineReader reader = new BoundedLineReader(new StringReader("abcdefgh\nxy\n\n"), 4);
+
+        assertThat(reader.readLine()).isEqualTo("abcd");
+        assertThat(reader.truncated()).isTrue();
+        assertThat(reader.readLine()).isEqualTo("xy");
+        assertThat(reader.truncated()).isFalse();
+        assertThat(reader.readLine()).isEmpty();
+        assertThat(reader.readLine()).isNull();
+    }
+
+    @Test
+    void constructor_shouldRejectNonPositiveLength() {
+        assertThatThrownBy(() -> new BoundedLineReader(new StringReader(""), 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,52 @@
+package com.anexya.app.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class LongObjectMapTest {
+    @Test
+    void putGetRemove_shouldBehaveLikeHashMap() {
+        LongObjectMap<String> map = new LongObjectMap<>(4);
+        Map<Long, String> reference = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20_000; i++) {
+            long key = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                assertThat(map.remove(key)).isEqualTo(reference.remove(key));
+            } else {
+                String value = "v" + i;
+                assertThat(map.put(key, value)).isEqualTo(reference.put(key, value));
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(reference.size());
+        reference.forEach((k, v) -> assertThat(map.get(k)).isEqualTo(v));
+        Map<Long, String> copied = new HashMap<>();
+        map.forEach(copied::put);
+        assertThat(copied).isEqualTo(reference);
+    }
+
+    @Test
+    void removeIf_shouldRemoveMatchingEntriesOnly() {
+        LongObjectMap<Integer> map = new LongObjectMap<>();
+        for (int i = 0; i < 1_000; i++) {
+            map.put(i * 31L, i);
+        }
+
+        int removed = map.removeIf(v -> v % 2 == 0);
+
+        assertThat(removed).isEqualTo(500);
+        assertThat(map.size()).isEqualTo(500);
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(map.get(i * 31L)).isEqualTo(i % 2 == 0 ? null : i);
+        }
+        map.clear();
+        assertThat(map.isEmpty()).isTrue();
+    }
+}
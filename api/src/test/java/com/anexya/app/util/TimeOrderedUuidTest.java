@@ -0,0 +1,36 @@
+package com.anexya.app.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+class TimeOrderedUuidTest {
+    @Test
+    void at_shouldProduceVersion7WithEmbeddedTimestamp() {
+        Instant instant = Instant.parse("2024-05-01T12:34:56.789Z");
+
+        UUID uuid = TimeOrderedUuid.at(instant.toEpochMilli());
+
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+        assertThat(TimeOrderedUuid.timestampOf(uuid)).isEqualTo(instant);
+    }
+
+    @Test
+    void at_shouldSortByTimestampAsUnsignedBytes() {
+        UUID earlier = TimeOrderedUuid.at(1_700_000_000_000L);
+        UUID later = TimeOrderedUuid.at(1_700_000_000_001L);
+
+        assertThat(Long.compareUnsigned(earlier.getMostSignificantBits(), later.getMostSignificantBits())).isNegative();
+        assertThat(TimeOrderedUuid.next()).isNotEqualTo(TimeOrderedUuid.next());
+    }
+
+    @Test
+    void timestampOf_shouldRejectOtherVersions() {
+        assertThatThrownBy(() -> TimeOrderedUuid.timestampOf(UUID.randomUUID())).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,28 @@
+-- Asynchronous summary jobs. active_hash identifies the parameters of a queued or running job and is cleared when it
+-- finishes, so the unique key lets only one identical job be in flight.
+create table if not exists summary_jobs (
+    id binary(16) not null primary key,
+    status varchar(16) not null,
+    start_date datetime(6) not null,
+    end_date datetime(6) not null,
+    site_name varchar(255) null,
+    epc varchar(255) null,
+    active_hash binary(32) null,
+    submitted_at datetime(6) not null,
+    started_at datetime(6) null,
+    finished_at datetime(6) null,
+    result_count bigint null,
+    error varchar(1024) null,
+    unique key uk_summary_jobs_active_hash (active_hash),
+    index idx_summary_jobs_status_submitted (status, submitted_at),
+    index idx_summary_jobs_finished (finished_at)
+);
+
+-- gzip-compressed result rows, app.summary-jobs.chunk-rows per chunk, numbered from 0; purged with their job
+create table if not exists summary_job_results (
+    job_id binary(16) not null,
+    seq int not null,
+    chunk mediumblob not null,
+    primary key (job_id, seq),
+    constraint fk_summary_job_results_job foreign key (job_id) references summary_jobs (id) on delete cascade
+);
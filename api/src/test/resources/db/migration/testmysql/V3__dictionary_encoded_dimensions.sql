@@ -0,0 +1,53 @@
+-- Replace the repeated site_name / epc / location strings with integer surrogate keys.
+-- No foreign keys: partitioned InnoDB tables do not support them; the application interns values first.
+-- Values use a binary NO PAD collation so that EPCs, sites and locations differing only in case, accents or trailing
+-- spaces get distinct ids.
+
+create table if not exists dim_site (
+    id int not null auto_increment primary key,
+    value varchar(255) collate utf8mb4_0900_bin not null,
+    unique key uk_dim_site_value (value)
+);
+
+create table if not exists dim_location (
+    id int not null auto_increment primary key,
+    value varchar(255) collate utf8mb4_0900_bin not null,
+    unique key uk_dim_location_value (value)
+);
+
+create table if not exists dim_epc (
+    id int not null auto_increment primary key,
+    value varchar(255) collate utf8mb4_0900_bin not null,
+    unique key uk_dim_epc_value (value)
+);
+
+insert ignore into dim_site (value) select distinct site_name collate utf8mb4_0900_bin from tag_reads;
+insert ignore into dim_location (value) select distinct location collate utf8mb4_0900_bin from tag_reads;
+insert ignore into dim_epc (value) select distinct epc collate utf8mb4_0900_bin from tag_reads;
+
+alter table tag_reads
+    add column site_id int null after id,
+    add column epc_id int null after site_id,
+    add column location_id int null after reference_code;
+
+update tag_reads r
+    join dim_site s on s.value = r.site_name collate utf8mb4_0900_bin
+    join dim_epc e on e.value = r.epc collate utf8mb4_0900_bin
+    join dim_location l on l.value = r.location collate utf8mb4_0900_bin
+set r.site_id = s.id, r.epc_id = e.id, r.location_id = l.id;
+
+drop index idx_tag_reads_epc_read_at on tag_reads;
+drop index idx_tag_reads_site_read_at on tag_reads;
+drop index idx_tag_reads_location_read_at on tag_reads;
+
+alter table tag_reads
+    drop column site_name,
+    drop column epc,
+    drop column location,
+    modify column site_id int not null,
+    modify column epc_id int not null,
+    modify column location_id int not null;
+
+create index idx_tag_reads_epc_read_at on tag_reads (epc_id, read_at);
+create index idx_tag_reads_site_read_at on tag_reads (site_id, read_at);
+create index idx_tag_reads_location_read_at on tag_reads (location_id, read_at);
@@ -0,0 +1,48 @@
+-- Hourly and daily partial aggregates per (epc, site, location) for summaries. bucket_start is the UTC start of the
+-- bucket (the connection runs with serverTimezone=UTC). Hours touched by writes are queued in tag_read_rollup_dirty
+-- and recomputed from tag_reads by RollupMaintainer; a day is then recomputed from its hours.
+create table if not exists tag_read_rollup_hourly (
+    bucket_start datetime not null,
+    epc_id int not null,
+    site_id int not null,
+    location_id int not null,
+    read_count bigint not null,
+    rssi_sum double not null,
+    rssi_max double not null,
+    first_seen datetime(6) not null,
+    last_seen datetime(6) not null,
+    primary key (bucket_start, epc_id, site_id, location_id),
+    index idx_rollup_hourly_epc_bucket (epc_id, bucket_start),
+    index idx_rollup_hourly_site_bucket (site_id, bucket_start)
+);
+
+create table if not exists tag_read_rollup_daily (
+    bucket_start datetime not null,
+    epc_id int not null,
+    site_id int not null,
+    location_id int not null,
+    read_count bigint not null,
+    rssi_sum double not null,
+    rssi_max double not null,
+    first_seen datetime(6) not null,
+    last_seen datetime(6) not null,
+    primary key (bucket_start, epc_id, site_id, location_id),
+    index idx_rollup_daily_epc_bucket (epc_id, bucket_start),
+    index idx_rollup_daily_site_bucket (site_id, bucket_start)
+);
+
+-- generation is bumped on every mark so a refresh only clears the hours nobody wrote to while it ran
+create table if not exists tag_read_rollup_dirty (
+    bucket_start datetime not null primary key,
+    generation bigint not null default 1
+);
+
+-- Reads already in tag_reads are rolled up by RollupMaintainer in the background, newest day first; reads before
+-- covered_from (all of them while it is null) are not rolled up yet and summaries read them raw. The row is deleted
+-- once the backfill is done.
+create table if not exists tag_read_rollup_backfill (
+    id tinyint not null primary key,
+    covered_from datetime null
+);
+
+insert into tag_read_rollup_backfill (id) values (1);